@@ -216,6 +216,7 @@ public final class Secuboid extends JavaPlugin {
         }
 
         lands.loadConfig(isServerBoot);
+        lands.startSnapshotTask();
 
         // Start threads
         playersCache.start();
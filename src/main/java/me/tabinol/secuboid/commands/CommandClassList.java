@@ -55,6 +55,7 @@ enum CommandClassList {
     SALE(CommandSale.class),
     SELECT(CommandSelect.class),
     SETSPAWN(CommandSetspawn.class),
+    STATS(CommandStats.class),
     TOP(CommandTop.class),
     TP(CommandTp.class),
     TYPE(CommandType.class),
@@ -20,10 +20,11 @@ package me.tabinol.secuboid.commands;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -40,10 +41,10 @@ import me.tabinol.secuboid.commands.executor.CommandExec;
 import me.tabinol.secuboid.commands.executor.CommandHelp;
 import me.tabinol.secuboid.exceptions.SecuboidCommandException;
 import me.tabinol.secuboid.lands.Land;
-import me.tabinol.secuboid.lands.types.Type;
 import me.tabinol.secuboid.playercontainer.PlayerContainerType;
 import me.tabinol.secuboid.players.PlayerConfEntry;
 import me.tabinol.secuboid.selection.PlayerSelection;
+import me.tabinol.secuboid.utilities.PrefixIndex;
 import me.tabinol.secuboid.utilities.StringChanges;
 
 /**
@@ -51,11 +52,29 @@ import me.tabinol.secuboid.utilities.StringChanges;
  */
 public final class CommandListener implements CommandExecutor, TabCompleter {
 
+    /**
+     * The maximum number of tab completion results.
+     */
+    static final int MAX_COMPLETIONS = 100;
+
+    private static final List<String> BOOLEANS = Arrays.asList("false", "true");
+    private static final List<String> NUMBERS = Arrays.asList("1", "10", "100", "1000");
+
     private final Secuboid secuboid;
     private final Map<String, Class<? extends CommandExec>> commandToClass;
     private final List<String> consoleCommands;
     private final List<String> playerCommands;
 
+    /**
+     * The compiled completions of every command and alias.
+     */
+    private final Map<String, List<Completion>> commandToCompletions;
+
+    /**
+     * The player container types without the players.
+     */
+    private final List<String> playerContainerTypes;
+
     /**
      * Instantiates a new on command.
      *
@@ -69,6 +88,7 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
         commandToClass = new TreeMap<>();
         consoleCommands = new ArrayList<>();
         playerCommands = new ArrayList<>();
+        commandToCompletions = new HashMap<>();
 
         for (final CommandClassList presentClass : CommandClassList.values()) {
             // Store commands information
@@ -79,11 +99,23 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
                 addCommandToList(infoCommand, alias.toLowerCase(), commandClass);
             }
         }
+
+        playerContainerTypes = new ArrayList<>();
+        for (final PlayerContainerType pcType : PlayerContainerType.values()) {
+            if (pcType != PlayerContainerType.PLAYERNAME) {
+                if (pcType.hasParameter()) {
+                    playerContainerTypes.add(String.format("%s:", pcType.getOneLetterCode()));
+                } else {
+                    playerContainerTypes.add(pcType.getPrint());
+                }
+            }
+        }
     }
 
     private void addCommandToList(final InfoCommand infoCommand, final String command,
             final Class<? extends CommandExec> commandClass) {
         commandToClass.put(command, commandClass);
+        commandToCompletions.put(command, Completion.compile(infoCommand));
         playerCommands.add(command);
         if (infoCommand.allowConsole()) {
             consoleCommands.add(command);
@@ -115,29 +147,27 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
         if (args.length <= 1) {
             if (sender instanceof Player) {
                 // Player connected
-                return filterList(playerCommands, firstChars);
+                return filterList(playerCommands, firstChars, MAX_COMPLETIONS);
             }
             // Console?
-            return filterList(consoleCommands, firstChars);
+            return filterList(consoleCommands, firstChars, MAX_COMPLETIONS);
         }
 
         // Next arguments
 
         // Take command
-        final Class<? extends CommandExec> cv = commandToClass.get(args[0]);
-        if (cv == null) {
+        final List<Completion> completions = commandToCompletions.get(args[0].toLowerCase());
+        if (completions == null) {
             return Collections.emptyList();
         }
 
         // Take the line without the command
         final String line = StringChanges.arrayToString(args, 1, args.length - 2);
-        final InfoCommand ci = cv.getAnnotation(InfoCommand.class);
 
         // Find match with regex
-        for (final CompletionMap completionMap : ci.completion()) {
-            final Pattern pattern = Pattern.compile(completionMap.regex(), Pattern.CASE_INSENSITIVE);
-            if (pattern.matcher(line).matches()) {
-                return makeArgList(sender, completionMap.completions(), firstChars);
+        for (final Completion completion : completions) {
+            if (completion.pattern.matcher(line).matches()) {
+                return makeArgList(sender, completion.completions, firstChars);
             }
         }
 
@@ -148,48 +178,55 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
     private List<String> makeArgList(final CommandSender sender, final String[] completions, final String firstChars) {
         final List<String> argList = new ArrayList<>();
         for (final String completion : completions) {
+            final int maxResults = MAX_COMPLETIONS - argList.size();
+            if (maxResults <= 0) {
+                break;
+            }
             switch (completion) {
                 case "@approveLandList":
-                    argList.addAll(listApproveLandList(sender));
+                    argList.addAll(filterList(listApproveLandList(sender), firstChars, maxResults));
                     break;
                 case "@areaLand":
-                    argList.addAll(listAreaLand(sender));
+                    argList.addAll(filterList(listAreaLand(sender), firstChars, maxResults));
                     break;
                 case "@boolean":
-                    argList.addAll(listBoolean());
+                    argList.addAll(filterList(BOOLEANS, firstChars, maxResults));
                     break;
                 case "@command":
-                    argList.addAll(listCommand());
+                    argList.addAll(filterList(playerCommands, firstChars, maxResults));
                     break;
                 case "@flag":
-                    argList.addAll(listFlag());
+                    argList.addAll(secuboid.getPermissionsFlags().getRegisteredFlagTypeNames(firstChars, maxResults));
                     break;
                 case "@land":
-                    argList.addAll(listLand());
+                    argList.addAll(secuboid.getLands().getLandNamesStartingWith(firstChars, maxResults));
                     break;
                 case "@number":
-                    argList.addAll(Arrays.asList("1", "10", "100", "1000"));
+                    argList.addAll(filterList(NUMBERS, firstChars, maxResults));
                     break;
                 case "@player":
-                    argList.addAll(listPlayer());
+                    argList.addAll(secuboid.getPlayersCache().getPlayerNamesStartingWith(firstChars, maxResults));
                     break;
                 case "@playerContainer":
-                    argList.addAll(listPlayerContainer(firstChars));
+                    argList.addAll(listPlayerContainer(firstChars, maxResults));
                     break;
                 case "@permission":
-                    argList.addAll(listPermission());
+                    argList.addAll(
+                            secuboid.getPermissionsFlags().getRegisteredPermissionTypeNames(firstChars, maxResults));
                     break;
                 case "@type":
-                    argList.addAll(listType());
+                    argList.addAll(secuboid.getTypes().getTypeNamesStartingWith(firstChars, maxResults));
                     break;
                 default:
-                    argList.add(completion);
+                    if (PrefixIndex.startsWithIgnoreCase(completion, firstChars)) {
+                        argList.add(completion);
+                    }
             }
         }
-        return filterList(argList, firstChars);
+        return argList;
     }
 
-    private Set<String> listApproveLandList(final CommandSender sender) {
+    private Collection<String> listApproveLandList(final CommandSender sender) {
         if (sender.hasPermission("secuboid.collisionapprove")) {
             return secuboid.getLands().getApproves().getApproveList().keySet();
         }
@@ -210,72 +247,39 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
         return Collections.emptyList();
     }
 
-    private List<String> listBoolean() {
-        return Arrays.asList("false", "true");
-    }
-
-    private List<String> listCommand() {
-        return playerCommands;
-    }
-
-    private Set<String> listFlag() {
-        return secuboid.getPermissionsFlags().getRegisteredFlagTypeNames();
-    }
-
-    private List<String> listLand() {
-        final List<String> argList = new ArrayList<>();
-        for (final Land land : secuboid.getLands().getLands()) {
-            argList.add(land.getName());
-        }
-        return argList;
-    }
-
-    private Set<String> listPlayer() {
-        return secuboid.getPlayersCache().getPlayerNames();
-    }
-
-    private List<String> listPlayerContainer(final String firstChars) {
-        final List<String> argList = new ArrayList<>();
-        if (firstChars.matches("^.:")) {
+    private List<String> listPlayerContainer(final String firstChars, final int maxResults) {
+        if (firstChars.matches("^.:.*")) {
             switch (firstChars.substring(0, 1).toLowerCase()) {
                 case "b":
-                    argList.add("B:perm.perm");
-                    break;
+                    return filterList(Collections.singletonList("B:perm.perm"), firstChars, maxResults);
                 case "g":
-                    argList.add("G:group");
-                    break;
+                    return filterList(Collections.singletonList("G:group"), firstChars, maxResults);
                 case "p":
-                    argList.addAll(secuboid.getPlayersCache().getPlayerNames().stream()
-                            .map(playerName -> String.format("P:%s", playerName)).collect(Collectors.toList()));
-                    break;
+                    return secuboid.getPlayersCache().getPlayerNamesStartingWith(firstChars.substring(2), maxResults)
+                            .stream().map(playerName -> String.format("P:%s", playerName))
+                            .collect(Collectors.toList());
                 default:
-            }
-        } else {
-            argList.addAll(secuboid.getPlayersCache().getPlayerNames());
-            for (final PlayerContainerType pcType : PlayerContainerType.values()) {
-                if (pcType != PlayerContainerType.PLAYERNAME) {
-                    if (pcType.hasParameter()) {
-                        argList.add(String.format("%s:", pcType.getOneLetterCode()));
-                    } else {
-                        argList.add(pcType.getPrint());
-                    }
-                }
+                    return Collections.emptyList();
             }
         }
+        final List<String> argList = new ArrayList<>(
+                secuboid.getPlayersCache().getPlayerNamesStartingWith(firstChars, maxResults));
+        argList.addAll(filterList(playerContainerTypes, firstChars, maxResults - argList.size()));
         return argList;
     }
 
-    private Set<String> listPermission() {
-        return secuboid.getPermissionsFlags().getRegisteredPermissionTypeNames();
-    }
-
-    private List<String> listType() {
-        return secuboid.getTypes().getTypes().stream().map(Type::getName).collect(Collectors.toList());
-    }
-
-    private List<String> filterList(final List<String> matches, final String firstChars) {
-        return matches.stream().filter(match -> match.toLowerCase().startsWith(firstChars.toLowerCase()))
-                .collect(Collectors.toList());
+    private static List<String> filterList(final Collection<String> matches, final String firstChars,
+            final int maxResults) {
+        final List<String> argList = new ArrayList<>();
+        for (final String match : matches) {
+            if (argList.size() >= maxResults) {
+                break;
+            }
+            if (PrefixIndex.startsWithIgnoreCase(match, firstChars)) {
+                argList.add(match);
+            }
+        }
+        return argList;
     }
 
     /**
@@ -363,4 +367,27 @@ public final class CommandListener implements CommandExecutor, TabCompleter {
 
         return infoClass.getAnnotation(InfoCommand.class);
     }
+
+    /**
+     * A completion regex compiled once with its completions.
+     */
+    private static final class Completion {
+
+        private final Pattern pattern;
+        private final String[] completions;
+
+        private Completion(final Pattern pattern, final String[] completions) {
+            this.pattern = pattern;
+            this.completions = completions;
+        }
+
+        private static List<Completion> compile(final InfoCommand infoCommand) {
+            final List<Completion> completions = new ArrayList<>();
+            for (final CompletionMap completionMap : infoCommand.completion()) {
+                completions.add(new Completion(Pattern.compile(completionMap.regex(), Pattern.CASE_INSENSITIVE),
+                        completionMap.completions()));
+            }
+            return completions;
+        }
+    }
 }
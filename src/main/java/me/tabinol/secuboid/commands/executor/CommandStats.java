@@ -0,0 +1,82 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.commands.executor;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.commands.ArgList;
+import me.tabinol.secuboid.commands.InfoCommand;
+import me.tabinol.secuboid.exceptions.SecuboidCommandException;
+import me.tabinol.secuboid.permissionsflags.PermissionsCache;
+import me.tabinol.secuboid.storage.StorageThread;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * The Class CommandStats. Shows the performance statistics.
+ */
+@InfoCommand(name = "stats", allowConsole = true)
+public final class CommandStats extends CommandExec {
+
+    /**
+     * Instantiates a new command stats.
+     *
+     * @param secuboid    secuboid instance
+     * @param infoCommand the info command
+     * @param sender      the sender
+     * @param argList     the arg list
+     * @throws SecuboidCommandException the secuboid command exception
+     */
+    public CommandStats(Secuboid secuboid, InfoCommand infoCommand, CommandSender sender, ArgList argList)
+            throws SecuboidCommandException {
+
+        super(secuboid, infoCommand, sender, argList);
+    }
+
+    @Override
+    public void commandExecute() throws SecuboidCommandException {
+
+        checkPermission(false, false, null, "secuboid.stats");
+
+        sender.sendMessage(ChatColor.YELLOW + "[Secuboid] " + secuboid.getLanguage().getMessage("COMMAND.STATS.START"));
+
+        final PermissionsCache permissionsCache = secuboid.getPermissionsFlags().getPermissionsCache();
+        final long hits = permissionsCache.getHits();
+        final long misses = permissionsCache.getMisses();
+        sender.sendMessage(ChatColor.YELLOW + "[Secuboid] " + secuboid.getLanguage().getMessage(
+                "COMMAND.STATS.PERMISSIONCACHE", Long.toString(hits), Long.toString(misses), getRatio(hits, misses)));
+
+        final StorageThread storageThread = secuboid.getStorageThread();
+        final long saveRequests = storageThread.getSaveRequests();
+        final long mergedSaveRequests = storageThread.getMergedSaveRequests();
+        sender.sendMessage(ChatColor.YELLOW + "[Secuboid] " + secuboid.getLanguage().getMessage(
+                "COMMAND.STATS.STORAGEQUEUE", Integer.toString(storageThread.getQueueDepth()),
+                Long.toString(saveRequests), Long.toString(mergedSaveRequests),
+                getRatio(mergedSaveRequests, saveRequests - mergedSaveRequests)));
+        sender.sendMessage(ChatColor.YELLOW + "[Secuboid] " + secuboid.getLanguage().getMessage(
+                "COMMAND.STATS.LANDTRANSACTIONS", Long.toString(storageThread.getLandTransactions()),
+                Long.toString(storageThread.getLandTransactionSaveRequests())));
+    }
+
+    private static String getRatio(final long part, final long other) {
+        final long total = part + other;
+        if (total == 0) {
+            return "-";
+        }
+        return String.format("%.1f%%", part * 100d / total);
+    }
+}
@@ -126,6 +126,83 @@ public final class Config {
         return mySqlPrefix;
     }
 
+    private int mySqlPoolSize;
+
+    public int mySqlPoolSize() {
+        return mySqlPoolSize;
+    }
+
+    private int mySqlPoolIdleTimeout;
+
+    public int mySqlPoolIdleTimeout() {
+        return mySqlPoolIdleTimeout;
+    }
+
+    private int mySqlStatementCacheSize;
+
+    public int mySqlStatementCacheSize() {
+        return mySqlStatementCacheSize;
+    }
+
+    /**
+     * The write behind delay.
+     */
+    private long writeBehindDelay;
+
+    /**
+     * Gets the write behind delay: the quiet time in milliseconds before a
+     * modified land is saved.
+     *
+     * @return the write behind delay
+     */
+    public long getWriteBehindDelay() {
+        return writeBehindDelay;
+    }
+
+    /**
+     * The write behind max merged.
+     */
+    private int writeBehindMaxMerged;
+
+    /**
+     * Gets the maximum number of modifications merged in one land save.
+     *
+     * @return the write behind max merged
+     */
+    public int getWriteBehindMaxMerged() {
+        return writeBehindMaxMerged;
+    }
+
+    /**
+     * The flat load threads.
+     */
+    private int flatLoadThreads;
+
+    /**
+     * Gets the number of threads to parse the land files at startup, 0 for the
+     * number of processors.
+     *
+     * @return the flat load threads
+     */
+    public int getFlatLoadThreads() {
+        return flatLoadThreads;
+    }
+
+    /**
+     * The inventory evict time.
+     */
+    private long inventoryEvictTime;
+
+    /**
+     * Gets the time in seconds before an unused inventory of an online player is
+     * removed from memory, 0 to keep all of them.
+     *
+     * @return the inventory evict time
+     */
+    public long getInventoryEvictTime() {
+        return inventoryEvictTime;
+    }
+
     /**
      * The use economy.
      */
@@ -215,6 +292,35 @@ public final class Config {
         return allowCollision;
     }
 
+    /**
+     * The Enum AreaIndexType.
+     */
+    public enum AreaIndexType {
+
+        /**
+         * The legacy sorted lists by area limits.
+         */
+        SORTED,
+        /**
+         * The chunk-bucketed grid.
+         */
+        GRID
+    }
+
+    /**
+     * The area spatial index type.
+     */
+    private AreaIndexType areaIndexType;
+
+    /**
+     * Gets the area spatial index type.
+     *
+     * @return the area index type
+     */
+    public AreaIndexType getAreaIndexType() {
+        return areaIndexType;
+    }
+
     /**
      * The land chat.
      */
@@ -445,6 +551,35 @@ public final class Config {
         return overrideExplosions;
     }
 
+    /**
+     * The Enum ExplosionProtectionType.
+     */
+    public enum ExplosionProtectionType {
+
+        /**
+         * Cancel the explosion and do a fake one if a block is protected.
+         */
+        CANCEL,
+        /**
+         * Remove only the protected blocks from the explosion.
+         */
+        PARTIAL
+    }
+
+    /**
+     * The explosion protection type.
+     */
+    private ExplosionProtectionType explosionProtectionType;
+
+    /**
+     * Gets the explosion protection type.
+     *
+     * @return the explosion protection type
+     */
+    public ExplosionProtectionType getExplosionProtectionType() {
+        return explosionProtectionType;
+    }
+
     /**
      * The owner config flag.
      */
@@ -597,9 +732,16 @@ public final class Config {
         mySqlUser = config.getString("General.MySQL.User", "secuboid");
         mySqlPassword = config.getString("General.MySQL.Password", "mypass");
         mySqlPrefix = config.getString("General.MySQL.Prefix", "secuboid_");
+        mySqlPoolSize = config.getInt("General.MySQL.Pool.Size", 4);
+        mySqlPoolIdleTimeout = config.getInt("General.MySQL.Pool.IdleTimeout", 300);
+        mySqlStatementCacheSize = config.getInt("General.MySQL.Pool.StatementCacheSize", 64);
+        writeBehindDelay = config.getLong("General.WriteBehind.Delay", 500L);
+        writeBehindMaxMerged = config.getInt("General.WriteBehind.MaxMerged", 50);
+        flatLoadThreads = config.getInt("General.FlatLoadThreads", 0);
 
         useEconomy = config.getBoolean("General.UseEconomy", false);
         multipleInventories = config.getBoolean("General.MultipleInventories", false);
+        inventoryEvictTime = config.getLong("General.InventoryEvictTime", 600L);
 
         final String infoItemS = config.getString("General.InfoItem", "BONE");
         try {
@@ -626,6 +768,14 @@ public final class Config {
         } catch (final NullPointerException ex) {
             allowCollision = AllowCollisionType.APPROVE;
         }
+        final String areaIndexTypeS = config.getString("Lands.AreaIndex", "grid");
+        try {
+            areaIndexType = AreaIndexType.valueOf(areaIndexTypeS.toUpperCase());
+        } catch (final IllegalArgumentException ex) {
+            secuboid.getLogger().warning("Error in config.yml on Lands.AreaIndex : No " + areaIndexTypeS
+                    + " index type! Using default.");
+            areaIndexType = AreaIndexType.GRID;
+        }
         isLandChat = config.getBoolean("Lands.LandChat", true);
         isSpectatorIsVanish = config.getBoolean("Lands.SpectatorIsVanish", true);
         approveNotifyTime = config.getLong("Lands.ApproveNotifyTime", 24002);
@@ -655,6 +805,14 @@ public final class Config {
         maxAreaPerLand = config.getInt("Lands.Areas.MaxAreaPerLand", 3);
         maxLandPerPlayer = config.getInt("Lands.MaxLandPerPlayer", 5);
         overrideExplosions = config.getBoolean("General.OverrideExplosions", true);
+        final String explosionProtectionTypeS = config.getString("General.ExplosionProtection", "cancel");
+        try {
+            explosionProtectionType = ExplosionProtectionType.valueOf(explosionProtectionTypeS.toUpperCase());
+        } catch (final IllegalArgumentException ex) {
+            secuboid.getLogger().warning("Error in config.yml on General.ExplosionProtection : No "
+                    + explosionProtectionTypeS + " explosion protection type! Using default.");
+            explosionProtectionType = ExplosionProtectionType.CANCEL;
+        }
 
         config.addDefault("Lands.OwnerCanSet.Flags", new String[] { "MESSAGE_ENTER", "MESSAGE_EXIT" });
         ownerConfigFlag = new TreeSet<FlagType>();
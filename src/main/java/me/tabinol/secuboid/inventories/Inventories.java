@@ -20,6 +20,9 @@ package me.tabinol.secuboid.inventories;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
@@ -44,6 +47,12 @@ public final class Inventories {
     private final InventoryConfig inventoryConfig;
     private final Map<InventorySpec, PlayerInvEntry> inventorySpecToDefaultInvEntry;
 
+    /**
+     * The inventory spec at the last logout, loaded first on the next login. The
+     * entry is removed when the player joins.
+     */
+    private final Map<UUID, InventorySpec> playerUUIDToLastInvSpec;
+
     /**
      * Player Join, Quit, Change
      */
@@ -55,6 +64,7 @@ public final class Inventories {
         this.secuboid = secuboid;
         this.inventoryConfig = inventoryConfig;
         inventorySpecToDefaultInvEntry = new HashMap<>();
+        playerUUIDToLastInvSpec = new ConcurrentHashMap<>();
     }
 
     /**
@@ -74,6 +84,35 @@ public final class Inventories {
         return inventoryConfig.getInvSpec(invName);
     }
 
+    /**
+     * Gets the inventory spec expected on the player login: the inventory spec at
+     * the last logout, or the default inventory spec.
+     *
+     * @param playerUUID the player UUID
+     * @return the inventory spec or null if there is no default inventory spec
+     */
+    public InventorySpec getPreLoginInvSpecNullable(final UUID playerUUID) {
+        final InventorySpec lastInvSpecNullable = playerUUIDToLastInvSpec.get(playerUUID);
+        if (lastInvSpecNullable != null) {
+            // The inventory config can be reloaded
+            final InventorySpec invSpecNullable = inventoryConfig.getInvSpec(lastInvSpecNullable.getInventoryName());
+            if (invSpecNullable != null) {
+                return invSpecNullable;
+            }
+        }
+        return inventoryConfig.getInvSpec(InventoryConfig.GLOBAL);
+    }
+
+    /**
+     * Removes the inventory spec of the last logout. Called on the player join,
+     * once the inventory cache is loaded.
+     *
+     * @param playerUUID the player UUID
+     */
+    public void removeLastInvSpec(final UUID playerUUID) {
+        playerUUIDToLastInvSpec.remove(playerUUID);
+    }
+
     public boolean loadDeathInventory(final Player player, final int deathVersion) {
         final PlayerConfEntry playerConfEntry = secuboid.getPlayerConf().get(player);
         final InventorySpec invSpec = playerConfEntry.getPlayerInventoryCacheOpt().get().getCurInvEntry()
@@ -107,6 +146,33 @@ public final class Inventories {
         }
     }
 
+    /**
+     * Does again a switch deferred for an inventory spec load. Called when the
+     * load ends, the switch is done in the main thread.
+     *
+     * @param playerInventoryCache the player inventory cache
+     */
+    void switchDeferred(final PlayerInventoryCache playerInventoryCache) {
+        Bukkit.getScheduler().runTask(secuboid, () -> {
+            final Player player = Bukkit.getPlayer(playerInventoryCache.getUUID());
+            if (player == null) {
+                return;
+            }
+            final PlayerConfEntry playerConfEntry = secuboid.getPlayerConf().get(player);
+            if (playerConfEntry == null || playerConfEntry.getPlayerInventoryCacheOpt()
+                    .map(cache -> cache != playerInventoryCache).orElse(true)) {
+                // The player has quit and joined again
+                return;
+            }
+            final LandPermissionsFlags landPermissionsFlags = secuboid.getLands()
+                    .getPermissionsFlags(player.getLocation());
+            final PlayerAction playerAction = playerInventoryCache.getCurInvEntry() == null ? PlayerAction.JOIN
+                    : PlayerAction.CHANGE;
+            switchInventory(playerConfEntry, landPermissionsFlags, player.getGameMode() == GameMode.CREATIVE,
+                    playerAction);
+        });
+    }
+
     public void removePlayer(final Player player) {
         final PlayerConfEntry playerConfEntry = secuboid.getPlayerConf().get(player);
         final LandPermissionsFlags landPermissionsFlags = secuboid.getLands().getPermissionsFlags(player.getLocation());
@@ -137,6 +203,9 @@ public final class Inventories {
         // Request save
         // Need copyOf because the inventory can change between the save request and the save.
         final PlayerInvEntry playerInvEntryCopy = playerInvEntry.copyOf();
+        if (!isDefaultInv) {
+            playerInvEntry.getPlayerInventoryCacheNullable().addPendingSave(inventorySpec);
+        }
         if (isDeath) {
             playerInvEntry.getPlayerInventoryCacheNullable().addInventoryDeath(playerInvEntryCopy);
             secuboid.getStorageThread().addSaveAction(SaveActionEnum.INVENTORY_PLAYER_DEATH_HISTORY_SAVE, SaveOn.BOTH,
@@ -198,9 +267,9 @@ public final class Inventories {
         PlayerInvEntry playerInvEntry;
         if (fromDeath) {
             // Inventory from death
-            playerInvEntry = playerInventoryCache.getInventoryDeath(deathVersion);
+            playerInvEntry = playerInventoryCache.getInventoryDeath(inventorySpec, deathVersion);
         } else {
-            // Player normal inventory
+            // Player normal inventory (the inventory spec is loaded before the switch)
             if (isCreative) {
                 playerInvEntry = playerInventoryCache.getInventoryCreative(inventorySpec);
             } else {
@@ -309,10 +378,25 @@ public final class Inventories {
             toIsCreative = false;
         }
 
+        // The inventory spec can be in load or removed from memory: keep the actual
+        // inventory and switch again after the load
+        if (playerAction != PlayerAction.QUIT && playerAction != PlayerAction.DEATH
+                && !playerInventoryCache.isLoadedOrDeferSwitch(secuboid.getStorageThread(), toInv)) {
+            return;
+        }
+
+        // Remove from memory the inventories not used for a while (except the current one)
+        final long inventoryEvictTime = secuboid.getConf().getInventoryEvictTime();
+        if (playerAction == PlayerAction.CHANGE && inventoryEvictTime > 0) {
+            playerInventoryCache.evictUnused(TimeUnit.SECONDS.toMillis(inventoryEvictTime));
+        }
+
         // Update player inventory information
         if (playerAction != PlayerAction.QUIT) {
             playerInventoryCache
                     .setCurInvEntry(new PlayerInvEntry(playerInventoryCache, toInv, toIsCreative));
+        } else if (fromInv != null) {
+            playerUUIDToLastInvSpec.put(player.getUniqueId(), fromInv);
         }
 
         // Return if the inventory will be exacly the same
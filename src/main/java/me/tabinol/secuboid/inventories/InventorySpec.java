@@ -21,10 +21,12 @@ package me.tabinol.secuboid.inventories;
 import java.util.List;
 import java.util.Objects;
 
+import me.tabinol.secuboid.storage.SavableParameter;
+
 /**
  * The class for inventory specifications.
  */
-public class InventorySpec {
+public class InventorySpec implements SavableParameter {
 
     private final String inventoryName;
     private final boolean isCreativeChange;
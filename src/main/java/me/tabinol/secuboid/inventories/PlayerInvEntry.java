@@ -78,6 +78,16 @@ public class PlayerInvEntry implements Savable {
         return playerInventoryCacheNullable;
     }
 
+    /**
+     * Ends the save of this inventory, written or not. Called from the storage
+     * thread.
+     */
+    public void endSave() {
+        if (playerInventoryCacheNullable != null) {
+            playerInventoryCacheNullable.removePendingSave(inventorySpec);
+        }
+    }
+
     public UUID getPlayerUUIDNullable() {
         return playerInventoryCacheNullable != null ? playerInventoryCacheNullable.getUUID() : null;
     }
@@ -19,9 +19,14 @@ package me.tabinol.secuboid.inventories;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -31,7 +36,12 @@ import me.tabinol.secuboid.storage.Savable;
 import me.tabinol.secuboid.storage.StorageThread;
 
 /**
- * The player inventory status.
+ * The player inventory status. The inventories are loaded by inventory
+ * specification: the expected one before the login, the others in the storage
+ * thread after. An inventory specification not used for a while is removed from
+ * memory and loaded again on the next switch. A switch to an inventory
+ * specification not in memory is done again after the load, the main thread
+ * never waits for the storage.
  */
 public class PlayerInventoryCache implements Savable {
 
@@ -42,46 +52,86 @@ public class PlayerInventoryCache implements Savable {
     private final String playerName;
 
     /**
-     * By inventory specs survival inventories.
+     * By inventory specs loaded inventories. Guarded by this.
      */
-    private final Map<InventorySpec, PlayerInvEntry> inventorySpecToSurvivalInvEntry;
+    private final Map<InventorySpec, SpecInventories> inventorySpecToInventories;
 
     /**
-     * By inventory specs creative inventories.
+     * Inventory specs requested to the storage thread. Guarded by this.
      */
-    private final Map<InventorySpec, PlayerInvEntry> inventorySpecToCreativeInvEntry;
+    private final Set<InventorySpec> loadingInventorySpecs;
 
     /**
-     * Death inventories.
+     * Number of saves requested and not written yet by inventory spec. Guarded by
+     * this.
      */
-    private final List<PlayerInvEntry> deathInvEntries;
+    private final Map<InventorySpec, Integer> inventorySpecToPendingSaves;
+
+    /**
+     * An inventory switch waits for a load. Guarded by this.
+     */
+    private boolean isSwitchDeferred;
 
     /**
      * Current game mode and inventory.
      */
     private PlayerInvEntry curInvEntry;
 
+    /**
+     * The inventories of one inventory spec.
+     */
+    private static final class SpecInventories {
+        PlayerInvEntry survivalInvEntryNullable;
+        PlayerInvEntry creativeInvEntryNullable;
+
+        /**
+         * Death inventories, the last one first.
+         */
+        final List<PlayerInvEntry> deathInvEntries = new ArrayList<>();
+        long lastUseMillis;
+    }
+
     public PlayerInventoryCache(final UUID playerUUID, final String playerName) {
         this.playerUUID = playerUUID;
         this.playerName = playerName;
-        inventorySpecToSurvivalInvEntry = new HashMap<>();
-        inventorySpecToCreativeInvEntry = new HashMap<>();
-        deathInvEntries = new ArrayList<>();
+        inventorySpecToInventories = new HashMap<>();
+        loadingInventorySpecs = new HashSet<>();
+        inventorySpecToPendingSaves = new HashMap<>();
+        isSwitchDeferred = false;
         curInvEntry = null;
     }
 
-    public boolean inventoryPreLogin(final Secuboid secuboid) {
+    /**
+     * Loads the inventories before the login. The login waits for the expected
+     * inventory spec only, the other inventory specs are loaded after.
+     *
+     * @param secuboid                the secuboid instance
+     * @param expectedInvSpecNullable the inventory spec of the last logout or null
+     * @return true if the inventory is loaded
+     */
+    public boolean inventoryPreLogin(final Secuboid secuboid, final InventorySpec expectedInvSpecNullable) {
+        final Collection<InventorySpec> invSpecs = secuboid.getInventoriesOpt().get().getInvSpecs();
+        if (invSpecs.isEmpty()) {
+            return true;
+        }
+
+        // The expected inventory spec is loaded first and wakes up the login thread
+        final Set<InventorySpec> orderedInvSpecs = new LinkedHashSet<>();
+        if (expectedInvSpecNullable != null) {
+            orderedInvSpecs.add(expectedInvSpecNullable);
+        }
+        orderedInvSpecs.addAll(invSpecs);
+
         // Put the new login thread in the map for wake up after inventories load
         final Object lock = new Object();
         final StorageThread storageThread = secuboid.getStorageThread();
         storageThread.addPlayerUUIDPreLogin(playerUUID, lock);
 
         // Load inventories from save thread
-        storageThread.addSaveAction(StorageThread.SaveActionEnum.INVENTORY_PLAYER_LOAD, StorageThread.SaveOn.BOTH,
-                this);
-
-        // Waiting for inventory load
         synchronized (lock) {
+            for (final InventorySpec inventorySpec : orderedInvSpecs) {
+                requestLoad(storageThread, inventorySpec);
+            }
             try {
                 lock.wait(MAX_PLAYER_INVENTORIES_LOAD_TIME_MILLIS);
             } catch (final InterruptedException e) {
@@ -92,7 +142,8 @@ public class PlayerInventoryCache implements Savable {
         }
 
         // Check if the inventory load is completed
-        if (storageThread.removePlayerUUIDPreLogin(playerUUID) != null) {
+        if (storageThread.removePlayerUUIDPreLogin(playerUUID) != null
+                || (expectedInvSpecNullable != null && !isLoaded(expectedInvSpecNullable))) {
             secuboid.getLogger().log(Level.WARNING,
                     String.format("Unable to load the inventory of player [uuid=%s, name=%s]", playerUUID, playerName));
             return false;
@@ -101,40 +152,188 @@ public class PlayerInventoryCache implements Savable {
         return true;
     }
 
-    void addInventory(final InventorySpec inventorySpec, final PlayerInvEntry playerInvEntry) {
-        if (playerInvEntry.isCreativeInv()) {
-            addInventoryCreative(inventorySpec, playerInvEntry);
-        } else {
-            addInventorySurvival(inventorySpec, playerInvEntry);
+    /**
+     * Checks if an inventory spec is in memory for a switch. If not, the load is
+     * requested and the switch is deferred: the switch is done again when the
+     * load ends.
+     *
+     * @param storageThread the storage thread
+     * @param inventorySpec the inventory spec
+     * @return true if the inventory spec is loaded, false if the switch is deferred
+     */
+    synchronized boolean isLoadedOrDeferSwitch(final StorageThread storageThread,
+            final InventorySpec inventorySpec) {
+        if (getNullable(inventorySpec) != null) {
+            return true;
+        }
+        requestLoad(storageThread, inventorySpec);
+        isSwitchDeferred = true;
+        return false;
+    }
+
+    /**
+     * Ends a load requested to the storage thread, loaded or not. If the storage
+     * did not set the inventories, the inventory spec is not in load anymore and
+     * the next switch requests it again. Called from the storage thread.
+     *
+     * @param secuboid      the secuboid instance
+     * @param inventorySpec the inventory spec
+     */
+    public synchronized void endLoad(final Secuboid secuboid, final InventorySpec inventorySpec) {
+        final boolean isFailed = loadingInventorySpecs.remove(inventorySpec);
+        if (isFailed) {
+            secuboid.getLogger().log(Level.SEVERE,
+                    String.format("Unable to load the inventory \"%s\" of player [uuid=%s, name=%s]. "
+                            + "The player keeps the actual inventory.", inventorySpec.getInventoryName(),
+                            playerUUID, playerName));
+        }
+        if (isSwitchDeferred) {
+            // A failed load is not requested again before the next switch
+            isSwitchDeferred = false;
+            if (!isFailed) {
+                secuboid.getInventoriesOpt().ifPresent(inventories -> inventories.switchDeferred(this));
+            }
+        }
+    }
+
+    private synchronized void requestLoad(final StorageThread storageThread, final InventorySpec inventorySpec) {
+        if (!inventorySpecToInventories.containsKey(inventorySpec) && loadingInventorySpecs.add(inventorySpec)) {
+            storageThread.addSaveAction(StorageThread.SaveActionEnum.INVENTORY_PLAYER_LOAD,
+                    StorageThread.SaveOn.BOTH, this, inventorySpec);
+        }
+    }
+
+    /**
+     * Sets the inventories loaded from the storage for an inventory spec. Nothing
+     * is done if the inventory spec is already in memory.
+     *
+     * @param inventorySpec            the inventory spec
+     * @param survivalInvEntryNullable the survival inventory or null
+     * @param creativeInvEntryNullable the creative inventory or null
+     * @param deathInvEntries          the death inventories, the last one first
+     */
+    public synchronized void setInventoriesLoaded(final InventorySpec inventorySpec,
+            final PlayerInvEntry survivalInvEntryNullable, final PlayerInvEntry creativeInvEntryNullable,
+            final List<PlayerInvEntry> deathInvEntries) {
+        loadingInventorySpecs.remove(inventorySpec);
+        if (!inventorySpecToInventories.containsKey(inventorySpec)) {
+            final SpecInventories specInventories = getOrCreate(inventorySpec);
+            specInventories.survivalInvEntryNullable = survivalInvEntryNullable;
+            specInventories.creativeInvEntryNullable = creativeInvEntryNullable;
+            for (final PlayerInvEntry deathInvEntry : deathInvEntries) {
+                if (specInventories.deathInvEntries.size() < DEATH_SAVE_MAX_NBR) {
+                    specInventories.deathInvEntries.add(deathInvEntry);
+                }
+            }
         }
+        notifyAll();
     }
 
-    private void addInventorySurvival(final InventorySpec inventorySpec, final PlayerInvEntry playerInvEntry) {
-        inventorySpecToSurvivalInvEntry.put(inventorySpec, playerInvEntry);
+    /**
+     * Is the inventory spec in memory?
+     *
+     * @param inventorySpec the inventory spec
+     * @return true if loaded
+     */
+    public synchronized boolean isLoaded(final InventorySpec inventorySpec) {
+        return inventorySpecToInventories.containsKey(inventorySpec);
     }
 
-    PlayerInvEntry getInventorySurvival(final InventorySpec inventorySpec) {
-        return inventorySpecToSurvivalInvEntry.get(inventorySpec);
+    /**
+     * Adds a save requested to the storage thread. An inventory spec with a save
+     * not written yet stays in memory.
+     *
+     * @param inventorySpec the inventory spec
+     */
+    synchronized void addPendingSave(final InventorySpec inventorySpec) {
+        inventorySpecToPendingSaves.merge(inventorySpec, 1, Integer::sum);
     }
 
-    private void addInventoryCreative(final InventorySpec inventorySpec, final PlayerInvEntry playerInvEntry) {
-        inventorySpecToCreativeInvEntry.put(inventorySpec, playerInvEntry);
+    /**
+     * Removes a save written, or not, by the storage thread.
+     *
+     * @param inventorySpec the inventory spec
+     */
+    synchronized void removePendingSave(final InventorySpec inventorySpec) {
+        inventorySpecToPendingSaves.computeIfPresent(inventorySpec, (k, nbSaves) -> nbSaves > 1 ? nbSaves - 1 : null);
     }
 
-    PlayerInvEntry getInventoryCreative(final InventorySpec inventorySpec) {
-        return inventorySpecToCreativeInvEntry.get(inventorySpec);
+    /**
+     * Removes from memory the inventory specs not used since the time specified.
+     * The current inventory spec, the inventory specs in load and the inventory
+     * specs with saves not written yet stay.
+     *
+     * @param maxUnusedMillis the maximum time without use in milliseconds
+     * @return the number of inventory specs removed
+     */
+    synchronized int evictUnused(final long maxUnusedMillis) {
+        final long minLastUseMillis = System.currentTimeMillis() - maxUnusedMillis;
+        final InventorySpec curInvSpecNullable = curInvEntry != null ? curInvEntry.getInventorySpec() : null;
+        int nbEvicted = 0;
+        final Iterator<Map.Entry<InventorySpec, SpecInventories>> iterator = inventorySpecToInventories.entrySet()
+                .iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<InventorySpec, SpecInventories> entry = iterator.next();
+            final InventorySpec inventorySpec = entry.getKey();
+            if (!inventorySpec.equals(curInvSpecNullable) && entry.getValue().lastUseMillis < minLastUseMillis
+                    && !loadingInventorySpecs.contains(inventorySpec)
+                    && !inventorySpecToPendingSaves.containsKey(inventorySpec)) {
+                iterator.remove();
+                nbEvicted++;
+            }
+        }
+        return nbEvicted;
     }
 
-    void addInventoryDeath(final PlayerInvEntry playerInvEntry) {
+    private SpecInventories getOrCreate(final InventorySpec inventorySpec) {
+        final SpecInventories specInventories = inventorySpecToInventories.computeIfAbsent(inventorySpec,
+                k -> new SpecInventories());
+        specInventories.lastUseMillis = System.currentTimeMillis();
+        return specInventories;
+    }
+
+    private SpecInventories getNullable(final InventorySpec inventorySpec) {
+        final SpecInventories specInventories = inventorySpecToInventories.get(inventorySpec);
+        if (specInventories != null) {
+            specInventories.lastUseMillis = System.currentTimeMillis();
+        }
+        return specInventories;
+    }
+
+    synchronized void addInventory(final InventorySpec inventorySpec, final PlayerInvEntry playerInvEntry) {
+        final SpecInventories specInventories = getOrCreate(inventorySpec);
+        if (playerInvEntry.isCreativeInv()) {
+            specInventories.creativeInvEntryNullable = playerInvEntry;
+        } else {
+            specInventories.survivalInvEntryNullable = playerInvEntry;
+        }
+    }
+
+    synchronized PlayerInvEntry getInventorySurvival(final InventorySpec inventorySpec) {
+        final SpecInventories specInventories = getNullable(inventorySpec);
+        return specInventories != null ? specInventories.survivalInvEntryNullable : null;
+    }
+
+    synchronized PlayerInvEntry getInventoryCreative(final InventorySpec inventorySpec) {
+        final SpecInventories specInventories = getNullable(inventorySpec);
+        return specInventories != null ? specInventories.creativeInvEntryNullable : null;
+    }
+
+    synchronized void addInventoryDeath(final PlayerInvEntry playerInvEntry) {
+        final List<PlayerInvEntry> deathInvEntries = getOrCreate(playerInvEntry.getInventorySpec()).deathInvEntries;
         deathInvEntries.add(0, playerInvEntry);
         if (deathInvEntries.size() > DEATH_SAVE_MAX_NBR) {
             deathInvEntries.remove(DEATH_SAVE_MAX_NBR);
         }
     }
 
-    PlayerInvEntry getInventoryDeath(final int deathVersion) {
+    synchronized PlayerInvEntry getInventoryDeath(final InventorySpec inventorySpec, final int deathVersion) {
+        final SpecInventories specInventories = getNullable(inventorySpec);
+        if (specInventories == null) {
+            return null;
+        }
         try {
-            return deathInvEntries.get(deathVersion - 1);
+            return specInventories.deathInvEntries.get(deathVersion - 1);
         } catch (final IndexOutOfBoundsException e) {
             // Not found!
             return null;
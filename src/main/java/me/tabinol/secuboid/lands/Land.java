@@ -27,6 +27,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import me.tabinol.secuboid.lands.areas.CuboidArea;
 import org.bukkit.Bukkit;
@@ -42,6 +43,7 @@ import me.tabinol.secuboid.lands.approve.Approvable;
 import me.tabinol.secuboid.lands.approve.Approve;
 import me.tabinol.secuboid.lands.approve.Approves;
 import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.WorldIds;
 import me.tabinol.secuboid.lands.types.Type;
 import me.tabinol.secuboid.permissionsflags.FlagList;
 import me.tabinol.secuboid.permissionsflags.PermissionList;
@@ -138,6 +140,16 @@ public final class Land implements Savable, Approvable {
      */
     private final Set<PlayerContainer> banneds = new TreeSet<>();
 
+    /**
+     * The residents and banneds index.
+     */
+    private final LandMembers members = new LandMembers();
+
+    /**
+     * The members with inheritance, built on the first check of a generation.
+     */
+    private volatile LandMembers.InheritedView inheritedMembersNullable = null;
+
     /**
      * The auto save.
      */
@@ -154,9 +166,9 @@ public final class Land implements Savable, Approvable {
     private final Set<PlayerContainerPlayer> playerNotify = new TreeSet<>();
 
     /**
-     * The players in land.
+     * The players in land. Read from the snapshot by the asynchronous readers.
      */
-    private final Set<Player> playersInLand = new HashSet<>();
+    private final Set<Player> playersInLand = ConcurrentHashMap.newKeySet();
     // Economy
     /**
      * The for sale.
@@ -297,8 +309,15 @@ public final class Land implements Savable, Approvable {
      * Sets the land default values.
      */
     public void setDefault() {
+        final PlayerContainer oldOwner = owner;
         owner = secuboid.getPlayerContainers().getPlayerContainer(PlayerContainerType.NOBODY);
+        secuboid.getLands().updateOwnerIndex(this, oldOwner);
+        for (final PlayerContainer resident : residents) {
+            secuboid.getLands().removeResidentIndex(this, resident);
+        }
         residents.clear();
+        members.clearResidents();
+        invalidateMembers();
         doSave(SaveActionEnum.LAND_RESIDENT_REMOVE_ALL, SaveOn.DATABASE);
         playerNotify.clear();
         doSave(SaveActionEnum.LAND_PLAYER_NOTIFY_REMOVE_ALL, SaveOn.DATABASE);
@@ -605,7 +624,14 @@ public final class Land implements Savable, Approvable {
      * @return true if inside the land
      */
     public boolean isLocationInside(final Location loc) {
-        return isLocationInside(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        final int worldId = WorldIds.getId(loc.getWorld());
+        for (final Area area1 : areas.values()) {
+            if (area1.isLocationInside(worldId, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ())) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -677,13 +703,7 @@ public final class Land implements Savable, Approvable {
      * @return true, if is owner
      */
     public boolean isOwner(final Player player) {
-        if (secuboid.getPlayerContainers().getPlayerContainer(PlayerContainerType.OWNER).hasAccess(player,
-                landPermissionsFlags)) {
-            return true;
-        }
-        return parent != null
-                && landPermissionsFlags.getFlagAndInherit(FlagList.INHERIT_OWNER.getFlagType()).getValueBoolean()
-                && parent.isOwner(player);
+        return getInheritedMembers().isOwner(player);
     }
 
     /**
@@ -692,7 +712,11 @@ public final class Land implements Savable, Approvable {
      * @param owner the new owner
      */
     public void setOwner(final PlayerContainer owner) {
+        final PlayerContainer oldOwner = this.owner;
         this.owner = owner;
+        secuboid.getLands().updateOwnerIndex(this, oldOwner);
+        landPermissionsFlags.invalidatePermissionsCache();
+        invalidateMembers();
 
         // Reset all owner permissions and resident managers for safety
         landPermissionsFlags.removeAllPermissionsType(PermissionList.LAND_OWNER.getPermissionType(), SaveOn.DATABASE);
@@ -713,6 +737,10 @@ public final class Land implements Savable, Approvable {
      */
     public void addResident(final PlayerContainer resident) {
         residents.add(resident);
+        members.addResident(resident);
+        secuboid.getLands().addResidentIndex(this, resident);
+        landPermissionsFlags.invalidatePermissionsCache();
+        invalidateMembers();
         doSave(SaveActionEnum.LAND_RESIDENT_SAVE, SaveOn.BOTH, resident);
 
         // Start Event
@@ -728,6 +756,10 @@ public final class Land implements Savable, Approvable {
      */
     public boolean removeResident(final PlayerContainer resident) {
         if (residents.remove(resident)) {
+            members.removeResident(resident);
+            secuboid.getLands().removeResidentIndex(this, resident);
+            landPermissionsFlags.invalidatePermissionsCache();
+            invalidateMembers();
             doSave(SaveActionEnum.LAND_RESIDENT_REMOVE, SaveOn.BOTH, resident);
 
             // Start Event
@@ -756,13 +788,17 @@ public final class Land implements Savable, Approvable {
      * @return true, if is resident
      */
     public boolean isResident(final Player player) {
-        if (secuboid.getPlayerContainers().getPlayerContainer(PlayerContainerType.RESIDENT).hasAccess(player,
-                landPermissionsFlags)) {
-            return true;
-        }
-        return parent != null
-                && landPermissionsFlags.getFlagAndInherit(FlagList.INHERIT_RESIDENTS.getFlagType()).getValueBoolean()
-                && parent.isResident(player);
+        return getInheritedMembers().isResident(player);
+    }
+
+    /**
+     * Checks if the player is resident of this land, without inheritance.
+     *
+     * @param player the player
+     * @return true, if is resident
+     */
+    public boolean isResidentNoInherit(final Player player) {
+        return members.isResidentNoInherit(player, landPermissionsFlags);
     }
 
     /**
@@ -772,6 +808,8 @@ public final class Land implements Savable, Approvable {
      */
     public void addBanned(final PlayerContainer banned) {
         banneds.add(banned);
+        members.addBanned(banned);
+        invalidateMembers();
         doSave(SaveActionEnum.LAND_BANNED_SAVE, SaveOn.BOTH, banned);
 
         // Start Event
@@ -786,6 +824,8 @@ public final class Land implements Savable, Approvable {
      */
     public boolean removeBanned(final PlayerContainer banned) {
         if (banneds.remove(banned)) {
+            members.removeBanned(banned);
+            invalidateMembers();
             doSave(SaveActionEnum.LAND_BANNED_REMOVE, SaveOn.BOTH, banned);
             return true;
         }
@@ -809,12 +849,37 @@ public final class Land implements Savable, Approvable {
      * @return true, if is banned
      */
     public boolean isBanned(final Player player) {
-        for (final PlayerContainer banned : banneds) {
-            if (banned.hasAccess(player, landPermissionsFlags)) {
-                return true;
-            }
+        return getInheritedMembers().isBanned(player);
+    }
+
+    /**
+     * Gets the residents and banneds index.
+     *
+     * @return the land members
+     */
+    LandMembers getMembers() {
+        return members;
+    }
+
+    /**
+     * Gets the owners, residents and banneds with inheritance. The view is built
+     * again if a member, a parent or a flag changed.
+     *
+     * @return the inherited members
+     */
+    private LandMembers.InheritedView getInheritedMembers() {
+        final long membersGeneration = secuboid.getLands().getMembersGeneration();
+        final long flagsGeneration = secuboid.getPermissionsFlags().getFlagsGeneration();
+        LandMembers.InheritedView inheritedMembers = inheritedMembersNullable;
+        if (inheritedMembers == null || !inheritedMembers.isValid(membersGeneration, flagsGeneration)) {
+            inheritedMembers = LandMembers.InheritedView.build(this, membersGeneration, flagsGeneration);
+            inheritedMembersNullable = inheritedMembers;
         }
-        return parent != null && parent.isBanned(player);
+        return inheritedMembers;
+    }
+
+    private void invalidateMembers() {
+        secuboid.getLands().invalidateMembers();
     }
 
     /**
@@ -837,6 +902,8 @@ public final class Land implements Savable, Approvable {
      */
     public void setPriority(final short priority) {
         this.priority = priority;
+        secuboid.getLands().invalidateAreas();
+        secuboid.getLands().markSnapshotDirty(this);
         doSave(SaveActionEnum.LAND_SAVE, SaveOn.BOTH);
     }
 
@@ -871,6 +938,7 @@ public final class Land implements Savable, Approvable {
     public void setParent(final Land newParent) {
         // remove parent (if needed)
         if (parent != null) {
+            secuboid.getLands().markSnapshotDirty(this);
             parent.removeChild(uuid);
             parent = null;
         }
@@ -881,6 +949,11 @@ public final class Land implements Savable, Approvable {
             parent = newParent;
             priority = parent.getPriority();
         }
+        landPermissionsFlags.invalidatePermissionsCache();
+        landPermissionsFlags.invalidateFlagsCache();
+        invalidateMembers();
+        secuboid.getLands().invalidateAreas();
+        secuboid.getLands().markSnapshotDirty(this);
 
         // Save
         doSave(SaveActionEnum.LAND_SAVE, SaveOn.BOTH);
@@ -1340,8 +1413,11 @@ public final class Land implements Savable, Approvable {
      * @param isRemoveLandTenantPerms Remove or not all the LAND_TENANT permissions
      */
     public void setRented(final PlayerContainerPlayer tenant, final boolean isRemoveLandTenantPerms) {
+        final PlayerContainerPlayer oldTenantNullable = this.tenant;
         rented = true;
         this.tenant = tenant;
+        secuboid.getLands().updateTenantIndex(this, oldTenantNullable);
+        landPermissionsFlags.invalidatePermissionsCache();
         lastPayment = System.currentTimeMillis();
         if (isRemoveLandTenantPerms) {
             landPermissionsFlags.removeAllPermissionsType(PermissionList.LAND_TENANT.getPermissionType(), SaveOn.DATABASE);
@@ -1353,9 +1429,11 @@ public final class Land implements Savable, Approvable {
      * Un set rented.
      */
     public void unSetRented() {
-
+        final PlayerContainerPlayer oldTenantNullable = tenant;
         rented = false;
         tenant = null;
+        secuboid.getLands().updateTenantIndex(this, oldTenantNullable);
+        landPermissionsFlags.invalidatePermissionsCache();
         lastPayment = 0;
         landPermissionsFlags.removeAllPermissionsType(PermissionList.LAND_TENANT.getPermissionType(), SaveOn.DATABASE);
         doSave(SaveActionEnum.LAND_SAVE, SaveOn.BOTH);
@@ -1420,7 +1498,11 @@ public final class Land implements Savable, Approvable {
      * @param arg0 the land type
      */
     public void setType(final Type arg0) {
+        final Type oldTypeNullable = type;
         type = arg0;
+        secuboid.getLands().updateTypeIndex(this, oldTypeNullable);
+        landPermissionsFlags.invalidatePermissionsCache();
+        landPermissionsFlags.invalidateFlagsCache();
         doSave(SaveActionEnum.LAND_SAVE, SaveOn.BOTH);
     }
 
@@ -0,0 +1,193 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import me.tabinol.secuboid.lands.types.Type;
+import me.tabinol.secuboid.playercontainer.PlayerContainer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerType;
+
+/**
+ * Secondary indexes of the lands by owner, type, tenant and resident player
+ * UUID. The indexes are updated on each change of a land in the lands list.
+ */
+final class LandIndexes {
+
+    private final Map<PlayerContainer, Set<Land>> ownerToLands;
+    private final Map<Type, Set<Land>> typeToLands;
+    private final Map<UUID, Set<Land>> tenantUUIDToLands;
+    private final Map<UUID, Set<Land>> residentUUIDToLands;
+
+    LandIndexes() {
+        ownerToLands = new HashMap<>();
+        typeToLands = new HashMap<>();
+        tenantUUIDToLands = new HashMap<>();
+        residentUUIDToLands = new HashMap<>();
+    }
+
+    void clear() {
+        ownerToLands.clear();
+        typeToLands.clear();
+        tenantUUIDToLands.clear();
+        residentUUIDToLands.clear();
+    }
+
+    void addLand(final Land land) {
+        add(ownerToLands, land.getOwner(), land);
+        add(typeToLands, land.getType(), land);
+        addNotNull(tenantUUIDToLands, getTenantUUIDNullable(land.getTenant()), land);
+        for (final PlayerContainer resident : land.getResidents()) {
+            addResident(land, resident);
+        }
+    }
+
+    void removeLand(final Land land) {
+        remove(ownerToLands, land.getOwner(), land);
+        remove(typeToLands, land.getType(), land);
+        remove(tenantUUIDToLands, getTenantUUIDNullable(land.getTenant()), land);
+        for (final PlayerContainer resident : land.getResidents()) {
+            removeResident(land, resident);
+        }
+    }
+
+    void changeOwner(final Land land, final PlayerContainer oldOwner) {
+        remove(ownerToLands, oldOwner, land);
+        add(ownerToLands, land.getOwner(), land);
+    }
+
+    void changeType(final Land land, final Type oldTypeNullable) {
+        remove(typeToLands, oldTypeNullable, land);
+        add(typeToLands, land.getType(), land);
+    }
+
+    void changeTenant(final Land land, final PlayerContainerPlayer oldTenantNullable) {
+        remove(tenantUUIDToLands, getTenantUUIDNullable(oldTenantNullable), land);
+        addNotNull(tenantUUIDToLands, getTenantUUIDNullable(land.getTenant()), land);
+    }
+
+    void addResident(final Land land, final PlayerContainer resident) {
+        addNotNull(residentUUIDToLands, getPlayerUUIDNullable(resident), land);
+    }
+
+    void removeResident(final Land land, final PlayerContainer resident) {
+        remove(residentUUIDToLands, getPlayerUUIDNullable(resident), land);
+    }
+
+    Set<Land> getLandsFromOwner(final PlayerContainer owner) {
+        return get(ownerToLands, owner);
+    }
+
+    Set<Land> getLandsFromType(final Type typeNullable) {
+        return get(typeToLands, typeNullable);
+    }
+
+    Set<Land> getLandsFromTenant(final UUID tenantUUID) {
+        return get(tenantUUIDToLands, tenantUUID);
+    }
+
+    Set<Land> getLandsFromResident(final UUID residentUUID) {
+        return get(residentUUIDToLands, residentUUID);
+    }
+
+    /**
+     * Compares the indexes with indexes built again from the lands.
+     *
+     * @param lands the lands in the lands list
+     * @return the differences found, or an empty list
+     */
+    List<String> check(final Collection<Land> lands) {
+        final LandIndexes expected = new LandIndexes();
+        for (final Land land : lands) {
+            expected.addLand(land);
+        }
+
+        final List<String> errors = new ArrayList<>();
+        checkIndex(errors, "owner", ownerToLands, expected.ownerToLands);
+        checkIndex(errors, "type", typeToLands, expected.typeToLands);
+        checkIndex(errors, "tenant", tenantUUIDToLands, expected.tenantUUIDToLands);
+        checkIndex(errors, "resident", residentUUIDToLands, expected.residentUUIDToLands);
+        return errors;
+    }
+
+    private static <K> void checkIndex(final List<String> errors, final String indexName,
+                                       final Map<K, Set<Land>> keyToLands, final Map<K, Set<Land>> expectedKeyToLands) {
+        final Set<K> keys = new HashSet<>(keyToLands.keySet());
+        keys.addAll(expectedKeyToLands.keySet());
+        for (final K key : keys) {
+            final Set<Land> lands = keyToLands.getOrDefault(key, Collections.emptySet());
+            final Set<Land> expectedLands = expectedKeyToLands.getOrDefault(key, Collections.emptySet());
+            if (!Objects.equals(lands, expectedLands)) {
+                errors.add(String.format("Index %s, key %s: %s, expected %s", indexName, key, getNames(lands),
+                        getNames(expectedLands)));
+            }
+        }
+    }
+
+    private static List<String> getNames(final Set<Land> lands) {
+        final List<String> names = new ArrayList<>();
+        for (final Land land : lands) {
+            names.add(land.getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static UUID getTenantUUIDNullable(final PlayerContainerPlayer tenantNullable) {
+        return tenantNullable != null ? tenantNullable.getMinecraftUUID() : null;
+    }
+
+    private static UUID getPlayerUUIDNullable(final PlayerContainer playerContainer) {
+        if (playerContainer.getContainerType() == PlayerContainerType.PLAYER) {
+            return ((PlayerContainerPlayer) playerContainer).getMinecraftUUID();
+        }
+        return null;
+    }
+
+    private static <K> void add(final Map<K, Set<Land>> keyToLands, final K keyNullable, final Land land) {
+        keyToLands.computeIfAbsent(keyNullable, k -> new HashSet<>()).add(land);
+    }
+
+    private static <K> void addNotNull(final Map<K, Set<Land>> keyToLands, final K keyNullable, final Land land) {
+        if (keyNullable != null) {
+            add(keyToLands, keyNullable, land);
+        }
+    }
+
+    private static <K> void remove(final Map<K, Set<Land>> keyToLands, final K keyNullable, final Land land) {
+        final Set<Land> lands = keyToLands.get(keyNullable);
+        if (lands != null && lands.remove(land) && lands.isEmpty()) {
+            keyToLands.remove(keyNullable);
+        }
+    }
+
+    private static <K> Set<Land> get(final Map<K, Set<Land>> keyToLands, final K keyNullable) {
+        final Set<Land> lands = keyToLands.get(keyNullable);
+        return lands != null ? Collections.unmodifiableSet(lands) : Collections.emptySet();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+import me.tabinol.secuboid.permissionsflags.FlagList;
+import me.tabinol.secuboid.permissionsflags.FlagType;
+import me.tabinol.secuboid.permissionsflags.PermissionList;
+import me.tabinol.secuboid.playercontainer.PlayerContainer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerType;
+
+/**
+ * Index of the residents and banneds of a land. The player containers of type
+ * PLAYER are found by UUID, the other player containers (groups, permissions,
+ * everybody, ...) are in short lists.
+ */
+final class LandMembers {
+
+    /**
+     * The member roles, as bits in the UUID index.
+     */
+    enum Role {
+        OWNER, RESIDENT, BANNED;
+
+        private final int mask = 1 << ordinal();
+    }
+
+    private final Map<UUID, Integer> playerUUIDToRoles;
+    private final List<PlayerContainer> otherResidents;
+    private final List<PlayerContainer> otherBanneds;
+
+    LandMembers() {
+        playerUUIDToRoles = new HashMap<>();
+        otherResidents = new ArrayList<>();
+        otherBanneds = new ArrayList<>();
+    }
+
+    void addResident(final PlayerContainer resident) {
+        add(Role.RESIDENT, otherResidents, resident);
+    }
+
+    void removeResident(final PlayerContainer resident) {
+        remove(Role.RESIDENT, otherResidents, resident);
+    }
+
+    void clearResidents() {
+        clear(Role.RESIDENT, otherResidents);
+    }
+
+    void addBanned(final PlayerContainer banned) {
+        add(Role.BANNED, otherBanneds, banned);
+    }
+
+    void removeBanned(final PlayerContainer banned) {
+        remove(Role.BANNED, otherBanneds, banned);
+    }
+
+    /**
+     * Checks if the player is resident of this land only, without inheritance.
+     *
+     * @param player                   the player
+     * @param testLandPermissionsFlags the land permissions flags of the test
+     * @return true, if is resident
+     */
+    boolean isResidentNoInherit(final Player player, final LandPermissionsFlags testLandPermissionsFlags) {
+        if (player != null && hasRole(playerUUIDToRoles, player.getUniqueId(), Role.RESIDENT)) {
+            return true;
+        }
+        for (final PlayerContainer playerContainer : otherResidents) {
+            // First check is anti inifite loop
+            if (!playerContainer.isLandRelative() && playerContainer.hasAccess(player, testLandPermissionsFlags)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(final Role role, final List<PlayerContainer> others, final PlayerContainer playerContainer) {
+        if (playerContainer.getContainerType() == PlayerContainerType.PLAYER) {
+            playerUUIDToRoles.merge(((PlayerContainerPlayer) playerContainer).getMinecraftUUID(), role.mask,
+                    (roles, mask) -> roles | mask);
+        } else if (!others.contains(playerContainer)) {
+            others.add(playerContainer);
+        }
+    }
+
+    private void remove(final Role role, final List<PlayerContainer> others,
+                        final PlayerContainer playerContainer) {
+        if (playerContainer.getContainerType() == PlayerContainerType.PLAYER) {
+            playerUUIDToRoles.computeIfPresent(((PlayerContainerPlayer) playerContainer).getMinecraftUUID(),
+                    (uuid, roles) -> (roles & ~role.mask) == 0 ? null : roles & ~role.mask);
+        } else {
+            others.remove(playerContainer);
+        }
+    }
+
+    private void clear(final Role role, final List<PlayerContainer> others) {
+        playerUUIDToRoles.replaceAll((uuid, roles) -> roles & ~role.mask);
+        playerUUIDToRoles.values().removeIf(roles -> roles == 0);
+        others.clear();
+    }
+
+    private static boolean hasRole(final Map<UUID, Integer> playerUUIDToRoles, final UUID playerUUID,
+                                   final Role role) {
+        final Integer rolesNullable = playerUUIDToRoles.get(playerUUID);
+        return rolesNullable != null && (rolesNullable & role.mask) != 0;
+    }
+
+    /**
+     * A non player member with the land permissions flags to test the access.
+     */
+    private static final class OtherMember {
+
+        private final PlayerContainer playerContainer;
+        private final LandPermissionsFlags landPermissionsFlags;
+
+        private OtherMember(final PlayerContainer playerContainer, final LandPermissionsFlags landPermissionsFlags) {
+            this.playerContainer = playerContainer;
+            this.landPermissionsFlags = landPermissionsFlags;
+        }
+
+        private boolean hasAccess(final Player player) {
+            return playerContainer.hasAccess(player, landPermissionsFlags);
+        }
+    }
+
+    /**
+     * The members of a land with the inheritance from the parents: owners with
+     * INHERIT_OWNER, residents with INHERIT_RESIDENTS and always the banneds. A
+     * view is immutable and valid for a members generation and a flags
+     * generation.
+     */
+    static final class InheritedView {
+
+        private final long membersGeneration;
+        private final long flagsGeneration;
+        private final Map<UUID, Integer> playerUUIDToRoles;
+        private final List<OtherMember> otherOwners;
+        private final List<LandPermissionsFlags> ownerPermissionsFlags;
+        private final List<OtherMember> otherResidents;
+        private final List<OtherMember> otherBanneds;
+
+        private InheritedView(final long membersGeneration, final long flagsGeneration) {
+            this.membersGeneration = membersGeneration;
+            this.flagsGeneration = flagsGeneration;
+            playerUUIDToRoles = new HashMap<>();
+            otherOwners = new ArrayList<>();
+            ownerPermissionsFlags = new ArrayList<>();
+            otherResidents = new ArrayList<>();
+            otherBanneds = new ArrayList<>();
+        }
+
+        /**
+         * Builds the view of a land.
+         *
+         * @param land              the land
+         * @param membersGeneration the actual members generation
+         * @param flagsGeneration   the actual flags generation
+         * @return the inherited view
+         */
+        static InheritedView build(final Land land, final long membersGeneration, final long flagsGeneration) {
+            final InheritedView view = new InheritedView(membersGeneration, flagsGeneration);
+
+            // Owners
+            for (Land ownerLand = land; ownerLand != null; ownerLand = getParentIfInherit(ownerLand,
+                    FlagList.INHERIT_OWNER.getFlagType())) {
+                final LandPermissionsFlags landPermissionsFlags = ownerLand.getPermissionsFlags();
+                view.ownerPermissionsFlags.add(landPermissionsFlags);
+                final PlayerContainer owner = ownerLand.getOwner();
+                // Anti inifite loop
+                if (owner == null || owner.isLandRelative()) {
+                    continue;
+                }
+                if (owner.getContainerType() == PlayerContainerType.PLAYER) {
+                    view.addRole(((PlayerContainerPlayer) owner).getMinecraftUUID(), Role.OWNER);
+                } else {
+                    view.otherOwners.add(new OtherMember(owner, landPermissionsFlags));
+                }
+            }
+
+            // Residents
+            for (Land residentLand = land; residentLand != null; residentLand = getParentIfInherit(
+                    residentLand, FlagList.INHERIT_RESIDENTS.getFlagType())) {
+                final LandMembers landMembers = residentLand.getMembers();
+                view.addRoles(landMembers, Role.RESIDENT);
+                for (final PlayerContainer resident : landMembers.otherResidents) {
+                    if (!resident.isLandRelative()) {
+                        view.otherResidents.add(new OtherMember(resident, residentLand.getPermissionsFlags()));
+                    }
+                }
+            }
+
+            // Banneds, always inherited
+            for (Land bannedLand = land; bannedLand != null; bannedLand = bannedLand.getParent()) {
+                final LandMembers landMembers = bannedLand.getMembers();
+                view.addRoles(landMembers, Role.BANNED);
+                for (final PlayerContainer banned : landMembers.otherBanneds) {
+                    view.otherBanneds.add(new OtherMember(banned, bannedLand.getPermissionsFlags()));
+                }
+            }
+            return view;
+        }
+
+        boolean isValid(final long membersGeneration, final long flagsGeneration) {
+            return this.membersGeneration == membersGeneration && this.flagsGeneration == flagsGeneration;
+        }
+
+        boolean isOwner(final Player player) {
+            if (player != null && hasRole(playerUUIDToRoles, player.getUniqueId(), Role.OWNER)) {
+                return true;
+            }
+            for (final LandPermissionsFlags landPermissionsFlags : ownerPermissionsFlags) {
+                if (landPermissionsFlags.checkPermissionAndInherit(player,
+                        PermissionList.LAND_OWNER.getPermissionType())) {
+                    return true;
+                }
+            }
+            return hasAccess(otherOwners, player);
+        }
+
+        boolean isResident(final Player player) {
+            return (player != null && hasRole(playerUUIDToRoles, player.getUniqueId(), Role.RESIDENT))
+                    || hasAccess(otherResidents, player);
+        }
+
+        boolean isBanned(final Player player) {
+            return (player != null && hasRole(playerUUIDToRoles, player.getUniqueId(), Role.BANNED))
+                    || hasAccess(otherBanneds, player);
+        }
+
+        private static Land getParentIfInherit(final Land land, final FlagType inheritFlagType) {
+            final Land parentNullable = land.getParent();
+            if (parentNullable != null
+                    && land.getPermissionsFlags().getFlagAndInherit(inheritFlagType).getValueBoolean()) {
+                return parentNullable;
+            }
+            return null;
+        }
+
+        private void addRole(final UUID playerUUID, final Role role) {
+            playerUUIDToRoles.merge(playerUUID, role.mask, (roles, mask) -> roles | mask);
+        }
+
+        private void addRoles(final LandMembers landMembers, final Role role) {
+            for (final Map.Entry<UUID, Integer> entry : landMembers.playerUUIDToRoles.entrySet()) {
+                if ((entry.getValue() & role.mask) != 0) {
+                    addRole(entry.getKey(), role);
+                }
+            }
+        }
+
+        private static boolean hasAccess(final List<OtherMember> otherMembers, final Player player) {
+            for (final OtherMember otherMember : otherMembers) {
+                if (otherMember.hasAccess(player)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -18,9 +18,14 @@
 package me.tabinol.secuboid.lands;
 
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.entity.Player;
 
@@ -33,7 +38,9 @@ import me.tabinol.secuboid.permissionsflags.FlagValue;
 import me.tabinol.secuboid.permissionsflags.Permission;
 import me.tabinol.secuboid.permissionsflags.PermissionList;
 import me.tabinol.secuboid.permissionsflags.PermissionType;
+import me.tabinol.secuboid.permissionsflags.PermissionsCache;
 import me.tabinol.secuboid.playercontainer.PlayerContainer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerType;
 import me.tabinol.secuboid.storage.SavableParameter;
 import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
@@ -51,19 +58,63 @@ public final class LandPermissionsFlags {
     private final PermFlagType permFlagType;
 
     /**
-     * The permissions.
+     * The permissions, by player container type in the check order.
      */
-    private final Map<PlayerContainer, Map<PermissionType, Permission>> permissions;
+    private final Map<PlayerContainerType, Map<PlayerContainer, Map<PermissionType, Permission>>> permissions;
+
+    /**
+     * The permissions of the player containers (type PLAYER) by player UUID.
+     */
+    private final Map<UUID, Map<PermissionType, Permission>> playerUUIDToPermissions;
 
     /**
      * The flags.
      */
     private final Map<FlagType, Flag> flags;
 
+    /**
+     * The permission decisions of the actual cache generation.
+     */
+    private volatile PermissionDecisions permissionDecisions = new PermissionDecisions(-1);
+
+    /**
+     * The effective flag values (with inheritance) of the actual flags generation.
+     */
+    private volatile EffectiveFlags effectiveFlags = new EffectiveFlags(-1, 0);
+
     public enum PermFlagType {
         LAND, DEFAULT_CONFIG, WORLD_CONFIG
     }
 
+    /**
+     * Permission decisions by player and permission type for a cache generation.
+     */
+    private static final class PermissionDecisions {
+
+        private final long generation;
+        private final Map<UUID, Map<PermissionType, Boolean>> playerUUIDToDecisions;
+
+        private PermissionDecisions(final long generation) {
+            this.generation = generation;
+            playerUUIDToDecisions = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Effective flag values by flag type id for a flags generation. A value is
+     * calculated on the first access.
+     */
+    private static final class EffectiveFlags {
+
+        private final long generation;
+        private final FlagValue[] values;
+
+        private EffectiveFlags(final long generation, final int nbFlagTypes) {
+            this.generation = generation;
+            values = new FlagValue[nbFlagTypes];
+        }
+    }
+
     /**
      * Constructor for land default values.
      *
@@ -74,7 +125,8 @@ public final class LandPermissionsFlags {
         this.secuboid = secuboid;
         this.landNullable = null;
         this.worldNameNullable = null;
-        permissions = new TreeMap<>();
+        permissions = new EnumMap<>(PlayerContainerType.class);
+        playerUUIDToPermissions = new HashMap<>();
         flags = new TreeMap<>();
     }
 
@@ -89,7 +141,8 @@ public final class LandPermissionsFlags {
         this.secuboid = secuboid;
         this.landNullable = null;
         this.worldNameNullable = worldNameNullable;
-        permissions = new TreeMap<>();
+        permissions = new EnumMap<>(PlayerContainerType.class);
+        playerUUIDToPermissions = new HashMap<>();
         flags = new TreeMap<>();
     }
 
@@ -104,7 +157,8 @@ public final class LandPermissionsFlags {
         this.secuboid = secuboid;
         this.landNullable = land;
         this.worldNameNullable = worldName;
-        permissions = new TreeMap<>();
+        permissions = new EnumMap<>(PlayerContainerType.class);
+        playerUUIDToPermissions = new HashMap<>();
         flags = new TreeMap<>();
     }
 
@@ -123,10 +177,13 @@ public final class LandPermissionsFlags {
     void setDefault(final SaveOn saveOn) {
         // Remove all flags
         flags.clear();
+        invalidateFlagsCache();
         doSave(SaveActionEnum.LAND_FLAG_REMOVE_ALL, saveOn);
         // Remove all permissions
         permissions.clear();
+        playerUUIDToPermissions.clear();
         doSave(SaveActionEnum.LAND_PERMISSION_REMOVE_ALL, saveOn);
+        invalidatePermissionsCache();
     }
 
     private void doSave(final SaveActionEnum SaveActionEnum, final SaveOn saveOn,
@@ -178,17 +235,17 @@ public final class LandPermissionsFlags {
     public void copyPermsFlagsToWithoutOverride(final LandPermissionsFlags desPermissionsFlags) {
 
         // copy permissions
-        permissions.forEach((playerContainer, permTypeToPerm) -> desPermissionsFlags.permissions
-                .compute(playerContainer, (k, desPermTypeToPermV) -> {
-                    final Map<PermissionType, Permission> desPermTypeToPerm = desPermTypeToPermV != null
-                            ? desPermTypeToPermV
-                            : new TreeMap<>();
-                    permTypeToPerm.forEach((type, perm) -> desPermTypeToPerm.putIfAbsent(type, perm.copyOf()));
-                    return desPermTypeToPerm;
-                }));
+        permissions.values().forEach(pcToPermTypeToPerm -> pcToPermTypeToPerm.forEach((playerContainer,
+                permTypeToPerm) -> {
+            final Map<PermissionType, Permission> desPermTypeToPerm = desPermissionsFlags
+                    .getOrAddPermTypeToPerm(playerContainer);
+            permTypeToPerm.forEach((type, perm) -> desPermTypeToPerm.putIfAbsent(type, perm.copyOf()));
+        }));
+        invalidatePermissionsCache();
 
         // copy flags
         flags.forEach((flagType, flag) -> desPermissionsFlags.flags.computeIfAbsent(flagType, k -> flag.copyOf()));
+        invalidateFlagsCache();
     }
 
     private LandPermissionsFlags getPermsFlagsParentNullable(final LandPermissionsFlags originLandPermFlags) {
@@ -226,15 +283,9 @@ public final class LandPermissionsFlags {
      */
     public void addPermission(final PlayerContainer pc, final Permission perm) {
 
-        final Map<PermissionType, Permission> permPlayer;
-
-        if (!permissions.containsKey(pc)) {
-            permPlayer = new TreeMap<>();
-            permissions.put(pc, permPlayer);
-        } else {
-            permPlayer = permissions.get(pc);
-        }
+        final Map<PermissionType, Permission> permPlayer = getOrAddPermTypeToPerm(pc);
         permPlayer.put(perm.getPermType(), perm);
+        invalidatePermissionsCache();
         doSave(SaveActionEnum.LAND_PERMISSION_SAVE, SaveOn.BOTH, pc, perm);
 
         if (landNullable != null) {
@@ -259,11 +310,11 @@ public final class LandPermissionsFlags {
      * @return true, if successful
      */
     public boolean removePermission(final PlayerContainer pc, final PermissionType permType) {
-        if (!permissions.containsKey(pc)) {
+        final Map<PermissionType, Permission> permPlayer = getPermTypeToPermNullable(pc);
+        if (permPlayer == null) {
             return false;
         }
 
-        final Map<PermissionType, Permission> permPlayer = permissions.get(pc);
         final Permission perm = permPlayer.remove(permType);
 
         if (perm == null) {
@@ -272,9 +323,10 @@ public final class LandPermissionsFlags {
 
         // remove key for PC if it is empty
         if (permPlayer.isEmpty()) {
-            permissions.remove(pc);
+            removePermTypeToPerm(pc);
         }
 
+        invalidatePermissionsCache();
         doSave(SaveActionEnum.LAND_PERMISSION_REMOVE, SaveOn.BOTH, pc, perm);
 
         if (landNullable != null) {
@@ -294,24 +346,30 @@ public final class LandPermissionsFlags {
      * @param saveOn         save on
      */
     void removeAllPermissionsType(final PermissionType permissionType, final SaveOn saveOn) {
-        for (final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> entry : permissions.entrySet()) {
-            final PlayerContainer pc = entry.getKey();
-            final Map<PermissionType, Permission> typeToPermission = entry.getValue();
-            final Permission perm = typeToPermission.remove(permissionType);
-            if (perm != null) {
-                doSave(SaveActionEnum.LAND_PERMISSION_REMOVE, saveOn, pc, perm);
+        for (final Map<PlayerContainer, Map<PermissionType, Permission>> pcToPermTypeToPerm : permissions.values()) {
+            for (final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> entry : pcToPermTypeToPerm
+                    .entrySet()) {
+                final PlayerContainer pc = entry.getKey();
+                final Map<PermissionType, Permission> typeToPermission = entry.getValue();
+                final Permission perm = typeToPermission.remove(permissionType);
+                if (perm != null) {
+                    doSave(SaveActionEnum.LAND_PERMISSION_REMOVE, saveOn, pc, perm);
+                }
             }
         }
+        invalidatePermissionsCache();
     }
 
     /**
-     * Gets the sets the pc have permission.
+     * Gets the sets the pc have permission. The set is a copy in the check order.
      *
      * @return the sets the pc have permission
      */
     public final Set<PlayerContainer> getSetPCHavePermission() {
 
-        return permissions.keySet();
+        final Set<PlayerContainer> pcs = new LinkedHashSet<>();
+        permissions.values().forEach(pcToPermTypeToPerm -> pcs.addAll(pcToPermTypeToPerm.keySet()));
+        return pcs;
     }
 
     /**
@@ -322,21 +380,96 @@ public final class LandPermissionsFlags {
      */
     public final Collection<Permission> getPermissionsForPC(final PlayerContainer pc) {
 
-        return permissions.get(pc).values();
+        return getPermTypeToPermNullable(pc).values();
+    }
+
+    private Map<PermissionType, Permission> getPermTypeToPermNullable(final PlayerContainer pc) {
+        final Map<PlayerContainer, Map<PermissionType, Permission>> pcToPermTypeToPerm = permissions
+                .get(pc.getContainerType());
+        return pcToPermTypeToPerm != null ? pcToPermTypeToPerm.get(pc) : null;
+    }
+
+    private Map<PermissionType, Permission> getOrAddPermTypeToPerm(final PlayerContainer pc) {
+        final Map<PlayerContainer, Map<PermissionType, Permission>> pcToPermTypeToPerm = permissions
+                .computeIfAbsent(pc.getContainerType(), k -> new TreeMap<>());
+        return pcToPermTypeToPerm.computeIfAbsent(pc, k -> {
+            final Map<PermissionType, Permission> permTypeToPerm = new TreeMap<>();
+            if (pc.getContainerType() == PlayerContainerType.PLAYER) {
+                playerUUIDToPermissions.put(((PlayerContainerPlayer) pc).getMinecraftUUID(), permTypeToPerm);
+            }
+            return permTypeToPerm;
+        });
+    }
+
+    private void removePermTypeToPerm(final PlayerContainer pc) {
+        final PlayerContainerType pcType = pc.getContainerType();
+        final Map<PlayerContainer, Map<PermissionType, Permission>> pcToPermTypeToPerm = permissions.get(pcType);
+        pcToPermTypeToPerm.remove(pc);
+        if (pcToPermTypeToPerm.isEmpty()) {
+            permissions.remove(pcType);
+        }
+        if (pcType == PlayerContainerType.PLAYER) {
+            playerUUIDToPermissions.remove(((PlayerContainerPlayer) pc).getMinecraftUUID());
+        }
     }
 
     /**
-     * Check permission and inherit.
+     * Check permission and inherit. The result is cached until the next
+     * permissions cache generation.
      *
      * @param player the player
      * @param pt     the pt
      * @return the optional boolean
      */
     public boolean checkPermissionAndInherit(final Player player, final PermissionType pt) {
+        if (player == null) {
+            return checkPermissionAndInheritNoCache(player, pt);
+        }
+
+        final PermissionsCache permissionsCache = secuboid.getPermissionsFlags().getPermissionsCache();
+        final long generation = permissionsCache.getGeneration();
+        PermissionDecisions decisions = permissionDecisions;
+        if (decisions.generation < generation) {
+            decisions = new PermissionDecisions(generation);
+            permissionDecisions = decisions;
+        }
+
+        final Map<PermissionType, Boolean> permTypeToDecision = decisions.playerUUIDToDecisions
+                .computeIfAbsent(player.getUniqueId(), k -> new ConcurrentHashMap<>());
+        final Boolean decisionNullable = permTypeToDecision.get(pt);
+        if (decisionNullable != null) {
+            permissionsCache.addHit();
+            return decisionNullable;
+        }
+
+        // Not in a computeIfAbsent: owner and tenant checks come back here for an other
+        // permission type. If the generation changed, the decision goes in an old map.
+        permissionsCache.addMiss();
+        final boolean decision = checkPermissionAndInheritNoCache(player, pt);
+        permTypeToDecision.put(pt, decision);
+        return decision;
+    }
+
+    private boolean checkPermissionAndInheritNoCache(final Player player, final PermissionType pt) {
         final Boolean resultNullable = checkPermissionAndInherit(player, pt, false, this);
         return resultNullable != null ? resultNullable : pt.getDefaultValue();
     }
 
+    /**
+     * Invalidates every cached permission decision (from every land permissions
+     * flags).
+     */
+    void invalidatePermissionsCache() {
+        secuboid.getPermissionsFlags().getPermissionsCache().invalidate();
+    }
+
+    /**
+     * Invalidates the effective flag values (from every land permissions flags).
+     */
+    void invalidateFlagsCache() {
+        secuboid.getPermissionsFlags().invalidateFlags();
+    }
+
     /**
      * Check land permission and inherit.
      *
@@ -375,40 +508,66 @@ public final class LandPermissionsFlags {
      */
     private Boolean getPermission(final PlayerContainerType pcType, final Player player,
                                   final PermissionType pt, final boolean onlyInherit) {
-        Boolean resultNullable;
-
-        for (final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> permissionEntry : permissions
-                .entrySet()) {
-            resultNullable = permissionSingleCheck(pcType, permissionEntry, player, pt, onlyInherit);
-            if (resultNullable != null) {
-                return resultNullable;
-            }
+        final Boolean resultNullable = getPermission(this, pcType, player, pt, onlyInherit);
+        if (resultNullable != null) {
+            return resultNullable;
         }
 
         // Check default configuration
         final LandPermissionsFlags defaultPermissionsFlags;
         if (landNullable != null
                 && (defaultPermissionsFlags = secuboid.getLands().getDefaultConf(landNullable.getType())) != null) {
-            for (final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> permissionEntry : defaultPermissionsFlags.permissions
-                    .entrySet()) {
-                resultNullable = permissionSingleCheck(pcType, permissionEntry, player, pt, onlyInherit);
-                if (resultNullable != null) {
-                    return resultNullable;
-                }
-            }
+            return getPermission(defaultPermissionsFlags, pcType, player, pt, onlyInherit);
         }
 
         return null;
     }
 
-    private Boolean permissionSingleCheck(final PlayerContainerType pcType,
-                                          final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> permissionEntry, final Player player,
-                                          final PermissionType pt, final boolean onlyInherit) {
-        final PlayerContainer playerContainer = permissionEntry.getKey();
-        final Map<PermissionType, Permission> permissionTypeToPermission = permissionEntry.getValue();
-        if (pcType != playerContainer.getContainerType()) {
+    /**
+     * Gets the permission from the player containers of one type. The access is
+     * always checked with this land, even for the default configuration.
+     *
+     * @param sourcePermissionsFlags the permissions flags where the permissions are
+     * @param pcType                 the player container to check
+     * @param player                 the player
+     * @param pt                     the pt
+     * @param onlyInherit            the only inherit
+     * @return the optional boolean
+     */
+    private Boolean getPermission(final LandPermissionsFlags sourcePermissionsFlags,
+                                  final PlayerContainerType pcType, final Player player, final PermissionType pt,
+                                  final boolean onlyInherit) {
+
+        // Only the player with the same UUID has access
+        if (pcType == PlayerContainerType.PLAYER) {
+            if (player == null) {
+                return null;
+            }
+            final Map<PermissionType, Permission> permTypeToPerm = sourcePermissionsFlags.playerUUIDToPermissions
+                    .get(player.getUniqueId());
+            return permTypeToPerm != null ? getPermissionValue(permTypeToPerm, pt, onlyInherit) : null;
+        }
+
+        final Map<PlayerContainer, Map<PermissionType, Permission>> pcToPermTypeToPerm = sourcePermissionsFlags.permissions
+                .get(pcType);
+        if (pcToPermTypeToPerm == null) {
             return null;
         }
+        for (final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> permissionEntry : pcToPermTypeToPerm
+                .entrySet()) {
+            final Boolean resultNullable = permissionSingleCheck(permissionEntry, player, pt, onlyInherit);
+            if (resultNullable != null) {
+                return resultNullable;
+            }
+        }
+
+        return null;
+    }
+
+    private Boolean permissionSingleCheck(
+            final Map.Entry<PlayerContainer, Map<PermissionType, Permission>> permissionEntry, final Player player,
+            final PermissionType pt, final boolean onlyInherit) {
+        final PlayerContainer playerContainer = permissionEntry.getKey();
 
         // Prevents infinite loop
         if ((pt == PermissionList.LAND_OWNER.getPermissionType()
@@ -416,18 +575,24 @@ public final class LandPermissionsFlags {
             return null;
         }
 
-        final boolean value = playerContainer.hasAccess(player, this);
-        if (value) {
-            Permission perm = permissionTypeToPermission.get(pt);
+        if (playerContainer.hasAccess(player, this)) {
+            return getPermissionValue(permissionEntry.getValue(), pt, onlyInherit);
+        }
 
-            // take the parent if the permission does not exist
-            if (perm == null && pt.hasParent()) {
-                perm = permissionTypeToPermission.get(pt.getParent());
-            }
+        return null;
+    }
 
-            if (perm != null && (!onlyInherit || perm.isInheritable())) {
-                return perm.getValue();
-            }
+    private static Boolean getPermissionValue(final Map<PermissionType, Permission> permissionTypeToPermission,
+                                              final PermissionType pt, final boolean onlyInherit) {
+        Permission perm = permissionTypeToPermission.get(pt);
+
+        // take the parent if the permission does not exist
+        if (perm == null && pt.hasParent()) {
+            perm = permissionTypeToPermission.get(pt.getParent());
+        }
+
+        if (perm != null && (!onlyInherit || perm.isInheritable())) {
+            return perm.getValue();
         }
 
         return null;
@@ -441,6 +606,7 @@ public final class LandPermissionsFlags {
     public void addFlag(final Flag flag) {
 
         flags.put(flag.getFlagType(), flag);
+        invalidateFlagsCache();
         doSave(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, flag);
 
         if (landNullable != null) {
@@ -463,6 +629,7 @@ public final class LandPermissionsFlags {
         if (flag == null) {
             return false;
         }
+        invalidateFlagsCache();
         doSave(SaveActionEnum.LAND_FLAG_REMOVE, SaveOn.BOTH, flag);
 
         if (landNullable != null) {
@@ -475,13 +642,27 @@ public final class LandPermissionsFlags {
     }
 
     /**
-     * Gets the land flag and inherit.
+     * Gets the land flag and inherit. The value is kept in an array until the next
+     * flags generation.
      *
      * @param ft the ft
      * @return the land flag value
      */
     public FlagValue getFlagAndInherit(final FlagType ft) {
-        return getFlagAndInherit(ft, false, this);
+        final int flagTypeId = ft.getId();
+        EffectiveFlags actualEffectiveFlags = effectiveFlags;
+        final long generation = secuboid.getPermissionsFlags().getFlagsGeneration();
+        if (actualEffectiveFlags.generation != generation || flagTypeId >= actualEffectiveFlags.values.length) {
+            actualEffectiveFlags = new EffectiveFlags(generation, secuboid.getPermissionsFlags().getNbFlagTypes());
+            effectiveFlags = actualEffectiveFlags;
+        }
+
+        FlagValue flagValue = actualEffectiveFlags.values[flagTypeId];
+        if (flagValue == null) {
+            flagValue = getFlagAndInherit(ft, false, this);
+            actualEffectiveFlags.values[flagTypeId] = flagValue;
+        }
+        return flagValue;
     }
 
     /**
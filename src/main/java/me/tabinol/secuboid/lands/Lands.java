@@ -18,28 +18,41 @@
 package me.tabinol.secuboid.lands;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
 import java.util.logging.Level;
 
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 
 import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.config.Config.AreaIndexType;
 import me.tabinol.secuboid.config.WorldConfig;
 import me.tabinol.secuboid.events.LandDeleteEvent;
 import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.LandsSnapshot.LandView;
 import me.tabinol.secuboid.lands.approve.Approve;
 import me.tabinol.secuboid.lands.approve.Approves;
 import me.tabinol.secuboid.lands.areas.Area;
-import me.tabinol.secuboid.lands.areas.AreaIndex;
+import me.tabinol.secuboid.lands.areas.AreaChunkCache;
+import me.tabinol.secuboid.lands.areas.AreaGridIndex;
+import me.tabinol.secuboid.lands.areas.AreaGridSnapshot;
+import me.tabinol.secuboid.lands.areas.AreaSortedIndex;
+import me.tabinol.secuboid.lands.areas.AreaSpatialIndex;
+import me.tabinol.secuboid.lands.areas.WorldIds;
 import me.tabinol.secuboid.lands.collisions.Collisions.LandAction;
 import me.tabinol.secuboid.lands.collisions.Collisions.LandError;
 import me.tabinol.secuboid.lands.types.Type;
@@ -48,31 +61,33 @@ import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerType;
 import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
 import me.tabinol.secuboid.storage.StorageThread.SaveOn;
+import me.tabinol.secuboid.utilities.PrefixIndex;
+import me.tabinol.secuboid.utilities.SecuboidRunnable;
+import me.tabinol.secuboid.utilities.ShardedSnapshotMap;
 
 /**
  * The Class Lands manager.
  */
 public final class Lands {
 
-    private static final int INDEX_X1 = 0;
-    private static final int INDEX_Z1 = 1;
-    private static final int INDEX_X2 = 2;
-    private static final int INDEX_Z2 = 3;
-
     private final Secuboid secuboid;
     private final WorldConfig worldConfig;
 
     /**
-     * Area list put in an area for finding lands.
+     * The area spatial index type.
      */
-    private static class AreaMap {
-        TreeMap<String, TreeSet<AreaIndex>> worldToAreaIndex;
-    }
+    private AreaIndexType areaIndexType;
+
+    /**
+     * Spatial index with chunk cache by world ids (then by Areas).
+     */
+    private AreaSpatialIndex[] worldIdToAreaIndex;
 
     /**
-     * INDEX first, Tree by worlds (then by Areas).
+     * The outside permissions flags by world ids, taken from the world config on
+     * the first use.
      */
-    private final AreaMap[] areaList;
+    private volatile LandPermissionsFlags[] worldIdToOutsidePermissionsFlags;
 
     /**
      * The land uuid list.
@@ -99,6 +114,50 @@ public final class Lands {
      */
     private final Set<Land> forRent;
 
+    /**
+     * The lands indexed by owner, type, tenant and resident.
+     */
+    private final LandIndexes landIndexes;
+
+    /**
+     * The generation of the land members. It changes when an owner, a resident, a
+     * banned or a parent changes.
+     */
+    private final AtomicLong membersGeneration;
+
+    /**
+     * The generation of the land positions. It changes when an area is added or
+     * removed or when a land priority changes.
+     */
+    private final AtomicLong areasGeneration;
+
+    /**
+     * The active areas by world, to build the spatial indexes of the snapshot.
+     */
+    private final Map<String, Set<Area>> worldToAreas;
+
+    /**
+     * The last published snapshot for the asynchronous readers.
+     */
+    private final AtomicReference<LandsSnapshot> snapshot;
+
+    /**
+     * The lands changed since the last snapshot.
+     */
+    private final Set<UUID> snapshotDirtyLandUUIDs;
+
+    /**
+     * The areas added or removed since the last snapshot, by world.
+     */
+    private final Map<String, Set<Area>> snapshotDirtyWorldToAreas;
+
+    /**
+     * Everything must be taken again in the next snapshot (reload).
+     */
+    private boolean isSnapshotAllDirty;
+
+    private final SnapshotTask snapshotTask;
+
     /**
      * Instantiates a new lands manager.
      *
@@ -111,17 +170,22 @@ public final class Lands {
         this.secuboid = secuboid;
         this.worldConfig = worldConfig;
         this.approves = approves;
-        areaList = new AreaMap[4];
-
-        for (int i = 0; i < 4; i++) {
-            areaList[i] = new AreaMap();
-            areaList[i].worldToAreaIndex = new TreeMap<>();
-        }
-
+        areaIndexType = AreaIndexType.GRID;
+        worldIdToAreaIndex = new AreaSpatialIndex[0];
+        worldIdToOutsidePermissionsFlags = new LandPermissionsFlags[0];
         landList = new TreeMap<>();
         landUUIDList = new TreeMap<>();
         forSale = new HashSet<>();
         forRent = new HashSet<>();
+        landIndexes = new LandIndexes();
+        membersGeneration = new AtomicLong();
+        areasGeneration = new AtomicLong();
+        worldToAreas = new HashMap<>();
+        snapshot = new AtomicReference<>(LandsSnapshot.empty());
+        snapshotDirtyLandUUIDs = new HashSet<>();
+        snapshotDirtyWorldToAreas = new HashMap<>();
+        isSnapshotAllDirty = false;
+        snapshotTask = new SnapshotTask(secuboid);
     }
 
     /**
@@ -130,17 +194,31 @@ public final class Lands {
      * @param isServerBoot is first boot?
      */
     public void loadConfig(final boolean isServerBoot) {
-        if (!isServerBoot) {
-            for (int i = 0; i < 4; i++) {
-                areaList[i] = new AreaMap();
-                areaList[i].worldToAreaIndex = new TreeMap<>();
-            }
+        final AreaIndexType configAreaIndexType = secuboid.getConf().getAreaIndexType();
+        if (configAreaIndexType != null) {
+            areaIndexType = configAreaIndexType;
+        }
+
+        // The world config is loaded again before
+        worldIdToOutsidePermissionsFlags = new LandPermissionsFlags[0];
 
+        if (!isServerBoot) {
+            worldIdToAreaIndex = new AreaSpatialIndex[0];
             landList.clear();
             landUUIDList.clear();
             forSale.clear();
             forRent.clear();
+            landIndexes.clear();
+            synchronized (this) {
+                worldToAreas.clear();
+                isSnapshotAllDirty = true;
+            }
+            invalidateAreas();
         }
+
+        // The world and default configurations are new
+        secuboid.getPermissionsFlags().getPermissionsCache().invalidate();
+        secuboid.getPermissionsFlags().invalidateFlags();
     }
 
     /**
@@ -412,6 +490,7 @@ public final class Lands {
 
         land.setName(newNameLower);
         landList.put(newNameLower, land);
+        markSnapshotLandDirty(land);
 
         return true;
     }
@@ -460,6 +539,17 @@ public final class Lands {
         return landList.values();
     }
 
+    /**
+     * Gets the first land names starting with a prefix (tab completion).
+     *
+     * @param prefix     the prefix
+     * @param maxResults the maximum number of names
+     * @return the land names
+     */
+    public List<String> getLandNamesStartingWith(final String prefix, final int maxResults) {
+        return PrefixIndex.getKeysStartingWith(landList, prefix, maxResults);
+    }
+
     /**
      * Gets the land or world permissions flags.
      *
@@ -483,7 +573,7 @@ public final class Lands {
      * @return the outside area permissions flags
      */
     public LandPermissionsFlags getOutsideLandPermissionsFlags(final Location loc) {
-        return getOutsideLandPermissionsFlags(loc.getWorld().getName());
+        return getOutsideLandPermissionsFlags(WorldIds.getId(loc.getWorld()));
     }
 
     /**
@@ -496,15 +586,27 @@ public final class Lands {
         if (worldNameNullable == null) {
             return worldConfig.getGlobalPermissionsFlags();
         }
-        final String worldNameLower = worldNameNullable.toLowerCase();
-        final LandPermissionsFlags worldPermissionsFlags = worldConfig.getWorldNameToPermissionsFlags()
+        return getOutsideLandPermissionsFlags(WorldIds.getId(worldNameNullable));
+    }
+
+    private LandPermissionsFlags getOutsideLandPermissionsFlags(final int worldId) {
+        final LandPermissionsFlags[] outsidePermissionsFlagsArray = worldIdToOutsidePermissionsFlags;
+        if (worldId < outsidePermissionsFlagsArray.length && outsidePermissionsFlagsArray[worldId] != null) {
+            return outsidePermissionsFlagsArray[worldId];
+        }
+
+        final String worldNameLower = WorldIds.getWorldName(worldId).toLowerCase();
+        LandPermissionsFlags outsidePermissionsFlags = worldConfig.getWorldNameToPermissionsFlags()
                 .get(worldNameLower);
-        if (worldPermissionsFlags != null) {
-            // Found world specific
-            return worldPermissionsFlags;
+        if (outsidePermissionsFlags == null) {
+            // Return just the global
+            outsidePermissionsFlags = worldConfig.getGlobalPermissionsFlags();
         }
-        // Return just the global
-        return worldConfig.getGlobalPermissionsFlags();
+        final LandPermissionsFlags[] newOutsidePermissionsFlagsArray = Arrays.copyOf(outsidePermissionsFlagsArray,
+                Math.max(outsidePermissionsFlagsArray.length, WorldIds.size()));
+        newOutsidePermissionsFlagsArray[worldId] = outsidePermissionsFlags;
+        worldIdToOutsidePermissionsFlags = newOutsidePermissionsFlagsArray;
+        return outsidePermissionsFlags;
     }
 
     /**
@@ -549,38 +651,41 @@ public final class Lands {
      * Gets the lands.
      *
      * @param owner the owner
-     * @return the lands
+     * @return the lands (unmodifiable)
      */
     public Set<Land> getLands(final PlayerContainer owner) {
-
-        final Set<Land> lands = new HashSet<>();
-
-        for (final Land land : landList.values()) {
-            if (land.getOwner().equals(owner)) {
-                lands.add(land);
-            }
-        }
-
-        return lands;
+        return landIndexes.getLandsFromOwner(owner);
     }
 
     /**
      * Gets the lands from type.
      *
      * @param type the type
-     * @return the lands
+     * @return the lands (unmodifiable)
      */
     public Set<Land> getLands(final Type type) {
+        return landIndexes.getLandsFromType(type);
+    }
 
-        final Set<Land> lands = new HashSet<>();
-
-        for (final Land land : landList.values()) {
-            if (land.getType() == type) {
-                lands.add(land);
-            }
-        }
+    /**
+     * Gets the lands rented by a player.
+     *
+     * @param tenantUUID the tenant minecraft UUID
+     * @return the lands (unmodifiable)
+     */
+    public Set<Land> getLandsFromTenant(final UUID tenantUUID) {
+        return landIndexes.getLandsFromTenant(tenantUUID);
+    }
 
-        return lands;
+    /**
+     * Gets the lands where a player is directly resident, without the
+     * inheritance and the non player residents.
+     *
+     * @param residentUUID the resident minecraft UUID
+     * @return the lands (unmodifiable)
+     */
+    public Set<Land> getLandsFromResident(final UUID residentUUID) {
+        return landIndexes.getLandsFromResident(residentUUID);
     }
 
     /**
@@ -610,7 +715,7 @@ public final class Lands {
      * @return the cuboid areas
      */
     public List<Area> getAreas(final String worldName, final int x, final int z) {
-        return getAreas(worldName, x, 0, z, false);
+        return getAreas(WorldIds.getId(worldName), x, 0, z, false);
     }
 
     /**
@@ -620,56 +725,42 @@ public final class Lands {
      * @return the cuboid areas
      */
     public List<Area> getAreas(final Location loc) {
-        return getAreas(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(), true);
+        return getAreas(WorldIds.getId(loc.getWorld()), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(), true);
+    }
+
+    /**
+     * Gets the areas where the square limit touches a rectangle. This method
+     * ignores Y value.
+     *
+     * @param worldName the world name
+     * @param x1        the x1
+     * @param z1        the z1
+     * @param x2        the x2
+     * @param z2        the z2
+     * @return the areas
+     */
+    public List<Area> getAreas(final String worldName, final int x1, final int z1, final int x2, final int z2) {
+        final AreaSpatialIndex areaSpatialIndex = getAreaIndexNullable(WorldIds.getId(worldName));
+        if (areaSpatialIndex == null || areaSpatialIndex.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return areaSpatialIndex.getAreas(x1, z1, x2, z2);
     }
 
-    private List<Area> getAreas(final String worldName, final int x, final int y, final int z, final boolean isY) {
+    private List<Area> getAreas(final int worldId, final int x, final int y, final int z, final boolean isY) {
 
         final List<Area> areas = new ArrayList<>();
-        final int searchIndex;
-        final int nbToFind;
-        final boolean forwardSearch;
-        final TreeSet<AreaIndex> ais;
-        final Iterator<AreaIndex> it;
-        AreaIndex ai;
-
-        // First, determinate if what is the highest number between x1, x2, z1 and z2
-        if (Math.abs(x) > Math.abs(z)) {
-            nbToFind = x;
-            if (x < 0) {
-                searchIndex = INDEX_X1;
-                forwardSearch = true;
-            } else {
-                searchIndex = INDEX_X2;
-                forwardSearch = false;
-            }
-        } else {
-            nbToFind = z;
-            if (z < 0) {
-                searchIndex = INDEX_Z1;
-                forwardSearch = true;
-            } else {
-                searchIndex = INDEX_Z2;
-                forwardSearch = false;
-            }
-        }
 
         // Now check for area in location
-        ais = areaList[searchIndex].worldToAreaIndex.get(worldName);
-        if (ais == null || ais.isEmpty()) {
+        final AreaSpatialIndex areaSpatialIndex = getAreaIndexNullable(worldId);
+        if (areaSpatialIndex == null || areaSpatialIndex.isEmpty()) {
             return areas;
         }
-        if (forwardSearch) {
-            it = ais.iterator();
-        } else {
-            it = ais.descendingIterator();
-        }
 
         // Adds all areas to the list
-        while (it.hasNext() && checkContinueSearch((ai = it.next()).getArea(), nbToFind, searchIndex)) {
-
-            if (isY ? ai.getArea().isLocationInside(worldName, x, y, z) : ai.getArea().isLocationInsideSquare(x, z)) {
-                areas.add(ai.getArea());
+        for (final Area area : areaSpatialIndex.getAreas(x, z)) {
+            if (!isY || area.isLocationInside(worldId, x, y, z)) {
+                areas.add(area);
             }
         }
         return areas;
@@ -704,8 +795,7 @@ public final class Lands {
         for (final Area area : areas) {
             curPrio = area.getLand().getPriority();
 
-            if (actualArea == null || actualPrio < curPrio
-                    || (actualPrio == curPrio && area.getLand().isParentOrAncestor(actualArea.getLand()))) {
+            if (isOverArea(area, curPrio, actualArea, actualPrio)) {
                 actualArea = area;
                 actualPrio = curPrio;
             }
@@ -714,6 +804,263 @@ public final class Lands {
         return actualArea;
     }
 
+    /**
+     * Gets the safe region of a location: the box around the location where the
+     * resolved land cannot change.
+     *
+     * @param loc the location
+     * @return the safe region
+     */
+    public SafeRegion getSafeRegion(final Location loc) {
+        final long actualAreasGeneration = areasGeneration.get();
+        final String worldName = loc.getWorld().getName();
+        final int x = loc.getBlockX();
+        final int z = loc.getBlockZ();
+        return SafeRegion.build(worldName, x, loc.getBlockY(), z, loc.getWorld().getMaxHeight(),
+                getAreas(worldName, x - SafeRegion.RADIUS, z - SafeRegion.RADIUS, x + SafeRegion.RADIUS,
+                        z + SafeRegion.RADIUS),
+                actualAreasGeneration);
+    }
+
+    /**
+     * Gets the land or world permissions flags of many blocks in a world (ex:
+     * explosion). The blocks are grouped by chunk: the areas touching a chunk are
+     * taken from the index once, then every block of the chunk is checked with
+     * these areas only.
+     *
+     * @param world  the world of the blocks
+     * @param blocks the blocks
+     * @return the permissions flags in the blocks order
+     */
+    public List<LandPermissionsFlags> getPermissionsFlags(final World world, final List<Block> blocks) {
+        return getPermissionsFlags(world, blocks, Block::getX, Block::getY, Block::getZ);
+    }
+
+    /**
+     * Gets the land or world permissions flags of many block locations in a world
+     * (ex: visual selection borders). See getPermissionsFlags for the blocks.
+     *
+     * @param world     the world of the locations
+     * @param locations the locations
+     * @return the permissions flags in the locations order
+     */
+    public List<LandPermissionsFlags> getPermissionsFlagsFromLocations(final World world,
+            final List<Location> locations) {
+        return getPermissionsFlags(world, locations, Location::getBlockX, Location::getBlockY,
+                Location::getBlockZ);
+    }
+
+    private <T> List<LandPermissionsFlags> getPermissionsFlags(final World world, final List<T> positions,
+            final ToIntFunction<T> getX, final ToIntFunction<T> getY, final ToIntFunction<T> getZ) {
+        final int worldId = WorldIds.getId(world);
+        final LandPermissionsFlags outsidePermissionsFlags = getOutsideLandPermissionsFlags(worldId);
+        final LandPermissionsFlags[] permissionsFlagsArray = new LandPermissionsFlags[positions.size()];
+        final AreaSpatialIndex areaSpatialIndex = getAreaIndexNullable(worldId);
+        if (areaSpatialIndex == null || areaSpatialIndex.isEmpty()) {
+            Arrays.fill(permissionsFlagsArray, outsidePermissionsFlags);
+            return new ArrayList<>(Arrays.asList(permissionsFlagsArray));
+        }
+
+        // Group by chunk
+        final Map<Long, List<Integer>> chunkToIndexes = new HashMap<>();
+        for (int i = 0; i < positions.size(); i++) {
+            final T position = positions.get(i);
+            final long chunkKey = ((long) (getX.applyAsInt(position) >> 4) << 32)
+                    | ((getZ.applyAsInt(position) >> 4) & 0xFFFFFFFFL);
+            chunkToIndexes.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(i);
+        }
+
+        for (final Map.Entry<Long, List<Integer>> chunkEntry : chunkToIndexes.entrySet()) {
+            final int chunkX = (int) (chunkEntry.getKey() >> 32);
+            final int chunkZ = (int) chunkEntry.getKey().longValue();
+            final List<Area> chunkAreas = areaSpatialIndex.getAreas(chunkX << 4, chunkZ << 4, (chunkX << 4) + 15,
+                    (chunkZ << 4) + 15);
+            for (final int i : chunkEntry.getValue()) {
+                final T position = positions.get(i);
+                final int x = getX.applyAsInt(position);
+                final int y = getY.applyAsInt(position);
+                final int z = getZ.applyAsInt(position);
+                Area actualArea = null;
+                int actualPrio = Short.MIN_VALUE;
+                for (final Area area : chunkAreas) {
+                    if (area.isLocationInside(worldId, x, y, z)) {
+                        final int curPrio = area.getLand().getPriority();
+                        if (isOverArea(area, curPrio, actualArea, actualPrio)) {
+                            actualArea = area;
+                            actualPrio = curPrio;
+                        }
+                    }
+                }
+                permissionsFlagsArray[i] = actualArea != null ? actualArea.getLand().getPermissionsFlags()
+                        : outsidePermissionsFlags;
+            }
+        }
+        return new ArrayList<>(Arrays.asList(permissionsFlagsArray));
+    }
+
+    /**
+     * Checks if an area takes the place of the actual area on a location. The
+     * highest priority wins, then a child wins over its parent.
+     *
+     * @param area               the area to check
+     * @param areaPrio           the area land priority
+     * @param actualAreaNullable the actual area
+     * @param actualPrio         the actual area land priority
+     * @return true if the area takes the place
+     */
+    private static boolean isOverArea(final Area area, final int areaPrio, final Area actualAreaNullable,
+            final int actualPrio) {
+        return actualAreaNullable == null || actualPrio < areaPrio
+                || (actualPrio == areaPrio && area.getLand().isParentOrAncestor(actualAreaNullable.getLand()));
+    }
+
+    /**
+     * Gets the generation of the land members.
+     *
+     * @return the members generation
+     */
+    long getMembersGeneration() {
+        return membersGeneration.get();
+    }
+
+    /**
+     * Invalidates the inherited members cached in every land.
+     */
+    void invalidateMembers() {
+        membersGeneration.incrementAndGet();
+    }
+
+    /**
+     * Gets the areas generation. A safe region is valid for one generation only.
+     *
+     * @return the areas generation
+     */
+    public long getAreasGeneration() {
+        return areasGeneration.get();
+    }
+
+    /**
+     * Invalidates the safe regions after an area or a priority change.
+     */
+    void invalidateAreas() {
+        areasGeneration.incrementAndGet();
+    }
+
+    /**
+     * Gets the last published snapshot. This method can be called from any
+     * thread.
+     *
+     * @return the lands snapshot
+     */
+    public LandsSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Publishes a new snapshot if there are changes. Only the changed lands and
+     * areas are taken again, the rest is shared with the previous snapshot. Called
+     * from the main thread.
+     *
+     * @return the up to date snapshot
+     */
+    public synchronized LandsSnapshot publishSnapshot() {
+        final LandsSnapshot previous = snapshot.get();
+        if (!isSnapshotAllDirty && snapshotDirtyLandUUIDs.isEmpty() && snapshotDirtyWorldToAreas.isEmpty()) {
+            return previous;
+        }
+
+        final ShardedSnapshotMap.Editor<UUID, LandView> uuidToLand;
+        final ShardedSnapshotMap.Editor<String, UUID> nameToUUID;
+        final Map<String, AreaGridSnapshot> worldToSnapshotIndex;
+        if (isSnapshotAllDirty) {
+            uuidToLand = ShardedSnapshotMap.<UUID, LandView>empty().edit();
+            nameToUUID = ShardedSnapshotMap.<String, UUID>empty().edit();
+            worldToSnapshotIndex = new HashMap<>();
+            snapshotDirtyLandUUIDs.addAll(landUUIDList.keySet());
+            snapshotDirtyWorldToAreas.clear();
+            for (final Map.Entry<String, Set<Area>> entry : worldToAreas.entrySet()) {
+                snapshotDirtyWorldToAreas.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        } else {
+            uuidToLand = previous.getUUIDToLand().edit();
+            nameToUUID = previous.getNameToUUID().edit();
+            worldToSnapshotIndex = new HashMap<>(previous.getWorldToAreaIndex());
+        }
+
+        // Old names first: a name can move to another land
+        for (final UUID landUUID : snapshotDirtyLandUUIDs) {
+            final LandView oldLandView = uuidToLand.remove(landUUID);
+            if (oldLandView != null) {
+                nameToUUID.remove(oldLandView.getName(), landUUID);
+            }
+        }
+        for (final UUID landUUID : snapshotDirtyLandUUIDs) {
+            final Land land = landUUIDList.get(landUUID);
+            if (land != null) {
+                uuidToLand.put(landUUID, LandView.of(land));
+                nameToUUID.put(land.getName(), landUUID);
+            }
+        }
+
+        // The snapshot indexes are never changed after the publication
+        for (final Map.Entry<String, Set<Area>> entry : snapshotDirtyWorldToAreas.entrySet()) {
+            final String worldName = entry.getKey();
+            final Set<Area> areas = worldToAreas.getOrDefault(worldName, Collections.emptySet());
+            final AreaGridSnapshot areaGridSnapshot = worldToSnapshotIndex
+                    .getOrDefault(worldName, AreaGridSnapshot.empty()).withChanges(entry.getValue(), areas::contains);
+            if (areaGridSnapshot.isEmpty()) {
+                worldToSnapshotIndex.remove(worldName);
+            } else {
+                worldToSnapshotIndex.put(worldName, areaGridSnapshot);
+            }
+        }
+
+        snapshotDirtyLandUUIDs.clear();
+        snapshotDirtyWorldToAreas.clear();
+        isSnapshotAllDirty = false;
+        final LandsSnapshot newSnapshot = new LandsSnapshot(previous.getVersion() + 1,
+                Collections.unmodifiableMap(worldToSnapshotIndex), uuidToLand.build(), nameToUUID.build());
+        snapshot.set(newSnapshot);
+        return newSnapshot;
+    }
+
+    /**
+     * Starts the task publishing the snapshot on every tick with changes.
+     */
+    public void startSnapshotTask() {
+        snapshotTask.runLater(1L, true);
+    }
+
+    /**
+     * Marks a land, its parent and its descendants as changed for the next
+     * snapshot (name, priority or tree change).
+     *
+     * @param land the land
+     */
+    synchronized void markSnapshotDirty(final Land land) {
+        final Land parent = land.getParent();
+        if (parent != null) {
+            snapshotDirtyLandUUIDs.add(parent.getUUID());
+        }
+        markSnapshotDescendantsDirty(land);
+    }
+
+    private void markSnapshotDescendantsDirty(final Land land) {
+        snapshotDirtyLandUUIDs.add(land.getUUID());
+        for (final Land child : land.getChildren()) {
+            markSnapshotDescendantsDirty(child);
+        }
+    }
+
+    /**
+     * Marks only a land as changed for the next snapshot (owner or areas).
+     *
+     * @param land the land
+     */
+    synchronized void markSnapshotLandDirty(final Land land) {
+        snapshotDirtyLandUUIDs.add(land.getUUID());
+    }
+
     /**
      * Set a parent to a map of lands.
      *
@@ -739,57 +1086,65 @@ public final class Lands {
     }
 
     /**
-     * Check continue search.
+     * Adds the area to list.
      *
-     * @param area        the area
-     * @param nbToFind    the nb to find
-     * @param searchIndex the search index
-     * @return true, if successful
+     * @param area the area
      */
-    private boolean checkContinueSearch(final Area area, final int nbToFind, final int searchIndex) {
-
-        switch (searchIndex) {
-            case INDEX_X1:
-                return nbToFind >= area.getX1();
-            case INDEX_X2:
-                return nbToFind <= area.getX2();
-            case INDEX_Z1:
-                return nbToFind >= area.getZ1();
-            case INDEX_Z2:
-                return nbToFind <= area.getZ2();
-            default:
-                return false;
+    void addAreaToList(final Area area) {
+        final int worldId = area.getWorldId();
+        if (worldId >= worldIdToAreaIndex.length) {
+            worldIdToAreaIndex = Arrays.copyOf(worldIdToAreaIndex, WorldIds.size());
+        }
+        if (worldIdToAreaIndex[worldId] == null) {
+            worldIdToAreaIndex[worldId] = new AreaChunkCache(newAreaSpatialIndex());
         }
+        worldIdToAreaIndex[worldId].add(area);
+        synchronized (this) {
+            worldToAreas.computeIfAbsent(area.getWorldName(), k -> new HashSet<>()).add(area);
+            snapshotDirtyWorldToAreas.computeIfAbsent(area.getWorldName(), k -> new HashSet<>()).add(area);
+        }
+        markSnapshotLandDirty(area.getLand());
+        invalidateAreas();
     }
 
     /**
-     * Adds the area to list.
+     * Removes the area from list.
      *
      * @param area the area
      */
-    void addAreaToList(final Area area) {
-
-        if (!areaList[0].worldToAreaIndex.containsKey(area.getWorldName())) {
-            for (int t = 0; t < 4; t++) {
-                areaList[t].worldToAreaIndex.put(area.getWorldName(), new TreeSet<AreaIndex>());
+    void removeAreaFromList(final Area area) {
+        final AreaSpatialIndex areaSpatialIndex = getAreaIndexNullable(area.getWorldId());
+        if (areaSpatialIndex != null) {
+            areaSpatialIndex.remove(area);
+        }
+        synchronized (this) {
+            final Set<Area> areas = worldToAreas.get(area.getWorldName());
+            if (areas != null && areas.remove(area) && areas.isEmpty()) {
+                worldToAreas.remove(area.getWorldName());
             }
+            snapshotDirtyWorldToAreas.computeIfAbsent(area.getWorldName(), k -> new HashSet<>()).add(area);
         }
-        areaList[INDEX_X1].worldToAreaIndex.get(area.getWorldName()).add(new AreaIndex(area.getX1(), area));
-        areaList[INDEX_Z1].worldToAreaIndex.get(area.getWorldName()).add(new AreaIndex(area.getZ1(), area));
-        areaList[INDEX_X2].worldToAreaIndex.get(area.getWorldName()).add(new AreaIndex(area.getX2(), area));
-        areaList[INDEX_Z2].worldToAreaIndex.get(area.getWorldName()).add(new AreaIndex(area.getZ2(), area));
+        markSnapshotLandDirty(area.getLand());
+        invalidateAreas();
+    }
+
+    private AreaSpatialIndex getAreaIndexNullable(final int worldId) {
+        return worldId < worldIdToAreaIndex.length ? worldIdToAreaIndex[worldId] : null;
     }
 
     /**
-     * Removes the area from list.
+     * Creates a new spatial index for a world from the configuration type.
      *
-     * @param area the area
+     * @return the area spatial index
      */
-    void removeAreaFromList(final Area area) {
-        areaList[INDEX_X1].worldToAreaIndex.get(area.getWorldName()).remove(new AreaIndex(area.getX1(), area));
-        areaList[INDEX_Z1].worldToAreaIndex.get(area.getWorldName()).remove(new AreaIndex(area.getZ1(), area));
-        areaList[INDEX_X2].worldToAreaIndex.get(area.getWorldName()).remove(new AreaIndex(area.getX2(), area));
-        areaList[INDEX_Z2].worldToAreaIndex.get(area.getWorldName()).remove(new AreaIndex(area.getZ2(), area));
+    private AreaSpatialIndex newAreaSpatialIndex() {
+        switch (areaIndexType) {
+            case SORTED:
+                return new AreaSortedIndex();
+            case GRID:
+            default:
+                return new AreaGridIndex();
+        }
     }
 
     /**
@@ -800,6 +1155,8 @@ public final class Lands {
     private void addLandToList(final Land land) {
         landList.put(land.getName(), land);
         landUUIDList.put(land.getUUID(), land);
+        landIndexes.addLand(land);
+        markSnapshotDirty(land);
     }
 
     /**
@@ -810,11 +1167,118 @@ public final class Lands {
     private void removeLandFromList(final Land land) {
         landList.remove(land.getName());
         landUUIDList.remove(land.getUUID());
+        landIndexes.removeLand(land);
+        markSnapshotDirty(land);
+        forSale.remove(land);
+        forRent.remove(land);
         for (final Area area : land.getAreas()) {
             removeAreaFromList(area);
         }
     }
 
+    /**
+     * Checks if the land is in the lands list. The indexes are updated only for
+     * the lands in the list.
+     *
+     * @param land the land
+     * @return true, if the land is in the list
+     */
+    private boolean isInList(final Land land) {
+        return landUUIDList.get(land.getUUID()) == land;
+    }
+
+    /**
+     * Updates the owner index after an owner change.
+     *
+     * @param land     the land
+     * @param oldOwner the old owner
+     */
+    void updateOwnerIndex(final Land land, final PlayerContainer oldOwner) {
+        if (isInList(land)) {
+            landIndexes.changeOwner(land, oldOwner);
+            markSnapshotLandDirty(land);
+        }
+    }
+
+    /**
+     * Updates the type index after a type change.
+     *
+     * @param land            the land
+     * @param oldTypeNullable the old type nullable
+     */
+    void updateTypeIndex(final Land land, final Type oldTypeNullable) {
+        if (isInList(land)) {
+            landIndexes.changeType(land, oldTypeNullable);
+        }
+    }
+
+    /**
+     * Updates the tenant index after a tenant change.
+     *
+     * @param land              the land
+     * @param oldTenantNullable the old tenant nullable
+     */
+    void updateTenantIndex(final Land land, final PlayerContainerPlayer oldTenantNullable) {
+        if (isInList(land)) {
+            landIndexes.changeTenant(land, oldTenantNullable);
+        }
+    }
+
+    /**
+     * Adds a resident to the resident index.
+     *
+     * @param land     the land
+     * @param resident the resident
+     */
+    void addResidentIndex(final Land land, final PlayerContainer resident) {
+        if (isInList(land)) {
+            landIndexes.addResident(land, resident);
+        }
+    }
+
+    /**
+     * Removes a resident from the resident index.
+     *
+     * @param land     the land
+     * @param resident the resident
+     */
+    void removeResidentIndex(final Land land, final PlayerContainer resident) {
+        if (isInList(land)) {
+            landIndexes.removeResident(land, resident);
+        }
+    }
+
+    /**
+     * Checks the secondary indexes and the for sale and for rent lists against
+     * the lands list. Used by the tests.
+     *
+     * @return the differences found, or an empty list
+     */
+    List<String> checkIndexes() {
+        final List<String> errors = landIndexes.check(landList.values());
+        for (final Land land : landUUIDList.values()) {
+            if (land.isForSale() != forSale.contains(land)) {
+                errors.add(String.format("For sale %s: %s, expected %s", land.getName(), forSale.contains(land),
+                        land.isForSale()));
+            }
+            if (land.isForRent() != forRent.contains(land)) {
+                errors.add(String.format("For rent %s: %s, expected %s", land.getName(), forRent.contains(land),
+                        land.isForRent()));
+            }
+        }
+        for (final Land land : forSale) {
+            if (!isInList(land)) {
+                errors.add("For sale land not in the list: " + land.getName());
+            }
+        }
+        for (final Land land : forRent) {
+            if (!isInList(land)) {
+                errors.add("For rent land not in the list: " + land.getName());
+            }
+        }
+        return errors;
+    }
+
     /**
      * Adds the for sale.
      *
@@ -839,7 +1303,7 @@ public final class Lands {
      * @return the for sale
      */
     public Collection<Land> getForSale() {
-        return forSale;
+        return Collections.unmodifiableSet(forSale);
     }
 
     /**
@@ -866,6 +1330,21 @@ public final class Lands {
      * @return the for rent
      */
     public Set<Land> getForRent() {
-        return forRent;
+        return Collections.unmodifiableSet(forRent);
+    }
+
+    /**
+     * The task publishing the snapshot.
+     */
+    private final class SnapshotTask extends SecuboidRunnable {
+
+        private SnapshotTask(final Secuboid secuboid) {
+            super(secuboid);
+        }
+
+        @Override
+        public void run() {
+            publishSnapshot();
+        }
     }
 }
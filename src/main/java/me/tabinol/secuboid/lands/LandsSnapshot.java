@@ -0,0 +1,382 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.AreaGridSnapshot;
+import me.tabinol.secuboid.playercontainer.PlayerContainer;
+import me.tabinol.secuboid.utilities.ShardedSnapshotMap;
+
+/**
+ * An immutable view of the lands for the asynchronous readers (chat, collisions
+ * thread). The main thread publishes a new snapshot after the changes, once by
+ * tick: the new snapshot shares with the previous one the views of the
+ * unchanged lands and the grid cells without changed areas. The published
+ * snapshot can be one tick late. The players in a land are not part of the
+ * snapshot, they are read live.
+ */
+public final class LandsSnapshot {
+
+    private final long version;
+    private final Map<String, AreaGridSnapshot> worldToAreaIndex;
+    private final ShardedSnapshotMap<UUID, LandView> uuidToLand;
+    private final ShardedSnapshotMap<String, UUID> nameToUUID;
+
+    LandsSnapshot(final long version, final Map<String, AreaGridSnapshot> worldToAreaIndex,
+                  final ShardedSnapshotMap<UUID, LandView> uuidToLand,
+                  final ShardedSnapshotMap<String, UUID> nameToUUID) {
+        this.version = version;
+        this.worldToAreaIndex = worldToAreaIndex;
+        this.uuidToLand = uuidToLand;
+        this.nameToUUID = nameToUUID;
+    }
+
+    static LandsSnapshot empty() {
+        return new LandsSnapshot(0L, Collections.emptyMap(), ShardedSnapshotMap.empty(),
+                ShardedSnapshotMap.empty());
+    }
+
+    Map<String, AreaGridSnapshot> getWorldToAreaIndex() {
+        return worldToAreaIndex;
+    }
+
+    ShardedSnapshotMap<UUID, LandView> getUUIDToLand() {
+        return uuidToLand;
+    }
+
+    ShardedSnapshotMap<String, UUID> getNameToUUID() {
+        return nameToUUID;
+    }
+
+    /**
+     * Gets the version. It is incremented on each publication.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets a land view.
+     *
+     * @param uuid the land uuid
+     * @return the land view or null
+     */
+    public LandView getLand(final UUID uuid) {
+        return uuidToLand.get(uuid);
+    }
+
+    /**
+     * Gets a land view.
+     *
+     * @param landName the land name
+     * @return the land view or null
+     */
+    public LandView getLand(final String landName) {
+        final UUID uuid = nameToUUID.get(landName.toLowerCase());
+        return uuid != null ? uuidToLand.get(uuid) : null;
+    }
+
+    /**
+     * Checks if the land name exists.
+     *
+     * @param landName the land name
+     * @return true if the name exists
+     */
+    public boolean isNameExist(final String landName) {
+        return nameToUUID.containsKey(landName.toLowerCase());
+    }
+
+    /**
+     * Gets the land views.
+     *
+     * @return the land views (unmodifiable)
+     */
+    public Collection<LandView> getLands() {
+        return uuidToLand.values();
+    }
+
+    /**
+     * Gets the number of lands of an owner.
+     *
+     * @param owner the owner
+     * @return the number of lands
+     */
+    public int getNbLands(final PlayerContainer owner) {
+        int nbLands = 0;
+        for (final LandView landView : uuidToLand.values()) {
+            if (landView.owner.equals(owner)) {
+                nbLands++;
+            }
+        }
+        return nbLands;
+    }
+
+    /**
+     * Gets the areas where the square limit touches a rectangle. This method
+     * ignores Y value.
+     *
+     * @param worldName the world name
+     * @param x1        the x1
+     * @param z1        the z1
+     * @param x2        the x2
+     * @param z2        the z2
+     * @return the areas
+     */
+    public List<Area> getAreas(final String worldName, final int x1, final int z1, final int x2, final int z2) {
+        final AreaGridSnapshot areaGridSnapshot = worldToAreaIndex.get(worldName);
+        if (areaGridSnapshot == null || areaGridSnapshot.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return areaGridSnapshot.getAreas(x1, z1, x2, z2);
+    }
+
+    /**
+     * Gets the land view at a location. The location is moved to the sky or the
+     * bedrock limit if it is outside the world height.
+     *
+     * @param loc the location
+     * @return the land view or null
+     */
+    public LandView getLand(final Location loc) {
+        final int maxHeight = loc.getWorld().getMaxHeight();
+        final int y = Math.max(0, Math.min(maxHeight - 1, loc.getBlockY()));
+        return getLand(loc.getWorld().getName(), loc.getBlockX(), y, loc.getBlockZ());
+    }
+
+    /**
+     * Gets the land view at a block position. The highest priority wins, then a
+     * child wins over its parent.
+     *
+     * @param worldName the world name
+     * @param x         the x
+     * @param y         the y
+     * @param z         the z
+     * @return the land view or null
+     */
+    public LandView getLand(final String worldName, final int x, final int y, final int z) {
+        final AreaGridSnapshot areaGridSnapshot = worldToAreaIndex.get(worldName);
+        if (areaGridSnapshot == null) {
+            return null;
+        }
+
+        LandView actualLand = null;
+        for (final Area area : areaGridSnapshot.getAreas(x, z)) {
+            if (!area.isLocationInside(worldName, x, y, z)) {
+                continue;
+            }
+            final LandView landView = uuidToLand.get(area.getLand().getUUID());
+            if (landView != null && (actualLand == null || actualLand.priority < landView.priority
+                    || (actualLand.priority == landView.priority && isParentOrAncestor(landView, actualLand)))) {
+                actualLand = landView;
+            }
+        }
+        return actualLand;
+    }
+
+    /**
+     * Gets the parent view.
+     *
+     * @param landView the land view
+     * @return the parent view or null
+     */
+    public LandView getParent(final LandView landView) {
+        return landView.parentUUIDNullable != null ? uuidToLand.get(landView.parentUUIDNullable) : null;
+    }
+
+    /**
+     * Gets the first parent in the line (or this land).
+     *
+     * @param landView the land view
+     * @return the first parent view
+     */
+    public LandView getFirstParent(final LandView landView) {
+        LandView firstParent = landView;
+        LandView nextParent;
+        while ((nextParent = getParent(firstParent)) != null) {
+            firstParent = nextParent;
+        }
+        return firstParent;
+    }
+
+    /**
+     * Gets the children views.
+     *
+     * @param landView the land view
+     * @return the children views
+     */
+    public List<LandView> getChildren(final LandView landView) {
+        final List<LandView> children = new ArrayList<>(landView.childrenUUIDs.size());
+        for (final UUID childUUID : landView.childrenUUIDs) {
+            final LandView child = uuidToLand.get(childUUID);
+            if (child != null) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Checks if a land is the same land, a child or a descendant.
+     *
+     * @param landView the land view
+     * @param other    the other land view
+     * @return true if the other land is this land or a descendant
+     */
+    public boolean isDescendants(final LandView landView, final LandView other) {
+        if (landView.uuid.equals(other.uuid)) {
+            return true;
+        }
+        for (final LandView child : getChildren(landView)) {
+            if (isDescendants(child, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a land is the parent, grand-parent or ancestor.
+     *
+     * @param landView the land view
+     * @param other    the other land view
+     * @return true if the other land is an ancestor
+     */
+    public boolean isParentOrAncestor(final LandView landView, final LandView other) {
+        LandView parent = getParent(landView);
+        while (parent != null) {
+            if (parent.uuid.equals(other.uuid)) {
+                return true;
+            }
+            parent = getParent(parent);
+        }
+        return false;
+    }
+
+    /**
+     * Gets the players in land and children. The players are the actual ones, the
+     * tree is the one of the snapshot.
+     *
+     * @param landView the land view
+     * @return the players in land and children
+     */
+    public Set<Player> getPlayersInLandAndChildren(final LandView landView) {
+        final Set<Player> players = new HashSet<>(landView.playersInLand);
+        for (final LandView child : getChildren(landView)) {
+            players.addAll(getPlayersInLandAndChildren(child));
+        }
+        return players;
+    }
+
+    /**
+     * An immutable view of one land.
+     */
+    public static final class LandView {
+
+        private final UUID uuid;
+        private final String name;
+        private final PlayerContainer owner;
+        private final short priority;
+        private final UUID parentUUIDNullable;
+        private final List<UUID> childrenUUIDs;
+        private final List<Area> areas;
+        private final Set<Player> playersInLand;
+
+        private LandView(final Land land) {
+            uuid = land.getUUID();
+            name = land.getName();
+            owner = land.getOwner();
+            priority = land.getPriority();
+            final Land parent = land.getParent();
+            parentUUIDNullable = parent != null ? parent.getUUID() : null;
+            final List<UUID> childrenUUIDList = new ArrayList<>();
+            for (final Land child : land.getChildren()) {
+                childrenUUIDList.add(child.getUUID());
+            }
+            childrenUUIDs = Collections.unmodifiableList(childrenUUIDList);
+            areas = Collections.unmodifiableList(new ArrayList<>(land.getAreas()));
+            playersInLand = Collections.unmodifiableSet(land.getPlayersInLand());
+        }
+
+        /**
+         * Takes a view of a land. Called from the main thread only.
+         *
+         * @param land the land
+         * @return the land view
+         */
+        static LandView of(final Land land) {
+            return new LandView(land);
+        }
+
+        public UUID getUUID() {
+            return uuid;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PlayerContainer getOwner() {
+            return owner;
+        }
+
+        /**
+         * Gets the priority. A child gets the parent priority.
+         *
+         * @return the priority
+         */
+        public short getPriority() {
+            return priority;
+        }
+
+        public UUID getParentUUIDNullable() {
+            return parentUUIDNullable;
+        }
+
+        public List<UUID> getChildrenUUIDs() {
+            return childrenUUIDs;
+        }
+
+        public List<Area> getAreas() {
+            return areas;
+        }
+
+        /**
+         * Gets the players in land. This set is not a copy: it changes with the
+         * land, without a new snapshot.
+         *
+         * @return the players in land (unmodifiable)
+         */
+        public Set<Player> getPlayersInLand() {
+            return playersInLand;
+        }
+    }
+}
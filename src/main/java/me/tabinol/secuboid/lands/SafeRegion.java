@@ -0,0 +1,238 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import java.util.Collection;
+
+import org.bukkit.Location;
+
+import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.AreaGeometry;
+import me.tabinol.secuboid.lands.areas.AreaType;
+
+/**
+ * A box around a location where every block is inside exactly the same areas.
+ * The resolved land cannot change while a player stays inside, until an area
+ * or a priority changes (areas generation).
+ */
+public final class SafeRegion {
+
+    /**
+     * The maximum distance from the location to the box limits.
+     */
+    static final int RADIUS = 16;
+
+    private final String worldName;
+    private final int x1;
+    private final int y1;
+    private final int z1;
+    private final int x2;
+    private final int y2;
+    private final int z2;
+    private final long areasGeneration;
+
+    private SafeRegion(final String worldName, final int x1, final int y1, final int z1, final int x2, final int y2,
+                       final int z2, final long areasGeneration) {
+        this.worldName = worldName;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.z1 = z1;
+        this.x2 = x2;
+        this.y2 = y2;
+        this.z2 = z2;
+        this.areasGeneration = areasGeneration;
+    }
+
+    /**
+     * Builds the safe region of a block location. Each area shrinks the box: the
+     * box must be inside an area containing the location and outside the other
+     * areas.
+     *
+     * @param worldName       the world name
+     * @param x               the block x
+     * @param y               the block y
+     * @param z               the block z
+     * @param maxHeight       the world max height
+     * @param areas           the areas near the location (at least in the radius)
+     * @param areasGeneration the actual areas generation
+     * @return the safe region
+     */
+    static SafeRegion build(final String worldName, final int x, final int y, final int z, final int maxHeight,
+                            final Collection<Area> areas, final long areasGeneration) {
+        // The lands search is done at the sky or bedrock limit when the y is outside
+        final int resY = Math.max(0, Math.min(maxHeight - 1, y));
+        final Box box = new Box(x - RADIUS, Math.max(0, resY - RADIUS), z - RADIUS, x + RADIUS,
+                Math.min(maxHeight - 1, resY + RADIUS), z + RADIUS);
+
+        for (final Area area : areas) {
+            if (!area.getWorldName().equals(worldName) || !box.isIntersectSquare(area)) {
+                continue;
+            }
+            if (area.isLocationInside(worldName, x, resY, z)) {
+                box.shrinkInside(area, x, z);
+            } else {
+                box.shrinkOutside(area, x, resY, z);
+            }
+        }
+
+        return new SafeRegion(worldName, box.x1, box.y1 == 0 ? Integer.MIN_VALUE : box.y1, box.z1, box.x2,
+                box.y2 == maxHeight - 1 ? Integer.MAX_VALUE : box.y2, box.z2, areasGeneration);
+    }
+
+    /**
+     * Checks if a location is inside this safe region.
+     *
+     * @param loc             the location
+     * @param areasGeneration the actual areas generation
+     * @return true if inside and still valid
+     */
+    public boolean isInside(final Location loc, final long areasGeneration) {
+        if (this.areasGeneration != areasGeneration) {
+            return false;
+        }
+        final int x = loc.getBlockX();
+        final int y = loc.getBlockY();
+        final int z = loc.getBlockZ();
+        return x >= x1 && x <= x2 && z >= z1 && z <= z2 && y >= y1 && y <= y2
+                && loc.getWorld().getName().equals(worldName);
+    }
+
+    boolean isInside(final int x, final int y, final int z) {
+        return x >= x1 && x <= x2 && z >= z1 && z <= z2 && y >= y1 && y <= y2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SafeRegion{%s, %d, %d, %d, %d, %d, %d}", worldName, x1, y1, z1, x2, y2, z2);
+    }
+
+    /**
+     * The mutable box during the build.
+     */
+    private static final class Box {
+
+        private int x1;
+        private int y1;
+        private int z1;
+        private int x2;
+        private int y2;
+        private int z2;
+
+        private Box(final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.z1 = z1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.z2 = z2;
+        }
+
+        private boolean isIntersectSquare(final Area area) {
+            return area.getX1() <= x2 && area.getX2() >= x1 && area.getZ1() <= z2 && area.getZ2() >= z1;
+        }
+
+        private long getVolume(final int x1, final int y1, final int z1, final int x2, final int y2,
+                               final int z2) {
+            return (long) (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+        }
+
+        private void shrinkInside(final Area area, final int x, final int z) {
+            y1 = Math.max(y1, area.getY1());
+            y2 = Math.min(y2, area.getY2());
+            if (area.getAreaType() == AreaType.CUBOID) {
+                x1 = Math.max(x1, area.getX1());
+                z1 = Math.max(z1, area.getZ1());
+                x2 = Math.min(x2, area.getX2());
+                z2 = Math.min(z2, area.getZ2());
+                return;
+            }
+            while (!AreaGeometry.isCovering(area, x1, z1, x2, z2)) {
+                halve(x, z);
+            }
+        }
+
+        private void shrinkOutside(final Area area, final int x, final int y, final int z) {
+            if (y < area.getY1() || y > area.getY2()) {
+                // The y is outside the area: cut the top or the bottom
+                if (y < area.getY1()) {
+                    y2 = Math.min(y2, area.getY1() - 1);
+                } else {
+                    y1 = Math.max(y1, area.getY2() + 1);
+                }
+                return;
+            }
+            if (area.getY1() > y2 || area.getY2() < y1) {
+                return;
+            }
+            if (area.getAreaType() != AreaType.CUBOID) {
+                while (AreaGeometry.isIntersect(area, x1, z1, x2, z2)) {
+                    halve(x, z);
+                }
+                return;
+            }
+
+            // Keep the biggest box from the four cuts of the cuboid sides
+            long bestVolume = -1;
+            int bestSide = -1;
+            if (area.getX1() > x) {
+                bestVolume = getVolume(x1, y1, z1, area.getX1() - 1, y2, z2);
+                bestSide = 0;
+            }
+            if (area.getX2() < x && getVolume(area.getX2() + 1, y1, z1, x2, y2, z2) > bestVolume) {
+                bestVolume = getVolume(area.getX2() + 1, y1, z1, x2, y2, z2);
+                bestSide = 1;
+            }
+            if (area.getZ1() > z && getVolume(x1, y1, z1, x2, y2, area.getZ1() - 1) > bestVolume) {
+                bestVolume = getVolume(x1, y1, z1, x2, y2, area.getZ1() - 1);
+                bestSide = 2;
+            }
+            if (area.getZ2() < z && getVolume(x1, y1, area.getZ2() + 1, x2, y2, z2) > bestVolume) {
+                bestSide = 3;
+            }
+            switch (bestSide) {
+                case 0:
+                    x2 = area.getX1() - 1;
+                    break;
+                case 1:
+                    x1 = area.getX2() + 1;
+                    break;
+                case 2:
+                    z2 = area.getZ1() - 1;
+                    break;
+                case 3:
+                    z1 = area.getZ2() + 1;
+                    break;
+                default:
+            }
+        }
+
+        /**
+         * Halves the x and z distances from the location to the box limits. The
+         * last box is the location column only.
+         *
+         * @param x the location x
+         * @param z the location z
+         */
+        private void halve(final int x, final int z) {
+            x1 = x - (x - x1) / 2;
+            z1 = z - (z - z1) / 2;
+            x2 = x + (x2 - x) / 2;
+            z2 = z + (z2 - z) / 2;
+        }
+    }
+}
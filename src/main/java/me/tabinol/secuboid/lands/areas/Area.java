@@ -17,9 +17,6 @@
  */
 package me.tabinol.secuboid.lands.areas;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.bukkit.Location;
 import org.bukkit.World;
 
@@ -89,25 +86,13 @@ public interface Area extends Comparable<Area>, Approvable, SavableParameter {
         }
         // Create road area
         if (areaTypeStr.equals(AreaType.ROAD.toString())) {
-            final Map<Integer, Map<Integer, ChunkMatrix>> points = new HashMap<>();
+            final ChunkMatrixMap chunkMatrices = new ChunkMatrixMap((multiStr.length - firstIdx - 3) / 3);
             for (int i = firstIdx + 3; i < multiStr.length; i += 3) {
-                final int regionX = Integer.parseInt(multiStr[i]);
-                final int regionZ = Integer.parseInt(multiStr[i + 1]);
-                final String hex = multiStr[i + 2];
-                final short[] matrix = new short[16];
-                for (int j = 0; j < 16; j++) {
-                    matrix[j] = (short) (Integer.parseInt(hex.substring(j * 4, (j * 4) + 4), 16) & 0xffff);
-                }
-                final ChunkMatrix chunkMatrix = new ChunkMatrix(matrix);
-                Map<Integer, ChunkMatrix> pointX = points.get(regionX);
-                if (pointX == null) {
-                    pointX = new HashMap<>();
-                    points.put(regionX, pointX);
-                }
-                pointX.put(regionZ, chunkMatrix);
+                chunkMatrices.put(Integer.parseInt(multiStr[i]), Integer.parseInt(multiStr[i + 1]),
+                        ChunkMatrix.fromFileFormat(multiStr[i + 2]));
             }
             return new RoadArea(isApproved, multiStr[firstIdx], Integer.parseInt(multiStr[firstIdx + 1]),
-                    Integer.parseInt(multiStr[firstIdx + 2]), new RegionMatrix(points));
+                    Integer.parseInt(multiStr[firstIdx + 2]), new RegionMatrix(chunkMatrices));
         }
 
         // Create CuboidArea (old version)
@@ -172,6 +157,13 @@ public interface Area extends Comparable<Area>, Approvable, SavableParameter {
      */
     String getWorldName();
 
+    /**
+     * Gets the world id (see WorldIds).
+     *
+     * @return the world id
+     */
+    int getWorldId();
+
     /**
      * Gets the world.
      *
@@ -310,6 +302,17 @@ public interface Area extends Comparable<Area>, Approvable, SavableParameter {
      */
     boolean isLocationInside(String worldName, int x, int y, int z);
 
+    /**
+     * Gets if the location is inside the area.
+     *
+     * @param worldId the world id (see WorldIds)
+     * @param x       the x
+     * @param y       the y
+     * @param z       the z
+     * @return if true or false
+     */
+    boolean isLocationInside(int worldId, int x, int y, int z);
+
     /**
      * Gets if the location is inside the area.
      *
@@ -0,0 +1,162 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk cache in front of an area spatial index. For every chunk, the cache
+ * keeps the areas where the square limit touches the chunk, or an empty list if
+ * the chunk is wilderness. A location search is a single hash probe when the
+ * chunk is in the cache. The chunks touched by an added or removed area are
+ * dropped from the cache. The methods are synchronized because the collisions
+ * thread does searches too.
+ */
+public final class AreaChunkCache implements AreaSpatialIndex {
+
+    /**
+     * The maximum chunks in cache. The last used chunks are kept.
+     */
+    private static final int MAX_CHUNKS = 16384;
+
+    /**
+     * The spatial index.
+     */
+    private final AreaSpatialIndex areaSpatialIndex;
+
+    /**
+     * Chunk key to areas, in access order.
+     */
+    private final Map<Long, List<Area>> chunkToAreas;
+
+    /**
+     * Instantiates a new chunk cache.
+     *
+     * @param areaSpatialIndex the spatial index behind the cache
+     */
+    public AreaChunkCache(final AreaSpatialIndex areaSpatialIndex) {
+        this.areaSpatialIndex = areaSpatialIndex;
+        chunkToAreas = new LinkedHashMap<Long, List<Area>>(256, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, List<Area>> eldest) {
+                return size() > MAX_CHUNKS;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void add(final Area area) {
+        areaSpatialIndex.add(area);
+        invalidate(area);
+    }
+
+    @Override
+    public synchronized void remove(final Area area) {
+        areaSpatialIndex.remove(area);
+        invalidate(area);
+    }
+
+    @Override
+    public synchronized List<Area> getAreas(final int x, final int z) {
+        final List<Area> chunkAreas = getChunkAreas(x >> 4, z >> 4);
+        if (chunkAreas.isEmpty()) {
+            return chunkAreas;
+        }
+        final List<Area> areas = new ArrayList<>(chunkAreas.size());
+        for (final Area area : chunkAreas) {
+            if (area.isLocationInsideSquare(x, z)) {
+                areas.add(area);
+            }
+        }
+        return areas;
+    }
+
+    @Override
+    public synchronized List<Area> getAreas(final int x1, final int z1, final int x2, final int z2) {
+        return areaSpatialIndex.getAreas(x1, z1, x2, z2);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return areaSpatialIndex.isEmpty();
+    }
+
+    /**
+     * Gets the areas touching the chunk from the cache, or from the spatial index
+     * if the chunk is not in cache.
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return the areas (unmodifiable)
+     */
+    private List<Area> getChunkAreas(final int chunkX, final int chunkZ) {
+        final long chunkKey = getChunkKey(chunkX, chunkZ);
+        List<Area> chunkAreas = chunkToAreas.get(chunkKey);
+        if (chunkAreas == null) {
+            final List<Area> areas = areaSpatialIndex.getAreas(chunkX << 4, chunkZ << 4, (chunkX << 4) + 15,
+                    (chunkZ << 4) + 15);
+            // Wilderness
+            chunkAreas = areas.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(areas);
+            chunkToAreas.put(chunkKey, chunkAreas);
+        }
+        return chunkAreas;
+    }
+
+    /**
+     * Removes the chunks touched by the area from the cache.
+     *
+     * @param area the area
+     */
+    private void invalidate(final Area area) {
+        if (area.getX1() > area.getX2() || area.getZ1() > area.getZ2()) {
+            // No point
+            return;
+        }
+        final int chunkX1 = area.getX1() >> 4;
+        final int chunkZ1 = area.getZ1() >> 4;
+        final int chunkX2 = area.getX2() >> 4;
+        final int chunkZ2 = area.getZ2() >> 4;
+
+        // Large area: faster to check every chunk in cache
+        if (((long) chunkX2 - chunkX1 + 1) * ((long) chunkZ2 - chunkZ1 + 1) > chunkToAreas.size()) {
+            chunkToAreas.keySet().removeIf(chunkKey -> {
+                final int chunkX = (int) (chunkKey >> 32);
+                final int chunkZ = (int) (long) chunkKey;
+                return chunkX >= chunkX1 && chunkX <= chunkX2 && chunkZ >= chunkZ1 && chunkZ <= chunkZ2;
+            });
+            return;
+        }
+
+        for (int chunkX = chunkX1; chunkX <= chunkX2; chunkX++) {
+            for (int chunkZ = chunkZ1; chunkZ <= chunkZ2; chunkZ++) {
+                chunkToAreas.remove(getChunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private static long getChunkKey(final int chunkX, final int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xffffffffL);
+    }
+}
@@ -39,6 +39,7 @@ final class AreaCommon {
      * The world name.
      */
     private final String worldName;
+    private final int worldId;
 
     /**
      * The values.
@@ -74,6 +75,7 @@ final class AreaCommon {
         this.area = area;
         this.isApproved = isApproved;
         this.worldName = worldName;
+        worldId = WorldIds.getId(worldName);
         this.x1 = LocalMath.lowerInt(x1, x2);
         this.x2 = LocalMath.greaterInt(x1, x2);
         this.y1 = LocalMath.lowerInt(y1, y2);
@@ -135,6 +137,15 @@ final class AreaCommon {
         return worldName;
     }
 
+    /**
+     * Gets the world id.
+     *
+     * @return the world id
+     */
+    int getWorldId() {
+        return worldId;
+    }
+
     /**
      * Gets the world.
      *
@@ -0,0 +1,331 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exact intersection and containment tests between areas. The Y is ignored.
+ * The shapes are compared column by column: for a x, every shape gives the z
+ * intervals inside it. A cuboid is its full z interval, a cylinder gives its
+ * precomputed column interval and a road gives the runs of bits in its
+ * chunk matrixes. There is no search by point.
+ */
+public final class AreaGeometry {
+
+    private AreaGeometry() {
+    }
+
+    /**
+     * Checks if two areas have at least one x and z position in common.
+     *
+     * @param area1 the first area
+     * @param area2 the second area
+     * @return true if the areas intersect
+     */
+    public static boolean isIntersect(final Area area1, final Area area2) {
+        if (!area1.getWorldName().equals(area2.getWorldName())
+                || !AreaSpatialIndex.isSquareIntersect(area1, area2.getX1(), area2.getZ1(), area2.getX2(),
+                        area2.getZ2())) {
+            return false;
+        }
+        if (area1.getAreaType() == AreaType.CUBOID && area2.getAreaType() == AreaType.CUBOID) {
+            return true;
+        }
+
+        final int x1 = Math.max(area1.getX1(), area2.getX1());
+        final int x2 = Math.min(area1.getX2(), area2.getX2());
+        final int z1 = Math.max(area1.getZ1(), area2.getZ1());
+        final int z2 = Math.min(area1.getZ2(), area2.getZ2());
+        final Spans spans1 = new Spans();
+        final Spans spans2 = new Spans();
+        for (int x = x1; x <= x2; x++) {
+            spans1.clear();
+            addSpans(area1, x, z1, z2, spans1);
+            if (spans1.size == 0) {
+                continue;
+            }
+            spans2.clear();
+            addSpans(area2, x, z1, z2, spans2);
+            if (spans2.size != 0 && spans1.merge().isIntersect(spans2.merge())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if every x and z position of an area is inside at least one of the
+     * container areas.
+     *
+     * @param area           the area
+     * @param containerAreas the container areas
+     * @return true if the area is inside
+     */
+    public static boolean isInside(final Area area, final Collection<Area> containerAreas) {
+        final List<Area> candidates = new ArrayList<>();
+        for (final Area containerArea : containerAreas) {
+            if (area.getWorldName().equals(containerArea.getWorldName()) && AreaSpatialIndex
+                    .isSquareIntersect(containerArea, area.getX1(), area.getZ1(), area.getX2(), area.getZ2())) {
+                if (containerArea.getAreaType() == AreaType.CUBOID && containerArea.getX1() <= area.getX1()
+                        && containerArea.getX2() >= area.getX2() && containerArea.getZ1() <= area.getZ1()
+                        && containerArea.getZ2() >= area.getZ2()) {
+                    // The square limit is inside a cuboid
+                    return true;
+                }
+                candidates.add(containerArea);
+            }
+        }
+
+        final int z1 = area.getZ1();
+        final int z2 = area.getZ2();
+        final Spans areaSpans = new Spans();
+        final Spans containerSpans = new Spans();
+        for (int x = area.getX1(); x <= area.getX2(); x++) {
+            areaSpans.clear();
+            addSpans(area, x, z1, z2, areaSpans);
+            if (areaSpans.size == 0) {
+                continue;
+            }
+            containerSpans.clear();
+            for (final Area candidate : candidates) {
+                if (x >= candidate.getX1() && x <= candidate.getX2()) {
+                    addSpans(candidate, x, z1, z2, containerSpans);
+                }
+            }
+            if (!containerSpans.merge().isCovering(areaSpans.merge())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if every x and z position of a rectangle is inside an area.
+     *
+     * @param area the area
+     * @param x1   the rectangle minimum x
+     * @param z1   the rectangle minimum z
+     * @param x2   the rectangle maximum x
+     * @param z2   the rectangle maximum z
+     * @return true if the rectangle is covered
+     */
+    public static boolean isCovering(final Area area, final int x1, final int z1, final int x2, final int z2) {
+        if (area.getX1() > x1 || area.getX2() < x2 || area.getZ1() > z1 || area.getZ2() < z2) {
+            return false;
+        }
+        if (area.getAreaType() == AreaType.CUBOID) {
+            return true;
+        }
+        final Spans spans = new Spans();
+        for (int x = x1; x <= x2; x++) {
+            spans.clear();
+            addSpans(area, x, z1, z2, spans);
+            spans.merge();
+            if (spans.size != 2 || spans.values[0] != z1 || spans.values[1] != z2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an area has at least one x and z position in a rectangle.
+     *
+     * @param area the area
+     * @param x1   the rectangle minimum x
+     * @param z1   the rectangle minimum z
+     * @param x2   the rectangle maximum x
+     * @param z2   the rectangle maximum z
+     * @return true if the area intersects the rectangle
+     */
+    public static boolean isIntersect(final Area area, final int x1, final int z1, final int x2, final int z2) {
+        if (!AreaSpatialIndex.isSquareIntersect(area, x1, z1, x2, z2)) {
+            return false;
+        }
+        if (area.getAreaType() == AreaType.CUBOID) {
+            return true;
+        }
+        final Spans spans = new Spans();
+        for (int x = Math.max(x1, area.getX1()); x <= Math.min(x2, area.getX2()); x++) {
+            spans.clear();
+            addSpans(area, x, z1, z2, spans);
+            if (spans.size != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the z intervals of an area for a x column, limited to z1 and z2.
+     *
+     * @param area  the area
+     * @param x     the x column
+     * @param z1    the minimum z
+     * @param z2    the maximum z
+     * @param spans the spans to fill
+     */
+    private static void addSpans(final Area area, final int x, final int z1, final int z2, final Spans spans) {
+        if (x < area.getX1() || x > area.getX2()) {
+            return;
+        }
+        switch (area.getAreaType()) {
+            case CUBOID:
+                spans.add(Math.max(area.getZ1(), z1), Math.min(area.getZ2(), z2));
+                break;
+            case CYLINDER:
+                addCylinderSpan((CylinderArea) area, x, z1, z2, spans);
+                break;
+            case ROAD:
+                addRoadSpans((RoadArea) area, x, z1, z2, spans);
+                break;
+            default:
+        }
+    }
+
+    private static void addCylinderSpan(final CylinderArea area, final int x, final int z1, final int z2,
+            final Spans spans) {
+        final int zMin = area.getZMinFromX(x);
+        final int zMax = area.getZMaxFromX(x);
+        if (zMin <= zMax) {
+            spans.add(Math.max(zMin, z1), Math.min(zMax, z2));
+        }
+    }
+
+    private static void addRoadSpans(final RoadArea area, final int x, final int z1, final int z2,
+            final Spans spans) {
+        final ChunkMatrixMap chunkMatrices = area.getChunkMatrices();
+        final int chunkX = x >> 4;
+        final int posX = x & 15;
+        final int lastChunkZ = Math.min(z2, area.getZ2()) >> 4;
+        for (int chunkZ = Math.max(z1, area.getZ1()) >> 4; chunkZ <= lastChunkZ; chunkZ++) {
+            final ChunkMatrix matrix = chunkMatrices.get(chunkX, chunkZ);
+            if (matrix == null) {
+                continue;
+            }
+            final int chunkZ0 = chunkZ << 4;
+            int bits = matrix.getMatrix()[posX] & 0xffff;
+            while (bits != 0) {
+                final int start = Integer.numberOfTrailingZeros(bits);
+                final int length = Integer.numberOfTrailingZeros(~(bits >>> start));
+                spans.add(Math.max(chunkZ0 + start, z1), Math.min(chunkZ0 + start + length - 1, z2));
+                bits &= ~(((1 << length) - 1) << start);
+            }
+        }
+    }
+
+    /**
+     * Z intervals of a column, as pairs of minimum and maximum z.
+     */
+    private static final class Spans {
+
+        private int[] values = new int[8];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(final int zMin, final int zMax) {
+            if (zMin > zMax) {
+                return;
+            }
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = zMin;
+            values[size++] = zMax;
+        }
+
+        /**
+         * Sorts the intervals and merges the ones overlapping or touching.
+         *
+         * @return this
+         */
+        Spans merge() {
+            if (size <= 2) {
+                return this;
+            }
+            final long[] sorted = new long[size / 2];
+            for (int i = 0; i < sorted.length; i++) {
+                // Sort by minimum z, the maximum z is kept in the low bits
+                sorted[i] = ((long) values[i * 2] << 32) | (values[i * 2 + 1] & 0xffffffffL);
+            }
+            Arrays.sort(sorted);
+            int newSize = 0;
+            for (final long value : sorted) {
+                final int zMin = (int) (value >> 32);
+                final int zMax = (int) value;
+                if (newSize != 0 && (long) zMin <= (long) values[newSize - 1] + 1) {
+                    values[newSize - 1] = Math.max(values[newSize - 1], zMax);
+                } else {
+                    values[newSize++] = zMin;
+                    values[newSize++] = zMax;
+                }
+            }
+            size = newSize;
+            return this;
+        }
+
+        /**
+         * Checks if one interval intersects an interval of other spans. Both spans
+         * must be merged.
+         *
+         * @param other the other spans
+         * @return true if intersect
+         */
+        boolean isIntersect(final Spans other) {
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (values[i + 1] < other.values[j]) {
+                    i += 2;
+                } else if (other.values[j + 1] < values[i]) {
+                    j += 2;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks if every interval of other spans is inside an interval of these
+         * spans. Both spans must be merged.
+         *
+         * @param other the other spans
+         * @return true if covering
+         */
+        boolean isCovering(final Spans other) {
+            int i = 0;
+            for (int j = 0; j < other.size; j += 2) {
+                while (i < size && values[i + 1] < other.values[j]) {
+                    i += 2;
+                }
+                if (i == size || values[i] > other.values[j] || values[i + 1] < other.values[j + 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
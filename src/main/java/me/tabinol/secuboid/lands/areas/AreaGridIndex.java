@@ -0,0 +1,233 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index with a hierarchical grid. The first level cells are chunks (16
+ * blocks), and every next level is 16 times larger. An area is put in the
+ * first level where it covers at most MAX_CELLS_PER_AXIS cells on x and z, so
+ * an area is in at most 16 cells and a search checks only one cell per level,
+ * whatever the number of lands. The last level takes the larger areas: up to
+ * 16 cells on x and z (256 cells) in the int range, 2 cells on x and z inside
+ * the Minecraft world border.
+ */
+public final class AreaGridIndex implements AreaSpatialIndex {
+
+    /**
+     * The first level shift (chunk).
+     */
+    private static final int FIRST_SHIFT = 4;
+
+    /**
+     * The shift added for every next level.
+     */
+    private static final int SHIFT_STEP = 4;
+
+    /**
+     * The number of levels. The last one can take any area in the int range.
+     */
+    static final int NB_LEVELS = 7;
+
+    /**
+     * Maximum cells covered on x or z by an area before going to the next level.
+     */
+    private static final int MAX_CELLS_PER_AXIS = 4;
+
+    /**
+     * Levels: cell key to areas.
+     */
+    private final List<Map<Long, List<Area>>> levels;
+
+    /**
+     * Number of areas by level, to skip the empty levels.
+     */
+    private final int[] levelSizes;
+
+    /**
+     * Instantiates a new grid index.
+     */
+    public AreaGridIndex() {
+        levels = new ArrayList<>(NB_LEVELS);
+        for (int i = 0; i < NB_LEVELS; i++) {
+            levels.add(new HashMap<>());
+        }
+        levelSizes = new int[NB_LEVELS];
+    }
+
+    @Override
+    public void add(final Area area) {
+        if (isNoSurface(area)) {
+            return;
+        }
+        final int level = getLevel(area);
+        final int shift = getShift(level);
+        final Map<Long, List<Area>> cells = levels.get(level);
+        boolean isAdded = false;
+        for (int cellX = area.getX1() >> shift; cellX <= area.getX2() >> shift; cellX++) {
+            for (int cellZ = area.getZ1() >> shift; cellZ <= area.getZ2() >> shift; cellZ++) {
+                final List<Area> cellAreas = cells.computeIfAbsent(getCellKey(cellX, cellZ), k -> new ArrayList<>(1));
+                // Same behaviour as a set, an area is never twice in a cell
+                if (!cellAreas.contains(area)) {
+                    cellAreas.add(area);
+                    isAdded = true;
+                }
+            }
+        }
+        if (isAdded) {
+            levelSizes[level]++;
+        }
+    }
+
+    @Override
+    public void remove(final Area area) {
+        if (isNoSurface(area)) {
+            return;
+        }
+        final int level = getLevel(area);
+        final int shift = getShift(level);
+        final Map<Long, List<Area>> cells = levels.get(level);
+        boolean isRemoved = false;
+        for (int cellX = area.getX1() >> shift; cellX <= area.getX2() >> shift; cellX++) {
+            for (int cellZ = area.getZ1() >> shift; cellZ <= area.getZ2() >> shift; cellZ++) {
+                final Long cellKey = getCellKey(cellX, cellZ);
+                final List<Area> cellAreas = cells.get(cellKey);
+                if (cellAreas != null && cellAreas.remove(area)) {
+                    isRemoved = true;
+                    if (cellAreas.isEmpty()) {
+                        cells.remove(cellKey);
+                    }
+                }
+            }
+        }
+        if (isRemoved) {
+            levelSizes[level]--;
+        }
+    }
+
+    @Override
+    public List<Area> getAreas(final int x, final int z) {
+        List<Area> areas = Collections.emptyList();
+        for (int level = 0; level < NB_LEVELS; level++) {
+            if (levelSizes[level] == 0) {
+                continue;
+            }
+            final int shift = getShift(level);
+            final List<Area> cellAreas = levels.get(level).get(getCellKey(x >> shift, z >> shift));
+            if (cellAreas == null) {
+                continue;
+            }
+            for (final Area area : cellAreas) {
+                if (area.isLocationInsideSquare(x, z)) {
+                    if (areas.isEmpty()) {
+                        areas = new ArrayList<>();
+                    }
+                    areas.add(area);
+                }
+            }
+        }
+        return areas;
+    }
+
+    @Override
+    public List<Area> getAreas(final int x1, final int z1, final int x2, final int z2) {
+        // An area can be in more than one cell
+        final Set<Area> areas = new LinkedHashSet<>();
+        for (int level = 0; level < NB_LEVELS; level++) {
+            if (levelSizes[level] == 0) {
+                continue;
+            }
+            final int shift = getShift(level);
+            final Map<Long, List<Area>> cells = levels.get(level);
+            final long nbCells = ((long) (x2 >> shift) - (x1 >> shift) + 1) * ((z2 >> shift) - (z1 >> shift) + 1);
+
+            // Large rectangle: faster to check every non empty cell
+            if (nbCells > cells.size()) {
+                for (final List<Area> cellAreas : cells.values()) {
+                    addIntersectAreas(areas, cellAreas, x1, z1, x2, z2);
+                }
+                continue;
+            }
+
+            for (int cellX = x1 >> shift; cellX <= x2 >> shift; cellX++) {
+                for (int cellZ = z1 >> shift; cellZ <= z2 >> shift; cellZ++) {
+                    final List<Area> cellAreas = cells.get(getCellKey(cellX, cellZ));
+                    if (cellAreas != null) {
+                        addIntersectAreas(areas, cellAreas, x1, z1, x2, z2);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(areas);
+    }
+
+    private static void addIntersectAreas(final Set<Area> areas, final List<Area> cellAreas, final int x1,
+            final int z1, final int x2, final int z2) {
+        for (final Area area : cellAreas) {
+            if (AreaSpatialIndex.isSquareIntersect(area, x1, z1, x2, z2)) {
+                areas.add(area);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (final int levelSize : levelSizes) {
+            if (levelSize != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets if the area has no point (ex: a road without point).
+     *
+     * @param area the area
+     * @return true or false
+     */
+    static boolean isNoSurface(final Area area) {
+        return area.getX1() > area.getX2() || area.getZ1() > area.getZ2();
+    }
+
+    static int getLevel(final Area area) {
+        for (int level = 0; level < NB_LEVELS - 1; level++) {
+            final int shift = getShift(level);
+            if ((area.getX2() >> shift) - (area.getX1() >> shift) < MAX_CELLS_PER_AXIS
+                    && (area.getZ2() >> shift) - (area.getZ1() >> shift) < MAX_CELLS_PER_AXIS) {
+                return level;
+            }
+        }
+        return NB_LEVELS - 1;
+    }
+
+    static int getShift(final int level) {
+        return FIRST_SHIFT + (level * SHIFT_STEP);
+    }
+
+    static long getCellKey(final int cellX, final int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xffffffffL);
+    }
+}
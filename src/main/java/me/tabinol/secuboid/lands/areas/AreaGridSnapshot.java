@@ -0,0 +1,274 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static me.tabinol.secuboid.lands.areas.AreaGridIndex.NB_LEVELS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import me.tabinol.secuboid.utilities.ShardedSnapshotMap;
+
+/**
+ * An immutable version of the hierarchical grid index, for the snapshots read
+ * from other threads. A new version is made from the changed areas only: the
+ * cells not touched by a change are shared with the previous version. The cells
+ * of an area are kept, so an area is removed from the cells where it was added
+ * even if its limits changed since.
+ */
+public final class AreaGridSnapshot {
+
+    private static final AreaGridSnapshot EMPTY = new AreaGridSnapshot(newEmptyLevels(), new int[NB_LEVELS],
+            ShardedSnapshotMap.empty());
+
+    /**
+     * Levels: cell key to areas. The lists are never changed.
+     */
+    private final ShardedSnapshotMap<Long, List<Area>>[] levels;
+
+    /**
+     * Number of areas by level, to skip the empty levels.
+     */
+    private final int[] levelSizes;
+
+    /**
+     * The cells of each area.
+     */
+    private final ShardedSnapshotMap<Area, CellRange> areaToCellRange;
+
+    private AreaGridSnapshot(final ShardedSnapshotMap<Long, List<Area>>[] levels, final int[] levelSizes,
+            final ShardedSnapshotMap<Area, CellRange> areaToCellRange) {
+        this.levels = levels;
+        this.levelSizes = levelSizes;
+        this.areaToCellRange = areaToCellRange;
+    }
+
+    /**
+     * Gets the empty grid.
+     *
+     * @return the empty grid
+     */
+    public static AreaGridSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Makes a new version with some changed areas. A changed area is removed from
+     * its old cells, then added with its actual limits if it is still active.
+     * This grid does not change.
+     *
+     * @param changedAreas the changed areas
+     * @param isActive     is the area still in the world
+     * @return the new grid
+     */
+    public AreaGridSnapshot withChanges(final Collection<Area> changedAreas, final Predicate<Area> isActive) {
+        @SuppressWarnings("unchecked")
+        final ShardedSnapshotMap.Editor<Long, List<Area>>[] levelEditors = new ShardedSnapshotMap.Editor[NB_LEVELS];
+        for (int level = 0; level < NB_LEVELS; level++) {
+            levelEditors[level] = levels[level].edit();
+        }
+        final int[] newLevelSizes = levelSizes.clone();
+        final ShardedSnapshotMap.Editor<Area, CellRange> areaToCellRangeEditor = areaToCellRange.edit();
+
+        for (final Area area : changedAreas) {
+            final CellRange oldCellRange = areaToCellRangeEditor.remove(area);
+            if (oldCellRange != null) {
+                removeFromCells(levelEditors[oldCellRange.level], area, oldCellRange);
+                newLevelSizes[oldCellRange.level]--;
+            }
+            if (isActive.test(area) && !AreaGridIndex.isNoSurface(area)) {
+                final CellRange cellRange = new CellRange(area);
+                addToCells(levelEditors[cellRange.level], area, cellRange);
+                newLevelSizes[cellRange.level]++;
+                areaToCellRangeEditor.put(area, cellRange);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        final ShardedSnapshotMap<Long, List<Area>>[] newLevels = new ShardedSnapshotMap[NB_LEVELS];
+        for (int level = 0; level < NB_LEVELS; level++) {
+            newLevels[level] = levelEditors[level].build();
+        }
+        return new AreaGridSnapshot(newLevels, newLevelSizes, areaToCellRangeEditor.build());
+    }
+
+    private static void addToCells(final ShardedSnapshotMap.Editor<Long, List<Area>> cells, final Area area,
+            final CellRange cellRange) {
+        for (int cellX = cellRange.cellX1; cellX <= cellRange.cellX2; cellX++) {
+            for (int cellZ = cellRange.cellZ1; cellZ <= cellRange.cellZ2; cellZ++) {
+                final Long cellKey = AreaGridIndex.getCellKey(cellX, cellZ);
+                final List<Area> cellAreasNullable = cells.get(cellKey);
+                final List<Area> newCellAreas;
+                if (cellAreasNullable == null) {
+                    newCellAreas = new ArrayList<>(1);
+                } else {
+                    newCellAreas = new ArrayList<>(cellAreasNullable.size() + 1);
+                    newCellAreas.addAll(cellAreasNullable);
+                }
+                newCellAreas.add(area);
+                cells.put(cellKey, newCellAreas);
+            }
+        }
+    }
+
+    private static void removeFromCells(final ShardedSnapshotMap.Editor<Long, List<Area>> cells, final Area area,
+            final CellRange cellRange) {
+        for (int cellX = cellRange.cellX1; cellX <= cellRange.cellX2; cellX++) {
+            for (int cellZ = cellRange.cellZ1; cellZ <= cellRange.cellZ2; cellZ++) {
+                final Long cellKey = AreaGridIndex.getCellKey(cellX, cellZ);
+                final List<Area> cellAreasNullable = cells.get(cellKey);
+                if (cellAreasNullable == null) {
+                    continue;
+                }
+                if (cellAreasNullable.size() == 1 && cellAreasNullable.get(0) == area) {
+                    cells.remove(cellKey);
+                    continue;
+                }
+                final List<Area> newCellAreas = new ArrayList<>(cellAreasNullable);
+                if (newCellAreas.remove(area)) {
+                    cells.put(cellKey, newCellAreas);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the areas where the location is in the square limit. This method ignore
+     * the y value and the area shape.
+     *
+     * @param x the x
+     * @param z the z
+     * @return the areas
+     */
+    public List<Area> getAreas(final int x, final int z) {
+        List<Area> areas = Collections.emptyList();
+        for (int level = 0; level < NB_LEVELS; level++) {
+            if (levelSizes[level] == 0) {
+                continue;
+            }
+            final int shift = AreaGridIndex.getShift(level);
+            final List<Area> cellAreas = levels[level].get(AreaGridIndex.getCellKey(x >> shift, z >> shift));
+            if (cellAreas == null) {
+                continue;
+            }
+            for (final Area area : cellAreas) {
+                if (area.isLocationInsideSquare(x, z)) {
+                    if (areas.isEmpty()) {
+                        areas = new ArrayList<>();
+                    }
+                    areas.add(area);
+                }
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Gets the areas where the square limit intersects the rectangle. This method
+     * ignore the y value and the area shape.
+     *
+     * @param x1 the x1
+     * @param z1 the z1
+     * @param x2 the x2
+     * @param z2 the z2
+     * @return the areas
+     */
+    public List<Area> getAreas(final int x1, final int z1, final int x2, final int z2) {
+        // An area can be in more than one cell
+        final Set<Area> areas = new LinkedHashSet<>();
+        for (int level = 0; level < NB_LEVELS; level++) {
+            if (levelSizes[level] == 0) {
+                continue;
+            }
+            final int shift = AreaGridIndex.getShift(level);
+            final ShardedSnapshotMap<Long, List<Area>> cells = levels[level];
+            final long nbCells = ((long) (x2 >> shift) - (x1 >> shift) + 1) * ((z2 >> shift) - (z1 >> shift) + 1);
+
+            // Large rectangle: faster to check every non empty cell
+            if (nbCells > cells.size()) {
+                for (final List<Area> cellAreas : cells.values()) {
+                    addIntersectAreas(areas, cellAreas, x1, z1, x2, z2);
+                }
+                continue;
+            }
+
+            for (int cellX = x1 >> shift; cellX <= x2 >> shift; cellX++) {
+                for (int cellZ = z1 >> shift; cellZ <= z2 >> shift; cellZ++) {
+                    final List<Area> cellAreas = cells.get(AreaGridIndex.getCellKey(cellX, cellZ));
+                    if (cellAreas != null) {
+                        addIntersectAreas(areas, cellAreas, x1, z1, x2, z2);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(areas);
+    }
+
+    private static void addIntersectAreas(final Set<Area> areas, final List<Area> cellAreas, final int x1,
+            final int z1, final int x2, final int z2) {
+        for (final Area area : cellAreas) {
+            if (AreaSpatialIndex.isSquareIntersect(area, x1, z1, x2, z2)) {
+                areas.add(area);
+            }
+        }
+    }
+
+    /**
+     * Is the grid empty?
+     *
+     * @return true or false
+     */
+    public boolean isEmpty() {
+        return areaToCellRange.size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ShardedSnapshotMap<Long, List<Area>>[] newEmptyLevels() {
+        final ShardedSnapshotMap<Long, List<Area>>[] levels = new ShardedSnapshotMap[NB_LEVELS];
+        for (int level = 0; level < NB_LEVELS; level++) {
+            levels[level] = ShardedSnapshotMap.empty();
+        }
+        return levels;
+    }
+
+    /**
+     * The level and the cells of an area when it was added.
+     */
+    private static final class CellRange {
+
+        private final int level;
+        private final int cellX1;
+        private final int cellZ1;
+        private final int cellX2;
+        private final int cellZ2;
+
+        private CellRange(final Area area) {
+            level = AreaGridIndex.getLevel(area);
+            final int shift = AreaGridIndex.getShift(level);
+            cellX1 = area.getX1() >> shift;
+            cellZ1 = area.getZ1() >> shift;
+            cellX2 = area.getX2() >> shift;
+            cellZ2 = area.getZ2() >> shift;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Spatial index with four sorted lists (x1, z1, x2 and z2). This is the legacy
+ * index: the search walks every area having a limit past the location.
+ */
+public final class AreaSortedIndex implements AreaSpatialIndex {
+
+    private static final int INDEX_X1 = 0;
+    private static final int INDEX_Z1 = 1;
+    private static final int INDEX_X2 = 2;
+    private static final int INDEX_Z2 = 3;
+
+    /**
+     * The area indexes, by x1, z1, x2 and z2.
+     */
+    private final List<TreeSet<AreaIndex>> areaIndexes;
+
+    /**
+     * Instantiates a new sorted index.
+     */
+    public AreaSortedIndex() {
+        areaIndexes = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            areaIndexes.add(new TreeSet<>());
+        }
+    }
+
+    @Override
+    public void add(final Area area) {
+        areaIndexes.get(INDEX_X1).add(new AreaIndex(area.getX1(), area));
+        areaIndexes.get(INDEX_Z1).add(new AreaIndex(area.getZ1(), area));
+        areaIndexes.get(INDEX_X2).add(new AreaIndex(area.getX2(), area));
+        areaIndexes.get(INDEX_Z2).add(new AreaIndex(area.getZ2(), area));
+    }
+
+    @Override
+    public void remove(final Area area) {
+        areaIndexes.get(INDEX_X1).remove(new AreaIndex(area.getX1(), area));
+        areaIndexes.get(INDEX_Z1).remove(new AreaIndex(area.getZ1(), area));
+        areaIndexes.get(INDEX_X2).remove(new AreaIndex(area.getX2(), area));
+        areaIndexes.get(INDEX_Z2).remove(new AreaIndex(area.getZ2(), area));
+    }
+
+    @Override
+    public List<Area> getAreas(final int x, final int z) {
+
+        final List<Area> areas = new ArrayList<>();
+        final int searchIndex;
+        final int nbToFind;
+        final boolean forwardSearch;
+        final TreeSet<AreaIndex> ais;
+        final Iterator<AreaIndex> it;
+        AreaIndex ai;
+
+        // First, determinate if what is the highest number between x1, x2, z1 and z2
+        if (Math.abs(x) > Math.abs(z)) {
+            nbToFind = x;
+            if (x < 0) {
+                searchIndex = INDEX_X1;
+                forwardSearch = true;
+            } else {
+                searchIndex = INDEX_X2;
+                forwardSearch = false;
+            }
+        } else {
+            nbToFind = z;
+            if (z < 0) {
+                searchIndex = INDEX_Z1;
+                forwardSearch = true;
+            } else {
+                searchIndex = INDEX_Z2;
+                forwardSearch = false;
+            }
+        }
+
+        // Now check for area in location
+        ais = areaIndexes.get(searchIndex);
+        if (forwardSearch) {
+            it = ais.iterator();
+        } else {
+            it = ais.descendingIterator();
+        }
+
+        // Adds all areas to the list
+        while (it.hasNext() && checkContinueSearch((ai = it.next()).getArea(), nbToFind, searchIndex)) {
+            if (ai.getArea().isLocationInsideSquare(x, z)) {
+                areas.add(ai.getArea());
+            }
+        }
+        return areas;
+    }
+
+    @Override
+    public List<Area> getAreas(final int x1, final int z1, final int x2, final int z2) {
+        final List<Area> areas = new ArrayList<>();
+        for (final AreaIndex ai : areaIndexes.get(INDEX_X1)) {
+            final Area area = ai.getArea();
+            if (area.getX1() > x2) {
+                break;
+            }
+            if (AreaSpatialIndex.isSquareIntersect(area, x1, z1, x2, z2)) {
+                areas.add(area);
+            }
+        }
+        return areas;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return areaIndexes.get(INDEX_X1).isEmpty();
+    }
+
+    /**
+     * Check continue search.
+     *
+     * @param area        the area
+     * @param nbToFind    the nb to find
+     * @param searchIndex the search index
+     * @return true, if successful
+     */
+    private boolean checkContinueSearch(final Area area, final int nbToFind, final int searchIndex) {
+
+        switch (searchIndex) {
+            case INDEX_X1:
+                return nbToFind >= area.getX1();
+            case INDEX_X2:
+                return nbToFind <= area.getX2();
+            case INDEX_Z1:
+                return nbToFind >= area.getZ1();
+            case INDEX_Z2:
+                return nbToFind <= area.getZ2();
+            default:
+                return false;
+        }
+    }
+}
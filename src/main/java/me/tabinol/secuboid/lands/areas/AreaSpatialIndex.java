@@ -0,0 +1,85 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.List;
+
+/**
+ * Represents a spatial index of the areas for one world. The areas must not
+ * change their limits while they are in the index.
+ */
+public interface AreaSpatialIndex {
+
+    /**
+     * Adds an area to the index.
+     *
+     * @param area the area
+     */
+    void add(Area area);
+
+    /**
+     * Removes an area from the index.
+     *
+     * @param area the area
+     */
+    void remove(Area area);
+
+    /**
+     * Gets the areas where the location is in the square limit. This method ignore
+     * the y value and the area shape. Use isLocationInside methods if you want to
+     * check an exact location.
+     *
+     * @param x the x
+     * @param z the z
+     * @return the areas
+     */
+    List<Area> getAreas(int x, int z);
+
+    /**
+     * Gets the areas where the square limit intersects the rectangle. This method
+     * ignore the y value and the area shape.
+     *
+     * @param x1 the x1
+     * @param z1 the z1
+     * @param x2 the x2
+     * @param z2 the z2
+     * @return the areas
+     */
+    List<Area> getAreas(int x1, int z1, int x2, int z2);
+
+    /**
+     * Is the index empty?
+     *
+     * @return true or false
+     */
+    boolean isEmpty();
+
+    /**
+     * Gets if the square limit of the area intersects the rectangle.
+     *
+     * @param area the area
+     * @param x1   the x1
+     * @param z1   the z1
+     * @param x2   the x2
+     * @param z2   the z2
+     * @return true or false
+     */
+    static boolean isSquareIntersect(final Area area, final int x1, final int z1, final int x2, final int z2) {
+        return area.getX1() <= x2 && area.getX2() >= x1 && area.getZ1() <= z2 && area.getZ2() >= z1;
+    }
+}
@@ -24,6 +24,13 @@ import java.util.Arrays;
  */
 public final class ChunkMatrix {
 
+    /**
+     * The length of a matrix in file format.
+     */
+    static final int FILE_FORMAT_LENGTH = 64;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private final short[] matrix;
 
     /**
@@ -42,6 +49,23 @@ public final class ChunkMatrix {
         this.matrix = matrix;
     }
 
+    /**
+     * Creates a chunk matrix from the file format (4 hexadecimal digits by
+     * slice).
+     *
+     * @param hex the matrix in file format
+     * @return the chunk matrix
+     */
+    static ChunkMatrix fromFileFormat(final String hex) {
+        final short[] matrix = new short[16];
+        for (int j = 0, pos = 0; j < 16; j++, pos += 4) {
+            matrix[j] = (short) ((Character.digit(hex.charAt(pos), 16) << 12)
+                    | (Character.digit(hex.charAt(pos + 1), 16) << 8)
+                    | (Character.digit(hex.charAt(pos + 2), 16) << 4) | Character.digit(hex.charAt(pos + 3), 16));
+        }
+        return new ChunkMatrix(matrix);
+    }
+
     /**
      * Gets the matrix in short[16] format.
      * 
@@ -104,24 +128,85 @@ public final class ChunkMatrix {
     public int countPoints() {
         int nbPoints = 0;
         for (final short slice : matrix) {
-            for (int i = 0; i < 16; i++) {
-                if ((slice & (1 << i)) > 0) {
-                    nbPoints++;
-                }
-            }
+            nbPoints += Integer.bitCount(slice & 0xffff);
         }
         return nbPoints;
     }
 
-    public String toFileFormat() {
-        final StringBuilder sb = new StringBuilder();
+    /**
+     * Gets the lowest x in the chunk with a point.
+     *
+     * @return the x (0-15) or -1 if the matrix is empty
+     */
+    int getMinX() {
+        for (int chunkX = 0; chunkX < 16; chunkX++) {
+            if (matrix[chunkX] != 0) {
+                return chunkX;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the highest x in the chunk with a point.
+     *
+     * @return the x (0-15) or -1 if the matrix is empty
+     */
+    int getMaxX() {
+        for (int chunkX = 15; chunkX >= 0; chunkX--) {
+            if (matrix[chunkX] != 0) {
+                return chunkX;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the lowest z in the chunk with a point.
+     *
+     * @return the z (0-15) or -1 if the matrix is empty
+     */
+    int getMinZ() {
+        final int zBits = getZBits();
+        return zBits != 0 ? Integer.numberOfTrailingZeros(zBits) : -1;
+    }
+
+    /**
+     * Gets the highest z in the chunk with a point.
+     *
+     * @return the z (0-15) or -1 if the matrix is empty
+     */
+    int getMaxZ() {
+        final int zBits = getZBits();
+        return zBits != 0 ? 31 - Integer.numberOfLeadingZeros(zBits) : -1;
+    }
+
+    private int getZBits() {
+        int zBits = 0;
         for (final short slice : matrix) {
-            final String hexString = Integer.toHexString(slice & 0xffff);
-            sb.append("0000".substring(hexString.length())).append(hexString);
+            zBits |= slice & 0xffff;
         }
+        return zBits;
+    }
+
+    public String toFileFormat() {
+        final StringBuilder sb = new StringBuilder(FILE_FORMAT_LENGTH);
+        appendFileFormat(sb);
         return sb.toString();
     }
 
+    /**
+     * Appends the matrix in file format (4 hexadecimal digits by slice).
+     *
+     * @param sb the string builder
+     */
+    void appendFileFormat(final StringBuilder sb) {
+        for (final short slice : matrix) {
+            sb.append(HEX_DIGITS[(slice >> 12) & 0xf]).append(HEX_DIGITS[(slice >> 8) & 0xf])
+                    .append(HEX_DIGITS[(slice >> 4) & 0xf]).append(HEX_DIGITS[slice & 0xf]);
+        }
+    }
+
     public ChunkMatrix copyOf() {
         return new ChunkMatrix(Arrays.copyOf(matrix, matrix.length));
     }
@@ -0,0 +1,260 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+/**
+ * A map of chunk matrices by chunk x and z. The chunk position is packed in a
+ * long key, and the keys are stored in an open addressing table (linear
+ * probing) without boxing.
+ */
+public final class ChunkMatrixMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private ChunkMatrix[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an empty chunk matrix map.
+     */
+    public ChunkMatrixMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an empty chunk matrix map.
+     *
+     * @param expectedSize the expected number of chunk matrices
+     */
+    public ChunkMatrixMap(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new ChunkMatrix[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Packs a chunk position in a long key.
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return the key
+     */
+    public static long toKey(final int chunkX, final int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the chunk x from a key.
+     *
+     * @param key the key
+     * @return the chunk x
+     */
+    public static int getChunkX(final long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Gets the chunk z from a key.
+     *
+     * @param key the key
+     * @return the chunk z
+     */
+    public static int getChunkZ(final long key) {
+        return (int) key;
+    }
+
+    /**
+     * Gets a chunk matrix.
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return the chunk matrix or null
+     */
+    public ChunkMatrix get(final int chunkX, final int chunkZ) {
+        final long key = toKey(chunkX, chunkZ);
+        for (int slot = getSlot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a chunk matrix.
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @param matrix the chunk matrix
+     * @return the old chunk matrix or null
+     */
+    public ChunkMatrix put(final int chunkX, final int chunkZ, final ChunkMatrix matrix) {
+        final long key = toKey(chunkX, chunkZ);
+        int slot = getSlot(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final ChunkMatrix oldMatrix = values[slot];
+                values[slot] = matrix;
+                return oldMatrix;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = matrix;
+        if (++size * 4 > values.length * 3) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a chunk matrix.
+     *
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return the removed chunk matrix or null
+     */
+    public ChunkMatrix remove(final int chunkX, final int chunkZ) {
+        final long key = toKey(chunkX, chunkZ);
+        for (int slot = getSlot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final ChunkMatrix oldMatrix = values[slot];
+                removeSlot(slot);
+                size--;
+                return oldMatrix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of chunk matrices.
+     *
+     * @return the number of chunk matrices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Is the map empty?
+     *
+     * @return true or false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets a cursor on the chunk matrices. The map must not be changed during the
+     * iteration.
+     *
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int getSlot(final long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Empties a slot and moves back the next keys of the probe sequence.
+     *
+     * @param emptySlot the slot to empty
+     */
+    private void removeSlot(final int emptySlot) {
+        int hole = emptySlot;
+        values[hole] = null;
+        for (int slot = (hole + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            final int idealSlot = getSlot(keys[slot]);
+            // Move the key only if its ideal slot is not between the hole and its slot
+            final boolean isBetween = hole <= slot ? idealSlot > hole && idealSlot <= slot
+                    : idealSlot > hole || idealSlot <= slot;
+            if (!isBetween) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                values[slot] = null;
+                hole = slot;
+            }
+        }
+    }
+
+    private void resize(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final ChunkMatrix[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new ChunkMatrix[newCapacity];
+        mask = newCapacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = getSlot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * A cursor on the chunk matrices, in no particular order.
+     */
+    public final class Cursor {
+
+        private int slot = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next chunk matrix.
+         *
+         * @return false if there is no more chunk matrix
+         */
+        public boolean next() {
+            while (++slot < values.length) {
+                if (values[slot] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int getChunkX() {
+            return ChunkMatrixMap.getChunkX(keys[slot]);
+        }
+
+        public int getChunkZ() {
+            return ChunkMatrixMap.getChunkZ(keys[slot]);
+        }
+
+        public ChunkMatrix getMatrix() {
+            return values[slot];
+        }
+    }
+}
@@ -199,9 +199,15 @@ public final class CuboidArea implements Area {
         return isLocationInside(worldName, x, z) && LocalMath.isInInterval(y, getY1(), getY2());
     }
 
+    @Override
+    public boolean isLocationInside(final int worldId, final int x, final int y, final int z) {
+        return worldId == areaCommon.getWorldId() && LocalMath.isInInterval(x, getX1(), getX2())
+                && LocalMath.isInInterval(z, getZ1(), getZ2()) && LocalMath.isInInterval(y, getY1(), getY2());
+    }
+
     @Override
     public boolean isLocationInside(final Location loc) {
-        return isLocationInside(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        return isLocationInside(WorldIds.getId(loc.getWorld()), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
     @Override
@@ -256,6 +262,11 @@ public final class CuboidArea implements Area {
         return areaCommon.getWorldName();
     }
 
+    @Override
+    public int getWorldId() {
+        return areaCommon.getWorldId();
+    }
+
     @Override
     public World getWorld() {
         return areaCommon.getWorld();
@@ -28,12 +28,27 @@ import me.tabinol.secuboid.utilities.LocalMath;
  */
 public final class CylinderArea implements Area {
 
+    /**
+     * The maximum width for the precomputed columns. A wider cylinder uses the
+     * ellipse equation on each check.
+     */
+    static final int MAX_PRECOMPUTED_WIDTH = 1 << 16;
+
     private final AreaCommon areaCommon;
     private double rX;
     private double rZ;
+    private double rX2;
+    private double rZ2;
     private double originH;
     private double originK;
 
+    /**
+     * The z interval inside for each x column from x1, packed as in
+     * computeColumnSpan (null if too wide). One array, so a reader never pairs
+     * the minimums and the maximums of two different positions.
+     */
+    private volatile long[] columnZSpans;
+
     /**
      * Instantiates a new cylinder area.
      *
@@ -229,8 +244,99 @@ public final class CylinderArea implements Area {
         // Use "this", x2 must be greater of x1, etc.
         rX = (double) (getX2() - getX1()) / 2;
         rZ = (double) (getZ2() - getZ1()) / 2;
+        rX2 = rX * rX;
+        rZ2 = rZ * rZ;
         originH = getX1() + rX;
         originK = getZ1() + rZ;
+
+        // Precompute the z interval of every column
+        final int width = getX2() - getX1() + 1;
+        if (width <= 0 || width > MAX_PRECOMPUTED_WIDTH) {
+            columnZSpans = null;
+            return;
+        }
+        final long[] newColumnZSpans = new long[width];
+        for (int column = 0; column < width; column++) {
+            newColumnZSpans[column] = computeColumnSpan(getX1() + column);
+        }
+        columnZSpans = newColumnZSpans;
+    }
+
+    /**
+     * Computes the z interval inside the ellipse for a x column.
+     *
+     * @param x the x
+     * @return the z minimum in the high 32 bits and the z maximum in the low 32
+     *         bits, the minimum is greater than the maximum if the column is empty
+     */
+    private long computeColumnSpan(final int x) {
+        final long emptySpan = ((long) Integer.MAX_VALUE << 32) | (Integer.MIN_VALUE & 0xFFFFFFFFL);
+        if (rX == 0 || rZ == 0) {
+            // Flat ellipse, no point inside
+            return emptySpan;
+        }
+        final double dX = x - originH;
+        final double t = 1 - dX * dX / rX2;
+        if (t <= 0) {
+            return emptySpan;
+        }
+        final double halfZ = rZ * Math.sqrt(t);
+        int zMin = Math.max((int) Math.ceil(originK - halfZ), getZ1());
+        int zMax = Math.min((int) Math.floor(originK + halfZ), getZ2());
+
+        // Rounding correction with the ellipse equation
+        while (zMin <= zMax && !isInsideEllipse(x, zMin)) {
+            zMin++;
+        }
+        while (zMax >= zMin && !isInsideEllipse(x, zMax)) {
+            zMax--;
+        }
+        if (zMin > zMax) {
+            return emptySpan;
+        }
+        while (zMin > getZ1() && isInsideEllipse(x, zMin - 1)) {
+            zMin--;
+        }
+        while (zMax < getZ2() && isInsideEllipse(x, zMax + 1)) {
+            zMax++;
+        }
+        return ((long) zMin << 32) | (zMax & 0xFFFFFFFFL);
+    }
+
+    private boolean isInsideEllipse(final int x, final int z) {
+        final double dX = x - originH;
+        final double dZ = z - originK;
+        return dX * dX / rX2 + dZ * dZ / rZ2 < 1;
+    }
+
+    /**
+     * Gets the lowest z inside the cylinder for a x column.
+     *
+     * @param x the x
+     * @return the z, greater than getZMaxFromX if the column is empty
+     */
+    public int getZMinFromX(final int x) {
+        final long[] zSpans = columnZSpans;
+        if (zSpans != null) {
+            final int column = x - getX1();
+            return column >= 0 && column < zSpans.length ? (int) (zSpans[column] >> 32) : Integer.MAX_VALUE;
+        }
+        return (int) (computeColumnSpan(x) >> 32);
+    }
+
+    /**
+     * Gets the highest z inside the cylinder for a x column.
+     *
+     * @param x the x
+     * @return the z, lower than getZMinFromX if the column is empty
+     */
+    public int getZMaxFromX(final int x) {
+        final long[] zSpans = columnZSpans;
+        if (zSpans != null) {
+            final int column = x - getX1();
+            return column >= 0 && column < zSpans.length ? (int) zSpans[column] : Integer.MIN_VALUE;
+        }
+        return (int) computeColumnSpan(x);
     }
 
     /**
@@ -285,8 +391,28 @@ public final class CylinderArea implements Area {
 
     @Override
     public boolean isLocationInside(final String worldName, final int x, final int z) {
-        return getWorldName().equals(worldName) && ((Math.pow((x - originH), 2) / Math.pow(rX, 2))
-                + (Math.pow((z - originK), 2) / Math.pow(rZ, 2))) < 1;
+        return getWorldName().equals(worldName) && isLocationInside(x, z);
+    }
+
+    /**
+     * Checks if the x and z position is inside the ellipse. The world is not
+     * checked.
+     *
+     * @param x the x
+     * @param z the z
+     * @return true if inside
+     */
+    boolean isLocationInside(final int x, final int z) {
+        final long[] zSpans = columnZSpans;
+        if (zSpans == null) {
+            return isInsideEllipse(x, z);
+        }
+        final int column = x - getX1();
+        if (column < 0 || column >= zSpans.length) {
+            return false;
+        }
+        final long span = zSpans[column];
+        return z >= (int) (span >> 32) && z <= (int) span;
     }
 
     @Override
@@ -294,9 +420,15 @@ public final class CylinderArea implements Area {
         return isLocationInside(worldName, x, z) && LocalMath.isInInterval(y, getY1(), getY2());
     }
 
+    @Override
+    public boolean isLocationInside(final int worldId, final int x, final int y, final int z) {
+        return worldId == areaCommon.getWorldId() && LocalMath.isInInterval(y, getY1(), getY2())
+                && isLocationInside(x, z);
+    }
+
     @Override
     public boolean isLocationInside(final Location loc) {
-        return isLocationInside(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        return isLocationInside(WorldIds.getId(loc.getWorld()), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
     @Override
@@ -346,6 +478,11 @@ public final class CylinderArea implements Area {
         return areaCommon.getWorldName();
     }
 
+    @Override
+    public int getWorldId() {
+        return areaCommon.getWorldId();
+    }
+
     @Override
     public World getWorld() {
         return areaCommon.getWorld();
@@ -17,37 +17,44 @@
  */
 package me.tabinol.secuboid.lands.areas;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * Represents a gride of point for roads.
+ * Represents a gride of point for roads. The limits are kept up to date on
+ * each added point, and computed again from the chunk matrices only after a
+ * point on a limit is removed.
  */
 public final class RegionMatrix {
 
     /**
-     * points is represented: RegionX: RegionZ: chunkMatrix
+     * The chunk matrices by chunk x and z.
      */
-    private final Map<Integer, Map<Integer, ChunkMatrix>> points;
+    private final ChunkMatrixMap chunkMatrices;
+
+    private int x1;
+    private int z1;
+    private int x2;
+    private int z2;
+    private boolean isLimitsDirty;
 
     /**
      * Creates a new region matrix for roads.
      */
     public RegionMatrix() {
-        points = new HashMap<>();
+        this(new ChunkMatrixMap());
     }
 
     /**
      * Creates a new region. Only for copyOf() and from save files.
-     * 
-     * @param points the map map points
+     *
+     * @param chunkMatrices the chunk matrices
      */
-    public RegionMatrix(final Map<Integer, Map<Integer, ChunkMatrix>> points) {
-        this.points = points;
+    public RegionMatrix(final ChunkMatrixMap chunkMatrices) {
+        this.chunkMatrices = chunkMatrices;
+        isLimitsDirty = true;
+        updateLimits();
     }
 
-    Map<Integer, Map<Integer, ChunkMatrix>> getPoints() {
-        return points;
+    ChunkMatrixMap getChunkMatrices() {
+        return chunkMatrices;
     }
 
     /**
@@ -57,7 +64,21 @@ public final class RegionMatrix {
      * @param z the z position
      */
     public void addPoint(final int x, final int z) {
-        addRemovePoint(true, x, z);
+        final int chunkX = x >> 4;
+        final int chunkZ = z >> 4;
+        ChunkMatrix matrix = chunkMatrices.get(chunkX, chunkZ);
+        if (matrix == null) {
+            matrix = new ChunkMatrix();
+            chunkMatrices.put(chunkX, chunkZ, matrix);
+        }
+        matrix.addPoint(getChunkPos(x), getChunkPos(z));
+
+        if (!isLimitsDirty) {
+            x1 = Math.min(x1, x);
+            z1 = Math.min(z1, z);
+            x2 = Math.max(x2, x);
+            z2 = Math.max(z2, z);
+        }
     }
 
     /**
@@ -67,46 +88,20 @@ public final class RegionMatrix {
      * @param z the z position
      */
     void removePoint(final int x, final int z) {
-        addRemovePoint(false, x, z);
-    }
-
-    /**
-     * Adds or removes a point.
-     *
-     * @param isAdd true = adds, flase = removes
-     * @param x     the x
-     * @param z     the z
-     */
-    private void addRemovePoint(final boolean isAdd, final int x, final int z) {
-        // From region X
-        final int chunkX = (int) Math.floor(x / 16d);
-        Map<Integer, ChunkMatrix> pRegionZ = points.get(chunkX);
-        if (pRegionZ == null) {
-            pRegionZ = new HashMap<>();
-            points.put(chunkX, pRegionZ);
-        }
-
-        // From region Z
-        final int chunkZ = (int) Math.floor(z / 16d);
-        ChunkMatrix matrix = pRegionZ.get(chunkZ);
+        final int chunkX = x >> 4;
+        final int chunkZ = z >> 4;
+        final ChunkMatrix matrix = chunkMatrices.get(chunkX, chunkZ);
         if (matrix == null) {
-            matrix = new ChunkMatrix();
-            pRegionZ.put(chunkZ, matrix);
+            return;
+        }
+        matrix.removePoint(getChunkPos(x), getChunkPos(z));
+        if (matrix.isEmpty()) {
+            chunkMatrices.remove(chunkX, chunkZ);
         }
 
-        // Add to matrix
-        final byte posX = getChunkPos(x);
-        final byte posZ = getChunkPos(z);
-        if (isAdd) {
-            matrix.addPoint(posX, posZ);
-        } else {
-            matrix.removePoint(posX, posZ);
-            if (matrix.isEmpty()) {
-                pRegionZ.remove(chunkZ);
-                if (pRegionZ.isEmpty()) {
-                    points.remove(chunkX);
-                }
-            }
+        // A limit can move only if the point was on it
+        if (x == x1 || x == x2 || z == z1 || z == z2) {
+            isLimitsDirty = true;
         }
     }
 
@@ -118,40 +113,81 @@ public final class RegionMatrix {
      * @return boolean point value
      */
     boolean getPoint(final int x, final int z) {
+        final ChunkMatrix matrix = chunkMatrices.get(x >> 4, z >> 4);
+        return matrix != null && matrix.getPoint(getChunkPos(x), getChunkPos(z));
+    }
 
-        // From region X
-        final int chunkX = (int) Math.floor(x / 16d);
-        final Map<Integer, ChunkMatrix> pRegionZ = points.get(chunkX);
-        if (pRegionZ == null) {
-            return false;
-        }
+    /**
+     * Gets the x or the z and return the correct position in the chunk
+     *
+     * @param value the value (x or z)
+     * @return the position (0-15)
+     */
+    private static byte getChunkPos(final int value) {
+        return (byte) (value & 15);
+    }
 
-        // From region Z
-        final int chunkZ = (int) Math.floor(z / 16d);
-        final ChunkMatrix matrix = pRegionZ.get(chunkZ);
-        if (matrix == null) {
-            return false;
-        }
+    /**
+     * Gets the lowest x with a point.
+     *
+     * @return the x or Integer.MAX_VALUE if the matrix is empty
+     */
+    int getX1() {
+        updateLimits();
+        return x1;
+    }
 
-        // Add to matrix
-        final byte posX = getChunkPos(x);
-        final byte posZ = getChunkPos(z);
-        return matrix.getPoint(posX, posZ);
+    /**
+     * Gets the lowest z with a point.
+     *
+     * @return the z or Integer.MAX_VALUE if the matrix is empty
+     */
+    int getZ1() {
+        updateLimits();
+        return z1;
     }
 
     /**
-     * Gets the x or the z and return the correct position in the chunk
+     * Gets the highest x with a point.
      *
-     * @param value the value (x or z)
-     * @return the position (0-16)
+     * @return the x or Integer.MIN_VALUE if the matrix is empty
      */
-    private byte getChunkPos(final int value) {
-        final int modul = value % 16;
-        if (modul < 0) {
-            return (byte) (16 + modul);
-        } else {
-            return (byte) modul;
+    int getX2() {
+        updateLimits();
+        return x2;
+    }
+
+    /**
+     * Gets the highest z with a point.
+     *
+     * @return the z or Integer.MIN_VALUE if the matrix is empty
+     */
+    int getZ2() {
+        updateLimits();
+        return z2;
+    }
+
+    private void updateLimits() {
+        if (!isLimitsDirty) {
+            return;
+        }
+        x1 = Integer.MAX_VALUE;
+        z1 = Integer.MAX_VALUE;
+        x2 = Integer.MIN_VALUE;
+        z2 = Integer.MIN_VALUE;
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            final ChunkMatrix matrix = cursor.getMatrix();
+            if (!matrix.isEmpty()) {
+                final int chunkX0 = cursor.getChunkX() << 4;
+                final int chunkZ0 = cursor.getChunkZ() << 4;
+                x1 = Math.min(x1, chunkX0 + matrix.getMinX());
+                z1 = Math.min(z1, chunkZ0 + matrix.getMinZ());
+                x2 = Math.max(x2, chunkX0 + matrix.getMaxX());
+                z2 = Math.max(z2, chunkZ0 + matrix.getMaxZ());
+            }
         }
+        isLimitsDirty = false;
     }
 
     /**
@@ -160,7 +196,7 @@ public final class RegionMatrix {
      * @return true or false
      */
     public boolean isEmpty() {
-        return points.isEmpty();
+        return chunkMatrices.isEmpty();
     }
 
     /**
@@ -170,38 +206,32 @@ public final class RegionMatrix {
      */
     public long countPoints() {
         long nbPoints = 0;
-        for (final Map<Integer, ChunkMatrix> pRegionZ : points.values()) {
-            for (final ChunkMatrix matrix : pRegionZ.values()) {
-                nbPoints += matrix.countPoints();
-            }
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            nbPoints += cursor.getMatrix().countPoints();
         }
         return nbPoints;
     }
 
     public String toFileFormat() {
-        final StringBuilder sb = new StringBuilder();
-        for (final Map.Entry<Integer, Map<Integer, ChunkMatrix>> entryX : points.entrySet()) {
-            for (final Map.Entry<Integer, ChunkMatrix> entryZ : entryX.getValue().entrySet()) {
-                sb.append(':').append(entryX.getKey()).append(':').append(entryZ.getKey()).append(':')
-                        .append(entryZ.getValue().toFileFormat());
-            }
+        // ":chunkX:chunkZ:" is 23 characters at most
+        final StringBuilder sb = new StringBuilder(chunkMatrices.size() * (ChunkMatrix.FILE_FORMAT_LENGTH + 23));
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            sb.append(':').append(cursor.getChunkX()).append(':').append(cursor.getChunkZ()).append(':');
+            cursor.getMatrix().appendFileFormat(sb);
         }
         return sb.toString();
     }
 
     public RegionMatrix copyOf() {
-        final Map<Integer, Map<Integer, ChunkMatrix>> newPoints = new HashMap<>();
-        for (final Map.Entry<Integer, Map<Integer, ChunkMatrix>> entryX : points.entrySet()) {
-            final Map<Integer, ChunkMatrix> newPointsZ = new HashMap<>();
-            for (final Map.Entry<Integer, ChunkMatrix> entryZ : entryX.getValue().entrySet()) {
-                if (!entryZ.getValue().isEmpty()) {
-                    newPointsZ.put(entryZ.getKey(), entryZ.getValue().copyOf());
-                }
-            }
-            if (!newPointsZ.isEmpty()) {
-                newPoints.put(entryX.getKey(), newPointsZ);
+        final ChunkMatrixMap newChunkMatrices = new ChunkMatrixMap(chunkMatrices.size());
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            if (!cursor.getMatrix().isEmpty()) {
+                newChunkMatrices.put(cursor.getChunkX(), cursor.getChunkZ(), cursor.getMatrix().copyOf());
             }
         }
-        return new RegionMatrix(newPoints);
+        return new RegionMatrix(newChunkMatrices);
     }
 }
@@ -17,8 +17,6 @@
  */
 package me.tabinol.secuboid.lands.areas;
 
-import java.util.Map;
-
 import org.bukkit.Location;
 import org.bukkit.World;
 
@@ -75,32 +73,10 @@ public final class RoadArea implements Area {
     }
 
     private void updateLimits() {
-        for (final Map.Entry<Integer, Map<Integer, ChunkMatrix>> eRegionZ : regionMatrix.getPoints().entrySet()) {
-            final int regX = eRegionZ.getKey();
-            for (final Map.Entry<Integer, ChunkMatrix> pMatrix : eRegionZ.getValue().entrySet()) {
-                final int regZ = pMatrix.getKey();
-                for (byte chunkX = 0; chunkX < 16; chunkX++) {
-                    for (byte chunkZ = 0; chunkZ < 16; chunkZ++) {
-                        if (pMatrix.getValue().getPoint(chunkX, chunkZ)) {
-                            final int x = (regX * 16) + chunkX;
-                            final int z = (regZ * 16) + chunkZ;
-                            if (areaCommon.getX1() > x) {
-                                areaCommon.setX1(x);
-                            }
-                            if (areaCommon.getX2() < x) {
-                                areaCommon.setX2(x);
-                            }
-                            if (areaCommon.getZ1() > z) {
-                                areaCommon.setZ1(z);
-                            }
-                            if (areaCommon.getZ2() < z) {
-                                areaCommon.setZ2(z);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        areaCommon.setX1(regionMatrix.getX1());
+        areaCommon.setZ1(regionMatrix.getZ1());
+        areaCommon.setX2(regionMatrix.getX2());
+        areaCommon.setZ2(regionMatrix.getZ2());
     }
 
     /**
@@ -240,10 +216,10 @@ public final class RoadArea implements Area {
     /**
      * Gets all points.
      *
-     * @return all point values
+     * @return the chunk matrices
      */
-    public Map<Integer, Map<Integer, ChunkMatrix>> getPoints() {
-        return regionMatrix.getPoints();
+    public ChunkMatrixMap getChunkMatrices() {
+        return regionMatrix.getChunkMatrices();
     }
 
     /**
@@ -265,6 +241,7 @@ public final class RoadArea implements Area {
      */
     public void remove(final int x, final int z) {
         regionMatrix.removePoint(x, z);
+        updateLimits();
     }
 
     @Override
@@ -287,9 +264,15 @@ public final class RoadArea implements Area {
         return isLocationInside(worldName, x, z) && LocalMath.isInInterval(y, getY1(), getY2());
     }
 
+    @Override
+    public boolean isLocationInside(final int worldId, final int x, final int y, final int z) {
+        return worldId == areaCommon.getWorldId() && LocalMath.isInInterval(y, getY1(), getY2())
+                && regionMatrix.getPoint(x, z);
+    }
+
     @Override
     public boolean isLocationInside(final Location loc) {
-        return isLocationInside(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        return isLocationInside(WorldIds.getId(loc.getWorld()), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
     @Override
@@ -344,6 +327,11 @@ public final class RoadArea implements Area {
         return areaCommon.getWorldName();
     }
 
+    @Override
+    public int getWorldId() {
+        return areaCommon.getWorldId();
+    }
+
     @Override
     public World getWorld() {
         return areaCommon.getWorld();
@@ -0,0 +1,120 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.World;
+
+/**
+ * The registry of the world ids. Each world name gets a dense int id the first
+ * time it is seen, then the areas compare the world ids and the lands find the
+ * world data in arrays. The ids are never reused.
+ */
+public final class WorldIds {
+
+    private static final Map<String, Integer> worldNameToId = new ConcurrentHashMap<>();
+
+    private static volatile String[] idToWorldName = new String[0];
+
+    /**
+     * The last Bukkit world instance seen for each id. A location world is found
+     * by reference, without the world name. The references are weak, so an
+     * unloaded world is not kept in memory.
+     */
+    private static volatile WeakReference<World>[] idToWorld = newWorldReferences(0);
+
+    private WorldIds() {
+    }
+
+    /**
+     * Gets the world id from a world name.
+     *
+     * @param worldName the world name
+     * @return the world id
+     */
+    public static int getId(final String worldName) {
+        final Integer id = worldNameToId.get(worldName);
+        return id != null ? id : addWorldName(worldName);
+    }
+
+    /**
+     * Gets the world id from a Bukkit world.
+     *
+     * @param world the world
+     * @return the world id
+     */
+    public static int getId(final World world) {
+        final WeakReference<World>[] worldReferences = idToWorld;
+        for (int id = 0; id < worldReferences.length; id++) {
+            final WeakReference<World> worldReference = worldReferences[id];
+            if (worldReference != null && worldReference.get() == world) {
+                return id;
+            }
+        }
+        final int id = getId(world.getName());
+        setWorld(id, world);
+        return id;
+    }
+
+    /**
+     * Gets the world name from a world id.
+     *
+     * @param id the world id
+     * @return the world name
+     */
+    public static String getWorldName(final int id) {
+        return idToWorldName[id];
+    }
+
+    /**
+     * Gets the number of world ids.
+     *
+     * @return the number of world ids
+     */
+    public static int size() {
+        return idToWorldName.length;
+    }
+
+    private static synchronized int addWorldName(final String worldName) {
+        final Integer id = worldNameToId.get(worldName);
+        if (id != null) {
+            return id;
+        }
+        final int newId = idToWorldName.length;
+        final String[] newIdToWorldName = Arrays.copyOf(idToWorldName, newId + 1);
+        newIdToWorldName[newId] = worldName;
+        idToWorldName = newIdToWorldName;
+        worldNameToId.put(worldName, newId);
+        return newId;
+    }
+
+    private static synchronized void setWorld(final int id, final World world) {
+        final WeakReference<World>[] newIdToWorld = Arrays.copyOf(idToWorld, idToWorldName.length);
+        newIdToWorld[id] = new WeakReference<>(world);
+        idToWorld = newIdToWorld;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<World>[] newWorldReferences(final int length) {
+        return (WeakReference<World>[]) new WeakReference<?>[length];
+    }
+}
@@ -19,6 +19,7 @@ package me.tabinol.secuboid.lands.collisions;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -27,7 +28,10 @@ import me.tabinol.secuboid.Secuboid;
 import me.tabinol.secuboid.config.Config;
 import me.tabinol.secuboid.lands.Land;
 import me.tabinol.secuboid.lands.Lands;
+import me.tabinol.secuboid.lands.LandsSnapshot;
+import me.tabinol.secuboid.lands.LandsSnapshot.LandView;
 import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.AreaGeometry;
 import me.tabinol.secuboid.permissionsflags.FlagList;
 import me.tabinol.secuboid.permissionsflags.FlagType;
 import me.tabinol.secuboid.playercontainer.PlayerContainer;
@@ -37,7 +41,8 @@ import me.tabinol.secuboid.playercontainer.PlayerContainerType;
 import static me.tabinol.secuboid.lands.collisions.Collisions.LandError.*;
 
 /**
- * The Class Collisions. This class is created for async calculation and price
+ * The Class Collisions. This class is created for async calculation and price.
+ * The lands are read from a snapshot taken at the creation in the main thread.
  */
 public final class Collisions {
 
@@ -106,6 +111,11 @@ public final class Collisions {
      */
     private final Lands lands;
 
+    /**
+     * The lands snapshot for the collisions thread.
+     */
+    private final LandsSnapshot snapshot;
+
     /**
      * The land name.
      */
@@ -131,6 +141,11 @@ public final class Collisions {
      */
     private final Area newArea;
 
+    /**
+     * The land children at the creation.
+     */
+    private final List<Land> children;
+
     /**
      * The parent.
      */
@@ -184,8 +199,10 @@ public final class Collisions {
         this.worldName = worldName;
         collisionsEntries = new ArrayList<>();
         lands = secuboid.getLands();
+        snapshot = lands.publishSnapshot();
         this.landName = landName;
         this.land = land;
+        children = land != null ? new ArrayList<>(land.getChildren()) : Collections.emptyList();
         this.action = action;
         this.removedAreaId = removedAreaId;
         this.newArea = newArea;
@@ -207,7 +224,7 @@ public final class Collisions {
         percentDone = 20;
 
         // Pass 3 check if children are not out of land
-        if (action.errorsToCheck.contains(CHILD_OUT_OF_BORDER) && !land.getChildren().isEmpty()) {
+        if (action.errorsToCheck.contains(CHILD_OUT_OF_BORDER) && !children.isEmpty()) {
             checkIfChildrenOutside();
         }
         percentDone = 30;
@@ -247,21 +264,21 @@ public final class Collisions {
 
             // Pass 8 check if the land has more than the maximum number of areas
             if (land != null && action.errorsToCheck.contains(MAX_AREA_FOR_LAND)
-                    && land.getAreas().size() >= secuboid.getConf().getMaxAreaPerLand()) {
+                    && getAreas(land).size() >= secuboid.getConf().getMaxAreaPerLand()) {
                 collisionsEntries.add(new CollisionsEntry(secuboid, MAX_AREA_FOR_LAND, land, 0));
             }
             percentDone = 80;
 
             // Pass 9 check if the player has more than the maximum number of land
             if (action.errorsToCheck.contains(MAX_LAND_FOR_PLAYER)
-                    && secuboid.getLands().getLands(owner).size() >= secuboid.getConf().getMaxLandPerPlayer()) {
+                    && snapshot.getNbLands(owner) >= secuboid.getConf().getMaxLandPerPlayer()) {
                 collisionsEntries.add(new CollisionsEntry(secuboid, MAX_LAND_FOR_PLAYER, null, 0));
             }
         }
         percentDone = 90;
 
         // Pass 10 check if the area to remove is the only one
-        if (action.errorsToCheck.contains(MUST_HAVE_AT_LEAST_ONE_AREA) && land != null && land.getAreas().size() == 1) {
+        if (action.errorsToCheck.contains(MUST_HAVE_AT_LEAST_ONE_AREA) && land != null && getAreas(land).size() == 1) {
             collisionsEntries
                     .add(new CollisionsEntry(secuboid, LandError.MUST_HAVE_AT_LEAST_ONE_AREA, land, removedAreaId));
         }
@@ -287,21 +304,14 @@ public final class Collisions {
      */
     private void checkCollisionsAndInsideParent() {
         final HashSet<Area> landCollisionsList = new HashSet<>();
-        boolean outsideParent = false;
-
-        for (int x = newArea.getX1(); x <= newArea.getX2(); x++) {
-            for (int z = newArea.getZ1(); z <= newArea.getZ2(); z++) {
-                if (newArea.isLocationInside(worldName, x, z)) {
-                    for (final Area area2 : lands.getAreas(worldName, x, z)) {
-                        final Land land2 = area2.getLand();
-                        if (land != land2 && !isDescendants(land, land2) && !isDescendants(land2, parent)) {
-                            landCollisionsList.add(area2);
-                        }
-                    }
-                }
-                if (parent != null && !lands.getLands(worldName, x, z).contains(parent)) {
-                    outsideParent = true;
-                }
+
+        // Candidates from the square limit, then exact shape intersection
+        for (final Area area2 : snapshot.getAreas(worldName, newArea.getX1(), newArea.getZ1(), newArea.getX2(),
+                newArea.getZ2())) {
+            final Land land2 = area2.getLand();
+            if (land != land2 && !isDescendants(land, land2) && !isDescendants(land2, parent)
+                    && AreaGeometry.isIntersect(newArea, area2)) {
+                landCollisionsList.add(area2);
             }
         }
 
@@ -309,7 +319,7 @@ public final class Collisions {
             collisionsEntries.add(new CollisionsEntry(secuboid, COLLISION, areaCol.getLand(), areaCol.getKey()));
         }
 
-        if (outsideParent) {
+        if (parent != null && !AreaGeometry.isInside(newArea, getAreas(parent))) {
             collisionsEntries.add(new CollisionsEntry(secuboid, OUT_OF_PARENT, parent, 0));
         }
     }
@@ -322,7 +332,23 @@ public final class Collisions {
      * @return true, if is descendants
      */
     private boolean isDescendants(final Land land1, final Land land2) {
-        return !(land1 == null || land2 == null) && land1.isDescendants(land2);
+        if (land1 == null || land2 == null) {
+            return false;
+        }
+        final LandView landView1 = snapshot.getLand(land1.getUUID());
+        final LandView landView2 = snapshot.getLand(land2.getUUID());
+        return landView1 != null && landView2 != null && snapshot.isDescendants(landView1, landView2);
+    }
+
+    /**
+     * Gets the areas of a land from the snapshot.
+     *
+     * @param land the land
+     * @return the areas
+     */
+    private Collection<Area> getAreas(final Land land) {
+        final LandView landView = snapshot.getLand(land.getUUID());
+        return landView != null ? landView.getAreas() : Collections.emptyList();
     }
 
     /**
@@ -333,7 +359,7 @@ public final class Collisions {
         final HashSet<Area> areaList = new HashSet<>();
 
         if (action != LandAction.LAND_REMOVE) {
-            for (final Area area : land.getAreas()) {
+            for (final Area area : getAreas(land)) {
                 if (area.getKey() != removedAreaId) {
                     areaList.add(area);
                 }
@@ -343,16 +369,11 @@ public final class Collisions {
             areaList.add(newArea);
         }
 
-        for (final Area areaC : areaList) {
-            for (int x = areaC.getX1(); x <= areaC.getX2(); x++) {
-                for (int z = areaC.getZ1(); z <= areaC.getZ2(); z++) {
-                    if (areaC.isLocationInside(worldName, x, z)) {
-                        for (final Land child : land.getChildren()) {
-                            if (!child.isLocationInside(worldName, x, z)) {
-                                childOutsideLand.add(child);
-                            }
-                        }
-                    }
+        for (final Land child : children) {
+            for (final Area childArea : getAreas(child)) {
+                if (!AreaGeometry.isInside(childArea, areaList)) {
+                    childOutsideLand.add(child);
+                    break;
                 }
             }
         }
@@ -366,7 +387,7 @@ public final class Collisions {
      * Check if land has children.
      */
     private void checkIfLandHasChildren() {
-        for (final Land child : land.getChildren()) {
+        for (final Land child : children) {
             collisionsEntries.add(new CollisionsEntry(secuboid, HAS_CHILDREN, child, 0));
         }
     }
@@ -375,7 +396,8 @@ public final class Collisions {
      * Check if name exist.
      */
     private void checkIfNameExist() {
-        if (lands.isNameExist(landName) && !lands.getLand(landName).equals(land)) {
+        final LandView landView = snapshot.getLand(landName);
+        if (landView != null && (land == null || !landView.getUUID().equals(land.getUUID()))) {
             collisionsEntries.add(new CollisionsEntry(secuboid, NAME_IN_USE, null, 0));
         }
     }
@@ -18,8 +18,11 @@
 package me.tabinol.secuboid.lands.types;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.TreeMap;
 
+import me.tabinol.secuboid.utilities.PrefixIndex;
+
 /**
  * Represents an area type.
  */
@@ -80,4 +83,15 @@ public final class Types {
     public Collection<Type> getTypes() {
         return types.values();
     }
+
+    /**
+     * Gets the first type names starting with a prefix (tab completion).
+     *
+     * @param prefix     the prefix
+     * @param maxResults the maximum number of names
+     * @return the type names
+     */
+    public List<String> getTypeNamesStartingWith(final String prefix, final int maxResults) {
+        return PrefixIndex.getKeysStartingWith(types, prefix, maxResults);
+    }
 }
@@ -13,7 +13,8 @@ import org.bukkit.event.player.AsyncPlayerChatEvent;
 
 import me.tabinol.secuboid.Secuboid;
 import me.tabinol.secuboid.config.Config;
-import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.lands.LandsSnapshot;
+import me.tabinol.secuboid.lands.LandsSnapshot.LandView;
 import me.tabinol.secuboid.players.PlayerConfig;
 import me.tabinol.secuboid.utilities.ColoredConsole;
 
@@ -59,7 +60,9 @@ public class ChatListener extends CommonListener implements Listener {
 
             event.setCancelled(true);
 
-            final Land land = secuboid.getLands().getLand(player.getLocation());
+            // Async thread: read the lands from the last snapshot only
+            final LandsSnapshot snapshot = secuboid.getLands().getSnapshot();
+            final LandView land = snapshot.getLand(player.getLocation());
 
             // The player is not in a land
             if (land == null) {
@@ -78,9 +81,9 @@ public class ChatListener extends CommonListener implements Listener {
             if (firstChar.equals("=")) {
                 playersToMsg = copyWithSpy(land.getPlayersInLand());
             } else if (firstChar.equals("<")) {
-                playersToMsg = copyWithSpy(land.getPlayersInLandAndChildren());
+                playersToMsg = copyWithSpy(snapshot.getPlayersInLandAndChildren(land));
             } else { // ">"
-                playersToMsg = copyWithSpy(land.getFirstParent().getPlayersInLandAndChildren());
+                playersToMsg = copyWithSpy(snapshot.getPlayersInLandAndChildren(snapshot.getFirstParent(land)));
             }
 
             final String message = event.getMessage().substring(1);
@@ -237,6 +237,7 @@ abstract class CommonListener {
                             loc.getYaw(), loc.getPitch()));
                 }
                 entry.setTpCancel(true);
+                entry.setSafeRegion(null);
                 return;
             }
             entry.setLastLandPermissionsFlags(landPermissionsFlags);
@@ -252,8 +253,17 @@ abstract class CommonListener {
             }
         }
         entry.setLastLoc(loc);
+        entry.setSafeRegion(secuboid.getLands().getSafeRegion(loc));
 
-        // Update visual selection
+        updateSelectionMove(entry);
+    }
+
+    /**
+     * Updates the visual selections that follow the player.
+     *
+     * @param entry the entry
+     */
+    protected void updateSelectionMove(final PlayerConfEntry entry) {
         if (entry.getSelection().hasSelection()) {
             for (final RegionSelection sel : entry.getSelection().getSelections()) {
                 if (sel instanceof AreaSelection && ((AreaSelection) sel).getMoveType() != MoveType.PASSIVE) {
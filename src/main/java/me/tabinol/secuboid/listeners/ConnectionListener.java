@@ -18,6 +18,7 @@
 package me.tabinol.secuboid.listeners;
 
 import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.inventories.InventorySpec;
 import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.lands.Land;
 import me.tabinol.secuboid.lands.LandPermissionsFlags;
@@ -84,7 +85,9 @@ public class ConnectionListener extends CommonListener implements Listener {
         if (secuboid.getInventoriesOpt().isPresent()) {
             // Inventory prelogin
             final PlayerInventoryCache playerInventoryCache = new PlayerInventoryCache(playerUUID, playerName);
-            if (!playerInventoryCache.inventoryPreLogin(secuboid)) {
+            final InventorySpec preLoginInvSpecNullable = secuboid.getInventoriesOpt().get()
+                    .getPreLoginInvSpecNullable(playerUUID);
+            if (!playerInventoryCache.inventoryPreLogin(secuboid, preLoginInvSpecNullable)) {
                 return false;
             }
             // Add the player to preload map
@@ -111,10 +114,14 @@ public class ConnectionListener extends CommonListener implements Listener {
         // Update players cache
         secuboid.getPlayersCache().updatePlayer(player.getUniqueId(), player.getName());
 
+        // Groups and permissions are set on login, forget the old decisions
+        secuboid.getPermissionsFlags().getPermissionsCache().invalidate();
+
         // Create a new static config
         PlayerInventoryCache playerInventoryCacheNullable = null;
         if (secuboid.getInventoriesOpt().isPresent()) {
             playerInventoryCacheNullable = playerUUIDToInventoryCachePreLoad.remove(playerUUID);
+            secuboid.getInventoriesOpt().get().removeLastInvSpec(playerUUID);
             if (playerInventoryCacheNullable == null) {
                 secuboid.getLogger().log(Level.SEVERE,
                         String.format("Inventory not loaded for player [uuid=%s, name=%s]", playerUUID, playerName));
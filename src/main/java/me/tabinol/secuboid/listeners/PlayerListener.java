@@ -83,6 +83,7 @@ import me.tabinol.secuboid.config.Config;
 import me.tabinol.secuboid.exceptions.SecuboidCommandException;
 import me.tabinol.secuboid.lands.Land;
 import me.tabinol.secuboid.lands.LandPermissionsFlags;
+import me.tabinol.secuboid.lands.SafeRegion;
 import me.tabinol.secuboid.lands.areas.Area;
 import me.tabinol.secuboid.permissionsflags.FlagList;
 import me.tabinol.secuboid.permissionsflags.PermissionList;
@@ -168,18 +169,27 @@ public final class PlayerListener extends CommonListener implements Listener {
         if (player == null || entry == null) {
             return;
         }
-        final long last = entry.getLastMoveUpdate();
+        final Location to = event.getTo();
         final long now = System.currentTimeMillis();
-        if (now - last < DEFAULT_TIME_LAPS) {
+        final SafeRegion safeRegionNullable = entry.getSafeRegion();
+        if (safeRegionNullable == null
+                || !safeRegionNullable.isInside(to, secuboid.getLands().getAreasGeneration())) {
+            // The land can change: no wait
+            entry.setLastMoveUpdate(now);
+            updatePosInfo(event, entry, to, false);
+            return;
+        }
+
+        // Same land, only the visual selection is updated from time to time
+        entry.setLastLoc(to);
+        if (!entry.getSelection().hasSelection() || now - entry.getLastMoveUpdate() < DEFAULT_TIME_LAPS) {
             return;
         }
         entry.setLastMoveUpdate(now);
-        if (event.getFrom().getWorld() == event.getTo().getWorld()) {
-            if (event.getFrom().distance(event.getTo()) == 0) {
-                return;
-            }
+        if (event.getFrom().getWorld() == to.getWorld() && event.getFrom().distance(to) == 0) {
+            return;
         }
-        updatePosInfo(event, entry, event.getTo(), false);
+        updateSelectionMove(entry);
     }
 
     /**
@@ -0,0 +1,129 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.listeners;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Location;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+import me.tabinol.secuboid.utilities.ExpirableHashMap;
+
+/**
+ * The fire blocks set by the players, by world and by block position. The
+ * search of a fire near a location probes only the blocks in the distance,
+ * whatever the number of fires on the server. The fire blocks expire after a
+ * delay.
+ */
+final class PvpFireTracker {
+
+    private static final int Y_BITS = 12;
+    private static final int XZ_BITS = 26;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+
+    private final Secuboid secuboid;
+    private final long expireTicks;
+    private final Map<String, ExpirableHashMap<Long, PlayerContainerPlayer>> worldNameToFires;
+
+    /**
+     * Instantiates a new pvp fire tracker.
+     *
+     * @param secuboid    secuboid instance
+     * @param expireTicks the delay before a fire block expires (in ticks)
+     */
+    PvpFireTracker(final Secuboid secuboid, final long expireTicks) {
+        this.secuboid = secuboid;
+        this.expireTicks = expireTicks;
+        worldNameToFires = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a fire block. The delay restarts if the block is already a fire.
+     *
+     * @param loc   the fire block location
+     * @param owner the player who set the fire
+     */
+    void put(final Location loc, final PlayerContainerPlayer owner) {
+        worldNameToFires.computeIfAbsent(loc.getWorld().getName(), k -> new ExpirableHashMap<>(secuboid, expireTicks))
+                .put(toBlockKey(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()), owner);
+    }
+
+    /**
+     * Gets the player who set the fire block.
+     *
+     * @param loc the block location
+     * @return the player, or null if the block is not a tracked fire
+     */
+    PlayerContainerPlayer getNullable(final Location loc) {
+        final ExpirableHashMap<Long, PlayerContainerPlayer> fires = worldNameToFires.get(loc.getWorld().getName());
+        if (fires == null) {
+            return null;
+        }
+        return fires.get(toBlockKey(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+    }
+
+    /**
+     * Checks if there is a fire block near a location. The distance is from the
+     * location to the lower corner of the fire block.
+     *
+     * @param loc                the location
+     * @param maxDistanceSquared the maximum distance squared (excluded)
+     * @return true if a fire block is near
+     */
+    boolean isFireNear(final Location loc, final double maxDistanceSquared) {
+        final ExpirableHashMap<Long, PlayerContainerPlayer> fires = worldNameToFires.get(loc.getWorld().getName());
+        if (fires == null || fires.isEmpty()) {
+            return false;
+        }
+
+        final double radius = Math.sqrt(maxDistanceSquared);
+        final double x = loc.getX();
+        final double y = loc.getY();
+        final double z = loc.getZ();
+        for (int blockX = (int) Math.ceil(x - radius); blockX <= (int) Math.floor(x + radius); blockX++) {
+            final double dx = blockX - x;
+            for (int blockZ = (int) Math.ceil(z - radius); blockZ <= (int) Math.floor(z + radius); blockZ++) {
+                final double dz = blockZ - z;
+                for (int blockY = (int) Math.ceil(y - radius); blockY <= (int) Math.floor(y + radius); blockY++) {
+                    final double dy = blockY - y;
+                    if (dx * dx + dy * dy + dz * dz < maxDistanceSquared
+                            && fires.containsKey(toBlockKey(blockX, blockY, blockZ))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs a block position in a long. The x and z keep 26 bits and the y keeps
+     * 12 bits, like the Minecraft block positions.
+     *
+     * @param x the block x
+     * @param y the block y
+     * @param z the block z
+     * @return the block key
+     */
+    static long toBlockKey(final int x, final int y, final int z) {
+        return ((x & XZ_MASK) << (XZ_BITS + Y_BITS)) | ((z & XZ_MASK) << Y_BITS) | (y & Y_MASK);
+    }
+}
@@ -17,8 +17,6 @@
  */
 package me.tabinol.secuboid.listeners;
 
-import java.util.Map;
-
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
@@ -41,7 +39,6 @@ import me.tabinol.secuboid.permissionsflags.FlagList;
 import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.players.PlayerConfEntry;
 import me.tabinol.secuboid.players.PlayerConfig;
-import me.tabinol.secuboid.utilities.ExpirableHashMap;
 
 /**
  * PVP Listener
@@ -58,10 +55,15 @@ public final class PvpListener extends CommonListener implements Listener {
      */
     private final PlayerConfig playerConf;
 
+    /**
+     * The maximum distance squared between a player and a fire block.
+     */
+    private static final double FIRE_DISTANCE_SQUARED = 5;
+
     /**
      * The player fire location.
      */
-    private final ExpirableHashMap<Location, PlayerContainerPlayer> playerFireLocation;
+    private final PvpFireTracker playerFireLocation;
 
     /**
      * Instantiates a new pvp listener.
@@ -72,7 +74,7 @@ public final class PvpListener extends CommonListener implements Listener {
 
         super(secuboid);
         playerConf = secuboid.getPlayerConf();
-        playerFireLocation = new ExpirableHashMap<>(secuboid, FIRE_EXPIRE);
+        playerFireLocation = new PvpFireTracker(secuboid, FIRE_EXPIRE);
     }
 
     /**
@@ -136,7 +138,7 @@ public final class PvpListener extends CommonListener implements Listener {
     public void onBlockSpread(BlockSpreadEvent event) {
 
         final Block blockSource = event.getSource();
-        final PlayerContainerPlayer pc = playerFireLocation.get(blockSource.getLocation());
+        final PlayerContainerPlayer pc = playerFireLocation.getNullable(blockSource.getLocation());
 
         if (pc != null) {
 
@@ -165,20 +167,16 @@ public final class PvpListener extends CommonListener implements Listener {
                 final LandPermissionsFlags landPermissionsFlags = secuboid.getLands().getPermissionsFlags(loc);
 
                 // Check for fire near the player
-                for (Map.Entry<Location, PlayerContainerPlayer> fireEntry : playerFireLocation.entrySet()) {
-
-                    if (loc.getWorld() == fireEntry.getKey().getWorld()
-                            && loc.distanceSquared(fireEntry.getKey()) < 5) {
-                        final Block block = loc.getBlock();
-                        if ((block.getType() == Material.FIRE || block.getType() == Material.AIR)
-                                && !isPvpValid(landPermissionsFlags)) {
-
-                            // remove fire
-                            block.setType(Material.AIR);
-                            player.setFireTicks(0);
-                            event.setDamage(0);
-                            event.setCancelled(true);
-                        }
+                if (playerFireLocation.isFireNear(loc, FIRE_DISTANCE_SQUARED)) {
+                    final Block block = loc.getBlock();
+                    if ((block.getType() == Material.FIRE || block.getType() == Material.AIR)
+                            && !isPvpValid(landPermissionsFlags)) {
+
+                        // remove fire
+                        block.setType(Material.AIR);
+                        player.setFireTicks(0);
+                        event.setDamage(0);
+                        event.setCancelled(true);
                     }
                 }
             }
@@ -54,10 +54,10 @@ import org.bukkit.event.hanging.HangingBreakEvent.RemoveCause;
 
 import me.tabinol.secuboid.Secuboid;
 import me.tabinol.secuboid.config.Config;
+import me.tabinol.secuboid.config.Config.ExplosionProtectionType;
 import me.tabinol.secuboid.lands.LandPermissionsFlags;
 import me.tabinol.secuboid.permissionsflags.FlagList;
 import me.tabinol.secuboid.permissionsflags.FlagType;
-import me.tabinol.secuboid.permissionsflags.FlagValue;
 
 /**
  * World listener
@@ -213,24 +213,35 @@ public final class WorldListener extends CommonListener implements Listener {
     private void ExplodeBlocks(final Cancellable event, final List<Block> blocks, final FlagType ft, final Location loc, final float yield,
                                final float power, final boolean setFire) {
 
-        FlagValue value;
-        boolean cancelEvent = false;
-        final Iterator<Block> itBlock = blocks.iterator();
-        Block block;
+        // Get all the permissions flags with only one area search
+        final List<LandPermissionsFlags> blocksPermissionsFlags = secuboid.getLands()
+                .getPermissionsFlags(loc.getWorld(), blocks);
+
+        if (conf.getExplosionProtectionType() == ExplosionProtectionType.PARTIAL) {
+            // Remove the protected blocks only
+            final Iterator<Block> itBlock = blocks.iterator();
+            for (final LandPermissionsFlags landPermissionsFlags : blocksPermissionsFlags) {
+                itBlock.next();
+                if (!landPermissionsFlags.getFlagAndInherit(ft).getValueBoolean()) {
+                    itBlock.remove();
+                }
+            }
+            return;
+        }
 
         // Check if 1 block or more is in a protected place
-        while (itBlock.hasNext() && !cancelEvent) {
-            block = itBlock.next();
-            value = secuboid.getLands().getPermissionsFlags(block.getLocation()).getFlagAndInherit(ft);
-            if (!value.getValueBoolean()) {
-                cancelEvent = true;
+        LandPermissionsFlags lastPermissionsFlags = null;
+        for (final LandPermissionsFlags landPermissionsFlags : blocksPermissionsFlags) {
+            if (landPermissionsFlags != lastPermissionsFlags) {
+                if (!landPermissionsFlags.getFlagAndInherit(ft).getValueBoolean()) {
+                    // Cancel Event and do a false explosion
+                    event.setCancelled(true);
+                    loc.getWorld().createExplosion(loc.getX(), loc.getY(), loc.getZ(), power, setFire, false);
+                    return;
+                }
+                lastPermissionsFlags = landPermissionsFlags;
             }
         }
-        if (cancelEvent) {
-            // Cancel Event and do a false explosion
-            event.setCancelled(true);
-            loc.getWorld().createExplosion(loc.getX(), loc.getY(), loc.getZ(), power, setFire, false);
-        }
 
         // If not the events will be executed has is
     }
@@ -27,15 +27,22 @@ public class FlagType extends PermissionsFlagsType {
      */
     private FlagValue defaultValue;
 
+    /**
+     * The flag type id, from 0 to the number of flag types - 1.
+     */
+    private final int id;
+
     /**
      * Instantiates a new flag type.
      *
      * @param flagName     the flag name
      * @param defaultValue the default value
+     * @param id           the flag type id
      */
-    FlagType(String flagName, Object defaultValue) {
+    FlagType(String flagName, Object defaultValue, int id) {
         super(flagName);
         this.defaultValue = new FlagValue(defaultValue);
+        this.id = id;
     }
 
     /**
@@ -55,4 +62,13 @@ public class FlagType extends PermissionsFlagsType {
     public FlagValue getDefaultValue() {
         return defaultValue;
     }
+
+    /**
+     * Gets the flag type id. The id is an index for flag values in arrays.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.permissionsflags;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generation counter and statistics for the permission decisions cached in
+ * every land permissions flags. A cached decision is valid only for the
+ * generation it was calculated in. The generation changes when a permission,
+ * a parent, an owner, a resident or a tenant changes. Vault groups and Bukkit
+ * permissions have no change event, so the generation changes after a maximum
+ * age too.
+ */
+public final class PermissionsCache {
+
+    /**
+     * The maximum age of a generation in milliseconds.
+     */
+    private static final long MAX_AGE_MILLIS = 1000L;
+
+    private final AtomicLong generation;
+    private volatile long generationStartMillis;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Instantiates a new permissions cache.
+     */
+    PermissionsCache() {
+        generation = new AtomicLong();
+        generationStartMillis = System.currentTimeMillis();
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Gets the actual generation. A new generation starts if the actual one is
+     * too old.
+     *
+     * @return the generation
+     */
+    public long getGeneration() {
+        final long now = System.currentTimeMillis();
+        if (now - generationStartMillis > MAX_AGE_MILLIS) {
+            generationStartMillis = now;
+            return generation.incrementAndGet();
+        }
+        return generation.get();
+    }
+
+    /**
+     * Invalidates every cached permission decision.
+     */
+    public void invalidate() {
+        generationStartMillis = System.currentTimeMillis();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Adds a cache hit.
+     */
+    public void addHit() {
+        hits.increment();
+    }
+
+    /**
+     * Adds a cache miss.
+     */
+    public void addMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Gets the number of cache hits.
+     *
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     *
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
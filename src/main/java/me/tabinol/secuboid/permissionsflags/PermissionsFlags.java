@@ -24,10 +24,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.bukkit.Material;
 
+import me.tabinol.secuboid.utilities.PrefixIndex;
+
 /**
  * The Class Parameters.
  *
@@ -73,18 +76,42 @@ public final class PermissionsFlags {
      */
     private final List<Flag> unRegisteredFlags;
 
+    /**
+     * The registered permission names for the tab completion.
+     */
+    private final PrefixIndex registeredPermissionNames;
+
+    /**
+     * The registered flag names for the tab completion.
+     */
+    private final PrefixIndex registeredFlagNames;
+
     /**
      * Special permission Map Prefix-->Material-->PermissionType
      */
     private final Map<SpecialPermPrefix, Map<Material, PermissionType>> specialPermMap;
 
+    /**
+     * The permission decisions cache generation and statistics.
+     */
+    private final PermissionsCache permissionsCache;
+
+    /**
+     * The generation of the effective flag values cached in lands.
+     */
+    private final AtomicLong flagsGeneration;
+
     /**
      * Instantiates a new parameters.
      */
     public PermissionsFlags() {
 
+        permissionsCache = new PermissionsCache();
+        flagsGeneration = new AtomicLong();
         permissions = new TreeMap<>();
         flags = new TreeMap<>();
+        registeredPermissionNames = new PrefixIndex();
+        registeredFlagNames = new PrefixIndex();
         unRegisteredFlags = new ArrayList<>();
 
         // Add flags and permissions
@@ -169,6 +196,7 @@ public final class PermissionsFlags {
         final PermissionType permissionType = getPermissionTypeNoValid(permissionNameUpper, parent);
         permissionType.setDefaultValue(defaultValue);
         permissionType.setRegistered();
+        registeredPermissionNames.add(permissionType.getName());
 
         return permissionType;
     }
@@ -195,6 +223,8 @@ public final class PermissionsFlags {
         final FlagType flagType = getFlagTypeNoValid(flagNameUpper);
         flagType.setDefaultValue(flagDefaultValue);
         flagType.setRegistered();
+        registeredFlagNames.add(flagType.getName());
+        invalidateFlags();
 
         // Update flag registration (for correct type)
         final Iterator<Flag> iFlag = unRegisteredFlags.iterator();
@@ -236,6 +266,18 @@ public final class PermissionsFlags {
         return permissions.values().stream().filter(PermissionsFlagsType::isRegistered).map(PermissionsFlagsType::getName).collect(Collectors.toSet());
     }
 
+    /**
+     * Gets the first registered permission type names starting with a prefix
+     * (tab completion).
+     *
+     * @param prefix     the prefix
+     * @param maxResults the maximum number of names
+     * @return the registered permission type names
+     */
+    public List<String> getRegisteredPermissionTypeNames(final String prefix, final int maxResults) {
+        return registeredPermissionNames.getStartingWith(prefix, maxResults);
+    }
+
     /**
      * Gets the flag type.
      *
@@ -262,6 +304,18 @@ public final class PermissionsFlags {
         return flags.values().stream().filter(PermissionsFlagsType::isRegistered).map(PermissionsFlagsType::getName).collect(Collectors.toSet());
     }
 
+    /**
+     * Gets the first registered flag type names starting with a prefix (tab
+     * completion).
+     *
+     * @param prefix     the prefix
+     * @param maxResults the maximum number of names
+     * @return the registered flag type names
+     */
+    public List<String> getRegisteredFlagTypeNames(final String prefix, final int maxResults) {
+        return registeredFlagNames.getStartingWith(prefix, maxResults);
+    }
+
     /**
      * Gets the permission type no valid.
      *
@@ -302,7 +356,7 @@ public final class PermissionsFlags {
         FlagType ft = flags.get(flagName);
 
         if (ft == null) {
-            ft = new FlagType(flagName, "");
+            ft = new FlagType(flagName, "", flags.size());
             flags.put(flagName, ft);
         }
 
@@ -326,4 +380,38 @@ public final class PermissionsFlags {
 
         return matPerms.get(mat);
     }
+
+    /**
+     * Gets the permission decisions cache generation and statistics.
+     *
+     * @return the permissions cache
+     */
+    public PermissionsCache getPermissionsCache() {
+        return permissionsCache;
+    }
+
+    /**
+     * Gets the number of flag types. The flag type ids are lower than this number.
+     *
+     * @return the number of flag types
+     */
+    public int getNbFlagTypes() {
+        return flags.size();
+    }
+
+    /**
+     * Gets the generation of the effective flag values cached in lands.
+     *
+     * @return the flags generation
+     */
+    public long getFlagsGeneration() {
+        return flagsGeneration.get();
+    }
+
+    /**
+     * Invalidates the effective flag values cached in every land.
+     */
+    public void invalidateFlags() {
+        flagsGeneration.incrementAndGet();
+    }
 }
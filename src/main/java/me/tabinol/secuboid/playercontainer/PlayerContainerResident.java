@@ -39,14 +39,7 @@ public final class PlayerContainerResident implements PlayerContainer {
             return false;
         }
 
-        for (final PlayerContainer playerContainer : testLandNullable.getResidents()) {
-            // First check is anti inifite loop
-            if (!playerContainer.isLandRelative() && playerContainer.hasAccess(player, testLandPermissionsFlags)) {
-                return true;
-            }
-        }
-
-        return false;
+        return testLandNullable.isResidentNoInherit(player);
     }
 
     @Override
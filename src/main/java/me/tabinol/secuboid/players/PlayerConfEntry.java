@@ -29,6 +29,7 @@ import me.tabinol.secuboid.commands.ChatPage;
 import me.tabinol.secuboid.commands.ConfirmEntry;
 import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.lands.LandPermissionsFlags;
+import me.tabinol.secuboid.lands.SafeRegion;
 import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.selection.PlayerSelection;
 
@@ -89,6 +90,11 @@ public final class PlayerConfEntry {
      */
     private Location lastLoc = null;
 
+    /**
+     * Region where the last land cannot change
+     */
+    private SafeRegion safeRegionNullable = null;
+
     /**
      * If the player has a teleportation cancelled
      */
@@ -289,6 +295,24 @@ public final class PlayerConfEntry {
         lastLandPermissionsFlags = landPermissionsFlags;
     }
 
+    /**
+     * Gets the safe region of the last land lookup.
+     *
+     * @return the safe region or null
+     */
+    public SafeRegion getSafeRegion() {
+        return safeRegionNullable;
+    }
+
+    /**
+     * Sets the safe region of the last land lookup.
+     *
+     * @param safeRegionNullable the safe region or null to force a lookup
+     */
+    public void setSafeRegion(final SafeRegion safeRegionNullable) {
+        this.safeRegionNullable = safeRegionNullable;
+    }
+
     /**
      * Gets the last player location.
      *
@@ -36,6 +36,7 @@ import me.tabinol.secuboid.playerscache.minecraftapi.HttpProfileRepository;
 import me.tabinol.secuboid.playerscache.minecraftapi.Profile;
 import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
 import me.tabinol.secuboid.storage.StorageThread.SaveOn;
+import me.tabinol.secuboid.utilities.PrefixIndex;
 import me.tabinol.secuboid.utilities.SecuboidQueueThread;
 
 /**
@@ -53,6 +54,11 @@ public final class PlayersCache extends SecuboidQueueThread<PlayersCache.PlayerC
      */
     private final Map<UUID, PlayerCacheEntry> playersRevCacheList;
 
+    /**
+     * The player names for the tab completion.
+     */
+    private final PrefixIndex playerNamesIndex;
+
     /**
      * The http profile repository.
      */
@@ -101,6 +107,7 @@ public final class PlayersCache extends SecuboidQueueThread<PlayersCache.PlayerC
         super(secuboid, "Secuboid Players cache");
         playersCacheList = new HashMap<>();
         playersRevCacheList = new HashMap<>();
+        playerNamesIndex = new PrefixIndex();
         httpProfileRepository = new HttpProfileRepository("minecraft");
     }
 
@@ -112,6 +119,7 @@ public final class PlayersCache extends SecuboidQueueThread<PlayersCache.PlayerC
     public void loadPlayerscache(final List<PlayerCacheEntry> playerCacheEntries) {
         playersCacheList.clear();
         playersRevCacheList.clear();
+        playerNamesIndex.clear();
         playerCacheEntries.forEach(this::updatePlayerInlist);
     }
 
@@ -134,6 +142,17 @@ public final class PlayersCache extends SecuboidQueueThread<PlayersCache.PlayerC
         return playersCacheList.keySet();
     }
 
+    /**
+     * Gets the first player names starting with a prefix (tab completion).
+     *
+     * @param prefix     the prefix
+     * @param maxResults the maximum number of names
+     * @return the player names
+     */
+    public List<String> getPlayerNamesStartingWith(final String prefix, final int maxResults) {
+        return playerNamesIndex.getStartingWith(prefix, maxResults);
+    }
+
     /**
      * Gets the player cache entries.
      *
@@ -239,14 +258,16 @@ public final class PlayersCache extends SecuboidQueueThread<PlayersCache.PlayerC
         if (playersCacheList.get(nameLower) == null) {
 
             // Update to do
-            if (playersRevCacheList.get(entry.getUUID()) != null) {
+            final PlayerCacheEntry oldEntry = playersRevCacheList.get(entry.getUUID());
+            if (oldEntry != null && playersCacheList.remove(oldEntry.getName().toLowerCase(), oldEntry)) {
                 // Player exist, but name changed
-                playersCacheList.remove(nameLower);
+                playerNamesIndex.remove(oldEntry.getName());
             }
 
             // update name
             playersCacheList.put(nameLower, entry);
             playersRevCacheList.put(entry.getUUID(), entry);
+            playerNamesIndex.add(entry.getName());
 
             // Request save
             secuboid.getStorageThread().addSaveAction(SaveActionEnum.PLAYERS_CACHE_SAVE, SaveOn.BOTH,
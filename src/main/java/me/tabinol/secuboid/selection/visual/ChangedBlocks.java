@@ -18,6 +18,8 @@
 package me.tabinol.secuboid.selection.visual;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.bukkit.Location;
@@ -25,8 +27,13 @@ import org.bukkit.Material;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.utilities.SecuboidRunnable;
+
 /**
- * Represents changes blocks for selection.
+ * Represents changes blocks for selection. A selection is drawn in frames: the
+ * blocks of a new frame are compared with the blocks shown, and only the
+ * differences are sent to the player. The sends are limited by tick.
  *
  * @author tabinol
  */
@@ -36,6 +43,12 @@ final class ChangedBlocks {
      * Maximum visible distance in blocks.
      */
     public static final int MAX_DISTANCE = 128;
+
+    /**
+     * Maximum block changes sent to the player in one tick.
+     */
+    static final int MAX_CHANGES_PER_TICK = 256;
+
     public static final Material SEL_ACTIVE = Material.SPONGE;
     public static final Material SEL_COLLISION = Material.REDSTONE_BLOCK;
     public static final Material SEL_PASSIVE = Material.IRON_BLOCK;
@@ -43,29 +56,110 @@ final class ChangedBlocks {
     private final Player player;
 
     /**
-     * The block list.
+     * The selection blocks shown (or waiting to be sent) to the player.
+     */
+    private final Map<Location, BlockData> locationToShownBlockData;
+
+    /**
+     * The real blocks under the selection blocks.
+     */
+    private final Map<Location, BlockData> locationToOriginalBlockData;
+
+    /**
+     * The block changes not sent yet, in order.
      */
-    private final Map<Location, BlockData> locationToBlockData;
+    private final Map<Location, BlockData> locationToPendingBlockData;
 
+    /**
+     * The blocks of the frame in progress.
+     */
+    private final Map<Location, BlockData> locationToNextBlockData;
 
-    ChangedBlocks(Player player) {
+    private final FlushTask flushTask;
+
+    ChangedBlocks(final Secuboid secuboid, final Player player) {
         this.player = player;
-        locationToBlockData = new HashMap<>();
+        locationToShownBlockData = new HashMap<>();
+        locationToOriginalBlockData = new HashMap<>();
+        locationToPendingBlockData = new LinkedHashMap<>();
+        locationToNextBlockData = new HashMap<>();
+        flushTask = new FlushTask(secuboid);
+    }
+
+    /**
+     * Starts a new frame. Every block of the frame must be given with changeBlock,
+     * then the frame is sent with endFrame.
+     */
+    void beginFrame() {
+        locationToNextBlockData.clear();
     }
 
-    void changeBlock(Location location, BlockData blockData) {
+    void changeBlock(final Location location, final BlockData blockData) {
         if (!isDistanceMoreThan(player.getLocation(), location, MAX_DISTANCE)) {
-            BlockData currentBlockData = location.getBlock().getBlockData();
-            locationToBlockData.put(location, currentBlockData);
-            player.sendBlockChange(location, blockData);
+            locationToNextBlockData.put(location, blockData);
         }
     }
 
+    /**
+     * Ends the frame: restores the blocks not in the frame anymore and sends the
+     * new or changed blocks.
+     */
+    void endFrame() {
+        final Iterator<Map.Entry<Location, BlockData>> iterator = locationToShownBlockData.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Location location = iterator.next().getKey();
+            if (!locationToNextBlockData.containsKey(location)) {
+                iterator.remove();
+                locationToPendingBlockData.put(location, locationToOriginalBlockData.remove(location));
+            }
+        }
+        for (final Map.Entry<Location, BlockData> entry : locationToNextBlockData.entrySet()) {
+            final Location location = entry.getKey();
+            final BlockData blockData = entry.getValue();
+            if (!blockData.equals(locationToShownBlockData.put(location, blockData))) {
+                locationToOriginalBlockData.computeIfAbsent(location, k -> k.getBlock().getBlockData());
+                locationToPendingBlockData.put(location, blockData);
+            }
+        }
+        locationToNextBlockData.clear();
+        flush();
+    }
+
     void resetBlocks() {
-        for (Map.Entry<Location, BlockData> entrySet : this.locationToBlockData.entrySet()) {
-            player.sendBlockChange(entrySet.getKey(), entrySet.getValue());
+        flushTask.stopNextRun();
+        // The pending restores are for the blocks not shown anymore
+        for (final Map.Entry<Location, BlockData> entry : locationToPendingBlockData.entrySet()) {
+            if (!locationToOriginalBlockData.containsKey(entry.getKey())) {
+                player.sendBlockChange(entry.getKey(), entry.getValue());
+            }
+        }
+        for (final Map.Entry<Location, BlockData> entry : locationToOriginalBlockData.entrySet()) {
+            player.sendBlockChange(entry.getKey(), entry.getValue());
+        }
+        locationToShownBlockData.clear();
+        locationToOriginalBlockData.clear();
+        locationToPendingBlockData.clear();
+        locationToNextBlockData.clear();
+    }
+
+    /**
+     * Sends the pending block changes up to the tick limit, and schedules the
+     * rest for the next ticks.
+     */
+    private void flush() {
+        final Iterator<Map.Entry<Location, BlockData>> iterator = locationToPendingBlockData.entrySet().iterator();
+        int nbChanges = 0;
+        while (iterator.hasNext() && nbChanges < MAX_CHANGES_PER_TICK) {
+            final Map.Entry<Location, BlockData> entry = iterator.next();
+            player.sendBlockChange(entry.getKey(), entry.getValue());
+            iterator.remove();
+            nbChanges++;
+        }
+        if (locationToPendingBlockData.isEmpty()) {
+            flushTask.stopNextRun();
+        } else if (!flushTask.isActive()) {
+            flushTask.runLater(1L, true);
         }
-        locationToBlockData.clear();
     }
 
     /**
@@ -80,4 +174,19 @@ final class ChangedBlocks {
     private boolean isDistanceMoreThan(Location loc1, Location loc2, int distance) {
         return Math.abs(loc1.getBlockX() - loc2.getBlockX()) > distance || Math.abs(loc1.getBlockZ() - loc2.getBlockZ()) > distance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the pending block changes at each tick until there is no more.
+     */
+    private final class FlushTask extends SecuboidRunnable {
+
+        private FlushTask(final Secuboid secuboid) {
+            super(secuboid);
+        }
+
+        @Override
+        public void run() {
+            flush();
+        }
+    }
+}
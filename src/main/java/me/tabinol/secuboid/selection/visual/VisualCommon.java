@@ -260,7 +260,6 @@ class VisualCommon {
         default:
         }
         if (isChanged) {
-            visualSelection.removeSelection();
             visualSelection.makeVisualSelection();
         }
     }
@@ -17,6 +17,9 @@
  */
 package me.tabinol.secuboid.selection.visual;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
@@ -73,7 +76,7 @@ public final class VisualSelectionCuboid implements VisualSelection {
             visualCommon = new VisualCommon(secuboid, this, player, secuboid.getPlayerConf().get(player), area.getY1(),
                     area.getY2());
         }
-        changedBlocks = new ChangedBlocks(player);
+        changedBlocks = new ChangedBlocks(secuboid, player);
         this.isActive = isActive;
         this.player = player;
         isCollision = false;
@@ -162,6 +165,7 @@ public final class VisualSelectionCuboid implements VisualSelection {
         // MakeSquare
         final int stepX = visualCommon.getStepX(area);
         final int stepZ = visualCommon.getStepZ(area);
+        final List<Location> borderLocs = new ArrayList<>();
 
         int posX = area.getX1() - stepX;
         while (posX < area.getX2()) {
@@ -178,31 +182,36 @@ public final class VisualSelectionCuboid implements VisualSelection {
                     posZ = area.getZ2();
                 }
                 if (posX == area.getX1() || posX == area.getX2() || posZ == area.getZ1() || posZ == area.getZ2()) {
-
-                    final Location newloc = new Location(area.getWorld(), posX,
-                            PlayersUtil.getYNearPlayer(player, posX, posZ) - 1d, posZ);
-
-                    if (isActive) {
-                        // Active Selection
-                        final LandPermissionsFlags testCuboidarea = secuboid.getLands().getPermissionsFlags(newloc);
-                        if (parentPermsFlagsDetected == testCuboidarea
-                                && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
-                            changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_ACTIVE.createBlockData());
-                        } else {
-                            changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_COLLISION.createBlockData());
-                            isCollision = true;
-                        }
-                    } else {
-                        // Passive Selection (created area)
-                        changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_PASSIVE.createBlockData());
-                    }
-
+                    borderLocs.add(new Location(area.getWorld(), posX,
+                            PlayersUtil.getYNearPlayer(player, posX, posZ) - 1d, posZ));
                 } else {
                     // Square center, skip!
                     posZ = area.getZ2() - 1;
                 }
             }
         }
+
+        changedBlocks.beginFrame();
+        if (isActive) {
+            // Active Selection
+            final List<LandPermissionsFlags> borderPermsFlags = secuboid.getLands()
+                    .getPermissionsFlagsFromLocations(area.getWorld(), borderLocs);
+            for (int i = 0; i < borderLocs.size(); i++) {
+                if (parentPermsFlagsDetected == borderPermsFlags.get(i)
+                        && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_ACTIVE.createBlockData());
+                } else {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_COLLISION.createBlockData());
+                    isCollision = true;
+                }
+            }
+        } else {
+            // Passive Selection (created area)
+            for (final Location borderLoc : borderLocs) {
+                changedBlocks.changeBlock(borderLoc, ChangedBlocks.SEL_PASSIVE.createBlockData());
+            }
+        }
+        changedBlocks.endFrame();
     }
 
     @Override
@@ -17,6 +17,9 @@
  */
 package me.tabinol.secuboid.selection.visual;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
@@ -68,7 +71,7 @@ public final class VisualSelectionCylinder implements VisualSelection {
             visualCommon = new VisualCommon(secuboid, this, player, secuboid.getPlayerConf().get(player), area.getY1(),
                     area.getY2());
         }
-        changedBlocks = new ChangedBlocks(player);
+        changedBlocks = new ChangedBlocks(secuboid, player);
         this.isActive = isActive;
         this.player = player;
         isCollision = false;
@@ -157,32 +160,50 @@ public final class VisualSelectionCylinder implements VisualSelection {
         // Make Cylinder
         final int stepX = visualCommon.getStepX(area);
         final int stepZ = visualCommon.getStepZ(area);
+        final List<Location> borderLocs = new ArrayList<>();
+
+        // The border x of each row, computed once
+        final int nbRows = Math.max((area.getZ2() - area.getZ1()) / stepZ + 1, 0);
+        final int[] rowXNegs = new int[nbRows];
+        final int[] rowXPoss = new int[nbRows];
+        for (int row = 0; row < nbRows; row++) {
+            final int posZ = area.getZ1() + row * stepZ;
+            rowXNegs[row] = area.getXNegFromZ(posZ);
+            rowXPoss[row] = area.getXPosFromZ(posZ);
+        }
+
         for (int posX = area.getX1(); posX <= area.getX2(); posX += stepX) {
-            for (int posZ = area.getZ1(); posZ <= area.getZ2(); posZ += stepZ) {
-                if (posZ == area.getZNegFromX(posX) || posZ == area.getZPosFromX(posX)
-                        || posX == area.getXNegFromZ(posZ) || posX == area.getXPosFromZ(posZ)) {
-
-                    final Location newloc = new Location(area.getWorld(), posX,
-                            PlayersUtil.getYNearPlayer(player, posX, posZ) - 1d, posZ);
-
-                    if (isActive) {
-
-                        // Active Selection
-                        final LandPermissionsFlags testCuboidarea = secuboid.getLands().getPermissionsFlags(newloc);
-                        if (parentPermsFlagsDetected == testCuboidarea
-                                && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
-                            changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_ACTIVE.createBlockData());
-                        } else {
-                            changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_COLLISION.createBlockData());
-                            isCollision = true;
-                        }
-                    } else {
-                        // Passive Selection (created area)
-                        changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_PASSIVE.createBlockData());
-                    }
+            final int zNeg = area.getZNegFromX(posX);
+            final int zPos = area.getZPosFromX(posX);
+            for (int row = 0, posZ = area.getZ1(); row < nbRows; row++, posZ += stepZ) {
+                if (posZ == zNeg || posZ == zPos || posX == rowXNegs[row] || posX == rowXPoss[row]) {
+                    borderLocs.add(new Location(area.getWorld(), posX,
+                            PlayersUtil.getYNearPlayer(player, posX, posZ) - 1d, posZ));
                 }
             }
         }
+
+        changedBlocks.beginFrame();
+        if (isActive) {
+            // Active Selection
+            final List<LandPermissionsFlags> borderPermsFlags = secuboid.getLands()
+                    .getPermissionsFlagsFromLocations(area.getWorld(), borderLocs);
+            for (int i = 0; i < borderLocs.size(); i++) {
+                if (parentPermsFlagsDetected == borderPermsFlags.get(i)
+                        && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_ACTIVE.createBlockData());
+                } else {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_COLLISION.createBlockData());
+                    isCollision = true;
+                }
+            }
+        } else {
+            // Passive Selection (created area)
+            for (final Location borderLoc : borderLocs) {
+                changedBlocks.changeBlock(borderLoc, ChangedBlocks.SEL_PASSIVE.createBlockData());
+            }
+        }
+        changedBlocks.endFrame();
     }
 
     @Override
@@ -17,7 +17,9 @@
  */
 package me.tabinol.secuboid.selection.visual;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -76,7 +78,7 @@ public final class VisualSelectionRoad implements VisualSelection {
             visualCommon = new VisualCommon(secuboid, this, player, secuboid.getPlayerConf().get(player), area.getY1(),
                     area.getY2());
         }
-        changedBlocks = new ChangedBlocks(player);
+        changedBlocks = new ChangedBlocks(secuboid, player);
         this.isActive = isActive;
         this.player = player;
         isCollision = false;
@@ -132,12 +134,13 @@ public final class VisualSelectionRoad implements VisualSelection {
                 PermissionList.LAND_CREATE.getPermissionType());
         final int stepX = visualCommon.getStepX(area);
         final int stepZ = visualCommon.getStepZ(area);
+        final List<Location> borderLocs = new ArrayList<>();
 
         // Makes borders X
         for (int posX = area.getX1(); posX <= area.getX2(); posX += stepX) {
             boolean isLastActive = false;
             for (int posZ = area.getZ1(); posZ <= area.getZ2(); posZ += stepZ) {
-                isLastActive = makeBorders(false, posX, posZ, isLastActive, outsidePermsFlags, canCreate);
+                isLastActive = makeBorders(false, posX, posZ, isLastActive, borderLocs);
             }
         }
 
@@ -145,13 +148,35 @@ public final class VisualSelectionRoad implements VisualSelection {
         for (int posZ = area.getZ1(); posZ <= area.getZ2(); posZ += stepZ) {
             boolean isLastActive = false;
             for (int posX = area.getX1(); posX <= area.getX2(); posX += stepX) {
-                isLastActive = makeBorders(true, posX, posZ, isLastActive, outsidePermsFlags, canCreate);
+                isLastActive = makeBorders(true, posX, posZ, isLastActive, borderLocs);
             }
         }
+
+        changedBlocks.beginFrame();
+        if (isActive) {
+            // Active Selection
+            final List<LandPermissionsFlags> borderPermsFlags = secuboid.getLands()
+                    .getPermissionsFlagsFromLocations(area.getWorld(), borderLocs);
+            for (int i = 0; i < borderLocs.size(); i++) {
+                if (outsidePermsFlags == borderPermsFlags.get(i)
+                        && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_ACTIVE.createBlockData());
+                } else {
+                    changedBlocks.changeBlock(borderLocs.get(i), ChangedBlocks.SEL_COLLISION.createBlockData());
+                    isCollision = true;
+                }
+            }
+        } else {
+            // Passive Selection (created area)
+            for (final Location borderLoc : borderLocs) {
+                changedBlocks.changeBlock(borderLoc, ChangedBlocks.SEL_PASSIVE.createBlockData());
+            }
+        }
+        changedBlocks.endFrame();
     }
 
     private boolean makeBorders(final boolean isZ, final int posX, final int posZ, final boolean isLastActive,
-            final LandPermissionsFlags outsidePermsFlags, final boolean canCreate) {
+            final List<Location> borderLocs) {
 
         final Location newloc = new Location(area.getWorld(), posX, PlayersUtil.getYNearPlayer(player, posX, posZ) - 1d,
                 posZ);
@@ -167,37 +192,20 @@ public final class VisualSelectionRoad implements VisualSelection {
 
                 // Not active selection
                 lastLoc.setY(PlayersUtil.getYNearPlayer(player, lastLoc.getBlockX(), lastLoc.getBlockZ()) - 1);
-                setChangedBlocks(outsidePermsFlags, canCreate, lastLoc);
+                borderLocs.add(lastLoc);
                 return false;
             }
         } else {
             if (isLocationInside) {
 
                 // Active Selection
-                setChangedBlocks(outsidePermsFlags, canCreate, newloc);
+                borderLocs.add(newloc);
                 return true;
             }
         }
         return isLastActive;
     }
 
-    private void setChangedBlocks(final LandPermissionsFlags outsidePermsFlags, final boolean canCreate,
-            final Location newloc) {
-
-        final LandPermissionsFlags testPermissionsFlags = secuboid.getLands().getPermissionsFlags(newloc);
-        if (!isActive) {
-            changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_PASSIVE.createBlockData());
-        } else {
-            if (outsidePermsFlags == testPermissionsFlags
-                    && (canCreate || secuboid.getPlayerConf().get(player).isAdminMode())) {
-                changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_ACTIVE.createBlockData());
-            } else {
-                changedBlocks.changeBlock(newloc, ChangedBlocks.SEL_COLLISION.createBlockData());
-                isCollision = true;
-            }
-        }
-    }
-
     @Override
     public void playerMove(final AreaSelection.MoveType moveType) {
         switch (moveType) {
@@ -242,7 +250,6 @@ public final class VisualSelectionRoad implements VisualSelection {
             checkXPoints(z, posX, radius, isAdd);
         }
         if (isAreaChange) {
-            removeSelection();
             makeVisualSelection();
         }
     }
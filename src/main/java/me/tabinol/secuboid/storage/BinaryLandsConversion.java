@@ -0,0 +1,152 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage;
+
+import java.io.File;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.exceptions.SecuboidRuntimeException;
+import me.tabinol.secuboid.inventories.PlayerInventoryCache;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.playerscache.PlayerCacheEntry;
+import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
+import me.tabinol.secuboid.storage.StorageThread.SaveOn;
+import me.tabinol.secuboid.storage.binary.InventoriesBinary;
+import me.tabinol.secuboid.storage.binary.LandsBinary;
+import me.tabinol.secuboid.storage.flat.LandsFlat;
+
+/**
+ * Lands conversion from flat files to the binary storage, or from the binary
+ * files to the flat or MySQL storage. The binary inventories are converted to
+ * the flat or MySQL storage too. Like the flat to MySQL conversion, the lands
+ * and the inventories are loaded and saved again by the storage thread.
+ */
+public final class BinaryLandsConversion {
+
+    private static final String NAME_BACKUP_FLAT = "backupflat";
+    private static final String NAME_BACKUP_BINARY = "backupbinary";
+    private static final String NAME_LANDS = "lands";
+    private static final String NAME_INVENTORIES = "inventories";
+
+    private final Secuboid secuboid;
+
+    private final Logger log;
+
+    public BinaryLandsConversion(final Secuboid secuboid) {
+        this.secuboid = secuboid;
+
+        log = secuboid.getLogger();
+    }
+
+    public boolean isFromFlatNeeded() {
+        return new File(secuboid.getDataFolder(), NAME_LANDS).isDirectory();
+    }
+
+    public boolean isToStorageNeeded() {
+        return new File(secuboid.getDataFolder(), LandsBinary.DIR_NAME).isDirectory();
+    }
+
+    public boolean isInventoriesToStorageNeeded() {
+        return secuboid.getInventoriesOpt().isPresent()
+                && InventoriesBinary.isBinaryFileExists(new File(secuboid.getDataFolder(), NAME_INVENTORIES));
+    }
+
+    public void landFromFlatConversion() {
+        final File landsFile = new File(secuboid.getDataFolder(), NAME_LANDS);
+        log.info("Starting flat to binary lands conversion...");
+
+        // Load the lands without parent first, like the conversion to MySQL
+        final LandsFlat landsFlat = new LandsFlat(secuboid);
+        final Map<Land, UUID> orphanToParentUUID = landsFlat.loadLandsOrphanToParentUUID();
+        waitForSave();
+
+        landsFlat.findLandParents(orphanToParentUUID);
+        waitForSave();
+
+        moveToBackup(landsFile, NAME_BACKUP_FLAT, NAME_LANDS);
+        log.info("Lands conversion done.");
+    }
+
+    public void landToStorageConversion() {
+        final File binaryFile = new File(secuboid.getDataFolder(), LandsBinary.DIR_NAME);
+        log.info("Starting binary lands conversion...");
+
+        final LandsBinary landsBinary = new LandsBinary(secuboid);
+        final Map<Land, UUID> orphanToParentUUID = landsBinary.loadLandsOrphanToParentUUID();
+        waitForSave();
+
+        secuboid.getLands().setParents(orphanToParentUUID);
+        waitForSave();
+
+        moveToBackup(binaryFile, NAME_BACKUP_BINARY, LandsBinary.DIR_NAME);
+        log.info("Lands conversion done.");
+    }
+
+    public void inventoriesToStorageConversion() {
+        final File inventoriesFile = new File(secuboid.getDataFolder(), NAME_INVENTORIES);
+        log.info("Starting binary inventories conversion...");
+
+        // The binary and YAML files are read from the backup, the storage writes the
+        // new ones
+        if (!moveToBackup(inventoriesFile, NAME_BACKUP_BINARY, NAME_INVENTORIES)) {
+            log.severe(String.format("Unable to move the inventories to \"%s\", conversion aborted.",
+                    NAME_BACKUP_BINARY));
+            return;
+        }
+        final InventoriesBinary inventoriesBinary = new InventoriesBinary(secuboid,
+                new File(new File(secuboid.getDataFolder(), NAME_BACKUP_BINARY), NAME_INVENTORIES));
+        inventoriesBinary.loadInventories();
+
+        // convert all players
+        for (final PlayerCacheEntry playerCacheEntry : secuboid.getPlayersCache().getPlayerCacheEntries()) {
+            final PlayerInventoryCache playerInventoryCache = new PlayerInventoryCache(playerCacheEntry.getUUID(),
+                    playerCacheEntry.getName());
+            inventoriesBinary.loadInventoriesPlayer(playerInventoryCache);
+        }
+        waitForSave();
+
+        log.info("Inventories conversion done.");
+    }
+
+    private boolean moveToBackup(final File fileToMove, final String backupName, final String fileName) {
+        final File backupFile = new File(secuboid.getDataFolder(), backupName);
+        if (!backupFile.isDirectory()) {
+            backupFile.mkdir();
+        }
+        return fileToMove.renameTo(new File(backupFile, fileName));
+    }
+
+    private void waitForSave() {
+        final StorageThread storageThread = secuboid.getStorageThread();
+        final Object lock = storageThread.getLock();
+        synchronized (lock) {
+            // Send the wake up signal at the end of the queue, saved on flat and database
+            storageThread.addSaveAction(SaveActionEnum.THREAD_NOTIFY, SaveOn.BOTH, null);
+
+            // Wait!
+            try {
+                lock.wait();
+            } catch (final InterruptedException e) {
+                throw new SecuboidRuntimeException("Interruption on Secuboid conversion");
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import me.tabinol.secuboid.lands.Land;
 import me.tabinol.secuboid.playerscache.PlayerCacheEntry;
 import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
 import me.tabinol.secuboid.storage.StorageThread.SaveOn;
+import me.tabinol.secuboid.storage.binary.InventoriesBinary;
 import me.tabinol.secuboid.storage.flat.ApprovesFlat;
 import me.tabinol.secuboid.storage.flat.InventoriesFlat;
 import me.tabinol.secuboid.storage.flat.LandsFlat;
@@ -107,7 +108,9 @@ public final class FlatToMySql {
         // load approves
         log.info("Starting flat to MySQL inventories conversion...");
 
-        final InventoriesFlat inventoriesFlat = new InventoriesFlat(secuboid);
+        // The binary files are read first, if the inventories come from the binary
+        // storage
+        final InventoriesFlat inventoriesFlat = new InventoriesBinary(secuboid);
         inventoriesFlat.loadInventories();
 
         // convert all players
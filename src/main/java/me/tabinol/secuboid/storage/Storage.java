@@ -17,10 +17,12 @@
  */
 package me.tabinol.secuboid.storage;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import me.tabinol.secuboid.Secuboid;
 import me.tabinol.secuboid.config.Config;
+import me.tabinol.secuboid.inventories.InventorySpec;
 import me.tabinol.secuboid.inventories.PlayerInvEntry;
 import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.lands.Land;
@@ -31,6 +33,9 @@ import me.tabinol.secuboid.permissionsflags.Permission;
 import me.tabinol.secuboid.playercontainer.PlayerContainer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.playerscache.PlayerCacheEntry;
+import me.tabinol.secuboid.storage.binary.InventoriesBinary;
+import me.tabinol.secuboid.storage.binary.LandsBinary;
+import me.tabinol.secuboid.storage.binary.StorageBinary;
 import me.tabinol.secuboid.storage.flat.ApprovesFlat;
 import me.tabinol.secuboid.storage.flat.InventoriesFlat;
 import me.tabinol.secuboid.storage.flat.LandsFlat;
@@ -58,6 +63,10 @@ public interface Storage {
                 final InventoriesFlat inventoriesFlat = new InventoriesFlat(secuboid);
                 storage = new StorageFlat(landsFlat, approvesFlat, playersCacheFlat, inventoriesFlat);
                 break;
+            case "binary":
+                storage = new StorageBinary(new LandsBinary(secuboid), new ApprovesFlat(secuboid),
+                        new PlayersCacheFlat(secuboid), new InventoriesBinary(secuboid));
+                break;
             case "mysql":
                 final Config config = secuboid.getConf();
                 final String hostName = config.mySqlHostName();
@@ -67,7 +76,8 @@ public interface Storage {
                 final String password = config.mySqlPassword();
                 final String prefix = config.mySqlPrefix();
                 final DatabaseConnection dbConn = new DatabaseConnection(hostName, port, database, user, password,
-                        prefix);
+                        prefix, config.mySqlPoolSize(), TimeUnit.SECONDS.toMillis(config.mySqlPoolIdleTimeout()),
+                        config.mySqlStatementCacheSize());
                 storage = new StorageMySql(secuboid, dbConn);
         }
         return storage;
@@ -269,11 +279,12 @@ public interface Storage {
     void removeInventoryDefault(PlayerInvEntry playerInvEntry);
 
     /**
-     * Load all inventories for a specific player.
+     * Load the inventories of an inventory spec for a specific player.
      * 
      * @param playerInventoryCache the player inventory chache
+     * @param inventorySpec        the inventory spec
      */
-    void loadInventoriesPlayer(PlayerInventoryCache playerInventoryCache);
+    void loadInventoriesPlayer(PlayerInventoryCache playerInventoryCache, InventorySpec inventorySpec);
 
     /**
      * Save a specific inventory for a player.
@@ -307,4 +318,10 @@ public interface Storage {
      * @param playerCacheEntry the player cache entry
      */
     void savePlayerCacheEntry(PlayerCacheEntry playerCacheEntry);
+
+    /**
+     * Closes the unused resources like the idle database connections. The
+     * storage stays usable.
+     */
+    void close();
 }
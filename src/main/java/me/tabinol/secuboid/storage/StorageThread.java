@@ -17,14 +17,22 @@
  */
 package me.tabinol.secuboid.storage;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 import me.tabinol.secuboid.Secuboid;
 import me.tabinol.secuboid.exceptions.SecuboidRuntimeException;
+import me.tabinol.secuboid.inventories.InventorySpec;
 import me.tabinol.secuboid.inventories.PlayerInvEntry;
 import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.lands.Land;
@@ -35,6 +43,7 @@ import me.tabinol.secuboid.permissionsflags.Permission;
 import me.tabinol.secuboid.playercontainer.PlayerContainer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.playerscache.PlayerCacheEntry;
+import me.tabinol.secuboid.storage.binary.StorageBinary;
 import me.tabinol.secuboid.storage.flat.StorageFlat;
 import me.tabinol.secuboid.storage.mysql.StorageMySql;
 import me.tabinol.secuboid.utilities.SecuboidQueueThread;
@@ -51,11 +60,26 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
 
     private final Map<UUID, Object> playerUUIDToLock;
 
+    /**
+     * Lands with modifications waiting for a save. Guarded by itself.
+     */
+    private final Map<Land, DirtyLand> landToDirty;
+
+    /**
+     * Wake up entries in queue, not counted in the queue depth.
+     */
+    private final AtomicInteger wakeUpsInQueue;
+
+    private final LongAdder saveRequests;
+    private final LongAdder mergedSaveRequests;
+    private final LongAdder landTransactions;
+    private final LongAdder landTransactionSaveEntries;
+
     public enum SaveActionEnum {
         APPROVE_REMOVE, APPROVE_REMOVE_ALL, APPROVE_SAVE, INVENTORY_DEFAULT_REMOVE, INVENTORY_DEFAULT_SAVE,
         INVENTORY_PLAYER_LOAD, INVENTORY_PLAYER_SAVE, INVENTORY_PLAYER_DEATH_HISTORY_SAVE, INVENTORY_PLAYER_DEATH_SAVE,
-        LAND_AREA_REMOVE, LAND_AREA_SAVE, LAND_BANNED_REMOVE, LAND_BANNED_SAVE, LAND_FLAG_REMOVE, LAND_FLAG_REMOVE_ALL,
-        LAND_FLAG_SAVE, LAND_PERMISSION_REMOVE, LAND_PERMISSION_REMOVE_ALL, LAND_PERMISSION_SAVE,
+        LANDS_FLUSH, LAND_AREA_REMOVE, LAND_AREA_SAVE, LAND_BANNED_REMOVE, LAND_BANNED_SAVE, LAND_FLAG_REMOVE,
+        LAND_FLAG_REMOVE_ALL, LAND_FLAG_SAVE, LAND_PERMISSION_REMOVE, LAND_PERMISSION_REMOVE_ALL, LAND_PERMISSION_SAVE,
         LAND_PLAYER_NOTIFY_REMOVE, LAND_PLAYER_NOTIFY_REMOVE_ALL, LAND_PLAYER_NOTIFY_SAVE, LAND_REMOVE,
         LAND_RESIDENT_REMOVE, LAND_RESIDENT_REMOVE_ALL, LAND_RESIDENT_SAVE, LAND_SAVE, PLAYERS_CACHE_SAVE, THREAD_NOTIFY
     }
@@ -64,6 +88,37 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
         BOTH, DATABASE, FLAT
     }
 
+    /**
+     * Land actions merged in one land save. With flat files, all of them rewrite
+     * the whole land file.
+     */
+    private static final EnumSet<SaveActionEnum> MERGEABLE_LAND_ACTIONS = EnumSet.of(SaveActionEnum.LAND_AREA_REMOVE,
+            SaveActionEnum.LAND_AREA_SAVE, SaveActionEnum.LAND_BANNED_REMOVE, SaveActionEnum.LAND_BANNED_SAVE,
+            SaveActionEnum.LAND_FLAG_REMOVE, SaveActionEnum.LAND_FLAG_REMOVE_ALL, SaveActionEnum.LAND_FLAG_SAVE,
+            SaveActionEnum.LAND_PERMISSION_REMOVE, SaveActionEnum.LAND_PERMISSION_REMOVE_ALL,
+            SaveActionEnum.LAND_PERMISSION_SAVE, SaveActionEnum.LAND_PLAYER_NOTIFY_REMOVE,
+            SaveActionEnum.LAND_PLAYER_NOTIFY_REMOVE_ALL, SaveActionEnum.LAND_PLAYER_NOTIFY_SAVE,
+            SaveActionEnum.LAND_RESIDENT_REMOVE, SaveActionEnum.LAND_RESIDENT_REMOVE_ALL,
+            SaveActionEnum.LAND_RESIDENT_SAVE, SaveActionEnum.LAND_SAVE);
+
+    /**
+     * Land actions saved in one database transaction when they follow each other
+     * for the same land.
+     */
+    private static final EnumSet<SaveActionEnum> LAND_TRANSACTION_ACTIONS = EnumSet.copyOf(MERGEABLE_LAND_ACTIONS);
+
+    static {
+        LAND_TRANSACTION_ACTIONS.add(SaveActionEnum.LAND_REMOVE);
+    }
+
+    /**
+     * Pending save of a land.
+     */
+    private static final class DirtyLand {
+        long lastRequestMillis;
+        int nbRequests;
+    }
+
     protected static final class SaveEntry {
         final SaveActionEnum saveActionEnum;
         final SaveOn saveOn;
@@ -89,6 +144,12 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
         super(secuboid, "Secuboid Storage");
         this.storage = storage;
         playerUUIDToLock = new ConcurrentHashMap<>();
+        landToDirty = new LinkedHashMap<>();
+        wakeUpsInQueue = new AtomicInteger();
+        saveRequests = new LongAdder();
+        mergedSaveRequests = new LongAdder();
+        landTransactions = new LongAdder();
+        landTransactionSaveEntries = new LongAdder();
     }
 
     /**
@@ -100,6 +161,16 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
         isQueueActive = true;
         this.start();
 
+        final BinaryLandsConversion binaryLandsConversion = new BinaryLandsConversion(secuboid);
+        if (storage instanceof StorageBinary) {
+            // Conversion Flat lands to binary
+            if (conversionNeeded && binaryLandsConversion.isFromFlatNeeded()) {
+                secuboid.getLogger().info("Converting flat lands to binary. This may take several minutes!");
+                binaryLandsConversion.landFromFlatConversion();
+            }
+            return;
+        }
+
         // Conversion Flat to MySQL
         if (conversionNeeded) {
             final FlatToMySql flatToMySql = new FlatToMySql(secuboid);
@@ -111,6 +182,18 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
                 flatToMySql.inventoriesConversion();
             }
         }
+
+        // Conversion binary lands to flat or MySQL
+        if (binaryLandsConversion.isToStorageNeeded()) {
+            secuboid.getLogger().info("Converting binary lands. This may take several minutes!");
+            binaryLandsConversion.landToStorageConversion();
+        }
+
+        // Conversion binary inventories to flat or MySQL
+        if (binaryLandsConversion.isInventoriesToStorageNeeded()) {
+            secuboid.getLogger().info("Converting binary inventories. This may take several minutes!");
+            binaryLandsConversion.inventoriesToStorageConversion();
+        }
     }
 
     /**
@@ -124,22 +207,98 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
 
     @Override
     protected boolean doElement(final SaveEntry saveEntry) {
-        if ((saveEntry.saveOn == SaveOn.DATABASE && storage instanceof StorageFlat)
-                || (saveEntry.saveOn == SaveOn.FLAT && storage instanceof StorageMySql)) {
-            // Skip save for flat file or database
-            return true;
+        if (saveEntry.saveActionEnum == SaveActionEnum.THREAD_NOTIFY) {
+            // Everything requested before the notify must be saved
+            saveDirtyLands(true);
         }
+        if (!isSkipped(saveEntry)) {
+            if (storage instanceof StorageMySql && isLandTransactionEntry(saveEntry)) {
+                doLandTransaction((StorageMySql) storage, saveEntry);
+            } else {
+                doSaveAndLog(saveEntry);
+            }
+        }
+        saveDirtyLands(false);
+        return true;
+    }
+
+    private boolean isSkipped(final SaveEntry saveEntry) {
+        // Skip save for flat file or database
+        return (saveEntry.saveOn == SaveOn.DATABASE && storage instanceof StorageFlat)
+                || (saveEntry.saveOn == SaveOn.FLAT && storage instanceof StorageMySql);
+    }
+
+    private boolean isLandTransactionEntry(final SaveEntry saveEntry) {
+        return saveEntry.savableNullable != null && LAND_TRANSACTION_ACTIONS.contains(saveEntry.saveActionEnum);
+    }
+
+    /**
+     * Takes the next entries in queue for the same land and saves them in one
+     * database transaction.
+     *
+     * @param storageMySql the MySQL storage
+     * @param saveEntry    the first entry
+     */
+    private void doLandTransaction(final StorageMySql storageMySql, final SaveEntry saveEntry) {
+        final Savable land = saveEntry.savableNullable;
+        final List<SaveEntry> saveEntries = new ArrayList<>();
+        saveEntries.add(saveEntry);
+        SaveEntry nextSaveEntryNullable;
+        while ((nextSaveEntryNullable = pollElementIfNullable(e -> e.savableNullable == land
+                && isLandTransactionEntry(e) && !isSkipped(e))) != null) {
+            saveEntries.add(nextSaveEntryNullable);
+        }
+
+        if (saveEntries.size() == 1) {
+            doSaveAndLog(saveEntry);
+            return;
+        }
+        landTransactions.increment();
+        landTransactionSaveEntries.add(saveEntries.size());
+        storageMySql.doLandTransaction((Land) land, () -> saveEntries.forEach(this::doSaveAndLog));
+    }
+
+    private void doSaveAndLog(final SaveEntry saveEntry) {
         try {
             doSave(saveEntry);
         } catch (final RuntimeException e) {
-            final String savableNameNullable = Optional.ofNullable(saveEntry.savableNullable).map(o -> o.getName()).orElse(null);
-            final String savableUUIDNullable = Optional.ofNullable(saveEntry.savableNullable).map(o -> o.getUUID().toString()).orElse(null);
-            secuboid.getLogger().log(Level.SEVERE,
-                    String.format("Unable to save or load \"%s\" for \"%s\", UUID \"%s\". Possible data loss!",
-                            saveEntry.saveActionEnum, savableNameNullable, savableUUIDNullable),
-                    e);
+            logSaveError(saveEntry.saveActionEnum, saveEntry.savableNullable, e);
         }
-        return true;
+    }
+
+    private void logSaveError(final SaveActionEnum saveActionEnum, final Savable savableNullable,
+                              final RuntimeException e) {
+        final String savableNameNullable = Optional.ofNullable(savableNullable).map(o -> o.getName()).orElse(null);
+        final String savableUUIDNullable = Optional.ofNullable(savableNullable).map(o -> o.getUUID().toString()).orElse(null);
+        secuboid.getLogger().log(Level.SEVERE,
+                String.format("Unable to save or load \"%s\" for \"%s\", UUID \"%s\". Possible data loss!",
+                        saveActionEnum, savableNameNullable, savableUUIDNullable),
+                e);
+    }
+
+    @Override
+    protected long getWaitMillis() {
+        synchronized (landToDirty) {
+            if (landToDirty.isEmpty()) {
+                return -1;
+            }
+            long oldestMillis = Long.MAX_VALUE;
+            for (final DirtyLand dirtyLand : landToDirty.values()) {
+                oldestMillis = Math.min(oldestMillis, dirtyLand.lastRequestMillis);
+            }
+            return Math.max(oldestMillis + secuboid.getConf().getWriteBehindDelay() - System.currentTimeMillis(), 0);
+        }
+    }
+
+    @Override
+    protected void waitTimeout() {
+        saveDirtyLands(false);
+    }
+
+    @Override
+    protected void threadEnd() {
+        saveDirtyLands(true);
+        storage.close();
     }
 
     private void doSave(final SaveEntry saveEntry) {
@@ -163,18 +322,40 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
                 break;
             case INVENTORY_PLAYER_LOAD: {
                 final PlayerInventoryCache playerInventoryCache = (PlayerInventoryCache) savableNullable;
-                storage.loadInventoriesPlayer(playerInventoryCache);
-                preLoginThreadNotify(playerInventoryCache.getUUID());
+                final InventorySpec inventorySpec = (InventorySpec) savableParameters[0];
+                try {
+                    storage.loadInventoriesPlayer(playerInventoryCache, inventorySpec);
+                } finally {
+                    // Even on error, the spec can be requested again
+                    playerInventoryCache.endLoad(secuboid, inventorySpec);
+                    preLoginThreadNotify(playerInventoryCache.getUUID());
+                }
             }
             break;
             case INVENTORY_PLAYER_SAVE:
-                storage.saveInventoryPlayer((PlayerInvEntry) savableNullable);
+                try {
+                    storage.saveInventoryPlayer((PlayerInvEntry) savableNullable);
+                } finally {
+                    ((PlayerInvEntry) savableNullable).endSave();
+                }
                 break;
             case INVENTORY_PLAYER_DEATH_HISTORY_SAVE:
-                storage.saveInventoryPlayerDeathHistory((PlayerInvEntry) savableNullable);
+                try {
+                    storage.saveInventoryPlayerDeathHistory((PlayerInvEntry) savableNullable);
+                } finally {
+                    ((PlayerInvEntry) savableNullable).endSave();
+                }
                 break;
             case INVENTORY_PLAYER_DEATH_SAVE:
-                storage.saveInventoryPlayerDeath((PlayerInvEntry) savableNullable);
+                try {
+                    storage.saveInventoryPlayerDeath((PlayerInvEntry) savableNullable);
+                } finally {
+                    ((PlayerInvEntry) savableNullable).endSave();
+                }
+                break;
+            case LANDS_FLUSH:
+                // Wake up only, the lands are saved after each entry
+                wakeUpsInQueue.decrementAndGet();
                 break;
             case LAND_AREA_REMOVE:
                 storage.removeLandArea((Land) savableNullable, (Area) savableParameters[0]);
@@ -254,9 +435,132 @@ public class StorageThread extends SecuboidQueueThread<StorageThread.SaveEntry>
      */
     public void addSaveAction(final SaveActionEnum saveActionEnum, final SaveOn saveOn,
                               final Savable savableNullable, final SavableParameter... savableParameters) {
+        saveRequests.increment();
+        if (savableNullable != null && isMergeable(saveActionEnum, saveOn)) {
+            markDirty((Land) savableNullable);
+            return;
+        }
+        if (saveActionEnum == SaveActionEnum.LAND_REMOVE && savableNullable != null) {
+            // The land file is removed, no need to save it before
+            synchronized (landToDirty) {
+                if (landToDirty.remove(savableNullable) != null) {
+                    mergedSaveRequests.increment();
+                }
+            }
+        }
         addElement(new SaveEntry(saveActionEnum, saveOn, savableNullable, savableParameters));
     }
 
+    /**
+     * Gets the number of saves waiting: the entries in queue and the modified
+     * lands.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        synchronized (landToDirty) {
+            return getQueueSize() - wakeUpsInQueue.get() + landToDirty.size();
+        }
+    }
+
+    /**
+     * Gets the number of save requests since the start.
+     *
+     * @return the save requests
+     */
+    public long getSaveRequests() {
+        return saveRequests.sum();
+    }
+
+    /**
+     * Gets the number of save requests merged in an other save.
+     *
+     * @return the merged save requests
+     */
+    public long getMergedSaveRequests() {
+        return mergedSaveRequests.sum();
+    }
+
+    /**
+     * Gets the number of database transactions with several changes of a land.
+     *
+     * @return the land transactions
+     */
+    public long getLandTransactions() {
+        return landTransactions.sum();
+    }
+
+    /**
+     * Gets the number of save requests done in the land transactions.
+     *
+     * @return the save requests in land transactions
+     */
+    public long getLandTransactionSaveRequests() {
+        return landTransactionSaveEntries.sum();
+    }
+
+    private boolean isMergeable(final SaveActionEnum saveActionEnum, final SaveOn saveOn) {
+        return isQueueActive && storage instanceof StorageFlat && saveOn != SaveOn.DATABASE
+                && MERGEABLE_LAND_ACTIONS.contains(saveActionEnum);
+    }
+
+    private void markDirty(final Land land) {
+        final boolean isWakeUp;
+        synchronized (landToDirty) {
+            // If there is no modified land, the thread waits without time limit
+            final boolean isFirst = landToDirty.isEmpty();
+            DirtyLand dirtyLand = landToDirty.get(land);
+            if (dirtyLand == null) {
+                dirtyLand = new DirtyLand();
+                landToDirty.put(land, dirtyLand);
+            } else {
+                mergedSaveRequests.increment();
+            }
+            dirtyLand.lastRequestMillis = System.currentTimeMillis();
+            dirtyLand.nbRequests++;
+            isWakeUp = isFirst || dirtyLand.nbRequests == secuboid.getConf().getWriteBehindMaxMerged();
+        }
+        if (isWakeUp && isQueueActive) {
+            wakeUpsInQueue.incrementAndGet();
+            addElement(new SaveEntry(SaveActionEnum.LANDS_FLUSH, SaveOn.BOTH, null, new SavableParameter[0]));
+        }
+    }
+
+    /**
+     * Saves the modified lands. Called inside the thread.
+     *
+     * @param isAll true to save all lands, false for the lands without
+     *              modification since the delay or with too many merged
+     *              modifications
+     */
+    private void saveDirtyLands(final boolean isAll) {
+        final List<Land> lands = new ArrayList<>();
+        synchronized (landToDirty) {
+            if (landToDirty.isEmpty()) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            final long delay = secuboid.getConf().getWriteBehindDelay();
+            final int maxMerged = secuboid.getConf().getWriteBehindMaxMerged();
+            final Iterator<Map.Entry<Land, DirtyLand>> iterator = landToDirty.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Land, DirtyLand> entry = iterator.next();
+                final DirtyLand dirtyLand = entry.getValue();
+                if (isAll || now - dirtyLand.lastRequestMillis >= delay || dirtyLand.nbRequests >= maxMerged) {
+                    lands.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        for (final Land land : lands) {
+            try {
+                storage.saveLand(land);
+            } catch (final RuntimeException e) {
+                logSaveError(SaveActionEnum.LAND_SAVE, land, e);
+            }
+        }
+    }
+
     public void addPlayerUUIDPreLogin(final UUID uuid, final Object lock) {
         playerUUIDToLock.put(uuid, lock);
     }
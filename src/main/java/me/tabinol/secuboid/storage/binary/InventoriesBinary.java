@@ -0,0 +1,154 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.inventories.InventorySpec;
+import me.tabinol.secuboid.inventories.PlayerInvEntry;
+import me.tabinol.secuboid.inventories.PlayerInventoryCache;
+import me.tabinol.secuboid.storage.flat.InventoriesFlat;
+
+/**
+ * The inventories in binary files, same names as the flat files. An inventory
+ * without binary file is read from the old YAML file, then the YAML file is
+ * removed on the next save. The flat and MySQL storages do not read the binary
+ * files: they are converted on the start with an other storage.
+ */
+public class InventoriesBinary extends InventoriesFlat {
+
+    static final String BIN_EXT = ".sbi";
+    private static final String TMP_EXT = ".tmp";
+
+    public InventoriesBinary(final Secuboid secuboid) {
+        super(secuboid);
+    }
+
+    /**
+     * Inventories in an other directory, for a conversion from a backup.
+     *
+     * @param secuboid       the secuboid instance
+     * @param inventoriesDir the inventories directory
+     */
+    public InventoriesBinary(final Secuboid secuboid, final File inventoriesDir) {
+        super(secuboid, inventoriesDir);
+    }
+
+    /**
+     * Checks if there is at least one binary file in the inventory spec
+     * directories.
+     *
+     * @param inventoriesDir the inventories directory
+     * @return true if a binary file exists
+     */
+    public static boolean isBinaryFileExists(final File inventoriesDir) {
+        final File[] invDirs = inventoriesDir.listFiles(File::isDirectory);
+        if (invDirs == null) {
+            return false;
+        }
+        for (final File invDir : invDirs) {
+            final String[] binaryFileNames = invDir.list((dir, name) -> name.endsWith(BIN_EXT));
+            if (binaryFileNames != null && binaryFileNames.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean isInventoryExists(final File invDir, final String fileName) {
+        return getBinaryFile(invDir, fileName).exists() || super.isInventoryExists(invDir, fileName);
+    }
+
+    @Override
+    protected PlayerInvEntry loadInventory(final File invDir, final String fileName,
+            final PlayerInventoryCache playerInventoryCacheNullable, final InventorySpec inventorySpec,
+            final boolean isCreative) {
+        final File binaryFile = getBinaryFile(invDir, fileName);
+        if (binaryFile.exists()) {
+            try {
+                return PlayerInvEntryCodec.decode(Files.readAllBytes(binaryFile.toPath()),
+                        playerInventoryCacheNullable, inventorySpec, isCreative);
+            } catch (final IOException e) {
+                secuboid.getLogger().log(Level.SEVERE,
+                        String.format("Error in inventory load, filename: %s", binaryFile.getPath()), e);
+                if (!super.isInventoryExists(invDir, fileName)) {
+                    return new PlayerInvEntry(playerInventoryCacheNullable, inventorySpec, isCreative)
+                            .setDefault();
+                }
+            }
+        }
+
+        // Old YAML file
+        return super.loadInventory(invDir, fileName, playerInventoryCacheNullable, inventorySpec, isCreative);
+    }
+
+    @Override
+    protected void writeInventory(final File invDir, final String fileName, final PlayerInvEntry playerInvEntry,
+            final boolean enderChestOnly) throws IOException {
+        final byte[] bytes = PlayerInvEntryCodec.encode(playerInvEntry, enderChestOnly);
+        final File tmpFile = new File(invDir, fileName + BIN_EXT + TMP_EXT);
+        try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+            fos.write(bytes);
+            fos.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), getBinaryFile(invDir, fileName).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        // The old YAML file is replaced
+        if (super.isInventoryExists(invDir, fileName)) {
+            super.deleteInventory(invDir, fileName);
+        }
+    }
+
+    @Override
+    protected boolean deleteInventory(final File invDir, final String fileName) {
+        boolean isDeleted = true;
+        if (super.isInventoryExists(invDir, fileName)) {
+            isDeleted = super.deleteInventory(invDir, fileName);
+        }
+        final File binaryFile = getBinaryFile(invDir, fileName);
+        if (binaryFile.exists()) {
+            isDeleted &= binaryFile.delete();
+        }
+        return isDeleted;
+    }
+
+    @Override
+    protected boolean renameInventory(final File invDir, final String fileName, final String newFileName) {
+        boolean isRenamed = true;
+        if (super.isInventoryExists(invDir, fileName)) {
+            isRenamed = super.renameInventory(invDir, fileName, newFileName);
+        }
+        final File binaryFile = getBinaryFile(invDir, fileName);
+        if (binaryFile.exists()) {
+            isRenamed &= binaryFile.renameTo(getBinaryFile(invDir, newFileName));
+        }
+        return isRenamed;
+    }
+
+    private static File getBinaryFile(final File invDir, final String fileName) {
+        return new File(invDir, fileName + BIN_EXT);
+    }
+}
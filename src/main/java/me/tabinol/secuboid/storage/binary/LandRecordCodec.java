@@ -0,0 +1,418 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.lands.LandLocation;
+import me.tabinol.secuboid.lands.LandPermissionsFlags;
+import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.AreaType;
+import me.tabinol.secuboid.lands.areas.ChunkMatrix;
+import me.tabinol.secuboid.lands.areas.ChunkMatrixMap;
+import me.tabinol.secuboid.lands.areas.CuboidArea;
+import me.tabinol.secuboid.lands.areas.CylinderArea;
+import me.tabinol.secuboid.lands.areas.RegionMatrix;
+import me.tabinol.secuboid.lands.areas.RoadArea;
+import me.tabinol.secuboid.permissionsflags.Flag;
+import me.tabinol.secuboid.permissionsflags.FlagType;
+import me.tabinol.secuboid.permissionsflags.FlagValue;
+import me.tabinol.secuboid.permissionsflags.Permission;
+import me.tabinol.secuboid.permissionsflags.PermissionType;
+import me.tabinol.secuboid.permissionsflags.PermissionsFlags;
+import me.tabinol.secuboid.playercontainer.PlayerContainer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+import me.tabinol.secuboid.playercontainer.PlayerContainers;
+
+/**
+ * Binary record of a land: the land with its areas, members, permissions, flags
+ * and economy. The player containers keep the flat file format.
+ */
+final class LandRecordCodec {
+
+    private static final byte AREA_CUBOID = 0;
+    private static final byte AREA_CYLINDER = 1;
+    private static final byte AREA_ROAD = 2;
+
+    private static final byte FLAG_VALUE_RAW = 0;
+    private static final byte FLAG_VALUE_BOOLEAN = 1;
+    private static final byte FLAG_VALUE_DOUBLE = 2;
+    private static final byte FLAG_VALUE_STRING = 3;
+    private static final byte FLAG_VALUE_STRING_LIST = 4;
+
+    private static final int CHUNK_MATRIX_SIZE = 16;
+
+    private LandRecordCodec() {
+    }
+
+    /**
+     * Encodes a land. Must be done in the thread that saves the land.
+     *
+     * @param land the land
+     * @return the land record
+     * @throws IOException the IO exception
+     */
+    static byte[] encode(final Land land) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        final DataOutputStream out = new DataOutputStream(baos);
+
+        out.writeUTF(land.getName());
+        out.writeBoolean(land.isApproved());
+        writeNullableUTF(out, land.getType() != null ? land.getType().getName() : null);
+        out.writeUTF(land.getOwner().toFileFormat());
+        final Land parentNullable = land.getParent();
+        out.writeBoolean(parentNullable != null);
+        if (parentNullable != null) {
+            writeUUID(out, parentNullable.getUUID());
+        }
+
+        // Areas
+        out.writeInt(land.getAreasKey().size());
+        for (final int key : land.getAreasKey()) {
+            out.writeInt(key);
+            writeArea(out, land.getArea(key));
+        }
+
+        writePlayerContainers(out, land.getResidents());
+        writePlayerContainers(out, land.getBanneds());
+
+        // Permissions
+        final LandPermissionsFlags landPermissionsFlags = land.getPermissionsFlags();
+        int nbPermissions = 0;
+        for (final PlayerContainer pc : landPermissionsFlags.getSetPCHavePermission()) {
+            nbPermissions += landPermissionsFlags.getPermissionsForPC(pc).size();
+        }
+        out.writeInt(nbPermissions);
+        for (final PlayerContainer pc : landPermissionsFlags.getSetPCHavePermission()) {
+            for (final Permission permission : landPermissionsFlags.getPermissionsForPC(pc)) {
+                out.writeUTF(pc.toFileFormat());
+                out.writeUTF(permission.getPermType().toString());
+                out.writeBoolean(permission.getValue());
+                out.writeBoolean(permission.isInheritable());
+            }
+        }
+
+        // Flags
+        final Collection<Flag> flags = landPermissionsFlags.getFlags();
+        out.writeInt(flags.size());
+        for (final Flag flag : flags) {
+            out.writeUTF(flag.getFlagType().toString());
+            writeFlagValue(out, flag);
+            out.writeBoolean(flag.isInheritable());
+        }
+
+        out.writeShort(land.getPriority());
+        out.writeDouble(land.getMoney());
+        writePlayerContainers(out, land.getPlayersNotify());
+
+        // Economy
+        out.writeBoolean(land.isForSale());
+        if (land.isForSale()) {
+            out.writeUTF(land.getSaleSignLoc().toFileFormat());
+            out.writeDouble(land.getSalePrice());
+        }
+        out.writeBoolean(land.isForRent());
+        if (land.isForRent()) {
+            out.writeUTF(land.getRentSignLoc().toFileFormat());
+            out.writeDouble(land.getRentPrice());
+            out.writeInt(land.getRentRenew());
+            out.writeBoolean(land.getRentAutoRenew());
+            out.writeBoolean(land.isRented());
+            if (land.isRented()) {
+                out.writeUTF(land.getTenant().toFileFormat());
+                out.writeLong(land.getLastPaymentTime());
+            }
+        }
+
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decodes a land record and creates the land without parent. Must be done in
+     * the loading thread.
+     *
+     * @param secuboid the secuboid instance
+     * @param uuid     the land UUID
+     * @param record   the land record
+     * @return the land and the parent UUID (or null), or null if the land cannot
+     *         be created
+     * @throws IOException the IO exception if the record is corrupted
+     */
+    static Entry<Land, UUID> decode(final Secuboid secuboid, final UUID uuid, final byte[] record)
+            throws IOException {
+        final PlayerContainers playerContainers = secuboid.getPlayerContainers();
+        final PermissionsFlags permissionsFlags = secuboid.getPermissionsFlags();
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+        final String landName = in.readUTF();
+        final boolean isApproved = in.readBoolean();
+        final String typeNullable = readNullableUTF(in);
+        final String ownerS = in.readUTF();
+        final UUID parentUUIDNullable = in.readBoolean() ? readUUID(in) : null;
+
+        final Map<Integer, Area> areas = new TreeMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            final int key = in.readInt();
+            areas.put(key, readArea(in));
+        }
+
+        final PlayerContainer owner = playerContainers.getPlayerContainerFromFileFormat(ownerS);
+        if (owner == null) {
+            secuboid.getLogger().severe("Error on loading land " + landName + ": Invalid owner: " + ownerS);
+            return null;
+        }
+        if (areas.isEmpty()) {
+            secuboid.getLogger().severe("Error on loading land " + landName + ": No areas in the list.");
+            return null;
+        }
+
+        // Create land
+        Land land = null;
+        for (final Map.Entry<Integer, Area> entry : areas.entrySet()) {
+            if (land == null) {
+                try {
+                    land = secuboid.getLands().createLand(landName, isApproved, owner, entry.getValue(), null,
+                            entry.getKey(), uuid, secuboid.getTypes().addOrGetType(typeNullable));
+                } catch (final SecuboidLandException ex) {
+                    secuboid.getLogger().severe("Error on loading land " + landName + ":" + ex.getLocalizedMessage());
+                    return null;
+                }
+            } else {
+                land.addArea(entry.getValue(), entry.getKey());
+            }
+        }
+
+        for (int i = in.readInt(); i > 0; i--) {
+            land.addResident(playerContainers.getPlayerContainerFromFileFormat(in.readUTF()));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            land.addBanned(playerContainers.getPlayerContainerFromFileFormat(in.readUTF()));
+        }
+
+        // Permissions
+        for (int i = in.readInt(); i > 0; i--) {
+            final PlayerContainer pc = playerContainers.getPlayerContainerFromFileFormat(in.readUTF());
+            final PermissionType permType = permissionsFlags.getPermissionTypeNoValid(in.readUTF());
+            final boolean value = in.readBoolean();
+            final boolean inheritable = in.readBoolean();
+            land.getPermissionsFlags().addPermission(pc, permissionsFlags.newPermission(permType, value,
+                    inheritable));
+        }
+
+        // Flags
+        for (int i = in.readInt(); i > 0; i--) {
+            final FlagType flagType = permissionsFlags.getFlagTypeNoValid(in.readUTF());
+            final FlagValue value = readFlagValue(in, flagType);
+            final boolean inheritable = in.readBoolean();
+            land.getPermissionsFlags().addFlag(permissionsFlags.newFlag(flagType, value, inheritable));
+        }
+
+        land.setPriority(in.readShort());
+        land.addMoney(in.readDouble());
+        for (int i = in.readInt(); i > 0; i--) {
+            land.addPlayerNotify((PlayerContainerPlayer) playerContainers.getPlayerContainerFromFileFormat(
+                    in.readUTF()));
+        }
+
+        // Economy
+        if (in.readBoolean()) {
+            final LandLocation forSaleSignLoc = LandLocation.fromFileFormat(in.readUTF());
+            land.setForSale(true, in.readDouble(), forSaleSignLoc);
+        }
+        if (in.readBoolean()) {
+            final LandLocation forRentSignLoc = LandLocation.fromFileFormat(in.readUTF());
+            final double rentPrice = in.readDouble();
+            final int rentRenew = in.readInt();
+            final boolean rentAutoRenew = in.readBoolean();
+            land.setForRent(rentPrice, rentRenew, rentAutoRenew, forRentSignLoc);
+            if (in.readBoolean()) {
+                land.setRented((PlayerContainerPlayer) playerContainers.getPlayerContainerFromFileFormat(
+                        in.readUTF()), false);
+                land.setLastPaymentTime(in.readLong());
+            }
+        }
+
+        return new AbstractMap.SimpleEntry<>(land, parentUUIDNullable);
+    }
+
+    static void writeUUID(final DataOutputStream out, final UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID readUUID(final DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeNullableUTF(final DataOutputStream out, final String strNullable)
+            throws IOException {
+        out.writeBoolean(strNullable != null);
+        if (strNullable != null) {
+            out.writeUTF(strNullable);
+        }
+    }
+
+    private static String readNullableUTF(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writePlayerContainers(final DataOutputStream out,
+                                              final Collection<? extends PlayerContainer> playerContainers)
+            throws IOException {
+        out.writeInt(playerContainers.size());
+        for (final PlayerContainer pc : playerContainers) {
+            out.writeUTF(pc.toFileFormat());
+        }
+    }
+
+    private static void writeArea(final DataOutputStream out, final Area area) throws IOException {
+        switch (area.getAreaType()) {
+            case CUBOID:
+                out.writeByte(AREA_CUBOID);
+                break;
+            case CYLINDER:
+                out.writeByte(AREA_CYLINDER);
+                break;
+            case ROAD:
+                out.writeByte(AREA_ROAD);
+                break;
+            default:
+                throw new IOException("Unknown area type: " + area.getAreaType());
+        }
+        out.writeBoolean(area.isApproved());
+        out.writeUTF(area.getWorldName());
+
+        if (area.getAreaType() != AreaType.ROAD) {
+            out.writeInt(area.getX1());
+            out.writeInt(area.getY1());
+            out.writeInt(area.getZ1());
+            out.writeInt(area.getX2());
+            out.writeInt(area.getY2());
+            out.writeInt(area.getZ2());
+            return;
+        }
+
+        // Road: the chunk matrices as raw shorts
+        out.writeInt(area.getY1());
+        out.writeInt(area.getY2());
+        final ChunkMatrixMap chunkMatrices = ((RoadArea) area).getChunkMatrices();
+        out.writeInt(chunkMatrices.size());
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            out.writeInt(cursor.getChunkX());
+            out.writeInt(cursor.getChunkZ());
+            for (final short line : cursor.getMatrix().getMatrix()) {
+                out.writeShort(line);
+            }
+        }
+    }
+
+    private static Area readArea(final DataInputStream in) throws IOException {
+        final byte areaType = in.readByte();
+        final boolean isApproved = in.readBoolean();
+        final String worldName = in.readUTF();
+
+        switch (areaType) {
+            case AREA_CUBOID:
+                return new CuboidArea(isApproved, worldName, in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt());
+            case AREA_CYLINDER:
+                return new CylinderArea(isApproved, worldName, in.readInt(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt(), in.readInt());
+            case AREA_ROAD:
+                final int y1 = in.readInt();
+                final int y2 = in.readInt();
+                final int nbMatrices = in.readInt();
+                final ChunkMatrixMap chunkMatrices = new ChunkMatrixMap(nbMatrices);
+                for (int i = nbMatrices; i > 0; i--) {
+                    final int chunkX = in.readInt();
+                    final int chunkZ = in.readInt();
+                    final short[] matrix = new short[CHUNK_MATRIX_SIZE];
+                    for (int j = 0; j < CHUNK_MATRIX_SIZE; j++) {
+                        matrix[j] = in.readShort();
+                    }
+                    chunkMatrices.put(chunkX, chunkZ, new ChunkMatrix(matrix));
+                }
+                return new RoadArea(isApproved, worldName, y1, y2, new RegionMatrix(chunkMatrices));
+            default:
+                throw new IOException("Unknown area type: " + areaType);
+        }
+    }
+
+    private static void writeFlagValue(final DataOutputStream out, final Flag flag) throws IOException {
+        final Object value = flag.getValue().getValue();
+        if (!flag.getFlagType().isRegistered()) {
+            // Not registered: raw information, parsed like the flat file on load
+            out.writeByte(FLAG_VALUE_RAW);
+            out.writeUTF(String.valueOf(value));
+        } else if (value instanceof Boolean) {
+            out.writeByte(FLAG_VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(FLAG_VALUE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(FLAG_VALUE_STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof String[]) {
+            out.writeByte(FLAG_VALUE_STRING_LIST);
+            out.writeInt(((String[]) value).length);
+            for (final String str : (String[]) value) {
+                out.writeUTF(str);
+            }
+        } else {
+            throw new IOException("Unknown value for the flag " + flag.getFlagType());
+        }
+    }
+
+    private static FlagValue readFlagValue(final DataInputStream in, final FlagType flagType) throws IOException {
+        final byte valueType = in.readByte();
+        switch (valueType) {
+            case FLAG_VALUE_RAW:
+                return FlagValue.getFlagValueFromFileFormat(in.readUTF(), flagType);
+            case FLAG_VALUE_BOOLEAN:
+                return new FlagValue(in.readBoolean());
+            case FLAG_VALUE_DOUBLE:
+                return new FlagValue(in.readDouble());
+            case FLAG_VALUE_STRING:
+                return new FlagValue(in.readUTF());
+            case FLAG_VALUE_STRING_LIST:
+                final String[] strs = new String[in.readInt()];
+                for (int i = 0; i < strs.length; i++) {
+                    strs[i] = in.readUTF();
+                }
+                return new FlagValue(strs);
+            default:
+                throw new IOException("Unknown flag value type: " + valueType);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.exceptions.SecuboidRuntimeException;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
+
+/**
+ * Lands in a versioned binary snapshot and an append-only journal. A journal
+ * entry is the record of a saved land or the UUID of a removed land. When the
+ * journal is bigger than the snapshot, it is merged in a new snapshot in
+ * background.
+ */
+public final class LandsBinary {
+
+    /**
+     * The binary files directory name.
+     */
+    public static final String DIR_NAME = "binary";
+
+    static final String SNAPSHOT_NAME = "lands.snapshot";
+    static final String JOURNAL_NAME = "lands.journal";
+    static final String OLD_JOURNAL_NAME = "lands.journal.old";
+    private static final String TMP_EXT = ".tmp";
+
+    /**
+     * The format version of the snapshot and the journal.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int SNAPSHOT_MAGIC = 0x53424C53; // SBLS
+    private static final int JOURNAL_MAGIC = 0x53424C4A; // SBLJ
+    private static final int HEADER_SIZE = 8;
+    private static final int CRC_SIZE = 8;
+
+    /**
+     * The minimum journal size for a compaction.
+     */
+    private static final long MIN_COMPACTION_SIZE = 1024L * 1024L;
+
+    private final Secuboid secuboid;
+    private final Logger log;
+    private final long minCompactionSize;
+    private final File binaryDir;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File oldJournalFile;
+    private final ExecutorService compactionExecutor;
+
+    /**
+     * The journal output stream, opened on the first save.
+     */
+    private DataOutputStream journalOutNullable;
+
+    /**
+     * The valid size of the journal.
+     */
+    private long journalSize;
+
+    private Future<?> compactionNullable;
+    private volatile boolean isCompactionFailed;
+
+    public LandsBinary(final Secuboid secuboid) {
+        this(secuboid, MIN_COMPACTION_SIZE);
+    }
+
+    LandsBinary(final Secuboid secuboid, final long minCompactionSize) {
+        this.secuboid = secuboid;
+        log = secuboid.getLogger();
+        this.minCompactionSize = minCompactionSize;
+        binaryDir = new File(secuboid.getDataFolder(), DIR_NAME);
+        snapshotFile = new File(binaryDir, SNAPSHOT_NAME);
+        journalFile = new File(binaryDir, JOURNAL_NAME);
+        oldJournalFile = new File(binaryDir, OLD_JOURNAL_NAME);
+        compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "Secuboid Lands Compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journalOutNullable = null;
+        journalSize = 0;
+        compactionNullable = null;
+        isCompactionFailed = false;
+        if (!binaryDir.exists() && !binaryDir.mkdirs()) {
+            log.severe("Unable to create directory " + binaryDir.getPath() + ".");
+        }
+    }
+
+    /**
+     * Checks if there are lands in the binary files.
+     *
+     * @return true if a snapshot or a journal exists
+     */
+    public boolean isExist() {
+        return snapshotFile.isFile() || journalFile.isFile() || oldJournalFile.isFile();
+    }
+
+    /**
+     * Loads the lands with one read of the snapshot and the journals. Must be done
+     * before the first save.
+     */
+    public void loadLands() {
+        final Map<Land, UUID> orphanToParentUUID = loadLandsOrphanToParentUUID();
+        secuboid.getLands().setParents(orphanToParentUUID);
+        log.info(secuboid.getLands().getLands().size() + " land(s) loaded.");
+
+        // A compaction was interrupted
+        if (oldJournalFile.isFile()) {
+            startCompaction();
+        }
+    }
+
+    public Map<Land, UUID> loadLandsOrphanToParentUUID() {
+        final long startTime = System.currentTimeMillis();
+        final Map<UUID, byte[]> uuidToRecord = new LinkedHashMap<>();
+        try {
+            Files.deleteIfExists(new File(binaryDir, SNAPSHOT_NAME + TMP_EXT).toPath());
+            readSnapshot(snapshotFile, uuidToRecord);
+            readJournal(oldJournalFile, uuidToRecord, log);
+            journalSize = readJournal(journalFile, uuidToRecord, log);
+        } catch (final IOException e) {
+            throw new SecuboidRuntimeException("Unable to read the binary lands in " + binaryDir.getPath(), e);
+        }
+        final long readTime = System.currentTimeMillis();
+
+        final Map<Land, UUID> orphanToParentUUID = new HashMap<>();
+        for (final Entry<UUID, byte[]> entry : uuidToRecord.entrySet()) {
+            final Entry<Land, UUID> orphanToParentUUIDEntry;
+            try {
+                orphanToParentUUIDEntry = LandRecordCodec.decode(secuboid, entry.getKey(), entry.getValue());
+            } catch (final IOException | RuntimeException e) {
+                log.log(Level.SEVERE, String.format("Unable to load the land %s from the binary files",
+                        entry.getKey()), e);
+                continue;
+            }
+            if (orphanToParentUUIDEntry != null && orphanToParentUUIDEntry.getValue() != null) {
+                orphanToParentUUID.put(orphanToParentUUIDEntry.getKey(), orphanToParentUUIDEntry.getValue());
+            }
+        }
+
+        final long endTime = System.currentTimeMillis();
+        log.info(String.format("%d binary land record(s) read in %d ms (read: %d ms, creation: %d ms).",
+                uuidToRecord.size(), endTime - startTime, readTime - startTime, endTime - readTime));
+        return orphanToParentUUID;
+    }
+
+    /**
+     * Appends the land to the journal. Called in the storage thread.
+     *
+     * @param land the land
+     */
+    public void saveLand(final Land land) {
+        try {
+            appendJournal(SaveActionEnum.LAND_SAVE, land.getUUID(), LandRecordCodec.encode(land));
+        } catch (final IOException ex) {
+            log.log(Level.SEVERE, "Error on saving land " + land.getName(), ex);
+        }
+    }
+
+    /**
+     * Appends the land removal to the journal. Called in the storage thread.
+     *
+     * @param land the land
+     */
+    public void removeLand(final Land land) {
+        try {
+            appendJournal(SaveActionEnum.LAND_REMOVE, land.getUUID(), new byte[0]);
+        } catch (final IOException ex) {
+            log.log(Level.SEVERE, "Error on removing land " + land.getName(), ex);
+        }
+    }
+
+    /**
+     * Closes the journal and waits for the compaction. The next save opens the
+     * journal again.
+     */
+    public void close() {
+        closeJournal();
+        waitForCompaction();
+    }
+
+    private void appendJournal(final SaveActionEnum saveActionEnum, final UUID uuid, final byte[] record)
+            throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(record.length + 32);
+        final DataOutputStream payloadOut = new DataOutputStream(baos);
+        payloadOut.writeUTF(saveActionEnum.name());
+        LandRecordCodec.writeUUID(payloadOut, uuid);
+        payloadOut.write(record);
+        final byte[] payload = baos.toByteArray();
+        final CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+
+        final DataOutputStream out = getJournalOut();
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeLong(crc32.getValue());
+        out.flush();
+        journalSize += Integer.BYTES + payload.length + CRC_SIZE;
+
+        compactIfNeeded();
+    }
+
+    private DataOutputStream getJournalOut() throws IOException {
+        if (journalOutNullable != null) {
+            return journalOutNullable;
+        }
+        if (journalFile.isFile() && journalSize >= HEADER_SIZE) {
+            // Removes the truncated end of the last write
+            if (journalFile.length() > journalSize) {
+                try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+                    raf.setLength(journalSize);
+                }
+            }
+            journalOutNullable = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+        } else {
+            journalOutNullable = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile)));
+            journalOutNullable.writeInt(JOURNAL_MAGIC);
+            journalOutNullable.writeInt(FORMAT_VERSION);
+            journalSize = HEADER_SIZE;
+        }
+        return journalOutNullable;
+    }
+
+    private void closeJournal() {
+        if (journalOutNullable == null) {
+            return;
+        }
+        try {
+            journalOutNullable.close();
+        } catch (final IOException ex) {
+            log.log(Level.SEVERE, "Unable to close the lands journal", ex);
+        }
+        journalOutNullable = null;
+    }
+
+    /**
+     * Moves the journal to the old journal and starts the compaction if the
+     * journal is bigger than the snapshot.
+     */
+    private void compactIfNeeded() {
+        if (isCompactionFailed || journalSize < Math.max(snapshotFile.length(), minCompactionSize)
+                || (compactionNullable != null && !compactionNullable.isDone())) {
+            return;
+        }
+        if (!oldJournalFile.exists()) {
+            closeJournal();
+            if (!journalFile.renameTo(oldJournalFile)) {
+                log.severe("Unable to rename the lands journal to " + oldJournalFile.getPath());
+                return;
+            }
+            journalSize = 0;
+        }
+        startCompaction();
+    }
+
+    private void startCompaction() {
+        compactionNullable = compactionExecutor.submit(this::compact);
+    }
+
+    private void waitForCompaction() {
+        if (compactionNullable == null) {
+            return;
+        }
+        try {
+            compactionNullable.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            log.log(Level.SEVERE, "Error in the lands compaction", e);
+        }
+    }
+
+    /**
+     * Merges the snapshot and the old journal in a new snapshot. Runs in the
+     * compaction thread: only the binary records are used.
+     */
+    private void compact() {
+        final long startTime = System.currentTimeMillis();
+        try {
+            final Map<UUID, byte[]> uuidToRecord = new LinkedHashMap<>();
+            readSnapshot(snapshotFile, uuidToRecord);
+            readJournal(oldJournalFile, uuidToRecord, log);
+            writeSnapshot(new File(binaryDir, SNAPSHOT_NAME + TMP_EXT), snapshotFile, uuidToRecord);
+            Files.delete(oldJournalFile.toPath());
+            log.info(String.format("Lands compaction done: %d land(s) in %d ms.", uuidToRecord.size(),
+                    System.currentTimeMillis() - startTime));
+        } catch (final IOException | RuntimeException e) {
+            isCompactionFailed = true;
+            log.log(Level.SEVERE, "Unable to compact the lands journal. The journal will grow until the next start.",
+                    e);
+        }
+    }
+
+    /**
+     * Reads the snapshot in one read.
+     *
+     * @param file         the snapshot file
+     * @param uuidToRecord the map to fill
+     * @throws IOException the IO exception, or a corrupted snapshot
+     */
+    static void readSnapshot(final File file, final Map<UUID, byte[]> uuidToRecord) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < HEADER_SIZE + Integer.BYTES + CRC_SIZE) {
+            throw new IOException("Snapshot too short: " + file.getPath());
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length - CRC_SIZE);
+        if (crc32.getValue() != buffer.getLong(bytes.length - CRC_SIZE)) {
+            throw new IOException("Bad checksum in snapshot: " + file.getPath());
+        }
+        checkHeader(file, buffer, SNAPSHOT_MAGIC);
+        for (int i = buffer.getInt(); i > 0; i--) {
+            final UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            final int length = buffer.getInt();
+            final int offset = buffer.position();
+            uuidToRecord.put(uuid, Arrays.copyOfRange(bytes, offset, offset + length));
+            buffer.position(offset + length);
+        }
+    }
+
+    /**
+     * Writes a snapshot in a temporary file, then replaces the snapshot.
+     *
+     * @param tmpFile      the temporary file
+     * @param file         the snapshot file
+     * @param uuidToRecord the land records
+     * @throws IOException the IO exception
+     */
+    static void writeSnapshot(final File tmpFile, final File file, final Map<UUID, byte[]> uuidToRecord)
+            throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+            final CheckedOutputStream cos = new CheckedOutputStream(new BufferedOutputStream(fos), new CRC32());
+            final DataOutputStream out = new DataOutputStream(cos);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(uuidToRecord.size());
+            for (final Entry<UUID, byte[]> entry : uuidToRecord.entrySet()) {
+                LandRecordCodec.writeUUID(out, entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            out.flush();
+            out.writeLong(cos.getChecksum().getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads and applies a journal in one read. A truncated or corrupted end is
+     * ignored: it is the last write before a crash.
+     *
+     * @param file         the journal file
+     * @param uuidToRecord the map to update
+     * @param log          the logger
+     * @return the valid size of the journal, or 0 if there is no journal
+     * @throws IOException the IO exception, or a journal of another format
+     */
+    static long readJournal(final File file, final Map<UUID, byte[]> uuidToRecord, final Logger log)
+            throws IOException {
+        if (!file.isFile()) {
+            return 0;
+        }
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < HEADER_SIZE) {
+            return 0;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        checkHeader(file, buffer, JOURNAL_MAGIC);
+
+        final CRC32 crc32 = new CRC32();
+        int validSize = buffer.position();
+        while (buffer.remaining() >= Integer.BYTES) {
+            final int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length + CRC_SIZE) {
+                break;
+            }
+            final int offset = buffer.position();
+            crc32.reset();
+            crc32.update(bytes, offset, length);
+            if (crc32.getValue() != buffer.getLong(offset + length)) {
+                break;
+            }
+            applyJournalEntry(bytes, offset, length, uuidToRecord);
+            validSize = offset + length + CRC_SIZE;
+            buffer.position(validSize);
+        }
+
+        if (validSize < bytes.length) {
+            log.warning(String.format("The end of the journal %s is truncated (%d byte(s) ignored).",
+                    file.getPath(), bytes.length - validSize));
+        }
+        return validSize;
+    }
+
+    private static void applyJournalEntry(final byte[] bytes, final int offset, final int length,
+                                          final Map<UUID, byte[]> uuidToRecord) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+        final SaveActionEnum saveActionEnum = SaveActionEnum.valueOf(in.readUTF());
+        final UUID uuid = LandRecordCodec.readUUID(in);
+        switch (saveActionEnum) {
+            case LAND_SAVE:
+                final byte[] record = new byte[in.available()];
+                in.readFully(record);
+                uuidToRecord.put(uuid, record);
+                break;
+            case LAND_REMOVE:
+                uuidToRecord.remove(uuid);
+                break;
+            default:
+                throw new IOException("Unexpected journal action: " + saveActionEnum);
+        }
+    }
+
+    private static void checkHeader(final File file, final ByteBuffer buffer, final int magic) throws IOException {
+        if (buffer.getInt() != magic) {
+            throw new IOException("Not a Secuboid binary file: " + file.getPath());
+        }
+        final int version = buffer.getInt();
+        if (version > FORMAT_VERSION) {
+            throw new IOException(String.format("The file %s has the format version %d, newer than %d.",
+                    file.getPath(), version, FORMAT_VERSION));
+        }
+    }
+}
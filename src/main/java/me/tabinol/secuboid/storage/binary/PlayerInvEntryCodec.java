@@ -0,0 +1,375 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+
+import me.tabinol.secuboid.inventories.InventorySpec;
+import me.tabinol.secuboid.inventories.PlayerInvEntry;
+import me.tabinol.secuboid.inventories.PlayerInventoryCache;
+
+/**
+ * Binary record of an inventory. The items and the potion effects keep the
+ * Bukkit serialization used by the YAML files, but the values are written in
+ * binary and each string is written once by file.
+ */
+final class PlayerInvEntryCodec {
+
+    static final int MAGIC = 0x53424956; // "SBIV"
+    static final short FORMAT_VERSION = 1;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_STRING_REF = 2;
+    private static final byte VALUE_INT = 3;
+    private static final byte VALUE_LONG = 4;
+    private static final byte VALUE_DOUBLE = 5;
+    private static final byte VALUE_FLOAT = 6;
+    private static final byte VALUE_SHORT = 7;
+    private static final byte VALUE_BYTE = 8;
+    private static final byte VALUE_BOOLEAN = 9;
+    private static final byte VALUE_LIST = 10;
+    private static final byte VALUE_MAP = 11;
+    private static final byte VALUE_LONG_STRING = 12;
+
+    private static final int MAX_SIZE = 0xFFFF;
+
+    /**
+     * The longest string written with writeUTF, limited to 65535 bytes: a char
+     * takes at most 3 bytes. A longer string is written with its UTF-8 length.
+     */
+    private static final int MAX_UTF_STRING_LENGTH = MAX_SIZE / 3;
+
+    private PlayerInvEntryCodec() {
+    }
+
+    /**
+     * Encodes an inventory.
+     *
+     * @param playerInvEntry the inventory
+     * @param enderChestOnly save only the ender chest (death)
+     * @return the inventory record
+     * @throws IOException the IO exception, or a value not serializable
+     */
+    static byte[] encode(final PlayerInvEntry playerInvEntry, final boolean enderChestOnly) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        final Encoder encoder = new Encoder(new DataOutputStream(baos));
+        final DataOutputStream out = encoder.out;
+
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        if (enderChestOnly) {
+            out.writeInt(0);
+            out.writeFloat(0f);
+            out.writeDouble(PlayerInvEntry.MAX_HEALTH);
+            out.writeInt(PlayerInvEntry.MAX_FOOD_LEVEL);
+            encoder.writeItemStacks(new ItemStack[PlayerInvEntry.INVENTORY_LIST_SIZE]);
+            encoder.writeItemStacks(playerInvEntry.getEnderChestItems());
+            out.writeShort(0);
+        } else {
+            out.writeInt(playerInvEntry.getLevel());
+            out.writeFloat(playerInvEntry.getExp());
+            out.writeDouble(playerInvEntry.getHealth());
+            out.writeInt(playerInvEntry.getFoodLevel());
+            encoder.writeItemStacks(playerInvEntry.getSlotItems());
+            encoder.writeItemStacks(playerInvEntry.getEnderChestItems());
+            final List<PotionEffect> potionEffects = playerInvEntry.getPotionEffects();
+            out.writeShort(potionEffects.size());
+            for (final PotionEffect potionEffect : potionEffects) {
+                encoder.writeValue(potionEffect);
+            }
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decodes an inventory.
+     *
+     * @param bytes                        the inventory record
+     * @param playerInventoryCacheNullable the player inventory cache or null for a
+     *                                     default inventory
+     * @param inventorySpec                the inventory spec
+     * @param isCreative                   is a creative inventory
+     * @return the inventory
+     * @throws IOException the IO exception, or a wrong record
+     */
+    static PlayerInvEntry decode(final byte[] bytes, final PlayerInventoryCache playerInventoryCacheNullable,
+            final InventorySpec inventorySpec, final boolean isCreative) throws IOException {
+        final Decoder decoder = new Decoder(new DataInputStream(new ByteArrayInputStream(bytes)));
+        final DataInputStream in = decoder.in;
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a Secuboid inventory file");
+        }
+        final short version = in.readShort();
+        if (version > FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported inventory format version %d", version));
+        }
+
+        final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCacheNullable, inventorySpec,
+                isCreative);
+        playerInvEntry.setLevel(in.readInt());
+        playerInvEntry.setExp(in.readFloat());
+        playerInvEntry.setHealth(in.readDouble());
+        playerInvEntry.setFoodLevel(in.readInt());
+        playerInvEntry.setSlotItems(decoder.readItemStacks(PlayerInvEntry.INVENTORY_LIST_SIZE));
+        playerInvEntry.setEnderChestItems(decoder.readItemStacks(PlayerInvEntry.ENDER_CHEST_SIZE));
+        final int nbPotionEffects = in.readUnsignedShort();
+        for (int i = 0; i < nbPotionEffects; i++) {
+            playerInvEntry.addPotionEffect(decoder.readValue(PotionEffect.class));
+        }
+        return playerInvEntry;
+    }
+
+    /**
+     * Writes the values with a string table.
+     */
+    static final class Encoder {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> stringToRef;
+
+        Encoder(final DataOutputStream out) {
+            this.out = out;
+            stringToRef = new HashMap<>();
+        }
+
+        private void writeItemStacks(final ItemStack[] itemStacks) throws IOException {
+            out.writeShort(itemStacks.length);
+            for (final ItemStack itemStack : itemStacks) {
+                writeValue(itemStack);
+            }
+        }
+
+        void writeValue(final Object valueNullable) throws IOException {
+            if (valueNullable == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (valueNullable instanceof String) {
+                writeString((String) valueNullable);
+            } else if (valueNullable instanceof Integer) {
+                out.writeByte(VALUE_INT);
+                out.writeInt((Integer) valueNullable);
+            } else if (valueNullable instanceof Long) {
+                out.writeByte(VALUE_LONG);
+                out.writeLong((Long) valueNullable);
+            } else if (valueNullable instanceof Double) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble((Double) valueNullable);
+            } else if (valueNullable instanceof Float) {
+                out.writeByte(VALUE_FLOAT);
+                out.writeFloat((Float) valueNullable);
+            } else if (valueNullable instanceof Short) {
+                out.writeByte(VALUE_SHORT);
+                out.writeShort((Short) valueNullable);
+            } else if (valueNullable instanceof Byte) {
+                out.writeByte(VALUE_BYTE);
+                out.writeByte((Byte) valueNullable);
+            } else if (valueNullable instanceof Boolean) {
+                out.writeByte(VALUE_BOOLEAN);
+                out.writeBoolean((Boolean) valueNullable);
+            } else if (valueNullable instanceof List) {
+                final List<?> list = (List<?>) valueNullable;
+                out.writeByte(VALUE_LIST);
+                writeSize(list.size());
+                for (final Object elem : list) {
+                    writeValue(elem);
+                }
+            } else if (valueNullable instanceof Map) {
+                writeMap((Map<?, ?>) valueNullable);
+            } else if (valueNullable instanceof ConfigurationSerializable) {
+                // Same map as the YAML files, with the class alias
+                final ConfigurationSerializable serializable = (ConfigurationSerializable) valueNullable;
+                final Map<String, Object> map = new LinkedHashMap<>();
+                map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY,
+                        ConfigurationSerialization.getAlias(serializable.getClass()));
+                map.putAll(serializable.serialize());
+                writeMap(map);
+            } else {
+                throw new IOException(
+                        String.format("Unable to serialize the value type %s", valueNullable.getClass().getName()));
+            }
+        }
+
+        private void writeMap(final Map<?, ?> map) throws IOException {
+            out.writeByte(VALUE_MAP);
+            writeSize(map.size());
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeSize(final int size) throws IOException {
+            if (size > MAX_SIZE) {
+                throw new IOException(String.format("Unable to serialize a list or a map of %d elements", size));
+            }
+            out.writeShort(size);
+        }
+
+        private void writeString(final String str) throws IOException {
+            final Integer refNullable = stringToRef.get(str);
+            if (refNullable != null) {
+                out.writeByte(VALUE_STRING_REF);
+                out.writeShort(refNullable);
+            } else {
+                if (stringToRef.size() < MAX_SIZE) {
+                    stringToRef.put(str, stringToRef.size());
+                }
+                if (str.length() <= MAX_UTF_STRING_LENGTH) {
+                    out.writeByte(VALUE_STRING);
+                    out.writeUTF(str);
+                } else {
+                    final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(VALUE_LONG_STRING);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the values with a string table.
+     */
+    static final class Decoder {
+
+        private final DataInputStream in;
+        private final List<String> strings;
+
+        Decoder(final DataInputStream in) {
+            this.in = in;
+            strings = new ArrayList<>();
+        }
+
+        private ItemStack[] readItemStacks(final int size) throws IOException {
+            final int length = in.readUnsignedShort();
+            final ItemStack[] itemStacks = new ItemStack[size];
+            for (int i = 0; i < length; i++) {
+                final ItemStack itemStackNullable = readValue(ItemStack.class);
+                // Ignore the slots not in this Minecraft version
+                if (i < size) {
+                    itemStacks[i] = itemStackNullable;
+                }
+            }
+            return itemStacks;
+        }
+
+        private <T> T readValue(final Class<T> clazz) throws IOException {
+            final Object valueNullable = readValue();
+            if (valueNullable != null && !clazz.isInstance(valueNullable)) {
+                throw new IOException(String.format("Expected %s, found %s", clazz.getSimpleName(),
+                        valueNullable.getClass().getName()));
+            }
+            return clazz.cast(valueNullable);
+        }
+
+        Object readValue() throws IOException {
+            final byte valueType = in.readByte();
+            switch (valueType) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return addString(in.readUTF());
+                case VALUE_LONG_STRING: {
+                    final int length = in.readInt();
+                    if (length < 0) {
+                        throw new IOException(String.format("Wrong string length %d", length));
+                    }
+                    final byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    return addString(new String(bytes, StandardCharsets.UTF_8));
+                }
+                case VALUE_STRING_REF: {
+                    final int ref = in.readUnsignedShort();
+                    if (ref >= strings.size()) {
+                        throw new IOException(String.format("Wrong string reference %d", ref));
+                    }
+                    return strings.get(ref);
+                }
+                case VALUE_INT:
+                    return in.readInt();
+                case VALUE_LONG:
+                    return in.readLong();
+                case VALUE_DOUBLE:
+                    return in.readDouble();
+                case VALUE_FLOAT:
+                    return in.readFloat();
+                case VALUE_SHORT:
+                    return in.readShort();
+                case VALUE_BYTE:
+                    return in.readByte();
+                case VALUE_BOOLEAN:
+                    return in.readBoolean();
+                case VALUE_LIST: {
+                    final int size = in.readUnsignedShort();
+                    final List<Object> list = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case VALUE_MAP:
+                    return readMap();
+                default:
+                    throw new IOException(String.format("Unknown value type %d", valueType));
+            }
+        }
+
+        private String addString(final String str) {
+            if (strings.size() < MAX_SIZE) {
+                strings.add(str);
+            }
+            return str;
+        }
+
+        private Object readMap() throws IOException {
+            final int size = in.readUnsignedShort();
+            final Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                final Object key = readValue();
+                map.put(String.valueOf(key), readValue());
+            }
+
+            // Same as the YAML files: the map with a class alias is an object
+            if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                try {
+                    return ConfigurationSerialization.deserializeObject(map);
+                } catch (final IllegalArgumentException e) {
+                    throw new IOException("Unable to deserialize an object", e);
+                }
+            }
+            return map;
+        }
+    }
+}
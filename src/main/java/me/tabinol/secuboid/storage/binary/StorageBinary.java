@@ -0,0 +1,69 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.storage.flat.ApprovesFlat;
+import me.tabinol.secuboid.storage.flat.InventoriesFlat;
+import me.tabinol.secuboid.storage.flat.PlayersCacheFlat;
+import me.tabinol.secuboid.storage.flat.StorageFlat;
+
+/**
+ * The Class StorageBinary. The lands are in a binary snapshot and journal, the
+ * inventories in binary files. The approves and players cache stay in flat
+ * files.
+ */
+public class StorageBinary extends StorageFlat {
+
+    private final LandsBinary landsBinary;
+
+    public StorageBinary(final LandsBinary landsBinary, final ApprovesFlat approvesFlat,
+            final PlayersCacheFlat playersCacheFlat, final InventoriesFlat inventoriesFlat) {
+        super(approvesFlat, playersCacheFlat, inventoriesFlat);
+        this.landsBinary = landsBinary;
+    }
+
+    @Override
+    public boolean loadAll() {
+        final boolean isNew = !landsBinary.isExist();
+        super.loadAll();
+
+        // Conversion from flat lands needed?
+        return isNew;
+    }
+
+    @Override
+    public void loadLands() {
+        landsBinary.loadLands();
+    }
+
+    @Override
+    public void saveLand(final Land land) {
+        landsBinary.saveLand(land);
+    }
+
+    @Override
+    public void removeLand(final Land land) {
+        landsBinary.removeLand(land);
+    }
+
+    @Override
+    public void close() {
+        landsBinary.close();
+    }
+}
@@ -19,6 +19,7 @@ package me.tabinol.secuboid.storage.flat;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -39,7 +40,8 @@ import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.utilities.MavenAppProperties;
 
 /**
- * InventoriesFlat
+ * InventoriesFlat. One YAML file by player, inventory spec and game mode. The
+ * file read and write methods can be overridden for an other file format.
  */
 public class InventoriesFlat {
 
@@ -48,11 +50,23 @@ public class InventoriesFlat {
     private final static String DEATH = "DEATH";
     private final static String INV_EXT = ".yml";
 
-    private final Secuboid secuboid;
+    protected final Secuboid secuboid;
+    private final File inventoriesDir;
     private final int storageVersion;
 
     public InventoriesFlat(final Secuboid secuboid) {
+        this(secuboid, new File(secuboid.getDataFolder(), INV_DIR));
+    }
+
+    /**
+     * Inventories in an other directory, for a conversion from a backup.
+     *
+     * @param secuboid       the secuboid instance
+     * @param inventoriesDir the inventories directory
+     */
+    protected InventoriesFlat(final Secuboid secuboid, final File inventoriesDir) {
         this.secuboid = secuboid;
+        this.inventoriesDir = inventoriesDir;
         storageVersion = MavenAppProperties.getPropertyInt("inventoryStorageVersion", 1);
     }
 
@@ -64,13 +78,10 @@ public class InventoriesFlat {
         final Inventories inventories = secuboid.getInventoriesOpt().get();
         for (final InventorySpec inventorySpec : inventories.getInvSpecs()) {
             final File invDirFile = getInventoryDir(inventorySpec.getInventoryName());
-            if (invDirFile.isDirectory()) {
-                final File invDefaultFile = new File(invDirFile, DEFAULT_INV + INV_EXT);
-                if (invDefaultFile.isFile()) {
-                    final PlayerInvEntry playerInvEntry = loadInventoryFromFile(invDefaultFile, null,
-                            inventorySpec, false);
-                    inventories.saveInventory(null, playerInvEntry, false, true, false);
-                }
+            if (invDirFile.isDirectory() && isInventoryExists(invDirFile, DEFAULT_INV)) {
+                final PlayerInvEntry playerInvEntry = loadInventory(invDirFile, DEFAULT_INV, null, inventorySpec,
+                        false);
+                inventories.saveInventory(null, playerInvEntry, false, true, false);
             }
         }
     }
@@ -81,52 +92,79 @@ public class InventoriesFlat {
 
     public void removeInventoryDefault(final PlayerInvEntry playerInvEntry) {
         final File invDirFile = getInventoryDir(playerInvEntry.getInventorySpec().getInventoryName());
-        final File invFile = new File(invDirFile, DEFAULT_INV + INV_EXT);
 
-        if (!invFile.delete()) {
-            secuboid.getLogger().log(Level.WARNING,
-                    String.format("Unable to delete the inventory, filename: %s", invFile.getPath()));
+        if (!deleteInventory(invDirFile, DEFAULT_INV)) {
+            secuboid.getLogger().log(Level.WARNING, String.format("Unable to delete the inventory, filename: %s",
+                    new File(invDirFile, DEFAULT_INV).getPath()));
         }
     }
 
+    /**
+     * Loads all inventories of a player and saves them again. Used for the
+     * conversion to an other storage.
+     *
+     * @param playerInventoryCache the player inventory cache
+     */
     public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache) {
         final Inventories inventories = secuboid.getInventoriesOpt().get();
-        final UUID playerUUID = playerInventoryCache.getUUID();
 
         for (final InventorySpec inventorySpec : inventories.getInvSpecs()) {
-            final File invDir = getInventoryDir(inventorySpec.getInventoryName());
-
             // Survival
-            final File survivalFile = new File(invDir,
-                    String.format("%s.%s%s", playerUUID, getGameModeFromBoolean(false), INV_EXT));
-            if (survivalFile.exists()) {
-                final PlayerInvEntry playerInvEntry = loadInventoryFromFile(survivalFile,
-                        playerInventoryCache, inventorySpec, false);
-                inventories.saveInventory(null, playerInvEntry, false, false, false);
+            final PlayerInvEntry survivalInvEntryNullable = loadInventoryPlayerNullable(playerInventoryCache,
+                    inventorySpec, false);
+            if (survivalInvEntryNullable != null) {
+                inventories.saveInventory(null, survivalInvEntryNullable, false, false, false);
             }
 
             // Creative
-            final File creativeFile = new File(invDir,
-                    String.format("%s.%s%s", playerUUID, getGameModeFromBoolean(true), INV_EXT));
-            if (creativeFile.exists()) {
-                final PlayerInvEntry playerInvEntry = loadInventoryFromFile(creativeFile,
-                        playerInventoryCache, inventorySpec, true);
-                inventories.saveInventory(null, playerInvEntry, false, false, false);
+            final PlayerInvEntry creativeInvEntryNullable = loadInventoryPlayerNullable(playerInventoryCache,
+                    inventorySpec, true);
+            if (creativeInvEntryNullable != null) {
+                inventories.saveInventory(null, creativeInvEntryNullable, false, false, false);
             }
 
-            // Death
-            for (int deathVersion = PlayerInventoryCache.DEATH_SAVE_MAX_NBR; deathVersion > 0; deathVersion--) {
-                final File deathFile = new File(invDir, String.format("%s.%s.%s.%s%s", playerUUID,
-                        getGameModeFromBoolean(true), DEATH, deathVersion, INV_EXT));
-                if (deathFile.exists()) {
-                    final PlayerInvEntry playerInvEntry = loadInventoryFromFile(deathFile,
-                            playerInventoryCache, inventorySpec, false);
-                    inventories.saveInventory(null, playerInvEntry, true, false, false);
-                }
+            // Death (the oldest first)
+            final List<PlayerInvEntry> deathInvEntries = loadInventoriesPlayerDeath(playerInventoryCache,
+                    inventorySpec);
+            for (int i = deathInvEntries.size() - 1; i >= 0; i--) {
+                inventories.saveInventory(null, deathInvEntries.get(i), true, false, false);
             }
         }
     }
 
+    public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec) {
+        playerInventoryCache.setInventoriesLoaded(inventorySpec,
+                loadInventoryPlayerNullable(playerInventoryCache, inventorySpec, false),
+                loadInventoryPlayerNullable(playerInventoryCache, inventorySpec, true),
+                loadInventoriesPlayerDeath(playerInventoryCache, inventorySpec));
+    }
+
+    private PlayerInvEntry loadInventoryPlayerNullable(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec, final boolean isCreative) {
+        final File invDir = getInventoryDir(inventorySpec.getInventoryName());
+        final String fileName = String.format("%s.%s", playerInventoryCache.getUUID(),
+                getGameModeFromBoolean(isCreative));
+        if (isInventoryExists(invDir, fileName)) {
+            return loadInventory(invDir, fileName, playerInventoryCache, inventorySpec, isCreative);
+        }
+        return null;
+    }
+
+    private List<PlayerInvEntry> loadInventoriesPlayerDeath(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec) {
+        final File invDir = getInventoryDir(inventorySpec.getInventoryName());
+        final List<PlayerInvEntry> deathInvEntries = new ArrayList<>();
+        for (int deathVersion = 1; deathVersion <= PlayerInventoryCache.DEATH_SAVE_MAX_NBR; deathVersion++) {
+            final String fileName = String.format("%s.%s.%s.%s", playerInventoryCache.getUUID(),
+                    getGameModeFromBoolean(true), DEATH, deathVersion);
+            if (isInventoryExists(invDir, fileName)) {
+                deathInvEntries.add(loadInventory(invDir, fileName, playerInventoryCache, inventorySpec, false));
+            }
+        }
+        return deathInvEntries;
+    }
+
     public void saveInventoryPlayer(final PlayerInvEntry playerInvEntry) {
         saveInventory(playerInvEntry, playerInvEntry.getPlayerUUIDNullable(), false, false);
 
@@ -140,9 +178,32 @@ public class InventoriesFlat {
         saveInventory(playerInvEntry, playerInvEntry.getPlayerUUIDNullable(), true, false);
     }
 
-    private PlayerInvEntry loadInventoryFromFile(final File playerItemFile,
-                                                 final PlayerInventoryCache playerInventoryCacheNullable, final InventorySpec inventorySpec,
-                                                 final boolean isCreative) {
+    /**
+     * Checks if an inventory file exists.
+     *
+     * @param invDir   the inventory spec directory
+     * @param fileName the file name without extension
+     * @return true if the file exists
+     */
+    protected boolean isInventoryExists(final File invDir, final String fileName) {
+        return new File(invDir, fileName + INV_EXT).exists();
+    }
+
+    /**
+     * Loads an inventory file. On error, the inventory is empty.
+     *
+     * @param invDir                       the inventory spec directory
+     * @param fileName                     the file name without extension
+     * @param playerInventoryCacheNullable the player inventory cache or null for a
+     *                                     default inventory
+     * @param inventorySpec                the inventory spec
+     * @param isCreative                   is a creative inventory
+     * @return the inventory
+     */
+    protected PlayerInvEntry loadInventory(final File invDir, final String fileName,
+            final PlayerInventoryCache playerInventoryCacheNullable, final InventorySpec inventorySpec,
+            final boolean isCreative) {
+        final File playerItemFile = new File(invDir, fileName + INV_EXT);
         final YamlConfiguration configPlayerItemFile = new YamlConfiguration();
         final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCacheNullable, inventorySpec, isCreative);
 
@@ -224,17 +285,19 @@ public class InventoriesFlat {
             filePreName = fileDeathPrefix + "1";
 
             // Death rename
-            File actFile = new File(invDirFile, fileDeathPrefix + "9" + INV_EXT);
-            if (actFile.exists()) {
-                if (!actFile.delete()) {
-                    secuboid.getLogger().severe("Unable to delete the file: " + actFile.getPath());
+            String actFileName = fileDeathPrefix + PlayerInventoryCache.DEATH_SAVE_MAX_NBR;
+            if (isInventoryExists(invDirFile, actFileName)) {
+                if (!deleteInventory(invDirFile, actFileName)) {
+                    secuboid.getLogger()
+                            .severe("Unable to delete the file: " + new File(invDirFile, actFileName).getPath());
                 }
             }
             for (int t = PlayerInventoryCache.DEATH_SAVE_MAX_NBR - 1; t >= 1; t--) {
-                actFile = new File(invDirFile, fileDeathPrefix + t + INV_EXT);
-                if (actFile.exists()) {
-                    if (!actFile.renameTo(new File(invDirFile, fileDeathPrefix + (t + 1) + INV_EXT))) {
-                        secuboid.getLogger().severe("Unable to rename the file: " + actFile.getPath());
+                actFileName = fileDeathPrefix + t;
+                if (isInventoryExists(invDirFile, actFileName)) {
+                    if (!renameInventory(invDirFile, actFileName, fileDeathPrefix + (t + 1))) {
+                        secuboid.getLogger()
+                                .severe("Unable to rename the file: " + new File(invDirFile, actFileName).getPath());
                     }
                 }
             }
@@ -249,60 +312,96 @@ public class InventoriesFlat {
         }
 
         // Save Inventory
+        try {
+            writeInventory(invDirFile, filePreName, playerInvEntry, enderChestOnly);
+        } catch (final IOException ex) {
+            secuboid.getLogger()
+                    .severe("Error on inventory save, filename: " + new File(invDirFile, filePreName).getPath());
+        }
+    }
+
+    /**
+     * Writes an inventory file.
+     *
+     * @param invDir         the inventory spec directory
+     * @param fileName       the file name without extension
+     * @param playerInvEntry the inventory
+     * @param enderChestOnly save only the ender chest (death)
+     * @throws IOException the IO exception
+     */
+    protected void writeInventory(final File invDir, final String fileName, final PlayerInvEntry playerInvEntry,
+            final boolean enderChestOnly) throws IOException {
         final YamlConfiguration configPlayerItemFile = new YamlConfiguration();
-        final File playerItemFile = new File(invDirFile, filePreName + INV_EXT);
+        final File playerItemFile = new File(invDir, fileName + INV_EXT);
 
-        try {
-            configPlayerItemFile.set("Version", storageVersion);
-
-            // Save Only ender chest (Death)
-            if (enderChestOnly) {
-                configPlayerItemFile.set("Level", 0);
-                configPlayerItemFile.set("Exp", 0f);
-                configPlayerItemFile.set("Health", PlayerInvEntry.MAX_HEALTH);
-                configPlayerItemFile.set("FoodLevel", PlayerInvEntry.MAX_FOOD_LEVEL);
-
-                final ItemStack[] itemEnderChest = playerInvEntry.getEnderChestItems();
-                for (int t = 0; t < itemEnderChest.length; t++) {
-                    configPlayerItemFile.set("EnderChest." + t, itemEnderChest[t]);
-                }
-            } else {
-                // Save all
-                configPlayerItemFile.set("Level", playerInvEntry.getLevel());
-                configPlayerItemFile.set("Exp", playerInvEntry.getExp());
-                configPlayerItemFile.set("Health", playerInvEntry.getHealth());
-                configPlayerItemFile.set("FoodLevel", playerInvEntry.getFoodLevel());
-
-                final ItemStack[] itemListSave = playerInvEntry.getSlotItems();
-                final ItemStack[] itemEnderChest = playerInvEntry.getEnderChestItems();
-                for (int t = 0; t < itemListSave.length; t++) {
-                    configPlayerItemFile.set("Slot." + t, itemListSave[t]);
-                }
-                for (int t = 0; t < itemEnderChest.length; t++) {
-                    configPlayerItemFile.set("EnderChest." + t, itemEnderChest[t]);
-                }
+        configPlayerItemFile.set("Version", storageVersion);
 
-                // PotionsEffects
-                final List<PotionEffect> activePotionEffects = playerInvEntry.getPotionEffects();
-                final ConfigurationSection effectSection = configPlayerItemFile.createSection("PotionEffect");
-                for (final PotionEffect effect : activePotionEffects) {
-                    final ConfigurationSection effectSubSection = effectSection
-                            .createSection(effect.getType().getName());
-                    effectSubSection.set("Duration", effect.getDuration());
-                    effectSubSection.set("Amplifier", effect.getAmplifier());
-                    effectSubSection.set("Ambient", effect.isAmbient());
-                }
-            }
+        // Save Only ender chest (Death)
+        if (enderChestOnly) {
+            configPlayerItemFile.set("Level", 0);
+            configPlayerItemFile.set("Exp", 0f);
+            configPlayerItemFile.set("Health", PlayerInvEntry.MAX_HEALTH);
+            configPlayerItemFile.set("FoodLevel", PlayerInvEntry.MAX_FOOD_LEVEL);
 
-            configPlayerItemFile.save(playerItemFile);
+            final ItemStack[] itemEnderChest = playerInvEntry.getEnderChestItems();
+            for (int t = 0; t < itemEnderChest.length; t++) {
+                configPlayerItemFile.set("EnderChest." + t, itemEnderChest[t]);
+            }
+        } else {
+            // Save all
+            configPlayerItemFile.set("Level", playerInvEntry.getLevel());
+            configPlayerItemFile.set("Exp", playerInvEntry.getExp());
+            configPlayerItemFile.set("Health", playerInvEntry.getHealth());
+            configPlayerItemFile.set("FoodLevel", playerInvEntry.getFoodLevel());
+
+            final ItemStack[] itemListSave = playerInvEntry.getSlotItems();
+            final ItemStack[] itemEnderChest = playerInvEntry.getEnderChestItems();
+            for (int t = 0; t < itemListSave.length; t++) {
+                configPlayerItemFile.set("Slot." + t, itemListSave[t]);
+            }
+            for (int t = 0; t < itemEnderChest.length; t++) {
+                configPlayerItemFile.set("EnderChest." + t, itemEnderChest[t]);
+            }
 
-        } catch (final IOException ex) {
-            secuboid.getLogger().severe("Error on inventory save, filename: " + playerItemFile.getPath());
+            // PotionsEffects
+            final List<PotionEffect> activePotionEffects = playerInvEntry.getPotionEffects();
+            final ConfigurationSection effectSection = configPlayerItemFile.createSection("PotionEffect");
+            for (final PotionEffect effect : activePotionEffects) {
+                final ConfigurationSection effectSubSection = effectSection.createSection(effect.getType().getName());
+                effectSubSection.set("Duration", effect.getDuration());
+                effectSubSection.set("Amplifier", effect.getAmplifier());
+                effectSubSection.set("Ambient", effect.isAmbient());
+            }
         }
+
+        configPlayerItemFile.save(playerItemFile);
+    }
+
+    /**
+     * Deletes an inventory file.
+     *
+     * @param invDir   the inventory spec directory
+     * @param fileName the file name without extension
+     * @return true if deleted
+     */
+    protected boolean deleteInventory(final File invDir, final String fileName) {
+        return new File(invDir, fileName + INV_EXT).delete();
+    }
+
+    /**
+     * Renames an inventory file.
+     *
+     * @param invDir      the inventory spec directory
+     * @param fileName    the file name without extension
+     * @param newFileName the new file name without extension
+     * @return true if renamed
+     */
+    protected boolean renameInventory(final File invDir, final String fileName, final String newFileName) {
+        return new File(invDir, fileName + INV_EXT).renameTo(new File(invDir, newFileName + INV_EXT));
     }
 
     private File getInventoryDir(final String invName) {
-        return new File(secuboid.getDataFolder(), INV_DIR + "/" + invName);
+        return new File(inventoriesDir, invName);
     }
 
     private String getGameModeFromBoolean(final boolean isCreative) {
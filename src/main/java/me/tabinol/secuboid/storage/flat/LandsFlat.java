@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +31,8 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 
 import me.tabinol.secuboid.Secuboid;
@@ -116,27 +119,54 @@ public final class LandsFlat {
 
     public Map<Land, UUID> loadLandsOrphanToParentUUID() {
         final Map<Land, UUID> orphanToParentUUID = new HashMap<>();
-        final File[] files = new File(landsDir).listFiles();
-
-        // Pass 1: load lands
-        for (final File file : files) {
-            if (file.isFile() && file.getName().toLowerCase().endsWith(EXT_CONF)) {
-                final Entry<Land, UUID> orphanToParentUUIDEntry;
-                try {
-                    orphanToParentUUIDEntry = loadLand(file);
-                } catch (final RuntimeException e) {
-                    secuboid.getLogger().log(Level.SEVERE,
-                            String.format("Unable to load the land from file: %s", file.getName()), e);
-                    continue;
+        final List<File> files = new ArrayList<>();
+        final File[] allFiles = new File(landsDir).listFiles();
+        if (allFiles != null) {
+            for (final File file : allFiles) {
+                if (file.isFile() && file.getName().toLowerCase().endsWith(EXT_CONF)) {
+                    files.add(file);
                 }
-                if (orphanToParentUUIDEntry != null) {
-                    if (orphanToParentUUIDEntry.getValue() != null) {
-                        orphanToParentUUID.put(orphanToParentUUIDEntry.getKey(), orphanToParentUUIDEntry.getValue());
-                    }
+            }
+        }
+
+        // Pass 1a: parse the files in parallel
+        final long startTime = System.currentTimeMillis();
+        final int nbThreads = getLoadThreads(files.size());
+        final List<ParseResult> parseResults = parseLandFiles(files, nbThreads);
+        final long parseTime = System.currentTimeMillis();
+
+        // Pass 1b: create the lands in the file order
+        for (final ParseResult parseResult : parseResults) {
+            if (parseResult.exceptionNullable != null) {
+                secuboid.getLogger().log(Level.SEVERE,
+                        String.format("Unable to load the land from file: %s", parseResult.file.getName()),
+                        parseResult.exceptionNullable);
+                continue;
+            }
+            if (parseResult.recordNullable == null) {
+                // Already reported by the parser
+                continue;
+            }
+            final Entry<Land, UUID> orphanToParentUUIDEntry;
+            try {
+                orphanToParentUUIDEntry = createLand(parseResult.recordNullable);
+            } catch (final RuntimeException e) {
+                secuboid.getLogger().log(Level.SEVERE,
+                        String.format("Unable to load the land from file: %s", parseResult.file.getName()), e);
+                continue;
+            }
+            if (orphanToParentUUIDEntry != null) {
+                if (orphanToParentUUIDEntry.getValue() != null) {
+                    orphanToParentUUID.put(orphanToParentUUIDEntry.getKey(), orphanToParentUUIDEntry.getValue());
                 }
             }
         }
 
+        final long endTime = System.currentTimeMillis();
+        secuboid.getLogger().info(String.format("%d land file(s) read in %d ms (parse: %d ms with %d thread(s), "
+                + "creation: %d ms).", files.size(), endTime - startTime, parseTime - startTime, nbThreads,
+                endTime - parseTime));
+
         return orphanToParentUUID;
     }
 
@@ -147,32 +177,80 @@ public final class LandsFlat {
     }
 
     /**
-     * Load land.
+     * Gets the number of threads for the land files parse.
      *
-     * @param file the file
-     * @return a map with a land (if success) and the parent (if exists)
+     * @param nbFiles the number of files
+     * @return the number of threads
      */
-    private Entry<Land, UUID> loadLand(final File file) {
-        final PlayerContainers playerContainers = secuboid.getPlayerContainers();
+    private int getLoadThreads(final int nbFiles) {
+        final int confThreads = secuboid.getConf().getFlatLoadThreads();
+        final int nbThreads = confThreads > 0 ? confThreads : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(nbThreads, nbFiles));
+    }
+
+    /**
+     * Parses the land files on a bounded fork join pool. Only the text is parsed
+     * here: nothing is shared with the other threads.
+     *
+     * @param files     the land files
+     * @param nbThreads the number of threads
+     * @return the parse results in the files order
+     */
+    private List<ParseResult> parseLandFiles(final List<File> files, final int nbThreads) {
+        final List<ParseResult> parseResults = new ArrayList<>(files.size());
+        if (nbThreads <= 1) {
+            for (final File file : files) {
+                parseResults.add(parseLandFileResult(file));
+            }
+            return parseResults;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(nbThreads);
+        try {
+            final List<ForkJoinTask<ParseResult>> tasks = new ArrayList<>(files.size());
+            for (final File file : files) {
+                tasks.add(pool.submit(() -> parseLandFileResult(file)));
+            }
+            for (final ForkJoinTask<ParseResult> task : tasks) {
+                parseResults.add(task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return parseResults;
+    }
 
+    private ParseResult parseLandFileResult(final File file) {
+        try {
+            return new ParseResult(file, parseLandFile(file), null);
+        } catch (final RuntimeException e) {
+            return new ParseResult(file, null, e);
+        }
+    }
+
+    /**
+     * Parses a land file. This method is thread safe.
+     *
+     * @param file the file
+     * @return the land record or null if the file has an error
+     */
+    private LandRecord parseLandFile(final File file) {
         int version;
         ConfLoaderFlat cf = null;
         UUID uuid;
         String landName;
         boolean isApproved = true;
         String type;
-        Land land = null;
         final Map<Integer, Area> areas = new TreeMap<>();
-        boolean isLandCreated = false;
-        PlayerContainer owner;
+        String ownerS;
         String parentUUID;
-        final Set<PlayerContainer> residents = new TreeSet<>();
-        final Set<PlayerContainer> banneds = new TreeSet<>();
-        final Map<PlayerContainer, TreeMap<PermissionType, Permission>> permissions = new TreeMap<>();
-        final Set<Flag> flags = new HashSet<>();
+        final List<String> residents = new ArrayList<>();
+        final List<String> banneds = new ArrayList<>();
+        final List<String> permissions = new ArrayList<>();
+        final List<String> flags = new ArrayList<>();
         short priority;
         double money;
-        final Set<PlayerContainerPlayer> pNotifs = new TreeSet<>();
+        final List<String> pNotifs = new ArrayList<>();
 
         // For economy
         boolean forSale;
@@ -184,7 +262,7 @@ public final class LandsFlat {
         int rentRenew = 0;
         boolean rentAutoRenew = false;
         boolean rented = false;
-        PlayerContainerPlayer tenant = null;
+        String tenantS = null;
         long lastPayment = 0;
 
         try {
@@ -200,13 +278,7 @@ public final class LandsFlat {
             cf.readParam();
             type = cf.getValueString();
             cf.readParam();
-            final String ownerS = cf.getValueString();
-
-            // create owner (PlayerContainer)
-            owner = playerContainers.getPlayerContainerFromFileFormat(ownerS);
-            if (owner == null) {
-                throw new FileLoadException(secuboid, file.getName(), cf.getLine(), cf.getLineNb(), "Invalid owner.");
-            }
+            ownerS = cf.getValueString();
 
             cf.readParam();
             parentUUID = cf.getValueString();
@@ -227,37 +299,25 @@ public final class LandsFlat {
 
             // Residents
             while ((str = cf.getNextString()) != null) {
-                residents.add(playerContainers.getPlayerContainerFromFileFormat(str));
+                residents.add(str);
             }
             cf.readParam();
 
             // Banneds
             while ((str = cf.getNextString()) != null) {
-                banneds.add(playerContainers.getPlayerContainerFromFileFormat(str));
+                banneds.add(str);
             }
             cf.readParam();
 
-            // Create permissions
+            // Permissions
             while ((str = cf.getNextString()) != null) {
-                final String[] multiStr = str.split(":");
-                TreeMap<PermissionType, Permission> permPlayer;
-                final PlayerContainer pc = playerContainers
-                        .getPlayerContainerFromFileFormat(multiStr[0] + ":" + multiStr[1]);
-                final PermissionType permType = secuboid.getPermissionsFlags().getPermissionTypeNoValid(multiStr[2]);
-                if (!permissions.containsKey(pc)) {
-                    permPlayer = new TreeMap<>();
-                    permissions.put(pc, permPlayer);
-                } else {
-                    permPlayer = permissions.get(pc);
-                }
-                permPlayer.put(permType, secuboid.getPermissionsFlags().newPermission(permType,
-                        Boolean.parseBoolean(multiStr[3]), Boolean.parseBoolean(multiStr[4])));
+                permissions.add(str);
             }
             cf.readParam();
 
-            // Create flags
+            // Flags
             while ((str = cf.getNextString()) != null) {
-                flags.add(getFlagFromFileFormat(str));
+                flags.add(str);
             }
             cf.readParam();
 
@@ -271,7 +331,7 @@ public final class LandsFlat {
 
             // Players Notify
             while ((str = cf.getNextString()) != null) {
-                pNotifs.add((PlayerContainerPlayer) playerContainers.getPlayerContainerFromFileFormat(str));
+                pNotifs.add(str);
             }
 
             // Economy
@@ -298,8 +358,7 @@ public final class LandsFlat {
                 rented = Boolean.parseBoolean(cf.getValueString());
                 if (rented) {
                     cf.readParam();
-                    tenant = (PlayerContainerPlayer) playerContainers
-                            .getPlayerContainerFromFileFormat(cf.getValueString());
+                    tenantS = cf.getValueString();
                     cf.readParam();
                     lastPayment = cf.getValueLong();
                 }
@@ -321,12 +380,77 @@ public final class LandsFlat {
             return null;
         }
 
+        return new LandRecord(file.getName(), uuid, landName, isApproved, type, ownerS, parentUUID, areas,
+                residents, banneds, permissions, flags, priority, money, pNotifs, forSale, forSaleSignLoc, salePrice,
+                forRent, forRentSignLoc, rentPrice, rentRenew, rentAutoRenew, rented, tenantS, lastPayment);
+    }
+
+    /**
+     * Creates a land from a parsed land file. Must be done in the loading thread.
+     *
+     * @param record the land record
+     * @return a map with a land (if success) and the parent (if exists)
+     */
+    private Entry<Land, UUID> createLand(final LandRecord record) {
+        final PlayerContainers playerContainers = secuboid.getPlayerContainers();
+        final String landName = record.landName;
+        Land land = null;
+        boolean isLandCreated = false;
+
+        // create owner (PlayerContainer)
+        final PlayerContainer owner = record.ownerS != null
+                ? playerContainers.getPlayerContainerFromFileFormat(record.ownerS)
+                : null;
+        if (owner == null) {
+            secuboid.getLogger().severe("There is an error in file: " + record.fileName);
+            secuboid.getLogger().severe("Error Message: Invalid owner: " + record.ownerS);
+            return null;
+        }
+
+        final Set<PlayerContainer> residents = new TreeSet<>();
+        for (final String str : record.residents) {
+            residents.add(playerContainers.getPlayerContainerFromFileFormat(str));
+        }
+        final Set<PlayerContainer> banneds = new TreeSet<>();
+        for (final String str : record.banneds) {
+            banneds.add(playerContainers.getPlayerContainerFromFileFormat(str));
+        }
+
+        // Create permissions
+        final Map<PlayerContainer, TreeMap<PermissionType, Permission>> permissions = new TreeMap<>();
+        for (final String str : record.permissions) {
+            final String[] multiStr = str.split(":");
+            TreeMap<PermissionType, Permission> permPlayer;
+            final PlayerContainer pc = playerContainers
+                    .getPlayerContainerFromFileFormat(multiStr[0] + ":" + multiStr[1]);
+            final PermissionType permType = secuboid.getPermissionsFlags().getPermissionTypeNoValid(multiStr[2]);
+            if (!permissions.containsKey(pc)) {
+                permPlayer = new TreeMap<>();
+                permissions.put(pc, permPlayer);
+            } else {
+                permPlayer = permissions.get(pc);
+            }
+            permPlayer.put(permType, secuboid.getPermissionsFlags().newPermission(permType,
+                    Boolean.parseBoolean(multiStr[3]), Boolean.parseBoolean(multiStr[4])));
+        }
+
+        // Create flags
+        final Set<Flag> flags = new HashSet<>();
+        for (final String str : record.flags) {
+            flags.add(getFlagFromFileFormat(str));
+        }
+
+        final Set<PlayerContainerPlayer> pNotifs = new TreeSet<>();
+        for (final String str : record.pNotifs) {
+            pNotifs.add((PlayerContainerPlayer) playerContainers.getPlayerContainerFromFileFormat(str));
+        }
+
         // Create land
-        for (final Map.Entry<Integer, Area> entry : areas.entrySet()) {
+        for (final Map.Entry<Integer, Area> entry : record.areas.entrySet()) {
             if (!isLandCreated) {
                 try {
-                    land = secuboid.getLands().createLand(landName, isApproved, owner, entry.getValue(), null,
-                            entry.getKey(), uuid, secuboid.getTypes().addOrGetType(type));
+                    land = secuboid.getLands().createLand(landName, record.isApproved, owner, entry.getValue(), null,
+                            entry.getKey(), record.uuid, secuboid.getTypes().addOrGetType(record.type));
                 } catch (final SecuboidLandException ex) {
                     secuboid.getLogger().severe("Error on loading land " + landName + ":" + ex.getLocalizedMessage());
                     return null;
@@ -361,25 +485,27 @@ public final class LandsFlat {
         for (final Flag flag : flags) {
             land.getPermissionsFlags().addFlag(flag);
         }
-        land.setPriority(priority);
-        land.addMoney(money);
+        land.setPriority(record.priority);
+        land.addMoney(record.money);
         for (final PlayerContainerPlayer pNotif : pNotifs) {
             land.addPlayerNotify(pNotif);
         }
 
         // Economy add
-        if (forSale) {
-            land.setForSale(true, salePrice, forSaleSignLoc);
+        if (record.forSale) {
+            land.setForSale(true, record.salePrice, record.forSaleSignLoc);
         }
-        if (forRent) {
-            land.setForRent(rentPrice, rentRenew, rentAutoRenew, forRentSignLoc);
-            if (rented) {
-                land.setRented(tenant, false);
-                land.setLastPaymentTime(lastPayment);
+        if (record.forRent) {
+            land.setForRent(record.rentPrice, record.rentRenew, record.rentAutoRenew, record.forRentSignLoc);
+            if (record.rented) {
+                land.setRented((PlayerContainerPlayer) playerContainers.getPlayerContainerFromFileFormat(
+                        record.tenantS), false);
+                land.setLastPaymentTime(record.lastPayment);
             }
         }
 
-        return new AbstractMap.SimpleEntry<Land, UUID>(land, parentUUID != null ? UUID.fromString(parentUUID) : null);
+        return new AbstractMap.SimpleEntry<Land, UUID>(land,
+                record.parentUUID != null ? UUID.fromString(record.parentUUID) : null);
     }
 
     void saveLand(final Land land) {
@@ -492,4 +618,92 @@ public final class LandsFlat {
 
         return secuboid.getPermissionsFlags().newFlag(ft, value, Boolean.parseBoolean(multiStr[2]));
     }
-}
\ No newline at end of file
+
+    /**
+     * The result of a land file parse: a land record, or null if the error is
+     * already reported, or an unexpected exception.
+     */
+    private static final class ParseResult {
+
+        private final File file;
+        private final LandRecord recordNullable;
+        private final RuntimeException exceptionNullable;
+
+        private ParseResult(final File file, final LandRecord recordNullable,
+                            final RuntimeException exceptionNullable) {
+            this.file = file;
+            this.recordNullable = recordNullable;
+            this.exceptionNullable = exceptionNullable;
+        }
+    }
+
+    /**
+     * The immutable content of a land file, before the creation of the land.
+     */
+    private static final class LandRecord {
+
+        private final String fileName;
+        private final UUID uuid;
+        private final String landName;
+        private final boolean isApproved;
+        private final String type;
+        private final String ownerS;
+        private final String parentUUID;
+        private final Map<Integer, Area> areas;
+        private final List<String> residents;
+        private final List<String> banneds;
+        private final List<String> permissions;
+        private final List<String> flags;
+        private final short priority;
+        private final double money;
+        private final List<String> pNotifs;
+        private final boolean forSale;
+        private final LandLocation forSaleSignLoc;
+        private final double salePrice;
+        private final boolean forRent;
+        private final LandLocation forRentSignLoc;
+        private final double rentPrice;
+        private final int rentRenew;
+        private final boolean rentAutoRenew;
+        private final boolean rented;
+        private final String tenantS;
+        private final long lastPayment;
+
+        private LandRecord(final String fileName, final UUID uuid, final String landName, final boolean isApproved,
+                           final String type, final String ownerS, final String parentUUID,
+                           final Map<Integer, Area> areas, final List<String> residents, final List<String> banneds,
+                           final List<String> permissions, final List<String> flags, final short priority,
+                           final double money, final List<String> pNotifs, final boolean forSale,
+                           final LandLocation forSaleSignLoc, final double salePrice, final boolean forRent,
+                           final LandLocation forRentSignLoc, final double rentPrice, final int rentRenew,
+                           final boolean rentAutoRenew, final boolean rented, final String tenantS,
+                           final long lastPayment) {
+            this.fileName = fileName;
+            this.uuid = uuid;
+            this.landName = landName;
+            this.isApproved = isApproved;
+            this.type = type;
+            this.ownerS = ownerS;
+            this.parentUUID = parentUUID;
+            this.areas = Collections.unmodifiableMap(areas);
+            this.residents = Collections.unmodifiableList(residents);
+            this.banneds = Collections.unmodifiableList(banneds);
+            this.permissions = Collections.unmodifiableList(permissions);
+            this.flags = Collections.unmodifiableList(flags);
+            this.priority = priority;
+            this.money = money;
+            this.pNotifs = Collections.unmodifiableList(pNotifs);
+            this.forSale = forSale;
+            this.forSaleSignLoc = forSaleSignLoc;
+            this.salePrice = salePrice;
+            this.forRent = forRent;
+            this.forRentSignLoc = forRentSignLoc;
+            this.rentPrice = rentPrice;
+            this.rentRenew = rentRenew;
+            this.rentAutoRenew = rentAutoRenew;
+            this.rented = rented;
+            this.tenantS = tenantS;
+            this.lastPayment = lastPayment;
+        }
+    }
+}
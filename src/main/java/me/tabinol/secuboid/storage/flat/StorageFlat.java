@@ -17,6 +17,7 @@
  */
 package me.tabinol.secuboid.storage.flat;
 
+import me.tabinol.secuboid.inventories.InventorySpec;
 import me.tabinol.secuboid.inventories.PlayerInvEntry;
 import me.tabinol.secuboid.inventories.PlayerInventoryCache;
 import me.tabinol.secuboid.lands.Land;
@@ -47,6 +48,19 @@ public class StorageFlat implements Storage {
         this.inventoriesFlat = inventoriesFlat;
     }
 
+    /**
+     * Creates a storage with the lands in other files. The lands methods
+     * loadLands, saveLand and removeLand must be overridden.
+     *
+     * @param approvesFlat     the approves flat
+     * @param playersCacheFlat the players cache flat
+     * @param inventoriesFlat  the inventories flat
+     */
+    protected StorageFlat(final ApprovesFlat approvesFlat, final PlayersCacheFlat playersCacheFlat,
+            final InventoriesFlat inventoriesFlat) {
+        this(null, approvesFlat, playersCacheFlat, inventoriesFlat);
+    }
+
     @Override
     public boolean loadAll() {
         loadPlayersCache();
@@ -74,84 +88,84 @@ public class StorageFlat implements Storage {
 
     @Override
     public void removeLandArea(final Land land, final Area area) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandArea(final Land land, final Area area) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeLandBanned(final Land land, final PlayerContainer playerContainer) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandBanned(final Land land, final PlayerContainer playerContainer) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeLandFlag(final Land land, final Flag flag) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeAllLandFlags(final Land land) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandFlag(final Land land, final Flag flag) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeLandPermission(final Land land, final PlayerContainer playerContainer,
             final Permission permission) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeAllLandPermissions(final Land land) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandPermission(final Land land, final PlayerContainer playerContainer,
             final Permission permission) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeLandPlayerNotify(final Land land, final PlayerContainerPlayer pcp) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeAllLandPlayerNotify(final Land land) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandPlayerNotify(final Land land, final PlayerContainerPlayer pcp) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeLandResident(final Land land, final PlayerContainer playerContainer) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void removeAllLandResidents(final Land land) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
     public void saveLandResident(final Land land, final PlayerContainer playerContainer) {
-        landsFlat.saveLand(land);
+        saveLand(land);
     }
 
     @Override
@@ -190,8 +204,9 @@ public class StorageFlat implements Storage {
     }
 
     @Override
-    public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache) {
-        inventoriesFlat.loadInventoriesPlayer(playerInventoryCache);
+    public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec) {
+        inventoriesFlat.loadInventoriesPlayer(playerInventoryCache, inventorySpec);
     }
 
     @Override
@@ -218,4 +233,9 @@ public class StorageFlat implements Storage {
     public void savePlayerCacheEntry(final PlayerCacheEntry playerCacheEntry) {
         playersCacheFlat.savePlayersCache();
     }
+
+    @Override
+    public void close() {
+        // Nothing to close for flat files
+    }
 }
@@ -0,0 +1,549 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import me.tabinol.secuboid.utilities.DbUtils.SqlSupplier;
+
+/**
+ * Bounded pool of database connections. A connection from the pool is a proxy,
+ * closing it gives the connection back to the pool. An idle connection is
+ * validated before reuse if it was idle for a while, and it is closed after the
+ * idle timeout. Every pooled connection has a cache of its prepared statements:
+ * closing a cached statement clears the parameters and keeps it open.
+ */
+public final class ConnectionPool {
+
+    /**
+     * Idle time before a connection is validated on reuse.
+     */
+    private static final long VALIDATION_IDLE_MILLIS = 5_000L;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final SqlSupplier<Connection> connectionFactory;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long waitTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Object lock;
+
+    /**
+     * Idle connections, the last released first.
+     */
+    private final Deque<PooledConnection> idleConnections;
+
+    /**
+     * Opened physical connections, idle or in use.
+     */
+    private int openConnections;
+
+    private final LongAdder createdConnections;
+    private final LongAdder statementHits;
+    private final LongAdder statementMisses;
+
+    /**
+     * Instantiates a new connection pool.
+     *
+     * @param connectionFactory  the factory for new physical connections
+     * @param maxSize            the maximum opened connections
+     * @param idleTimeoutMillis  the idle time before closing a connection
+     * @param waitTimeoutMillis  the maximum wait time for a free connection
+     * @param statementCacheSize the maximum prepared statements cached by
+     *                           connection, 0 for no cache
+     */
+    public ConnectionPool(final SqlSupplier<Connection> connectionFactory, final int maxSize,
+            final long idleTimeoutMillis, final long waitTimeoutMillis, final int statementCacheSize) {
+        this.connectionFactory = connectionFactory;
+        this.maxSize = Math.max(maxSize, 1);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+        lock = new Object();
+        idleConnections = new ArrayDeque<>();
+        openConnections = 0;
+        createdConnections = new LongAdder();
+        statementHits = new LongAdder();
+        statementMisses = new LongAdder();
+    }
+
+    /**
+     * Gets a connection from the pool, or opens a new one. Waits for a released
+     * connection if the pool is full.
+     *
+     * @return the connection, to close after use
+     * @throws SQLException if no connection is available
+     */
+    public Connection getConnection() throws SQLException {
+        final long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        while (true) {
+            final PooledConnection pooledConnectionNullable = takeIdleOrReserve(deadline);
+            if (pooledConnectionNullable == null) {
+                return openNewConnection().lease();
+            }
+            if (isValid(pooledConnectionNullable)) {
+                return pooledConnectionNullable.lease();
+            }
+            discard(pooledConnectionNullable);
+        }
+    }
+
+    /**
+     * Closes the idle connections. The pool stays usable and opens new
+     * connections when needed.
+     */
+    public void closeIdle() {
+        final List<PooledConnection> toClose;
+        synchronized (lock) {
+            toClose = new ArrayList<>(idleConnections);
+            idleConnections.clear();
+            openConnections -= toClose.size();
+            lock.notifyAll();
+        }
+        toClose.forEach(PooledConnection::closePhysical);
+    }
+
+    /**
+     * Prepares a statement. If the connection is from this pool, the statement
+     * comes from the connection statement cache.
+     *
+     * @param conn              the connection
+     * @param sql               the sql
+     * @param autoGeneratedKeys a flag from Statement for generated keys
+     * @return the prepared statement, to close after use
+     * @throws SQLException the SQL exception
+     */
+    public PreparedStatement prepareStatement(final Connection conn, final String sql, final int autoGeneratedKeys)
+            throws SQLException {
+        if (Proxy.isProxyClass(conn.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(conn);
+            if (handler instanceof ConnectionHandler && ((ConnectionHandler) handler).getPool() == this) {
+                return ((ConnectionHandler) handler).prepareCachedStatement(conn, sql, autoGeneratedKeys);
+            }
+        }
+        return prepareUncached(conn, sql, autoGeneratedKeys);
+    }
+
+    /**
+     * Gets the number of opened physical connections.
+     *
+     * @return the opened connections
+     */
+    public int getOpenConnections() {
+        synchronized (lock) {
+            return openConnections;
+        }
+    }
+
+    /**
+     * Gets the number of idle connections.
+     *
+     * @return the idle connections
+     */
+    public int getIdleConnections() {
+        synchronized (lock) {
+            return idleConnections.size();
+        }
+    }
+
+    /**
+     * Gets the number of physical connections created since the start.
+     *
+     * @return the created connections
+     */
+    public long getCreatedConnections() {
+        return createdConnections.sum();
+    }
+
+    /**
+     * Gets the number of prepared statements found in cache.
+     *
+     * @return the statement hits
+     */
+    public long getStatementHits() {
+        return statementHits.sum();
+    }
+
+    /**
+     * Gets the number of prepared statements not found in cache.
+     *
+     * @return the statement misses
+     */
+    public long getStatementMisses() {
+        return statementMisses.sum();
+    }
+
+    /**
+     * Takes an idle connection, or reserves a place for a new connection.
+     *
+     * @param deadline the wait deadline
+     * @return the idle connection, or null if a new connection is reserved
+     * @throws SQLException on timeout or interruption
+     */
+    private PooledConnection takeIdleOrReserve(final long deadline) throws SQLException {
+        final List<PooledConnection> expired = new ArrayList<>();
+        try {
+            synchronized (lock) {
+                while (true) {
+                    final long now = System.currentTimeMillis();
+                    removeExpired(now, expired);
+                    final PooledConnection pooledConnection = idleConnections.pollFirst();
+                    if (pooledConnection != null) {
+                        return pooledConnection;
+                    }
+                    if (openConnections < maxSize) {
+                        openConnections++;
+                        return null;
+                    }
+                    final long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        throw new SQLException(String.format(
+                                "No free database connection after %d ms, the pool size is %d.", waitTimeoutMillis,
+                                maxSize));
+                    }
+                    lock.wait(remaining);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        } finally {
+            expired.forEach(PooledConnection::closePhysical);
+        }
+    }
+
+    /**
+     * Removes the idle connections older than the idle timeout. Must be called
+     * with the lock.
+     *
+     * @param now     the actual time
+     * @param expired the list where the removed connections are added
+     */
+    private void removeExpired(final long now, final List<PooledConnection> expired) {
+        PooledConnection oldest;
+        while ((oldest = idleConnections.peekLast()) != null && now - oldest.lastUsedMillis > idleTimeoutMillis) {
+            idleConnections.pollLast();
+            openConnections--;
+            expired.add(oldest);
+        }
+    }
+
+    private PooledConnection openNewConnection() throws SQLException {
+        final Connection physical;
+        try {
+            physical = connectionFactory.get();
+        } catch (final SQLException | RuntimeException e) {
+            releasePlace();
+            throw e;
+        }
+        createdConnections.increment();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isValid(final PooledConnection pooledConnection) {
+        if (System.currentTimeMillis() - pooledConnection.lastUsedMillis <= VALIDATION_IDLE_MILLIS) {
+            return true;
+        }
+        try {
+            return pooledConnection.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (final SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives back a connection after use.
+     *
+     * @param pooledConnection the pooled connection
+     */
+    private void release(final PooledConnection pooledConnection) {
+        boolean isReusable;
+        try {
+            // Unfinished transaction
+            if (!pooledConnection.physical.getAutoCommit()) {
+                pooledConnection.physical.rollback();
+                pooledConnection.physical.setAutoCommit(true);
+            }
+            isReusable = !pooledConnection.physical.isClosed();
+        } catch (final SQLException e) {
+            isReusable = false;
+        }
+        if (!isReusable) {
+            discard(pooledConnection);
+            return;
+        }
+        synchronized (lock) {
+            pooledConnection.lastUsedMillis = System.currentTimeMillis();
+            idleConnections.addFirst(pooledConnection);
+            lock.notifyAll();
+        }
+    }
+
+    private void discard(final PooledConnection pooledConnection) {
+        pooledConnection.closePhysical();
+        releasePlace();
+    }
+
+    private void releasePlace() {
+        synchronized (lock) {
+            openConnections--;
+            lock.notifyAll();
+        }
+    }
+
+    private static PreparedStatement prepareUncached(final Connection conn, final String sql,
+            final int autoGeneratedKeys) throws SQLException {
+        if (autoGeneratedKeys == Statement.NO_GENERATED_KEYS) {
+            return conn.prepareStatement(sql);
+        }
+        return conn.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private static Object invokeTarget(final Object target, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A physical connection with its statement cache. Used by one thread at a
+     * time.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private final Map<String, CachedStatement> sqlToStatement;
+        private long lastUsedMillis;
+
+        private PooledConnection(final Connection physical) {
+            this.physical = physical;
+            sqlToStatement = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CachedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        eldest.getValue().evict();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            lastUsedMillis = System.currentTimeMillis();
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new ConnectionHandler(this));
+        }
+
+        private void closePhysical() {
+            for (final CachedStatement cachedStatement : sqlToStatement.values()) {
+                cachedStatement.evict();
+            }
+            sqlToStatement.clear();
+            try {
+                physical.close();
+            } catch (final SQLException e) {
+                // Already broken, nothing to do
+            }
+        }
+    }
+
+    /**
+     * A prepared statement kept open in the connection cache.
+     */
+    private static final class CachedStatement {
+
+        private final PreparedStatement statement;
+        private boolean isInUse;
+        private boolean isEvicted;
+
+        private CachedStatement(final PreparedStatement statement) {
+            this.statement = statement;
+            isInUse = false;
+            isEvicted = false;
+        }
+
+        private void evict() {
+            isEvicted = true;
+            if (!isInUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (final SQLException e) {
+                // Nothing to do
+            }
+        }
+    }
+
+    /**
+     * Proxy handler for one lease of a pooled connection.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final PooledConnection pooledConnection;
+        private boolean isClosed;
+
+        private ConnectionHandler(final PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+            isClosed = false;
+        }
+
+        private ConnectionPool getPool() {
+            return ConnectionPool.this;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!isClosed) {
+                        isClosed = true;
+                        release(pooledConnection);
+                    }
+                    return null;
+                case "isClosed":
+                    return isClosed || pooledConnection.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + pooledConnection.physical;
+                default:
+            }
+            if (isClosed) {
+                throw new SQLException("The connection is closed.");
+            }
+            return invokeTarget(pooledConnection.physical, method, args);
+        }
+
+        private PreparedStatement prepareCachedStatement(final Connection proxy, final String sql,
+                final int autoGeneratedKeys) throws SQLException {
+            if (isClosed) {
+                throw new SQLException("The connection is closed.");
+            }
+            if (statementCacheSize == 0) {
+                statementMisses.increment();
+                return prepareUncached(pooledConnection.physical, sql, autoGeneratedKeys);
+            }
+
+            final String key = autoGeneratedKeys + ":" + sql;
+            CachedStatement cachedStatement = pooledConnection.sqlToStatement.get(key);
+            if (cachedStatement != null && cachedStatement.isInUse) {
+                // Same statement opened twice, the second one is not cached
+                statementMisses.increment();
+                return prepareUncached(pooledConnection.physical, sql, autoGeneratedKeys);
+            }
+            if (cachedStatement == null || cachedStatement.statement.isClosed()) {
+                statementMisses.increment();
+                cachedStatement = new CachedStatement(
+                        prepareUncached(pooledConnection.physical, sql, autoGeneratedKeys));
+                pooledConnection.sqlToStatement.put(key, cachedStatement);
+            } else {
+                statementHits.increment();
+            }
+            cachedStatement.isInUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new StatementHandler(cachedStatement, proxy));
+        }
+    }
+
+    /**
+     * Proxy handler for one use of a cached prepared statement.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final CachedStatement cachedStatement;
+        private final Connection connectionProxy;
+        private boolean isClosed;
+
+        private StatementHandler(final CachedStatement cachedStatement, final Connection connectionProxy) {
+            this.cachedStatement = cachedStatement;
+            this.connectionProxy = connectionProxy;
+            isClosed = false;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!isClosed) {
+                        isClosed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return isClosed;
+                case "getConnection":
+                    return connectionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached " + cachedStatement.statement;
+                default:
+            }
+            if (isClosed) {
+                throw new SQLException("The statement is closed.");
+            }
+            return invokeTarget(cachedStatement.statement, method, args);
+        }
+
+        private void giveBack() {
+            cachedStatement.isInUse = false;
+            if (cachedStatement.isEvicted) {
+                cachedStatement.closeQuietly();
+                return;
+            }
+            try {
+                cachedStatement.statement.clearParameters();
+                cachedStatement.statement.clearBatch();
+            } catch (final SQLException e) {
+                // Prepared again on next use
+                cachedStatement.closeQuietly();
+            }
+        }
+    }
+}
@@ -21,7 +21,10 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import me.tabinol.secuboid.utilities.DbUtils.SqlBiConsumer;
 
@@ -36,46 +39,79 @@ public final class DatabaseConnection {
 
     private static final int MAX_BATCH_SIZE = 1_000;
 
+    /**
+     * The maximum wait time for a free connection in the pool.
+     */
+    private static final long POOL_WAIT_TIMEOUT_MILLIS = 30_000L;
+
     private final String hostName;
     private final int port;
     private final String database;
     private final String user;
     private final String password;
     private final String prefix;
+    private final ConnectionPool connectionPool;
+    private final Map<String, String> sqlWithTagsToSql;
 
     public DatabaseConnection(final String hostName, final int port, final String database, final String user,
-            final String password, final String prefix) {
+            final String password, final String prefix, final int poolSize, final long poolIdleTimeoutMillis,
+            final int statementCacheSize) {
         this.hostName = hostName;
         this.port = port;
         this.database = database;
         this.user = user;
         this.password = password;
         this.prefix = prefix;
+        connectionPool = new ConnectionPool(this::openPhysicalConnection, poolSize, poolIdleTimeoutMillis,
+                POOL_WAIT_TIMEOUT_MILLIS, statementCacheSize);
+        sqlWithTagsToSql = new ConcurrentHashMap<>();
     }
 
     void loadDriver() throws ClassNotFoundException {
         Class.forName("com.mysql.jdbc.Driver");
     }
 
+    /**
+     * Gets a connection from the pool. Closing the connection gives it back to the
+     * pool.
+     *
+     * @return the connection
+     * @throws SQLException the SQL exception
+     */
     public Connection openConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * Closes the idle connections of the pool.
+     */
+    public void closeIdleConnections() {
+        connectionPool.closeIdle();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
         final String url = String.format("jdbc:mysql://%s:%s/%s", hostName, port, database);
         return DriverManager.getConnection(url, user, password);
     }
 
     public String convertStmtStrTags(final String stmtStr) {
-        return stmtStr //
+        return sqlWithTagsToSql.computeIfAbsent(stmtStr, k -> k //
                 .replace(PATERN_LS_SEARCH, PATERN_LS_REPLACE) //
-                .replace(PATERN_TP_SEARCH, prefix);
+                .replace(PATERN_TP_SEARCH, prefix));
     }
 
     public PreparedStatement preparedStatementWithTags(final Connection conn, final String sqlWithTags)
             throws SQLException {
-        return conn.prepareStatement(convertStmtStrTags(sqlWithTags));
+        return connectionPool.prepareStatement(conn, convertStmtStrTags(sqlWithTags), Statement.NO_GENERATED_KEYS);
     }
 
     public PreparedStatement preparedStatementWithTags(final Connection conn, final String sqlWithTags,
             int columnIndexes) throws SQLException {
-        return conn.prepareStatement(convertStmtStrTags(sqlWithTags), columnIndexes);
+        return connectionPool.prepareStatement(conn, convertStmtStrTags(sqlWithTags), columnIndexes);
     }
 
     public <I> void prepareStatementAndExecuteBatch(final Connection conn, final String sqlWithTags,
@@ -33,6 +33,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -55,6 +56,7 @@ import me.tabinol.secuboid.lands.approve.Approve;
 import me.tabinol.secuboid.lands.areas.Area;
 import me.tabinol.secuboid.lands.areas.AreaType;
 import me.tabinol.secuboid.lands.areas.ChunkMatrix;
+import me.tabinol.secuboid.lands.areas.ChunkMatrixMap;
 import me.tabinol.secuboid.lands.areas.CuboidArea;
 import me.tabinol.secuboid.lands.areas.CylinderArea;
 import me.tabinol.secuboid.lands.areas.RegionMatrix;
@@ -134,6 +136,34 @@ public final class StorageMySql implements Storage {
     private final InventoriesDeathsDao inventoriesDeathsDao;
     private final InventoriesPotionEffectsDao inventoriesPotionEffectsDao;
 
+    /**
+     * The land transaction in progress, used from the storage thread only.
+     */
+    private LandTransaction landTransactionNullable;
+
+    /**
+     * Land changes in one transaction, with the inserts waiting for a batch.
+     */
+    private static final class LandTransaction {
+        final Connection conn;
+        final Land land;
+        final List<PermissionPojo> permissionPojos;
+        final List<Long> residentIds;
+        final List<Long> bannedIds;
+        String errorMessageNullable;
+        SQLException exceptionNullable;
+
+        LandTransaction(final Connection conn, final Land land) {
+            this.conn = conn;
+            this.land = land;
+            permissionPojos = new ArrayList<>();
+            residentIds = new ArrayList<>();
+            bannedIds = new ArrayList<>();
+            errorMessageNullable = null;
+            exceptionNullable = null;
+        }
+    }
+
     public StorageMySql(final Secuboid secuboid, final DatabaseConnection dbConn) {
         this.secuboid = secuboid;
         this.dbConn = dbConn;
@@ -176,6 +206,7 @@ public final class StorageMySql implements Storage {
         inventoriesSavesDao = new InventoriesSavesDao(dbConn);
         inventoriesDeathsDao = new InventoriesDeathsDao(dbConn);
         inventoriesPotionEffectsDao = new InventoriesPotionEffectsDao(dbConn);
+        landTransactionNullable = null;
     }
 
     @Override
@@ -302,7 +333,7 @@ public final class StorageMySql implements Storage {
 
     @Override
     public void saveLand(final Land land) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
 
             // Get landType
             final Type type = land.getType();
@@ -366,48 +397,43 @@ public final class StorageMySql implements Storage {
                     salePriceNullable, isForRent, forRentSignLocationNullable, rentPriceNullable, rentRenewNullable, rentAutoRenewNullable,
                     tenantUUIDNullable, lastPaymentMillisNullable);
             landsDao.insertOrUpdateLand(conn, landPojo);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format("Unable to save the land to database [landUUID=%s, landName=%s]",
-                    land.getUUID(), land.getName()), e);
-        }
+        }, () -> String.format("Unable to save the land to database [landUUID=%s, landName=%s]",
+                land.getUUID(), land.getName()));
     }
 
     @Override
     public void removeLand(final Land land) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             // Remove areas
             for (Area area : land.getAreas()) {
-                removeLandArea(land, area);
+                removeLandArea(conn, land, area);
             }
 
             // Remove land
             landsDao.deleteLand(conn, land.getUUID());
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format("Unable to delete the land from database [landUUID=%s, landName=%s]",
-                    land.getUUID(), land.getName()), e);
-        }
+        }, () -> String.format("Unable to delete the land from database [landUUID=%s, landName=%s]",
+                land.getUUID(), land.getName()));
     }
 
     @Override
     public void removeLandArea(final Land land, final Area area) {
-        try (final Connection conn = dbConn.openConnection()) {
-            final UUID landUUID = land.getUUID();
-            final int areaId = area.getKey();
-            if (area.getAreaType() == AreaType.ROAD) {
-                areasRoadsMatricesDao.deleteRoadMatrix(conn, landUUID, areaId);
-            }
-            areasDao.deleteArea(conn, landUUID, areaId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format("Unable to remove the land area from database [landUUID=%s, landName=%s, areaId=%s]",
-                            land.getUUID(), land.getName(), area.getKey()),
-                    e);
+        doLandSql(conn -> removeLandArea(conn, land, area),
+                () -> String.format("Unable to remove the land area from database [landUUID=%s, landName=%s, areaId=%s]",
+                        land.getUUID(), land.getName(), area.getKey()));
+    }
+
+    private void removeLandArea(final Connection conn, final Land land, final Area area) throws SQLException {
+        final UUID landUUID = land.getUUID();
+        final int areaId = area.getKey();
+        if (area.getAreaType() == AreaType.ROAD) {
+            areasRoadsMatricesDao.deleteRoadMatrix(conn, landUUID, areaId);
         }
+        areasDao.deleteArea(conn, landUUID, areaId);
     }
 
     @Override
     public void saveLandArea(final Land land, final Area area) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long areaTypeId = areasTypesDao.insertOrGetId(conn, area.getAreaType().name());
             final AreaPojo areaPojo = new AreaPojo(land.getUUID(), area.getKey(), area.isApproved(),
                     area.getWorldName(), areaTypeId, area.getX1(), area.getY1(), area.getZ1(), area.getX2(),
@@ -416,51 +442,47 @@ public final class StorageMySql implements Storage {
 
             // For road matrices
             if (area.getAreaType() == AreaType.ROAD) {
-                for (final Map.Entry<Integer, Map<Integer, ChunkMatrix>> pointsEntry : ((RoadArea) area).getPoints()
-                        .entrySet()) {
-                    final int chunkX = pointsEntry.getKey();
-                    for (final Map.Entry<Integer, ChunkMatrix> pointsZEntry : pointsEntry.getValue().entrySet()) {
-                        final RoadMatrixPojo roadMatrixPojo = new RoadMatrixPojo(land.getUUID(), area.getKey(), chunkX,
-                                pointsZEntry.getKey(), pointsZEntry.getValue().getMatrix());
-                        areasRoadsMatricesDao.insertOrUpdateRoadMatrix(conn, roadMatrixPojo);
-                    }
+                final ChunkMatrixMap chunkMatrices = ((RoadArea) area).getChunkMatrices();
+                final List<RoadMatrixPojo> roadMatrixPojos = new ArrayList<>(chunkMatrices.size());
+                final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+                while (cursor.next()) {
+                    roadMatrixPojos.add(new RoadMatrixPojo(land.getUUID(), area.getKey(), cursor.getChunkX(),
+                            cursor.getChunkZ(), cursor.getMatrix().getMatrix()));
                 }
+                areasRoadsMatricesDao.insertOrUpdateRoadMatrices(conn, roadMatrixPojos);
             }
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format("Unable to save the land area to database [landUUID=%s, landName=%s, areaId=%s]",
-                            land.getUUID(), land.getName(), area.getKey()),
-                    e);
-        }
+        }, () -> String.format("Unable to save the land area to database [landUUID=%s, landName=%s, areaId=%s]",
+                land.getUUID(), land.getName(), area.getKey()));
     }
 
     @Override
     public void removeLandBanned(final Land land, final PlayerContainer playerContainer) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
             landsBannedDao.delete(conn, land.getUUID(), playerContainerId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to remove the banned from the land from database [landUUID=%s, landName=%s, playerContainer=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat()), e);
-        }
+        }, () -> String.format(
+                "Unable to remove the banned from the land from database [landUUID=%s, landName=%s, playerContainer=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat()));
     }
 
     @Override
     public void saveLandBanned(final Land land, final PlayerContainer playerContainer) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSqlBatched(conn -> {
             final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
-            landsBannedDao.insert(conn, land.getUUID(), playerContainerId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to add the banned to the land to database [landUUID=%s, landName=%s, playerContainer=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat()), e);
-        }
+            final LandTransaction landTransactionNullable = getLandTransactionNullable(land);
+            if (landTransactionNullable != null) {
+                landTransactionNullable.bannedIds.add(playerContainerId);
+            } else {
+                landsBannedDao.insert(conn, land.getUUID(), playerContainerId);
+            }
+        }, () -> String.format(
+                "Unable to add the banned to the land to database [landUUID=%s, landName=%s, playerContainer=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat()));
     }
 
     @Override
     public void removeLandFlag(final Land land, final Flag flag) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long flagId = flagsTypesDao.insertOrGetId(conn, flag.getFlagType().getName());
             final Object flagValueObj = flag.getValue().getValue();
 
@@ -480,19 +502,15 @@ public final class StorageMySql implements Storage {
 
             // Delete flag
             flagsDao.deleteLandFlag(conn, land.getUUID(), flagId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format(
-                            "Unable to remove the flag from the land from database [landUUID=%s, landName=%s, flag=%s]",
-                            land.getUUID(), land.getName(), flag.toFileFormat()),
-                    e);
-        }
+        }, () -> String.format(
+                "Unable to remove the flag from the land from database [landUUID=%s, landName=%s, flag=%s]",
+                land.getUUID(), land.getName(), flag.toFileFormat()));
     }
 
     @Override
     public void removeAllLandFlags(final Land land) {
         final UUID landUUID = land.getUUID();
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final Set<Long> flagIds = flagsDao.getLandFlagIds(conn, landUUID);
             for (final long flagId : flagIds) {
                 flagsValuesBooleanDao.delete(conn, flagId);
@@ -501,17 +519,13 @@ public final class StorageMySql implements Storage {
                 flagsValuesListDao.deleteLandFlagValueList(conn, flagId);
             }
             flagsDao.deleteAllLandFlags(conn, landUUID);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format("Unable to remove all flags from the land from database [landUUID=%s, landName=%s]",
-                            landUUID, land.getName()),
-                    e);
-        }
+        }, () -> String.format("Unable to remove all flags from the land from database [landUUID=%s, landName=%s]",
+                landUUID, land.getName()));
     }
 
     @Override
     public void saveLandFlag(final Land land, final Flag flag) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long flagId = flagsTypesDao.insertOrGetId(conn, flag.getFlagType().getName());
 
             // Insert flag first (foreign key)
@@ -530,126 +544,209 @@ public final class StorageMySql implements Storage {
                 flagsValuesListDao.deleteLandFlagValueList(conn, landFlagId);
                 flagsValuesListDao.insertLandFlagValueListItem(conn, landFlagId, (String[]) flagValueObj);
             }
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format("Unable to add the flag to the land to database [landUUID=%s, landName=%s, flag=%s]",
-                            land.getUUID(), land.getName(), flag.toFileFormat()),
-                    e);
-        }
+        }, () -> String.format("Unable to add the flag to the land to database [landUUID=%s, landName=%s, flag=%s]",
+                land.getUUID(), land.getName(), flag.toFileFormat()));
     }
 
     @Override
     public void removeLandPermission(final Land land, final PlayerContainer playerContainer,
                                      final Permission permission) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
             final long permissionId = permissionsTypesDao.insertOrGetId(conn, permission.getPermType().getName());
             permissionsDao.deletePermission(conn, land.getUUID(), playerContainerId, permissionId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to remove the permission from the land from database [landUUID=%s, landName=%s, playerContainer=%s, permission=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat(), permission.toFileFormat()), e);
-        }
+        }, () -> String.format(
+                "Unable to remove the permission from the land from database [landUUID=%s, landName=%s, playerContainer=%s, permission=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat(), permission.toFileFormat()));
     }
 
     @Override
     public void removeAllLandPermissions(final Land land) {
-        try (final Connection conn = dbConn.openConnection()) {
-            permissionsDao.deleteAllLandPermissions(conn, land.getUUID());
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format(
-                            "Unable to remove all permissions from the land from database [landUUID=%s, landName=%s]",
-                            land.getUUID(), land.getName()),
-                    e);
-        }
+        doLandSql(conn -> permissionsDao.deleteAllLandPermissions(conn, land.getUUID()),
+                () -> String.format(
+                        "Unable to remove all permissions from the land from database [landUUID=%s, landName=%s]",
+                        land.getUUID(), land.getName()));
     }
 
     @Override
     public void saveLandPermission(final Land land, final PlayerContainer playerContainer,
                                    final Permission permission) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSqlBatched(conn -> {
             final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
             final long permissionId = permissionsTypesDao.insertOrGetId(conn, permission.getPermType().getName());
             final PermissionPojo permissionPojo = new PermissionPojo(land.getUUID(), playerContainerId, permissionId,
                     permission.getValue(), permission.isInheritable());
-            permissionsDao.insertOrUpdatePermission(conn, permissionPojo);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to add the permission to the land to database [landUUID=%s, landName=%s, playerContainer=%s, permission=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat(), permission.toFileFormat()), e);
-        }
+            final LandTransaction landTransactionNullable = getLandTransactionNullable(land);
+            if (landTransactionNullable != null) {
+                landTransactionNullable.permissionPojos.add(permissionPojo);
+            } else {
+                permissionsDao.insertOrUpdatePermission(conn, permissionPojo);
+            }
+        }, () -> String.format(
+                "Unable to add the permission to the land to database [landUUID=%s, landName=%s, playerContainer=%s, permission=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat(), permission.toFileFormat()));
     }
 
     @Override
     public void removeLandPlayerNotify(final Land land, final PlayerContainerPlayer pcp) {
-        try (final Connection conn = dbConn.openConnection()) {
-            playerNotifiesDao.delete(conn, land.getUUID(), pcp.getMinecraftUUID());
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to remove the player notify from the land from database [landUUID=%s, landName=%s, playerUUID=%s]",
-                    land.getUUID(), land.getName(), pcp.getMinecraftUUID()), e);
-        }
+        doLandSql(conn -> playerNotifiesDao.delete(conn, land.getUUID(), pcp.getMinecraftUUID()),
+                () -> String.format(
+                        "Unable to remove the player notify from the land from database [landUUID=%s, landName=%s, playerUUID=%s]",
+                        land.getUUID(), land.getName(), pcp.getMinecraftUUID()));
     }
 
     @Override
     public void removeAllLandPlayerNotify(final Land land) {
-        try (final Connection conn = dbConn.openConnection()) {
-            playerNotifiesDao.delete(conn, land.getUUID());
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to delete all player notifies from the land from database [landUUID=%s, landName=%s]",
-                    land.getUUID(), land.getName()), e);
-        }
+        doLandSql(conn -> playerNotifiesDao.delete(conn, land.getUUID()),
+                () -> String.format(
+                        "Unable to delete all player notifies from the land from database [landUUID=%s, landName=%s]",
+                        land.getUUID(), land.getName()));
     }
 
     @Override
     public void saveLandPlayerNotify(final Land land, final PlayerContainerPlayer pcp) {
         final UUID playerUUID = pcp.getMinecraftUUID();
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             addUserInDatabaseIfNeeded(conn, playerUUID);
             playerNotifiesDao.insert(conn, land.getUUID(), playerUUID);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to add the player notify to the land to database [landUUID=%s, landName=%s, playerUUID=%s]",
-                    land.getUUID(), land.getName(), playerUUID), e);
-        }
+        }, () -> String.format(
+                "Unable to add the player notify to the land to database [landUUID=%s, landName=%s, playerUUID=%s]",
+                land.getUUID(), land.getName(), playerUUID));
     }
 
     @Override
     public void removeLandResident(final Land land, final PlayerContainer playerContainer) {
-        try (final Connection conn = dbConn.openConnection()) {
+        doLandSql(conn -> {
             final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
             landsResidentsDao.delete(conn, land.getUUID(), playerContainerId);
-        } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to remove the resident from the land from database [landUUID=%s, landName=%s, playerContainer=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat()), e);
-        }
+        }, () -> String.format(
+                "Unable to remove the resident from the land from database [landUUID=%s, landName=%s, playerContainer=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat()));
     }
 
     @Override
     public void removeAllLandResidents(final Land land) {
+        doLandSql(conn -> landsResidentsDao.delete(conn, land.getUUID()),
+                () -> String.format(
+                        "Unable to remove all the residents from the land from database [landUUID=%s, landName=%s]",
+                        land.getUUID(), land.getName()));
+    }
+
+    @Override
+    public void saveLandResident(final Land land, final PlayerContainer playerContainer) {
+        doLandSqlBatched(conn -> {
+            final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
+            final LandTransaction landTransactionNullable = getLandTransactionNullable(land);
+            if (landTransactionNullable != null) {
+                landTransactionNullable.residentIds.add(playerContainerId);
+            } else {
+                landsResidentsDao.insertIgnore(conn, land.getUUID(), playerContainerId);
+            }
+        }, () -> String.format(
+                "Unable to add the resident to the land to database [landUUID=%s, landName=%s, playerContainer=%s]",
+                land.getUUID(), land.getName(), playerContainer.toFileFormat()));
+    }
+
+    /**
+     * Saves the changes of a land in one transaction. The land save and remove
+     * methods called from the runnable use the same connection, and the
+     * permissions, residents and banned are inserted in batch. If a change fails,
+     * the transaction is rolled back and the changes are done again one by one.
+     * Called from the storage thread only.
+     *
+     * @param land        the land
+     * @param landChanges the calls to the land save and remove methods
+     */
+    public void doLandTransaction(final Land land, final Runnable landChanges) {
         try (final Connection conn = dbConn.openConnection()) {
-            landsResidentsDao.delete(conn, land.getUUID());
+            conn.setAutoCommit(false);
+            final LandTransaction landTransaction = new LandTransaction(conn, land);
+            landTransactionNullable = landTransaction;
+            try {
+                landChanges.run();
+                if (landTransaction.errorMessageNullable == null) {
+                    executeLandBatches(landTransaction);
+                    conn.commit();
+                    conn.setAutoCommit(true);
+                    return;
+                }
+            } catch (final SQLException e) {
+                landTransaction.errorMessageNullable = String.format(
+                        "Unable to commit the land changes to database [landUUID=%s, landName=%s]", land.getUUID(),
+                        land.getName());
+                landTransaction.exceptionNullable = e;
+            } finally {
+                landTransactionNullable = null;
+            }
+            conn.rollback();
+            conn.setAutoCommit(true);
+            log.log(Level.WARNING, landTransaction.errorMessageNullable + ". Retry the changes one by one.",
+                    landTransaction.exceptionNullable);
         } catch (final SQLException e) {
-            log.log(Level.SEVERE,
-                    String.format(
-                            "Unable to remove all the residents from the land from database [landUUID=%s, landName=%s]",
-                            land.getUUID(), land.getName()),
-                    e);
+            log.log(Level.WARNING, String.format(
+                    "Unable to do the land changes in one transaction [landUUID=%s, landName=%s]. Retry the changes one by one.",
+                    land.getUUID(), land.getName()), e);
         }
+        landChanges.run();
     }
 
-    @Override
-    public void saveLandResident(final Land land, final PlayerContainer playerContainer) {
+    private void doLandSql(final SqlConsumer<Connection> landSql, final Supplier<String> errorMessage) {
+        doLandSql(false, landSql, errorMessage);
+    }
+
+    private void doLandSqlBatched(final SqlConsumer<Connection> landSql, final Supplier<String> errorMessage) {
+        doLandSql(true, landSql, errorMessage);
+    }
+
+    private void doLandSql(final boolean isBatched, final SqlConsumer<Connection> landSql,
+                           final Supplier<String> errorMessage) {
+        final LandTransaction landTransaction = landTransactionNullable;
+        if (landTransaction != null) {
+            // Stop at the first error, the transaction will be rolled back
+            if (landTransaction.errorMessageNullable == null) {
+                try {
+                    if (!isBatched) {
+                        // Keep the order of the changes
+                        executeLandBatches(landTransaction);
+                    }
+                    landSql.accept(landTransaction.conn);
+                } catch (final SQLException e) {
+                    landTransaction.errorMessageNullable = errorMessage.get();
+                    landTransaction.exceptionNullable = e;
+                }
+            }
+            return;
+        }
+
         try (final Connection conn = dbConn.openConnection()) {
-            final long playerContainerId = getOrAddPlayerContainer(conn, playerContainer);
-            landsResidentsDao.insertIgnore(conn, land.getUUID(), playerContainerId);
+            landSql.accept(conn);
         } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format(
-                    "Unable to add the resident to the land to database [landUUID=%s, landName=%s, playerContainer=%s]",
-                    land.getUUID(), land.getName(), playerContainer.toFileFormat()), e);
+            log.log(Level.SEVERE, errorMessage.get(), e);
+        }
+    }
+
+    private LandTransaction getLandTransactionNullable(final Land land) {
+        final LandTransaction landTransaction = landTransactionNullable;
+        if (landTransaction != null && landTransaction.land == land) {
+            return landTransaction;
+        }
+        return null;
+    }
+
+    private void executeLandBatches(final LandTransaction landTransaction) throws SQLException {
+        final Connection conn = landTransaction.conn;
+        final UUID landUUID = landTransaction.land.getUUID();
+        if (!landTransaction.permissionPojos.isEmpty()) {
+            permissionsDao.insertOrUpdatePermissions(conn, landTransaction.permissionPojos);
+            landTransaction.permissionPojos.clear();
+        }
+        if (!landTransaction.residentIds.isEmpty()) {
+            landsResidentsDao.insertIgnore(conn, landUUID, landTransaction.residentIds);
+            landTransaction.residentIds.clear();
+        }
+        if (!landTransaction.bannedIds.isEmpty()) {
+            landsBannedDao.insert(conn, landUUID, landTransaction.bannedIds);
+            landTransaction.bannedIds.clear();
         }
     }
 
@@ -772,39 +869,34 @@ public final class StorageMySql implements Storage {
     }
 
     @Override
-    public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache) {
-        final Inventories inventories = secuboid.getInventoriesOpt().get();
-
+    public void loadInventoriesPlayer(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec) {
         try (final Connection conn = dbConn.openConnection()) {
-            for (final InventorySpec inventorySpec : inventories.getInvSpecs()) {
-                final long inventoryId = inventoriesDao.insertOrGetId(conn, inventorySpec.getInventoryName());
-
-                // Survival
-                final PlayerInvEntry survivalInvEntryNullable = createInventoriesEntryPlayerNullable(conn, playerInventoryCache, inventoryId, inventorySpec, false,
-                        null);
-                if (survivalInvEntryNullable != null) {
-                    inventories.saveInventory(null, survivalInvEntryNullable, false, false, false);
-                }
-
-                // Creative
-                final PlayerInvEntry creativeInvEntryNullable = createInventoriesEntryPlayerNullable(conn, playerInventoryCache, inventoryId, inventorySpec, true,
-                        null);
-                if (creativeInvEntryNullable != null) {
-                    inventories.saveInventory(null, creativeInvEntryNullable, false, false, false);
-                }
-
-                // Death
-                for (int deathVersion = PlayerInventoryCache.DEATH_SAVE_MAX_NBR; deathVersion > 0; deathVersion--) {
-                    final PlayerInvEntry deathInvEntryNullable = createInventoriesEntryPlayerNullable(conn, playerInventoryCache, inventoryId, inventorySpec, false,
-                            deathVersion);
-                    if (deathInvEntryNullable != null) {
-                        inventories.saveInventory(null, deathInvEntryNullable, true, false, false);
-                    }
+            final long inventoryId = inventoriesDao.insertOrGetId(conn, inventorySpec.getInventoryName());
+
+            // Survival
+            final PlayerInvEntry survivalInvEntryNullable = createInventoriesEntryPlayerNullable(conn,
+                    playerInventoryCache, inventoryId, inventorySpec, false, null);
+
+            // Creative
+            final PlayerInvEntry creativeInvEntryNullable = createInventoriesEntryPlayerNullable(conn,
+                    playerInventoryCache, inventoryId, inventorySpec, true, null);
+
+            // Death
+            final List<PlayerInvEntry> deathInvEntries = new ArrayList<>();
+            for (int deathVersion = 1; deathVersion <= PlayerInventoryCache.DEATH_SAVE_MAX_NBR; deathVersion++) {
+                final PlayerInvEntry deathInvEntryNullable = createInventoriesEntryPlayerNullable(conn,
+                        playerInventoryCache, inventoryId, inventorySpec, false, deathVersion);
+                if (deathInvEntryNullable != null) {
+                    deathInvEntries.add(deathInvEntryNullable);
                 }
             }
+
+            playerInventoryCache.setInventoriesLoaded(inventorySpec, survivalInvEntryNullable,
+                    creativeInvEntryNullable, deathInvEntries);
         } catch (final SQLException e) {
-            log.log(Level.SEVERE, String.format("Unable to load the inventory from database [name=%s]",
-                    playerInventoryCache.getName()), e);
+            log.log(Level.SEVERE, String.format("Unable to load the inventory from database [name=%s, inventory=%s]",
+                    playerInventoryCache.getName(), inventorySpec.getInventoryName()), e);
         }
     }
 
@@ -861,6 +953,11 @@ public final class StorageMySql implements Storage {
         }
     }
 
+    @Override
+    public void close() {
+        dbConn.closeIdleConnections();
+    }
+
     private PlayerContainer getPlayerContainer(final Map<Long, PlayerContainerPojo> idToPlayerContainerPojo,
                                                final Map<Long, String> idToPlayerContainerType, final long id) {
         final PlayerContainerPojo playerContainerPojo = idToPlayerContainerPojo.get(id);
@@ -945,14 +1042,15 @@ public final class StorageMySql implements Storage {
                             areaPojo.getY1(), areaPojo.getZ1(), areaPojo.getX2(), areaPojo.getY2(), areaPojo.getZ2());
                     break;
                 case ROAD:
-                    final Map<Integer, Map<Integer, ChunkMatrix>> points = new HashMap<>();
-                    for (final RoadMatrixPojo roadMatrixPojo : landUUIDToMatrices.get(landUUID)) {
-                        final ChunkMatrix chunkMatrix = new ChunkMatrix(roadMatrixPojo.getMatrix());
-                        points.computeIfAbsent(roadMatrixPojo.getChunkX(), k -> new HashMap<>())
-                                .put(roadMatrixPojo.getChunkZ(), chunkMatrix);
+                    final List<RoadMatrixPojo> roadMatrixPojos = landUUIDToMatrices.getOrDefault(landUUID,
+                            Collections.emptyList());
+                    final ChunkMatrixMap chunkMatrices = new ChunkMatrixMap(roadMatrixPojos.size());
+                    for (final RoadMatrixPojo roadMatrixPojo : roadMatrixPojos) {
+                        chunkMatrices.put(roadMatrixPojo.getChunkX(), roadMatrixPojo.getChunkZ(),
+                                new ChunkMatrix(roadMatrixPojo.getMatrix()));
                     }
                     area = new RoadArea(areaPojo.isApproved(), areaPojo.getWorldName(), areaPojo.getY1(),
-                            areaPojo.getY2(), new RegionMatrix(points));
+                            areaPojo.getY2(), new RegionMatrix(chunkMatrices));
                     break;
                 default:
                     // Impossible
@@ -61,24 +61,35 @@ public final class AreasRoadsMatricesDao {
         }
     }
 
-    public void insertOrUpdateRoadMatrix(final Connection conn, final RoadMatrixPojo roadMatrixPojo)
+    public void insertOrUpdateRoadMatrices(final Connection conn, final List<RoadMatrixPojo> roadMatrixPojos)
             throws SQLException {
         final String sql = "INSERT INTO `{{TP}}lands_areas_roads_matrices`(" //
                 + "`land_uuid`, `area_id`, `chunk_x`, `chunk_z`, `matrix`) " //
                 + "VALUES(?, ?, ?, ?, ?) " //
                 + "ON DUPLICATE KEY UPDATE " //
-                + "`matrix`=?";
+                + "`matrix`=VALUES(`matrix`)";
 
+        // Commit only if the connection is not already in a transaction
+        final boolean isAutoCommit = conn.getAutoCommit();
+        if (isAutoCommit) {
+            conn.setAutoCommit(false);
+        }
         try (final PreparedStatement stmt = dbConn.preparedStatementWithTags(conn, sql)) {
-            DbUtils.setUUID(stmt, 1, roadMatrixPojo.getLandUUID());
-            stmt.setInt(2, roadMatrixPojo.getAreaId());
-            stmt.setInt(3, roadMatrixPojo.getChunkX());
-            stmt.setInt(4, roadMatrixPojo.getChunkZ());
-            DbUtils.setMatrix16(stmt, 5, roadMatrixPojo.getMatrix());
-
-            DbUtils.setMatrix16(stmt, 6, roadMatrixPojo.getMatrix());
-
-            stmt.executeUpdate();
+            for (final RoadMatrixPojo roadMatrixPojo : roadMatrixPojos) {
+                DbUtils.setUUID(stmt, 1, roadMatrixPojo.getLandUUID());
+                stmt.setInt(2, roadMatrixPojo.getAreaId());
+                stmt.setInt(3, roadMatrixPojo.getChunkX());
+                stmt.setInt(4, roadMatrixPojo.getChunkZ());
+                DbUtils.setMatrix16(stmt, 5, roadMatrixPojo.getMatrix());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            if (isAutoCommit) {
+                conn.commit();
+            }
+        }
+        if (isAutoCommit) {
+            conn.setAutoCommit(true);
         }
     }
 
@@ -59,7 +59,11 @@ public final class FlagsValuesListDao {
         final String sql = "INSERT INTO `{{TP}}lands_flags_values_list` (`land_flag_id`, `value_string`) "//
                 + " VALUES (?, ?)";
 
-        conn.setAutoCommit(false);
+        // Commit only if the connection is not already in a transaction
+        final boolean isAutoCommit = conn.getAutoCommit();
+        if (isAutoCommit) {
+            conn.setAutoCommit(false);
+        }
         try (final PreparedStatement stmt = dbConn.preparedStatementWithTags(conn, sql)) {
             for (final String value : values) {
                 stmt.setLong(1, landFlagId);
@@ -67,9 +71,13 @@ public final class FlagsValuesListDao {
                 stmt.addBatch();
             }
             stmt.executeBatch();
-            conn.commit();
+            if (isAutoCommit) {
+                conn.commit();
+            }
+        }
+        if (isAutoCommit) {
+            conn.setAutoCommit(true);
         }
-        conn.setAutoCommit(true);
     }
 
     public void deleteLandFlagValueList(final Connection conn, final long landFlagId) throws SQLException {
@@ -23,6 +23,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -112,6 +113,26 @@ public final class GenericIdValueDao<I, V> {
         }
     }
 
+    public void insert(final Connection conn, final I i, final Collection<V> vs) throws SQLException {
+        final String sql = String.format("INSERT INTO `{{TP}}%s` (`%s`, `%s`) " //
+                + "VALUES (?, ?)", tableSuffix, idColumnLabel, valueColumnLabel);
+
+        dbConn.prepareStatementAndExecuteBatch(conn, sql, vs, (stmt, v) -> {
+            setFromClass(idClazz, stmt, 1, i);
+            setFromClass(valueClazz, stmt, 2, v);
+        });
+    }
+
+    public void insertIgnore(final Connection conn, final I i, final Collection<V> vs) throws SQLException {
+        final String sql = String.format("INSERT IGNORE INTO `{{TP}}%s` (`%s`, `%s`) " //
+                + "VALUES (?, ?)", tableSuffix, idColumnLabel, valueColumnLabel);
+
+        dbConn.prepareStatementAndExecuteBatch(conn, sql, vs, (stmt, v) -> {
+            setFromClass(idClazz, stmt, 1, i);
+            setFromClass(valueClazz, stmt, 2, v);
+        });
+    }
+
     public void insertOrUpdate(final Connection conn, final I i, final V v) throws SQLException {
         final String sql = String.format("INSERT INTO `{{TP}}%s` (`%s`, `%s`) " //
                 + "VALUES (?, ?) " //
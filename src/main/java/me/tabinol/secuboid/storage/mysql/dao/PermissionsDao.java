@@ -22,6 +22,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +85,26 @@ public final class PermissionsDao {
         }
     }
 
+    public void insertOrUpdatePermissions(final Connection conn, final Collection<PermissionPojo> permissionPojos)
+            throws SQLException {
+        final String sql = "INSERT INTO `{{TP}}lands_permissions`(" //
+                + "`land_uuid`, `player_container_id`, `permission_id`, `value`, `inheritance`) " //
+                + "VALUES(?, ?, ?, ?, ?) " //
+                + "ON DUPLICATE KEY UPDATE " //
+                + "`value`=?, `inheritance`=?";
+
+        dbConn.prepareStatementAndExecuteBatch(conn, sql, permissionPojos, (stmt, permissionPojo) -> {
+            DbUtils.setUUID(stmt, 1, permissionPojo.getLandUUID());
+            stmt.setLong(2, permissionPojo.getPlayerContainerId());
+            stmt.setLong(3, permissionPojo.getPermissionId());
+            stmt.setBoolean(4, permissionPojo.getValue());
+            stmt.setBoolean(5, permissionPojo.getInheritance());
+
+            stmt.setBoolean(6, permissionPojo.getValue());
+            stmt.setBoolean(7, permissionPojo.getInheritance());
+        });
+    }
+
     public void deletePermission(final Connection conn, final UUID landUUID, final long playerContainerId,
             final long permissionId) throws SQLException {
         final String sql = "DELETE FROM `{{TP}}lands_permissions` " //
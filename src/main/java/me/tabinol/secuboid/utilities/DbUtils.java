@@ -51,6 +51,11 @@ public final class DbUtils {
         void accept(T t) throws SQLException;
     }
 
+    @FunctionalInterface
+    public interface SqlSupplier<T> {
+        T get() throws SQLException;
+    }
+
     private DbUtils() {
     }
 
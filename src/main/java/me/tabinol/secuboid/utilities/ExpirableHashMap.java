@@ -17,77 +17,226 @@
  */
 package me.tabinol.secuboid.utilities;
 
-import java.util.HashMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import me.tabinol.secuboid.Secuboid;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
- * The Class ExpirableTreeMap.
+ * A map where each entry expires after a fixed delay. One repeating task of
+ * one tick drives the expiry of every entry, and the task runs only while the
+ * map is not empty. Since the delay is the same for every entry, the deadlines
+ * are in the insertion order and a queue replaces the timer wheel. The
+ * insertion and the expiry of an entry are O(1). The map can be accessed from
+ * asynchronous threads.
  *
  * @param <K> the key type
  * @param <V> the value type
  */
-public class ExpirableHashMap<K, V> extends HashMap<K, V> {
-
-    private final Secuboid secuboid;
+public class ExpirableHashMap<K, V> {
 
     /**
-     * The Constant serialVersionUID.
+     * The delay in tick.
      */
-    private static final long serialVersionUID = -8255110767996977825L;
+    private final long delay;
+
+    private final Map<K, Entry<V>> keyToEntry;
+    private final Queue<Deadline<K, V>> deadlines;
+    private final ExpireTask expireTask;
 
     /**
-     * The delay in tick.
+     * The tick count, updated only by the expire task.
      */
-    private final long delay;
+    private volatile long curTick;
 
     /**
-     * Instantiates a new expirable tree map.
+     * Instantiates a new expirable hash map.
      *
      * @param secuboid secuboid instance
      * @param delay    the delay (in ticks)
      */
-    public ExpirableHashMap(Secuboid secuboid, long delay) {
-        super();
-        this.secuboid = secuboid;
+    public ExpirableHashMap(final Secuboid secuboid, final long delay) {
         this.delay = delay;
+        keyToEntry = new ConcurrentHashMap<>();
+        deadlines = new ConcurrentLinkedQueue<>();
+        expireTask = new ExpireTask(secuboid);
+        curTick = 0L;
+    }
+
+    /**
+     * Puts a value. The delay restarts if the key exists.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the previous value or null
+     */
+    public V put(final K key, final V value) {
+        final Entry<V> entry = new Entry<>(value, curTick + delay);
+        final Entry<V> previousEntry = keyToEntry.put(key, entry);
+        deadlines.add(new Deadline<>(key, entry));
+        startTaskIfNeeded();
+        return previousEntry != null ? previousEntry.value : null;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @return the value, or null if the key is absent or expired
+     */
+    public V get(final Object key) {
+        final Entry<V> entry = keyToEntry.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Checks if the key exists.
+     *
+     * @param key the key
+     * @return true if the key exists and is not expired
+     */
+    public boolean containsKey(final Object key) {
+        return keyToEntry.containsKey(key);
+    }
+
+    /**
+     * Removes a value before its expiry.
+     *
+     * @param key the key
+     * @return the removed value or null
+     */
+    public V remove(final Object key) {
+        final Entry<V> entry = keyToEntry.remove(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size
+     */
+    public int size() {
+        return keyToEntry.size();
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return keyToEntry.isEmpty();
+    }
+
+    /**
+     * Removes every entry and stops the expire task.
+     */
+    public void clear() {
+        keyToEntry.clear();
+        deadlines.clear();
+        synchronized (expireTask) {
+            expireTask.stopNextRun();
+        }
+    }
+
+    /**
+     * Gets a read only view of the entries. The iteration is weakly consistent:
+     * it does not fail if the map changes at the same time.
+     *
+     * @return the entries
+     */
+    public Iterable<Map.Entry<K, V>> entrySet() {
+        return () -> {
+            final Iterator<Map.Entry<K, Entry<V>>> iterator = keyToEntry.entrySet().iterator();
+            return new Iterator<Map.Entry<K, V>>() {
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    final Map.Entry<K, Entry<V>> mapEntry = iterator.next();
+                    return new SimpleImmutableEntry<>(mapEntry.getKey(), mapEntry.getValue().value);
+                }
+            };
+        };
+    }
+
+    /**
+     * Advances the time of one tick and removes the expired entries. An entry
+     * put again after its deadline was queued is not removed: only the newest
+     * deadline of a key counts.
+     */
+    void tick() {
+        final long tick = ++curTick;
+        Deadline<K, V> deadline;
+        while ((deadline = deadlines.peek()) != null && deadline.entry.expireTick <= tick) {
+            deadlines.poll();
+            keyToEntry.remove(deadline.key, deadline.entry);
+        }
+
+        // The put adds to the queue before it checks the task: no deadline is lost
+        synchronized (expireTask) {
+            if (deadlines.isEmpty()) {
+                expireTask.stopNextRun();
+            }
+        }
     }
 
-    @Override
-    public Object clone() {
-        return super.clone(); //To change body of generated methods, choose Tools | Templates.
+    private void startTaskIfNeeded() {
+        synchronized (expireTask) {
+            if (!expireTask.isActive()) {
+                expireTask.runLater(1L, true);
+            }
+        }
     }
 
     /**
-     * The Class BestBefored.
+     * A value with its deadline. The entries are compared by identity.
      */
-    private class BestBefored extends BukkitRunnable {
+    private static final class Entry<V> {
 
-        /**
-         * The key.
-         */
-        K key;
+        private final V value;
+        private final long expireTick;
+
+        private Entry(final V value, final long expireTick) {
+            this.value = value;
+            this.expireTick = expireTick;
+        }
+    }
+
+    /**
+     * A deadline in the queue.
+     */
+    private static final class Deadline<K, V> {
 
-        /**
-         * Instantiates a new best befored.
-         *
-         * @param key the key
-         */
-        private BestBefored(K key) {
+        private final K key;
+        private final Entry<V> entry;
 
+        private Deadline(final K key, final Entry<V> entry) {
             this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * The repeating task of the expiry.
+     */
+    private final class ExpireTask extends SecuboidRunnable {
+
+        private ExpireTask(final Secuboid secuboid) {
+            super(secuboid);
         }
 
         @Override
         public void run() {
-            remove(key);
+            tick();
         }
     }
-
-    @Override
-    public V put(K key, V value) {
-        new BestBefored(key).runTaskLater(secuboid, delay);
-        return super.put(key, value);
-    }
 }
@@ -0,0 +1,131 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A sorted index of names for the prefix search (tab completion). The search
+ * is case insensitive and returns the names in the alphabetical order. The
+ * index can be updated from another thread than the search.
+ */
+public final class PrefixIndex {
+
+    /**
+     * The lower case name to the name.
+     */
+    private final NavigableMap<String, String> lowerToName;
+
+    /**
+     * Instantiates a new prefix index.
+     */
+    public PrefixIndex() {
+        lowerToName = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Adds a name.
+     *
+     * @param name the name
+     */
+    public void add(final String name) {
+        lowerToName.put(name.toLowerCase(), name);
+    }
+
+    /**
+     * Removes a name.
+     *
+     * @param name the name
+     */
+    public void remove(final String name) {
+        lowerToName.remove(name.toLowerCase());
+    }
+
+    /**
+     * Removes every name.
+     */
+    public void clear() {
+        lowerToName.clear();
+    }
+
+    /**
+     * Gets the number of names.
+     *
+     * @return the size
+     */
+    public int size() {
+        return lowerToName.size();
+    }
+
+    /**
+     * Gets the first names starting with a prefix.
+     *
+     * @param prefix     the prefix (any case)
+     * @param maxResults the maximum number of names
+     * @return the names
+     */
+    public List<String> getStartingWith(final String prefix, final int maxResults) {
+        final List<String> names = new ArrayList<>();
+        final String prefixLower = prefix.toLowerCase();
+        for (final Map.Entry<String, String> entry : lowerToName.tailMap(prefixLower, true).entrySet()) {
+            if (names.size() >= maxResults || !entry.getKey().startsWith(prefixLower)) {
+                break;
+            }
+            names.add(entry.getValue());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the first keys starting with a prefix from a map sorted by lower case
+     * keys.
+     *
+     * @param lowerKeyMap the map with lower case keys
+     * @param prefix      the prefix (any case)
+     * @param maxResults  the maximum number of keys
+     * @return the keys
+     */
+    public static List<String> getKeysStartingWith(final SortedMap<String, ?> lowerKeyMap, final String prefix,
+                                                   final int maxResults) {
+        final List<String> keys = new ArrayList<>();
+        final String prefixLower = prefix.toLowerCase();
+        for (final String key : lowerKeyMap.tailMap(prefixLower).keySet()) {
+            if (keys.size() >= maxResults || !key.startsWith(prefixLower)) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Checks if a string starts with a prefix, ignoring the case.
+     *
+     * @param str    the string
+     * @param prefix the prefix
+     * @return true if the string starts with the prefix
+     */
+    public static boolean startsWithIgnoreCase(final String str, final String prefix) {
+        return str.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+}
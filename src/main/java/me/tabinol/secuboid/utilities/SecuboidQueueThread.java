@@ -21,6 +21,8 @@ import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 
 import me.tabinol.secuboid.Secuboid;
@@ -79,6 +81,8 @@ public abstract class SecuboidQueueThread<T> {
                 } catch (final InterruptedException e) {
                     secuboid.getLogger().log(Level.WARNING,
                             String.format("Interruption requested for thread \"%s\".", getName()), e);
+                } finally {
+                    threadEnd();
                 }
             }
         };
@@ -90,13 +94,45 @@ public abstract class SecuboidQueueThread<T> {
     private void loopQueue() throws InterruptedException {
         Optional<T> tOpt;
         // Loop unit there is no empty (stop thread request) element.
-        while ((tOpt = taskQueue.take()).isPresent()) {
+        while ((tOpt = nextElement()).isPresent()) {
             if (!doElement(tOpt.get())) {
                 throw new SecuboidRuntimeException(tOpt.get().getClass().getName() + " is not a valid class");
             }
         }
     }
 
+    private Optional<T> nextElement() throws InterruptedException {
+        while (true) {
+            final long waitMillis = getWaitMillis();
+            if (waitMillis < 0) {
+                return taskQueue.take();
+            }
+            final Optional<T> tOptNullable = taskQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+            if (tOptNullable != null) {
+                return tOptNullable;
+            }
+            waitTimeout();
+        }
+    }
+
+    /**
+     * Removes and returns the next element without waiting, only if it matches the
+     * predicate. Called inside the thread.
+     *
+     * @param predicate the condition for the next element
+     * @return the next element, or null if the queue is empty, stopping or if the
+     *         element does not match
+     */
+    protected final T pollElementIfNullable(final Predicate<T> predicate) {
+        // Only the thread takes elements, the peeked element is the one polled
+        final Optional<T> tOptNullable = taskQueue.peek();
+        if (tOptNullable == null || !tOptNullable.isPresent() || !predicate.test(tOptNullable.get())) {
+            return null;
+        }
+        taskQueue.poll();
+        return tOptNullable.get();
+    }
+
     public final void addElement(final T t) {
         if (isQueueActive) {
             taskQueue.add(Optional.of(t));
@@ -112,6 +148,31 @@ public abstract class SecuboidQueueThread<T> {
      */
     protected abstract boolean doElement(T t) throws InterruptedException;
 
+    /**
+     * Gets the maximum wait time for the next element. After this time,
+     * waitTimeout() is called.
+     *
+     * @return the wait time in milliseconds, or -1 to wait without limit
+     */
+    protected long getWaitMillis() {
+        return -1;
+    }
+
+    /**
+     * Execute what it should execute when there is no element after the wait
+     * time, inside the thread.
+     */
+    protected void waitTimeout() {
+        // Nothing by default
+    }
+
+    /**
+     * Execute what it should execute when the thread ends, inside the thread.
+     */
+    protected void threadEnd() {
+        // Nothing by default
+    }
+
     /**
      * Stop next run.
      */
@@ -148,6 +209,15 @@ public abstract class SecuboidQueueThread<T> {
         }
     }
 
+    /**
+     * Gets the number of elements waiting in the queue.
+     *
+     * @return the queue size
+     */
+    public final int getQueueSize() {
+        return taskQueue.size();
+    }
+
     /**
      * Gets a lock object for thread synchronization.
      *
@@ -0,0 +1,256 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.utilities;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map for the snapshots read from other threads. The entries are
+ * split in shards by key hash. A new version is made with an editor, which
+ * copies only the shards it changes: the other shards are shared with the
+ * previous version.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class ShardedSnapshotMap<K, V> {
+
+    /**
+     * The number of shards (power of 2).
+     */
+    private static final int NB_SHARDS = 256;
+
+    private static final ShardedSnapshotMap<?, ?> EMPTY = new ShardedSnapshotMap<>(newEmptyShards(), 0);
+
+    private final Map<K, V>[] shards;
+    private final int size;
+
+    private ShardedSnapshotMap(final Map<K, V>[] shards, final int size) {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> ShardedSnapshotMap<K, V> empty() {
+        return (ShardedSnapshotMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key the key
+     * @return the value or null
+     */
+    public V get(final Object key) {
+        return shards[getShardIndex(key)].get(key);
+    }
+
+    /**
+     * Checks if the key exists.
+     *
+     * @param key the key
+     * @return true if the key exists
+     */
+    public boolean containsKey(final Object key) {
+        return shards[getShardIndex(key)].containsKey(key);
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the values.
+     *
+     * @return the values (unmodifiable)
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+
+            @Override
+            public Iterator<V> iterator() {
+                return new ValuesIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Starts a new version of this map. This map does not change.
+     *
+     * @return the editor
+     */
+    public Editor<K, V> edit() {
+        return new Editor<>(this);
+    }
+
+    private static int getShardIndex(final Object key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (NB_SHARDS - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<K, V>[] newEmptyShards() {
+        final Map<K, V>[] shards = (Map<K, V>[]) new Map<?, ?>[NB_SHARDS];
+        Arrays.fill(shards, Collections.emptyMap());
+        return shards;
+    }
+
+    /**
+     * Iterates the values shard by shard.
+     */
+    private final class ValuesIterator implements Iterator<V> {
+
+        private int shardIndex = 0;
+        private Iterator<V> shardIterator = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!shardIterator.hasNext()) {
+                if (shardIndex == NB_SHARDS) {
+                    return false;
+                }
+                shardIterator = shards[shardIndex++].values().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return shardIterator.next();
+        }
+    }
+
+    /**
+     * Makes a new version of a map. A shard is copied on its first change.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    public static final class Editor<K, V> {
+
+        private final Map<K, V>[] shards;
+        private final boolean[] isShardCopied;
+        private int size;
+
+        private Editor(final ShardedSnapshotMap<K, V> map) {
+            shards = Arrays.copyOf(map.shards, NB_SHARDS);
+            isShardCopied = new boolean[NB_SHARDS];
+            size = map.size;
+        }
+
+        /**
+         * Gets a value.
+         *
+         * @param key the key
+         * @return the value or null
+         */
+        public V get(final Object key) {
+            return shards[getShardIndex(key)].get(key);
+        }
+
+        /**
+         * Puts a value.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return the old value or null
+         */
+        public V put(final K key, final V value) {
+            final V oldValueNullable = getShardForChange(getShardIndex(key)).put(key, value);
+            if (oldValueNullable == null) {
+                size++;
+            }
+            return oldValueNullable;
+        }
+
+        /**
+         * Removes a key.
+         *
+         * @param key the key
+         * @return the old value or null
+         */
+        public V remove(final Object key) {
+            final int shardIndex = getShardIndex(key);
+            if (!shards[shardIndex].containsKey(key)) {
+                return null;
+            }
+            size--;
+            return getShardForChange(shardIndex).remove(key);
+        }
+
+        /**
+         * Removes a key only if it has this value.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return true if removed
+         */
+        public boolean remove(final Object key, final Object value) {
+            final Object oldValueNullable = get(key);
+            if (oldValueNullable == null || !oldValueNullable.equals(value)) {
+                return false;
+            }
+            remove(key);
+            return true;
+        }
+
+        /**
+         * Gets the new map. The editor must not be used after.
+         *
+         * @return the new map
+         */
+        public ShardedSnapshotMap<K, V> build() {
+            return new ShardedSnapshotMap<>(shards, size);
+        }
+
+        private Map<K, V> getShardForChange(final int shardIndex) {
+            if (!isShardCopied[shardIndex]) {
+                shards[shardIndex] = new HashMap<>(shards[shardIndex]);
+                isShardCopied[shardIndex] = true;
+            }
+            return shards[shardIndex];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.bukkit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Color;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.potion.PotionEffectType;
+
+/**
+ * Fake Bukkit server for the item stacks and potion effects serialization in
+ * tests. The items have no meta and only the speed potion effect exists.
+ */
+public final class FakeServer {
+
+    private static final int DATA_VERSION = 2230;
+
+    private FakeServer() {
+    }
+
+    /**
+     * Sets the fake server if there is no server.
+     */
+    public static synchronized void init() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        final UnsafeValues unsafeValues = mock(UnsafeValues.class);
+        when(unsafeValues.getDataVersion()).thenReturn(DATA_VERSION);
+        when(unsafeValues.getMaterial(anyString(), anyInt()))
+                .thenAnswer(invocation -> Material.getMaterial(invocation.getArgument(0)));
+
+        final ItemFactory itemFactory = mock(ItemFactory.class);
+        when(itemFactory.equals(any(ItemMeta.class), any(ItemMeta.class))).thenAnswer(
+                invocation -> Objects.equals(invocation.getArgument(0), invocation.getArgument(1)));
+
+        final Server server = mock(Server.class);
+        when(server.getLogger()).thenReturn(Logger.getLogger("Server"));
+        when(server.getUnsafe()).thenReturn(unsafeValues);
+        when(server.getItemFactory()).thenReturn(itemFactory);
+        Bukkit.setServer(server);
+
+        if (PotionEffectType.getById(1) == null) {
+            PotionEffectType.registerPotionEffectType(new PotionEffectType(1) {
+
+                @Override
+                public double getDurationModifier() {
+                    return 1.0;
+                }
+
+                @Override
+                public String getName() {
+                    return "SPEED";
+                }
+
+                @Override
+                public boolean isInstant() {
+                    return false;
+                }
+
+                @Override
+                public Color getColor() {
+                    return Color.fromRGB(0x7CAFC6);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.inventories;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.config.Config;
+import me.tabinol.secuboid.storage.Storage;
+import me.tabinol.secuboid.storage.StorageThread;
+
+/**
+ * Tests for the load by inventory spec of the player inventories.
+ */
+public final class PlayerInventoryCacheTest {
+
+    private Secuboid secuboid;
+    private Storage storage;
+    private StorageThread storageThread;
+    private InventorySpec invSpecDefault;
+    private InventorySpec invSpecCreative;
+    private InventorySpec invSpecGames;
+    private Inventories inventories;
+    private PlayerInventoryCache playerInventoryCache;
+
+    @Before
+    public void initPlayerInventoryCache() {
+        secuboid = mock(Secuboid.class);
+        final Config config = mock(Config.class);
+        when(config.getWriteBehindDelay()).thenReturn(60_000L);
+        when(config.getWriteBehindMaxMerged()).thenReturn(1_000);
+        when(secuboid.getConf()).thenReturn(config);
+        when(secuboid.getLogger()).thenReturn(Logger.getLogger("Secuboid"));
+
+        invSpecDefault = new InventorySpec("Default", true, true, true, null);
+        invSpecCreative = new InventorySpec("Creative", true, true, true, null);
+        invSpecGames = new InventorySpec("Games", true, true, true, null);
+        inventories = mock(Inventories.class);
+        when(inventories.getInvSpecs()).thenReturn(Arrays.asList(invSpecDefault, invSpecCreative, invSpecGames));
+        when(secuboid.getInventoriesOpt()).thenReturn(Optional.of(inventories));
+
+        // The storage returns a survival inventory for each inventory spec
+        storage = mock(Storage.class);
+        doAnswer(PlayerInventoryCacheTest::setSurvivalLoaded).when(storage).loadInventoriesPlayer(any(), any());
+
+        storageThread = new StorageThread(secuboid, storage);
+        when(secuboid.getStorageThread()).thenReturn(storageThread);
+        storageThread.start();
+
+        playerInventoryCache = new PlayerInventoryCache(UUID.randomUUID(), "Player");
+    }
+
+    @After
+    public void stopStorageThread() {
+        storageThread.stopNextRun();
+    }
+
+    @Test
+    public void preLoginLoadsExpectedInvSpecFirst() {
+        assertTrue(playerInventoryCache.inventoryPreLogin(secuboid, invSpecGames));
+        assertTrue(playerInventoryCache.isLoaded(invSpecGames));
+
+        verify(storage, timeout(5_000L).times(3)).loadInventoriesPlayer(eq(playerInventoryCache), any());
+        final InOrder inOrder = inOrder(storage);
+        inOrder.verify(storage).loadInventoriesPlayer(playerInventoryCache, invSpecGames);
+        inOrder.verify(storage).loadInventoriesPlayer(playerInventoryCache, invSpecDefault);
+        inOrder.verify(storage).loadInventoriesPlayer(playerInventoryCache, invSpecCreative);
+        assertTrue(playerInventoryCache.isLoaded(invSpecDefault));
+        assertTrue(playerInventoryCache.isLoaded(invSpecCreative));
+    }
+
+    @Test
+    public void unusedInvSpecsEvictedAndLoadedAgain() throws InterruptedException {
+        assertTrue(playerInventoryCache.inventoryPreLogin(secuboid, invSpecDefault));
+        verify(storage, timeout(5_000L).times(3)).loadInventoriesPlayer(eq(playerInventoryCache), any());
+        playerInventoryCache.setCurInvEntry(new PlayerInvEntry(playerInventoryCache, invSpecDefault, false));
+
+        Thread.sleep(10L);
+        assertEquals(0, playerInventoryCache.evictUnused(60_000L));
+        assertEquals(2, playerInventoryCache.evictUnused(5L));
+        assertTrue(playerInventoryCache.isLoaded(invSpecDefault));
+        assertFalse(playerInventoryCache.isLoaded(invSpecGames));
+        assertNull(playerInventoryCache.getInventorySurvival(invSpecGames));
+
+        // The switch is done again after the load
+        assertFalse(playerInventoryCache.isLoadedOrDeferSwitch(storageThread, invSpecGames));
+        verify(inventories, timeout(5_000L)).switchDeferred(playerInventoryCache);
+        assertTrue(playerInventoryCache.isLoadedOrDeferSwitch(storageThread, invSpecGames));
+        assertSame(invSpecGames, playerInventoryCache.getInventorySurvival(invSpecGames).getInventorySpec());
+        verify(storage, times(2)).loadInventoriesPlayer(playerInventoryCache, invSpecGames);
+    }
+
+    @Test(timeout = 5_000L)
+    public void failedLoadRequestedAgain() throws InterruptedException {
+        doThrow(new IllegalStateException("Database down")).doAnswer(PlayerInventoryCacheTest::setSurvivalLoaded)
+                .when(storage).loadInventoriesPlayer(playerInventoryCache, invSpecGames);
+
+        // The failed load is not in load anymore, the next switch requests it again
+        assertFalse(playerInventoryCache.isLoadedOrDeferSwitch(storageThread, invSpecGames));
+        while (!playerInventoryCache.isLoadedOrDeferSwitch(storageThread, invSpecGames)) {
+            Thread.sleep(10L);
+        }
+        verify(storage, times(2)).loadInventoriesPlayer(playerInventoryCache, invSpecGames);
+        verify(inventories, timeout(5_000L)).switchDeferred(playerInventoryCache);
+    }
+
+    @Test
+    public void invSpecWithPendingSaveNotEvicted() throws InterruptedException {
+        playerInventoryCache.setInventoriesLoaded(invSpecGames,
+                new PlayerInvEntry(playerInventoryCache, invSpecGames, false), null, Collections.emptyList());
+        playerInventoryCache.addPendingSave(invSpecGames);
+
+        Thread.sleep(10L);
+        assertEquals(0, playerInventoryCache.evictUnused(5L));
+        playerInventoryCache.removePendingSave(invSpecGames);
+        assertEquals(1, playerInventoryCache.evictUnused(5L));
+        assertFalse(playerInventoryCache.isLoaded(invSpecGames));
+    }
+
+    @Test
+    public void loadedInvSpecNotReplaced() {
+        final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCache, invSpecDefault, false);
+        playerInventoryCache.addInventory(invSpecDefault, playerInvEntry);
+
+        playerInventoryCache.setInventoriesLoaded(invSpecDefault,
+                new PlayerInvEntry(playerInventoryCache, invSpecDefault, false), null, Collections.emptyList());
+        assertSame(playerInvEntry, playerInventoryCache.getInventorySurvival(invSpecDefault));
+    }
+
+    @Test
+    public void deathInventoriesByInvSpec() {
+        PlayerInvEntry lastDeathInvEntry = null;
+        for (int i = 0; i <= PlayerInventoryCache.DEATH_SAVE_MAX_NBR; i++) {
+            lastDeathInvEntry = new PlayerInvEntry(playerInventoryCache, invSpecDefault, false);
+            playerInventoryCache.addInventoryDeath(lastDeathInvEntry);
+        }
+        final PlayerInvEntry gamesDeathInvEntry = new PlayerInvEntry(playerInventoryCache, invSpecGames, false);
+        playerInventoryCache.addInventoryDeath(gamesDeathInvEntry);
+
+        assertSame(lastDeathInvEntry, playerInventoryCache.getInventoryDeath(invSpecDefault, 1));
+        assertSame(gamesDeathInvEntry, playerInventoryCache.getInventoryDeath(invSpecGames, 1));
+        assertNull(playerInventoryCache.getInventoryDeath(invSpecGames, 2));
+        assertNull(playerInventoryCache.getInventoryDeath(invSpecDefault,
+                PlayerInventoryCache.DEATH_SAVE_MAX_NBR + 1));
+        assertNull(playerInventoryCache.getInventoryDeath(invSpecCreative, 1));
+    }
+
+    private static Object setSurvivalLoaded(final InvocationOnMock invocation) {
+        final PlayerInventoryCache cache = invocation.getArgument(0);
+        final InventorySpec inventorySpec = invocation.getArgument(1);
+        cache.setInventoriesLoaded(inventorySpec, new PlayerInvEntry(cache, inventorySpec, false), null,
+                Collections.emptyList());
+        return null;
+    }
+}
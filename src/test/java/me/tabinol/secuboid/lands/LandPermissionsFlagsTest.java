@@ -177,6 +177,34 @@ public final class LandPermissionsFlagsTest {
                                 .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
         }
 
+        @Test
+        public void playerRemovedVsEverybody() {
+                final LandPermissionsFlags outsidePermissionsFlags = lands
+                                .getOutsideLandPermissionsFlags((String) null);
+                for (int i = 0; i < 10; i++) {
+                        outsidePermissionsFlags.addPermission(
+                                        playerContainers.getOrAddPlayerContainerPlayer(UUID.randomUUID()),
+                                        secuboid.getPermissionsFlags().newPermission(
+                                                        PermissionList.BUILD.getPermissionType(), true, false));
+                }
+                outsidePermissionsFlags.addPermission(
+                                playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()),
+                                secuboid.getPermissionsFlags().newPermission(PermissionList.BUILD.getPermissionType(),
+                                                true, false));
+                outsidePermissionsFlags.addPermission(
+                                playerContainers.getPlayerContainer(PlayerContainerType.EVERYBODY),
+                                secuboid.getPermissionsFlags().newPermission(PermissionList.BUILD.getPermissionType(),
+                                                false, true));
+                assertTrue("Permission should be true", outsidePermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+
+                outsidePermissionsFlags.removePermission(
+                                playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()),
+                                PermissionList.BUILD.getPermissionType());
+                assertFalse("Permission should be false", outsidePermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+        }
+
         @Test
         public void ownerInheritance() {
                 parent.setOwner(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
@@ -239,4 +267,88 @@ public final class LandPermissionsFlagsTest {
                                 .newFlag(FlagList.INHERIT_RESIDENTS.getFlagType(), false, true));
                 assertFalse("Player must not be resident", child.isResident(fakePlayer));
         }
+
+        @Test
+        public void residentInheritanceFlagChange() {
+                parent.addResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertTrue("Player must be resident", child.isResident(fakePlayer));
+                child.getPermissionsFlags().addFlag(secuboid.getPermissionsFlags()
+                                .newFlag(FlagList.INHERIT_RESIDENTS.getFlagType(), false, true));
+                assertFalse("Player must not be resident", child.isResident(fakePlayer));
+                assertTrue("Player must be resident", parent.isResidentNoInherit(fakePlayer));
+                assertFalse("Player must not be resident", child.isResidentNoInherit(fakePlayer));
+        }
+
+        @Test
+        public void residentRemoved() {
+                child.addResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertTrue("Player must be resident", child.isResident(fakePlayer));
+                child.removeResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertFalse("Player must not be resident", child.isResident(fakePlayer));
+                child.addResident(playerContainers.getPlayerContainer(PlayerContainerType.EVERYBODY));
+                assertTrue("Player must be resident", child.isResident(fakePlayer));
+        }
+
+        @Test
+        public void bannedInheritance() {
+                parent.addBanned(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertTrue("Player must be banned", child.isBanned(fakePlayer));
+                parent.removeBanned(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertFalse("Player must not be banned", child.isBanned(fakePlayer));
+        }
+
+        @Test
+        public void bannedResidents() {
+                child.addResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                parent.addBanned(playerContainers.getPlayerContainer(PlayerContainerType.RESIDENT));
+                assertFalse("Player must not be banned", parent.isBanned(fakePlayer));
+                assertFalse("Player must not be banned", child.isBanned(fakePlayer));
+                parent.addResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertTrue("Player must be banned", child.isBanned(fakePlayer));
+        }
+
+        @Test
+        public void cachedPermissionChange() {
+                final LandPermissionsFlags childPermissionsFlags = child.getPermissionsFlags();
+                assertTrue("Permission should be true", childPermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+
+                // Change in parent
+                parent.getPermissionsFlags().addPermission(
+                                playerContainers.getPlayerContainer(PlayerContainerType.RESIDENT),
+                                secuboid.getPermissionsFlags().newPermission(PermissionList.BUILD.getPermissionType(),
+                                                false, true));
+                assertTrue("Permission should be true", childPermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+
+                // Resident change
+                parent.addResident(playerContainers.getOrAddPlayerContainerPlayer(fakePlayer.getUniqueId()));
+                assertFalse("Permission should be false", childPermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+                assertFalse("Permission should be false", childPermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+
+                // Parent removed
+                child.setParent(null);
+                assertTrue("Permission should be true", childPermissionsFlags
+                                .checkPermissionAndInherit(fakePlayer, PermissionList.BUILD.getPermissionType()));
+        }
+
+        @Test
+        public void cachedFlagChange() {
+                final LandPermissionsFlags childPermissionsFlags = child.getPermissionsFlags();
+                assertTrue("Flag should be true", childPermissionsFlags
+                                .getFlagAndInherit(FlagList.ANIMAL_SPAWN.getFlagType()).getValueBoolean());
+
+                // Change in parent
+                parent.getPermissionsFlags().addFlag(secuboid.getPermissionsFlags()
+                                .newFlag(FlagList.ANIMAL_SPAWN.getFlagType(), false, true));
+                assertFalse("Flag should be false", childPermissionsFlags
+                                .getFlagAndInherit(FlagList.ANIMAL_SPAWN.getFlagType()).getValueBoolean());
+
+                // Parent removed
+                child.setParent(null);
+                assertTrue("Flag should be true", childPermissionsFlags
+                                .getFlagAndInherit(FlagList.ANIMAL_SPAWN.getFlagType()).getValueBoolean());
+        }
 }
@@ -0,0 +1,156 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import static me.tabinol.secuboid.lands.InitLands.WORLD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collections;
+
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.LandsSnapshot.LandView;
+import me.tabinol.secuboid.lands.areas.CuboidArea;
+import me.tabinol.secuboid.playercontainer.PlayerContainerNobody;
+import me.tabinol.secuboid.playercontainer.PlayerContainerType;
+
+/**
+ * Tests for the lands snapshot.
+ */
+public final class LandsSnapshotTest {
+
+    private static final String WORLD_NETHER = "world_nether";
+
+    private Lands lands;
+    private Land parent;
+    private Land child;
+    private Land nether;
+
+    @Before
+    public void initLands() throws SecuboidLandException {
+        final InitLands initLands = new InitLands();
+        lands = initLands.getLands();
+        final PlayerContainerNobody nobody = (PlayerContainerNobody) initLands.getPlayerContainers()
+                .getPlayerContainer(PlayerContainerType.NOBODY);
+
+        parent = lands.createLand("parent", nobody, new CuboidArea(true, WORLD, 0, 0, 0, 99, 255, 99));
+        child = lands.createLand("child", nobody, new CuboidArea(true, WORLD, 10, 0, 10, 19, 255, 19), parent);
+        nether = lands.createLand("nether", nobody, new CuboidArea(true, WORLD_NETHER, 0, 0, 0, 9, 255, 9));
+    }
+
+    @Test
+    public void publishOnlyOnRequest() {
+        assertEquals(0L, lands.getSnapshot().getVersion());
+        assertNull(lands.getSnapshot().getLand("parent"));
+
+        final LandsSnapshot snapshot = lands.publishSnapshot();
+        assertEquals(1L, snapshot.getVersion());
+        assertSame(snapshot, lands.getSnapshot());
+        assertSame(snapshot, lands.publishSnapshot());
+        assertEquals(3, snapshot.getLands().size());
+    }
+
+    @Test
+    public void landAtLocation() {
+        final LandsSnapshot snapshot = lands.publishSnapshot();
+        assertEquals("parent", snapshot.getLand(WORLD, 50, 64, 50).getName());
+        assertEquals("child", snapshot.getLand(WORLD, 15, 64, 15).getName());
+        assertEquals("nether", snapshot.getLand(WORLD_NETHER, 5, 64, 5).getName());
+        assertNull(snapshot.getLand(WORLD, 150, 64, 150));
+    }
+
+    @Test
+    public void landTree() {
+        final LandsSnapshot snapshot = lands.publishSnapshot();
+        final LandView parentView = snapshot.getLand(parent.getUUID());
+        final LandView childView = snapshot.getLand(child.getUUID());
+        assertEquals(parent.getUUID(), childView.getParentUUIDNullable());
+        assertEquals(Collections.singletonList(child.getUUID()), parentView.getChildrenUUIDs());
+        assertSame(parentView, snapshot.getFirstParent(childView));
+        assertTrue(snapshot.isDescendants(parentView, childView));
+        assertFalse(snapshot.isDescendants(childView, parentView));
+        assertTrue(snapshot.isParentOrAncestor(childView, parentView));
+    }
+
+    @Test
+    public void playersInLandAndChildren() {
+        final Player player1 = mock(Player.class);
+        final Player player2 = mock(Player.class);
+        parent.addPlayerInLand(player1);
+        child.addPlayerInLand(player2);
+
+        final LandsSnapshot snapshot = lands.publishSnapshot();
+        final LandView parentView = snapshot.getLand(parent.getUUID());
+        assertEquals(Collections.singleton(player1), parentView.getPlayersInLand());
+        assertEquals(2, snapshot.getPlayersInLandAndChildren(parentView).size());
+
+        // The players are read live, without a new snapshot
+        child.removePlayerInLand(player2);
+        assertTrue(snapshot.getLand(child.getUUID()).getPlayersInLand().isEmpty());
+        assertSame(snapshot, lands.publishSnapshot());
+    }
+
+    @Test
+    public void onlyChangedPartsTakenAgain() throws SecuboidLandException {
+        final LandsSnapshot snapshot1 = lands.publishSnapshot();
+        lands.renameLand(nether, "hell");
+
+        final LandsSnapshot snapshot2 = lands.publishSnapshot();
+        assertEquals(2L, snapshot2.getVersion());
+        assertNull(snapshot2.getLand("nether"));
+        assertEquals(nether.getUUID(), snapshot2.getLand("hell").getUUID());
+        assertEquals("nether", snapshot1.getLand(nether.getUUID()).getName());
+        assertSame(snapshot1.getLand(parent.getUUID()), snapshot2.getLand(parent.getUUID()));
+        assertSame(snapshot1.getWorldToAreaIndex().get(WORLD), snapshot2.getWorldToAreaIndex().get(WORLD));
+        assertSame(snapshot1.getWorldToAreaIndex().get(WORLD_NETHER),
+                snapshot2.getWorldToAreaIndex().get(WORLD_NETHER));
+    }
+
+    @Test
+    public void priorityChangeTakesDescendants() {
+        final LandsSnapshot snapshot1 = lands.publishSnapshot();
+        parent.setPriority((short) 5);
+
+        final LandsSnapshot snapshot2 = lands.publishSnapshot();
+        assertEquals(5, snapshot2.getLand(child.getUUID()).getPriority());
+        assertSame(snapshot1.getLand(nether.getUUID()), snapshot2.getLand(nether.getUUID()));
+    }
+
+    @Test
+    public void removedLand() throws SecuboidLandException {
+        final LandsSnapshot snapshot1 = lands.publishSnapshot();
+        lands.removeLand(child);
+
+        final LandsSnapshot snapshot2 = lands.publishSnapshot();
+        assertNull(snapshot2.getLand(child.getUUID()));
+        assertFalse(snapshot2.isNameExist("child"));
+        assertTrue(snapshot2.getLand(parent.getUUID()).getChildrenUUIDs().isEmpty());
+        assertEquals("parent", snapshot2.getLand(WORLD, 15, 64, 15).getName());
+        assertNotSame(snapshot1.getWorldToAreaIndex().get(WORLD), snapshot2.getWorldToAreaIndex().get(WORLD));
+        assertEquals("child", snapshot1.getLand(WORLD, 15, 64, 15).getName());
+    }
+}
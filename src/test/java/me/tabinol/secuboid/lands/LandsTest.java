@@ -18,9 +18,22 @@
 package me.tabinol.secuboid.lands;
 
 import static me.tabinol.secuboid.lands.InitLands.WORLD;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -29,8 +42,12 @@ import me.tabinol.secuboid.lands.areas.CuboidArea;
 import me.tabinol.secuboid.lands.areas.CylinderArea;
 import me.tabinol.secuboid.lands.areas.RegionMatrix;
 import me.tabinol.secuboid.lands.areas.RoadArea;
+import me.tabinol.secuboid.lands.types.Type;
+import me.tabinol.secuboid.playercontainer.PlayerContainer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerNobody;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
 import me.tabinol.secuboid.playercontainer.PlayerContainerType;
+import me.tabinol.secuboid.playercontainer.PlayerContainers;
 
 /**
  * Tests for lands.
@@ -41,11 +58,12 @@ public final class LandsTest {
     private static final String TEST_CYLINDER = "testcylinder";
     private static final String TEST_ROAD = "road";
 
+    private InitLands initLands;
     private Lands lands;
 
     @Before
     public void initLands() throws SecuboidLandException {
-        final InitLands initLands = new InitLands();
+        initLands = new InitLands();
         lands = initLands.getLands();
         final PlayerContainerNobody playerContainerNobody = (PlayerContainerNobody) initLands.getPlayerContainers()
                 .getPlayerContainer(PlayerContainerType.NOBODY);
@@ -163,4 +181,136 @@ public final class LandsTest {
         assertNull(lands.getLand(TEST_CYLINDER));
         assertNull(lands.getLand(TEST_ROAD));
     }
+
+    @Test
+    public void blocksPermissionsFlagsTest() {
+        final World world = mock(World.class);
+        when(world.getName()).thenReturn(WORLD);
+        when(world.getMaxHeight()).thenReturn(256);
+
+        // Explosion on the cuboid, cylinder and road limits
+        final List<Block> blocks = new ArrayList<>();
+        for (int x = 90; x <= 125; x++) {
+            for (int z = 95; z <= 102; z++) {
+                blocks.add(newBlock(world, x, 5 + (x % 10), z));
+            }
+        }
+        blocks.add(newBlock(world, 200, 30, 200));
+        blocks.add(newBlock(world, 201, 30, 200));
+
+        final List<LandPermissionsFlags> blocksPermissionsFlags = lands.getPermissionsFlags(world, blocks);
+        for (int i = 0; i < blocks.size(); i++) {
+            final Block block = blocks.get(i);
+            assertSame(lands.getPermissionsFlags(new Location(world, block.getX(), block.getY(), block.getZ())),
+                    blocksPermissionsFlags.get(i));
+        }
+    }
+
+    @Test
+    public void locationsPermissionsFlagsTest() {
+        final World world = mock(World.class);
+        when(world.getName()).thenReturn(WORLD);
+        when(world.getMaxHeight()).thenReturn(256);
+
+        // Selection borders on many chunks, with negative chunks
+        final List<Location> locations = new ArrayList<>();
+        for (int x = -40; x <= 130; x += 3) {
+            locations.add(new Location(world, x, 10, -20));
+            locations.add(new Location(world, x, 10, 100));
+        }
+        for (int z = -20; z <= 100; z += 3) {
+            locations.add(new Location(world, -40, 10, z));
+            locations.add(new Location(world, 110, 10, z));
+        }
+
+        final List<LandPermissionsFlags> locationsPermissionsFlags = lands.getPermissionsFlagsFromLocations(world,
+                locations);
+        assertEquals(locations.size(), locationsPermissionsFlags.size());
+        for (int i = 0; i < locations.size(); i++) {
+            assertSame(lands.getPermissionsFlags(locations.get(i)), locationsPermissionsFlags.get(i));
+        }
+    }
+
+    @Test
+    public void ownerAndTypeIndexes() {
+        final Land cuboid = lands.getLand(TEST_CUBOID);
+        final Land cylinder = lands.getLand(TEST_CYLINDER);
+        final PlayerContainer nobody = initLands.getPlayerContainers()
+                .getPlayerContainer(PlayerContainerType.NOBODY);
+        final PlayerContainerPlayer owner = initLands.getPlayerContainers()
+                .getOrAddPlayerContainerPlayer(UUID.randomUUID());
+        final Type type = initLands.getSecuboid().getTypes().addOrGetType("testtype");
+
+        assertEquals(3, lands.getLands(nobody).size());
+        assertEquals(3, lands.getLands((Type) null).size());
+
+        cuboid.setOwner(owner);
+        cylinder.setType(type);
+        assertEquals(Collections.singleton(cuboid), lands.getLands(owner));
+        assertEquals(2, lands.getLands(nobody).size());
+        assertEquals(Collections.singleton(cylinder), lands.getLands(type));
+        assertEquals(2, lands.getLands((Type) null).size());
+        assertTrue(lands.checkIndexes().isEmpty());
+
+        cuboid.setDefault();
+        assertTrue(lands.getLands(owner).isEmpty());
+        assertEquals(3, lands.getLands(nobody).size());
+        assertTrue(lands.checkIndexes().isEmpty());
+    }
+
+    @Test
+    public void tenantAndResidentIndexes() {
+        final Land cuboid = lands.getLand(TEST_CUBOID);
+        final Land road = lands.getLand(TEST_ROAD);
+        final PlayerContainers playerContainers = initLands.getPlayerContainers();
+        final UUID playerUUID = UUID.randomUUID();
+        final PlayerContainerPlayer player = playerContainers.getOrAddPlayerContainerPlayer(playerUUID);
+
+        cuboid.setRented(player);
+        road.addResident(player);
+        cuboid.addResident(playerContainers.getPlayerContainer(PlayerContainerType.EVERYBODY));
+        assertEquals(Collections.singleton(cuboid), lands.getLandsFromTenant(playerUUID));
+        assertEquals(Collections.singleton(road), lands.getLandsFromResident(playerUUID));
+        assertTrue(lands.checkIndexes().isEmpty());
+
+        cuboid.unSetRented();
+        road.removeResident(player);
+        assertTrue(lands.getLandsFromTenant(playerUUID).isEmpty());
+        assertTrue(lands.getLandsFromResident(playerUUID).isEmpty());
+        assertTrue(lands.checkIndexes().isEmpty());
+    }
+
+    @Test
+    public void indexesAfterRemove() throws SecuboidLandException {
+        final Land cuboid = lands.getLand(TEST_CUBOID);
+        final UUID playerUUID = UUID.randomUUID();
+        final PlayerContainerPlayer player = initLands.getPlayerContainers()
+                .getOrAddPlayerContainerPlayer(playerUUID);
+
+        cuboid.setOwner(player);
+        cuboid.addResident(player);
+        cuboid.setRented(player);
+        lands.removeLand(cuboid);
+
+        assertTrue(lands.getLands(player).isEmpty());
+        assertTrue(lands.getLandsFromTenant(playerUUID).isEmpty());
+        assertTrue(lands.getLandsFromResident(playerUUID).isEmpty());
+        assertTrue(lands.checkIndexes().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void indexUnmodifiable() {
+        final PlayerContainer nobody = initLands.getPlayerContainers()
+                .getPlayerContainer(PlayerContainerType.NOBODY);
+        lands.getLands(nobody).clear();
+    }
+
+    private static Block newBlock(final World world, final int x, final int y, final int z) {
+        final Block block = mock(Block.class);
+        when(block.getWorld()).thenReturn(world);
+        when(block.getX()).thenReturn(x);
+        when(block.getY()).thenReturn(y);
+        when(block.getZ()).thenReturn(z);
+        return block;
+    }
 }
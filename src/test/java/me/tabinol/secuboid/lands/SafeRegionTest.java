@@ -0,0 +1,134 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.CuboidArea;
+import me.tabinol.secuboid.lands.areas.CylinderArea;
+import me.tabinol.secuboid.lands.areas.RegionMatrix;
+import me.tabinol.secuboid.lands.areas.RoadArea;
+
+/**
+ * Tests for the safe regions, compared with a position by position search.
+ */
+public final class SafeRegionTest {
+
+    private static final String WORLD = "world";
+    private static final int MAX_HEIGHT = 256;
+    private static final long SEED = 7_315_009L;
+    private static final int NB_TESTS = 50;
+
+    private Random random;
+
+    @Before
+    public void initRandom() {
+        random = new Random(SEED);
+    }
+
+    @Test
+    public void sameAreasInRegion() {
+        for (int i = 0; i < NB_TESTS; i++) {
+            final List<Area> areas = new ArrayList<>();
+            final int nbAreas = random.nextInt(4) + 1;
+            for (int j = 0; j < nbAreas; j++) {
+                areas.add(newRandomArea());
+            }
+            final int x = random.nextInt(80) - 40;
+            final int y = random.nextInt(MAX_HEIGHT + 40) - 20;
+            final int z = random.nextInt(80) - 40;
+            final SafeRegion safeRegion = SafeRegion.build(WORLD, x, y, z, MAX_HEIGHT, areas, 0L);
+            assertTrue(safeRegion.isInside(x, y, z));
+
+            final List<Area> expected = getAreas(areas, x, y, z);
+            for (int x1 = x - SafeRegion.RADIUS; x1 <= x + SafeRegion.RADIUS; x1++) {
+                for (int y1 = y - SafeRegion.RADIUS; y1 <= y + SafeRegion.RADIUS; y1++) {
+                    for (int z1 = z - SafeRegion.RADIUS; z1 <= z + SafeRegion.RADIUS; z1++) {
+                        if (safeRegion.isInside(x1, y1, z1)) {
+                            assertEquals(safeRegion + " " + x1 + ":" + y1 + ":" + z1, expected,
+                                    getAreas(areas, x1, y1, z1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fullRegionInsideCuboid() {
+        final Area cuboid = new CuboidArea(true, WORLD, -100, 0, -100, 100, 255, 100);
+        final SafeRegion safeRegion = SafeRegion.build(WORLD, 0, 64, 0, MAX_HEIGHT,
+                Collections.singletonList(cuboid), 0L);
+        assertTrue(safeRegion.isInside(SafeRegion.RADIUS, 64 + SafeRegion.RADIUS, -SafeRegion.RADIUS));
+        assertFalse(safeRegion.isInside(SafeRegion.RADIUS + 1, 64, 0));
+    }
+
+    @Test
+    public void outsideWorldHeight() {
+        final Area cuboid = new CuboidArea(true, WORLD, -100, 200, -100, 100, 255, 100);
+        final SafeRegion safeRegion = SafeRegion.build(WORLD, 0, 300, 0, MAX_HEIGHT,
+                Collections.singletonList(cuboid), 0L);
+        assertTrue(safeRegion.isInside(0, 1_000, 0));
+        assertTrue(safeRegion.isInside(0, 255, 0));
+    }
+
+    private static List<Area> getAreas(final List<Area> areas, final int x, final int y, final int z) {
+        final int resY = Math.max(0, Math.min(MAX_HEIGHT - 1, y));
+        final List<Area> inside = new ArrayList<>();
+        for (final Area area : areas) {
+            if (area.isLocationInside(WORLD, x, resY, z)) {
+                inside.add(area);
+            }
+        }
+        return inside;
+    }
+
+    private Area newRandomArea() {
+        final int x1 = random.nextInt(80) - 40;
+        final int y1 = random.nextInt(MAX_HEIGHT);
+        final int z1 = random.nextInt(80) - 40;
+        final int x2 = x1 + random.nextInt(40);
+        final int y2 = Math.min(MAX_HEIGHT - 1, y1 + random.nextInt(80));
+        final int z2 = z1 + random.nextInt(40);
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return new CylinderArea(true, WORLD, x1, y1, z1, x2, y2, z2);
+            case 1:
+                final RegionMatrix regionMatrix = new RegionMatrix();
+                final int nbPoints = random.nextInt(400) + 1;
+                for (int i = 0; i < nbPoints; i++) {
+                    regionMatrix.addPoint(x1 + random.nextInt(40), z1 + random.nextInt(40));
+                }
+                return new RoadArea(true, WORLD, y1, y2, regionMatrix);
+            default:
+                return new CuboidArea(true, WORLD, x1, y1, z1, x2, y2, z2);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for area intersection and containment, compared with a position by
+ * position search.
+ */
+public final class AreaGeometryTest {
+
+    private static final String WORLD = "world";
+    private static final long SEED = 4_120_773L;
+    private static final int NB_TESTS = 2_000;
+
+    private Random random;
+
+    @Before
+    public void initRandom() {
+        random = new Random(SEED);
+    }
+
+    @Test
+    public void sameIntersectAsPositionSearch() {
+        for (int i = 0; i < NB_TESTS; i++) {
+            final Area area1 = newRandomArea();
+            final Area area2 = newRandomArea();
+            assertEquals(area1.getPrint() + " " + area2.getPrint(), isIntersectByPosition(area1, area2),
+                    AreaGeometry.isIntersect(area1, area2));
+        }
+    }
+
+    @Test
+    public void sameInsideAsPositionSearch() {
+        for (int i = 0; i < NB_TESTS; i++) {
+            final Area area = newRandomArea();
+            final List<Area> containerAreas = new ArrayList<>();
+            final int nbContainers = random.nextInt(3) + 1;
+            for (int j = 0; j < nbContainers; j++) {
+                containerAreas.add(newRandomArea());
+            }
+            assertEquals(area.getPrint() + " " + containerAreas, isInsideByPosition(area, containerAreas),
+                    AreaGeometry.isInside(area, containerAreas));
+        }
+    }
+
+    @Test
+    public void sameRectangleAsPositionSearch() {
+        for (int i = 0; i < NB_TESTS; i++) {
+            final Area area = newRandomArea();
+            final int x1 = random.nextInt(100) - 50;
+            final int z1 = random.nextInt(100) - 50;
+            final int x2 = x1 + random.nextInt(20);
+            final int z2 = z1 + random.nextInt(20);
+            boolean isIntersect = false;
+            boolean isCovering = true;
+            for (int x = x1; x <= x2; x++) {
+                for (int z = z1; z <= z2; z++) {
+                    if (area.isLocationInside(WORLD, x, z)) {
+                        isIntersect = true;
+                    } else {
+                        isCovering = false;
+                    }
+                }
+            }
+            final String message = area.getPrint() + " " + x1 + ":" + z1 + " " + x2 + ":" + z2;
+            assertEquals(message, isIntersect, AreaGeometry.isIntersect(area, x1, z1, x2, z2));
+            assertEquals(message, isCovering, AreaGeometry.isCovering(area, x1, z1, x2, z2));
+        }
+    }
+
+    @Test
+    public void cylinderInsideCuboidSquare() {
+        final Area cuboid = new CuboidArea(true, WORLD, 0, 0, 0, 10_000, 255, 10_000);
+        final Area cylinder = new CylinderArea(true, WORLD, 0, 0, 0, 10_000, 255, 10_000);
+        assertTrue(AreaGeometry.isInside(cylinder, Collections.singletonList(cuboid)));
+        assertFalse(AreaGeometry.isInside(cuboid, Collections.singletonList(cylinder)));
+        assertTrue(AreaGeometry.isIntersect(cylinder, cuboid));
+
+        // The corner of the square limit is outside the cylinder
+        final Area corner = new CuboidArea(true, WORLD, 10_000, 0, 10_000, 10_100, 255, 10_100);
+        assertFalse(AreaGeometry.isIntersect(cylinder, corner));
+        assertTrue(AreaGeometry.isIntersect(cuboid, corner));
+    }
+
+    @Test
+    public void insideSeveralAreas() {
+        final Area cuboid1 = new CuboidArea(true, WORLD, 0, 0, 0, 99, 255, 200);
+        final Area cuboid2 = new CuboidArea(true, WORLD, 100, 0, 0, 200, 255, 200);
+        final Area cylinder = new CylinderArea(true, WORLD, 10, 0, 10, 190, 255, 190);
+        assertTrue(AreaGeometry.isInside(cylinder, Arrays.asList(cuboid1, cuboid2)));
+        assertFalse(AreaGeometry.isInside(cylinder, Collections.singletonList(cuboid1)));
+    }
+
+    @Test
+    public void otherWorld() {
+        final Area cuboid1 = new CuboidArea(true, WORLD, 0, 0, 0, 100, 255, 100);
+        final Area cuboid2 = new CuboidArea(true, "other", 0, 0, 0, 100, 255, 100);
+        assertFalse(AreaGeometry.isIntersect(cuboid1, cuboid2));
+        assertFalse(AreaGeometry.isInside(cuboid1, Collections.singletonList(cuboid2)));
+    }
+
+    private boolean isIntersectByPosition(final Area area1, final Area area2) {
+        for (int x = area1.getX1(); x <= area1.getX2(); x++) {
+            for (int z = area1.getZ1(); z <= area1.getZ2(); z++) {
+                if (area1.isLocationInside(WORLD, x, z) && area2.isLocationInside(WORLD, x, z)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isInsideByPosition(final Area area, final List<Area> containerAreas) {
+        for (int x = area.getX1(); x <= area.getX2(); x++) {
+            for (int z = area.getZ1(); z <= area.getZ2(); z++) {
+                if (area.isLocationInside(WORLD, x, z) && !isInsideOne(x, z, containerAreas)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isInsideOne(final int x, final int z, final List<Area> containerAreas) {
+        for (final Area containerArea : containerAreas) {
+            if (containerArea.isLocationInside(WORLD, x, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Area newRandomArea() {
+        // Small coordinates around the chunk limits, negative included
+        final int x1 = random.nextInt(80) - 40;
+        final int z1 = random.nextInt(80) - 40;
+        final int maxSize = random.nextInt(10) == 0 ? 4 : 70;
+        final int x2 = x1 + random.nextInt(maxSize);
+        final int z2 = z1 + random.nextInt(maxSize);
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return new CylinderArea(true, WORLD, x1, 0, z1, x2, 255, z2);
+            case 1:
+                final RegionMatrix regionMatrix = new RegionMatrix();
+                final int nbPoints = random.nextInt(400) + 1;
+                for (int i = 0; i < nbPoints; i++) {
+                    regionMatrix.addPoint(x1 + random.nextInt(maxSize), z1 + random.nextInt(maxSize));
+                }
+                return new RoadArea(true, WORLD, 0, 255, regionMatrix);
+            default:
+                return new CuboidArea(true, WORLD, x1, 0, z1, x2, 255, z2);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for area spatial indexes.
+ */
+public final class AreaSpatialIndexTest {
+
+    private static final String WORLD = "world";
+    private static final long SEED = 8_357_211L;
+    private static final int NB_AREAS = 2_000;
+    private static final int NB_LOCATIONS = 20_000;
+    private static final int WORLD_LIMIT = 30_000;
+
+    private Random random;
+    private AreaSpatialIndex sortedIndex;
+    private AreaSpatialIndex gridIndex;
+    private AreaSpatialIndex chunkCacheIndex;
+    private AreaGridSnapshot gridSnapshot;
+    private List<Area> areas;
+
+    @Before
+    public void initIndexes() {
+        random = new Random(SEED);
+        sortedIndex = new AreaSortedIndex();
+        gridIndex = new AreaGridIndex();
+        chunkCacheIndex = new AreaChunkCache(new AreaGridIndex());
+        areas = new ArrayList<>();
+
+        for (int i = 0; i < NB_AREAS; i++) {
+            final Area area = newRandomArea();
+            areas.add(area);
+            sortedIndex.add(area);
+            gridIndex.add(area);
+            chunkCacheIndex.add(area);
+        }
+        gridSnapshot = AreaGridSnapshot.empty().withChanges(areas, area -> true);
+    }
+
+    @Test
+    public void sameAreasOnRandomLocations() {
+        checkRandomLocations();
+    }
+
+    @Test
+    public void sameAreasOnRandomRectangles() {
+        for (int i = 0; i < NB_LOCATIONS / 10; i++) {
+            final int x1 = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+            final int z1 = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+            final int x2 = x1 + random.nextInt(i % 10 == 0 ? 20_000 : 200);
+            final int z2 = z1 + random.nextInt(i % 10 == 0 ? 20_000 : 200);
+
+            final Set<Area> sortedAreas = new HashSet<>(sortedIndex.getAreas(x1, z1, x2, z2));
+            assertEquals(sortedAreas, new HashSet<>(gridIndex.getAreas(x1, z1, x2, z2)));
+            assertEquals(sortedAreas, new HashSet<>(chunkCacheIndex.getAreas(x1, z1, x2, z2)));
+            assertEquals(sortedAreas, new HashSet<>(gridSnapshot.getAreas(x1, z1, x2, z2)));
+        }
+    }
+
+    @Test
+    public void sameAreasAfterRemove() {
+        // Fill the chunk cache before removing
+        checkRandomLocations();
+
+        final AreaGridSnapshot fullGridSnapshot = gridSnapshot;
+        final List<Area> removedAreas = new ArrayList<>();
+        for (int i = 0; i < NB_AREAS / 2; i++) {
+            final Area area = areas.remove(random.nextInt(areas.size()));
+            removedAreas.add(area);
+            sortedIndex.remove(area);
+            gridIndex.remove(area);
+            chunkCacheIndex.remove(area);
+        }
+        gridSnapshot = gridSnapshot.withChanges(removedAreas, area -> false);
+        checkRandomLocations();
+
+        // Add again after the cache is filled
+        final List<Area> addedAreas = new ArrayList<>();
+        for (int i = 0; i < NB_AREAS / 2; i++) {
+            final Area area = newRandomArea();
+            areas.add(area);
+            addedAreas.add(area);
+            sortedIndex.add(area);
+            gridIndex.add(area);
+            chunkCacheIndex.add(area);
+        }
+        gridSnapshot = gridSnapshot.withChanges(addedAreas, area -> true);
+        checkRandomLocations();
+
+        // The previous grid does not change
+        for (final Area area : removedAreas) {
+            assertTrue(fullGridSnapshot.getAreas(area.getX1(), area.getZ1()).contains(area));
+            assertFalse(gridSnapshot.getAreas(area.getX1(), area.getZ1()).contains(area));
+        }
+    }
+
+    @Test
+    public void emptyAfterRemoveAll() {
+        for (final Area area : areas) {
+            sortedIndex.remove(area);
+            gridIndex.remove(area);
+            chunkCacheIndex.remove(area);
+        }
+        assertTrue(sortedIndex.isEmpty());
+        assertTrue(gridIndex.isEmpty());
+        assertTrue(chunkCacheIndex.isEmpty());
+        assertTrue(gridSnapshot.withChanges(areas, area -> false).isEmpty());
+        assertFalse(gridSnapshot.isEmpty());
+        assertEquals(Collections.emptyList(), gridSnapshot.withChanges(areas, area -> false).getAreas(0, 0));
+    }
+
+    private void checkRandomLocations() {
+        for (int i = 0; i < NB_LOCATIONS; i++) {
+            final int x;
+            final int z;
+            if (i % 2 == 0) {
+                // Location near an existing area limit
+                final Area area = areas.get(random.nextInt(areas.size()));
+                x = area.getX1() + random.nextInt(5) - 2;
+                z = area.getZ2() + random.nextInt(5) - 2;
+            } else {
+                x = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+                z = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+            }
+            final int y = random.nextInt(256);
+
+            final Set<Area> sortedAreas = new HashSet<>(sortedIndex.getAreas(x, z));
+            final Set<Area> gridAreas = new HashSet<>(gridIndex.getAreas(x, z));
+            assertEquals("Different areas at " + x + ", " + z, sortedAreas, gridAreas);
+            assertEquals("Different cached areas at " + x + ", " + z, sortedAreas,
+                    new HashSet<>(chunkCacheIndex.getAreas(x, z)));
+            assertEquals("Different snapshot areas at " + x + ", " + z, sortedAreas,
+                    new HashSet<>(gridSnapshot.getAreas(x, z)));
+
+            for (final Area area : gridAreas) {
+                assertTrue(area.isLocationInsideSquare(x, z));
+                assertEquals(area.isLocationInside(WORLD, x, y, z),
+                        area.isLocationInside(WORLD, x, z) && y >= area.getY1() && y <= area.getY2());
+            }
+        }
+    }
+
+    private Area newRandomArea() {
+        final int x1 = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+        final int z1 = random.nextInt(WORLD_LIMIT * 2) - WORLD_LIMIT;
+        final int y1 = random.nextInt(128);
+        final int y2 = y1 + random.nextInt(128);
+
+        // Some admin sized areas and a lot of small areas
+        final int maxSize = random.nextInt(20) == 0 ? 5_000 : 100;
+        final int x2 = x1 + random.nextInt(maxSize);
+        final int z2 = z1 + random.nextInt(maxSize);
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return new CylinderArea(true, WORLD, x1, y1, z1, x2, y2, z2);
+            case 1:
+                final RegionMatrix regionMatrix = new RegionMatrix();
+                for (int i = 0; i < 20; i++) {
+                    regionMatrix.addPoint(x1 + random.nextInt(maxSize), z1 + random.nextInt(maxSize));
+                }
+                return new RoadArea(true, WORLD, y1, y2, regionMatrix);
+            default:
+                return new CuboidArea(true, WORLD, x1, y1, z1, x2, y2, z2);
+        }
+    }
+}
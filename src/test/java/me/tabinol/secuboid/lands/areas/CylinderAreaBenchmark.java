@@ -0,0 +1,83 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import java.util.Random;
+
+/**
+ * Benchmark of the cylinder location checks: the ellipse equation of the
+ * previous implementation against the precomputed columns. Each run checks the
+ * same random positions around random cylinders.
+ * <p>
+ * Usage: CylinderAreaBenchmark [number of checks]
+ */
+public final class CylinderAreaBenchmark {
+
+    private static final int DEFAULT_NB_CHECKS = 50_000_000;
+    private static final int NB_CYLINDERS = 1_000;
+    private static final int NB_RUNS = 5;
+    private static final long SEED = 2_904_551L;
+
+    private CylinderAreaBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final int nbChecks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NB_CHECKS;
+        final Random random = new Random(SEED);
+        final CylinderArea[] areas = new CylinderArea[NB_CYLINDERS];
+        for (int i = 0; i < NB_CYLINDERS; i++) {
+            final int x1 = random.nextInt(10_000);
+            final int z1 = random.nextInt(10_000);
+            areas[i] = new CylinderArea(false, "world", x1, 0, z1, x1 + 10 + random.nextInt(200), 255,
+                    z1 + 10 + random.nextInt(200));
+        }
+        final int[] xs = new int[nbChecks / NB_CYLINDERS];
+        final int[] zs = new int[xs.length];
+
+        for (int run = 0; run < NB_RUNS; run++) {
+            long nbInsideEquation = 0;
+            long nbInsidePrecomputed = 0;
+            long timeEquation = 0;
+            long timePrecomputed = 0;
+            for (final CylinderArea area : areas) {
+                for (int i = 0; i < xs.length; i++) {
+                    xs[i] = area.getX1() + random.nextInt(area.getX2() - area.getX1() + 1);
+                    zs[i] = area.getZ1() + random.nextInt(area.getZ2() - area.getZ1() + 1);
+                }
+
+                long time = System.nanoTime();
+                for (int i = 0; i < xs.length; i++) {
+                    if (CylinderAreaTest.isInsideByEquation(area, xs[i], zs[i])) {
+                        nbInsideEquation++;
+                    }
+                }
+                timeEquation += System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < xs.length; i++) {
+                    if (area.isLocationInside(xs[i], zs[i])) {
+                        nbInsidePrecomputed++;
+                    }
+                }
+                timePrecomputed += System.nanoTime() - time;
+            }
+            System.out.printf("Run %d: equation %d ms (%d inside), precomputed %d ms (%d inside)%n", run + 1,
+                    timeEquation / 1_000_000, nbInsideEquation, timePrecomputed / 1_000_000, nbInsidePrecomputed);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the cylinder precomputed columns, compared with the ellipse
+ * equation.
+ */
+public final class CylinderAreaTest {
+
+    private static final String WORLD = "world";
+    private static final long SEED = 7_403_118L;
+    private static final int NB_TESTS = 500;
+
+    @Test
+    public void sameInsideAsEquation() {
+        final Random random = new Random(SEED);
+        for (int i = 0; i < NB_TESTS; i++) {
+            final int x1 = random.nextInt(2_000) - 1_000;
+            final int z1 = random.nextInt(2_000) - 1_000;
+            final CylinderArea area = new CylinderArea(false, WORLD, x1, 0, z1, x1 + random.nextInt(60),
+                    255, z1 + random.nextInt(60));
+            assertSameAsEquation(area);
+        }
+    }
+
+    @Test
+    public void sameInsideAfterResize() {
+        final CylinderArea area = new CylinderArea(false, WORLD, 0, 0, 0, 20, 255, 30);
+        area.setX2(41);
+        area.setZ1(-7);
+        assertSameAsEquation(area);
+    }
+
+    @Test
+    public void wideCylinderUsesEquation() {
+        final int width = CylinderArea.MAX_PRECOMPUTED_WIDTH + 10;
+        final CylinderArea area = new CylinderArea(false, WORLD, 0, 0, 0, width, 255, 20);
+        for (final int x : new int[] { 0, 1, width / 2, width - 1, width }) {
+            for (int z = -1; z <= 21; z++) {
+                assertEquals(x + ":" + z, isInsideByEquation(area, x, z), area.isLocationInside(x, z));
+            }
+        }
+    }
+
+    private static void assertSameAsEquation(final CylinderArea area) {
+        for (int x = area.getX1() - 1; x <= area.getX2() + 1; x++) {
+            int zMin = Integer.MAX_VALUE;
+            int zMax = Integer.MIN_VALUE;
+            for (int z = area.getZ1() - 1; z <= area.getZ2() + 1; z++) {
+                final boolean isInside = isInsideByEquation(area, x, z);
+                assertEquals(area.getPrint() + " " + x + ":" + z, isInside, area.isLocationInside(x, z));
+                if (isInside) {
+                    zMin = Math.min(zMin, z);
+                    zMax = Math.max(zMax, z);
+                }
+            }
+            if (zMin <= zMax) {
+                assertEquals(zMin, area.getZMinFromX(x));
+                assertEquals(zMax, area.getZMaxFromX(x));
+            } else {
+                assertTrue(area.getZMinFromX(x) > area.getZMaxFromX(x));
+            }
+        }
+    }
+
+    /**
+     * The equation from the previous implementation.
+     */
+    static boolean isInsideByEquation(final CylinderArea area, final int x, final int z) {
+        return ((Math.pow((x - area.getOriginH()), 2) / Math.pow(area.getRX(), 2))
+                + (Math.pow((z - area.getOriginK()), 2) / Math.pow(area.getRZ(), 2))) < 1;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for road region matrices and chunk matrix maps.
+ */
+public final class RegionMatrixTest {
+
+    private static final long SEED = 4_172_903L;
+    private static final int NB_OPERATIONS = 50_000;
+    private static final int CHUNK_LIMIT = 200;
+
+    @Test
+    public void chunkMatrixMapSameAsHashMap() {
+        final Random random = new Random(SEED);
+        final ChunkMatrixMap chunkMatrices = new ChunkMatrixMap();
+        final Map<Long, ChunkMatrix> expected = new HashMap<>();
+
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            final int chunkX = random.nextInt(CHUNK_LIMIT * 2) - CHUNK_LIMIT;
+            final int chunkZ = random.nextInt(CHUNK_LIMIT * 2) - CHUNK_LIMIT;
+            final long key = ChunkMatrixMap.toKey(chunkX, chunkZ);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(key), chunkMatrices.remove(chunkX, chunkZ));
+            } else {
+                final ChunkMatrix matrix = new ChunkMatrix();
+                assertSame(expected.put(key, matrix), chunkMatrices.put(chunkX, chunkZ, matrix));
+            }
+            assertEquals(expected.size(), chunkMatrices.size());
+        }
+
+        for (final Map.Entry<Long, ChunkMatrix> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), chunkMatrices.get(ChunkMatrixMap.getChunkX(entry.getKey()),
+                    ChunkMatrixMap.getChunkZ(entry.getKey())));
+        }
+        int nbMatrices = 0;
+        final ChunkMatrixMap.Cursor cursor = chunkMatrices.cursor();
+        while (cursor.next()) {
+            assertSame(expected.get(ChunkMatrixMap.toKey(cursor.getChunkX(), cursor.getChunkZ())),
+                    cursor.getMatrix());
+            nbMatrices++;
+        }
+        assertEquals(expected.size(), nbMatrices);
+        assertNull(chunkMatrices.get(CHUNK_LIMIT, CHUNK_LIMIT));
+    }
+
+    @Test
+    public void pointsAndLimits() {
+        final Random random = new Random(SEED);
+        final RegionMatrix regionMatrix = new RegionMatrix();
+        final Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            final int x = random.nextInt(200) - 100;
+            final int z = random.nextInt(200) - 100;
+            if (random.nextInt(3) == 0) {
+                regionMatrix.removePoint(x, z);
+                expected.remove(ChunkMatrixMap.toKey(x, z));
+            } else {
+                regionMatrix.addPoint(x, z);
+                expected.add(ChunkMatrixMap.toKey(x, z));
+            }
+            if (i % 1_000 == 0) {
+                assertLimits(expected, regionMatrix);
+            }
+        }
+
+        for (int x = -101; x <= 100; x++) {
+            for (int z = -101; z <= 100; z++) {
+                assertEquals(expected.contains(ChunkMatrixMap.toKey(x, z)), regionMatrix.getPoint(x, z));
+            }
+        }
+        assertEquals(expected.size(), regionMatrix.countPoints());
+        assertLimits(expected, regionMatrix);
+    }
+
+    @Test
+    public void removeLastPoint() {
+        final RegionMatrix regionMatrix = new RegionMatrix();
+        regionMatrix.addPoint(-17, 33);
+        assertEquals(-17, regionMatrix.getX1());
+        assertEquals(33, regionMatrix.getZ2());
+
+        regionMatrix.removePoint(-17, 33);
+        assertTrue(regionMatrix.isEmpty());
+        assertEquals(Integer.MAX_VALUE, regionMatrix.getX1());
+        assertEquals(Integer.MIN_VALUE, regionMatrix.getZ2());
+    }
+
+    @Test
+    public void fileFormatRoundTrip() {
+        final RegionMatrix regionMatrix = new RegionMatrix();
+        regionMatrix.addPoint(-1, -1);
+        regionMatrix.addPoint(15, 0);
+        regionMatrix.addPoint(1_000, -2_000);
+        final RoadArea roadArea = new RoadArea(false, "world", 0, 255, regionMatrix);
+
+        final RoadArea readArea = (RoadArea) Area.getFromFileFormat(roadArea.toFileFormat());
+        assertTrue(readArea.getPoint(-1, -1));
+        assertTrue(readArea.getPoint(15, 0));
+        assertTrue(readArea.getPoint(1_000, -2_000));
+        assertFalse(readArea.getPoint(0, 0));
+        assertEquals(3, readArea.getArea());
+        assertEquals(-2_000, readArea.getZ1());
+        assertEquals(1_000, readArea.getX2());
+    }
+
+    private static void assertLimits(final Set<Long> expected, final RegionMatrix regionMatrix) {
+        int x1 = Integer.MAX_VALUE;
+        int z1 = Integer.MAX_VALUE;
+        int x2 = Integer.MIN_VALUE;
+        int z2 = Integer.MIN_VALUE;
+        for (final long key : expected) {
+            x1 = Math.min(x1, ChunkMatrixMap.getChunkX(key));
+            z1 = Math.min(z1, ChunkMatrixMap.getChunkZ(key));
+            x2 = Math.max(x2, ChunkMatrixMap.getChunkX(key));
+            z2 = Math.max(z2, ChunkMatrixMap.getChunkZ(key));
+        }
+        assertEquals(x1, regionMatrix.getX1());
+        assertEquals(z1, regionMatrix.getZ1());
+        assertEquals(x2, regionMatrix.getX2());
+        assertEquals(z2, regionMatrix.getZ2());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.lands.areas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.bukkit.World;
+import org.junit.Test;
+
+/**
+ * Tests for the world ids.
+ */
+public final class WorldIdsTest {
+
+    @Test
+    public void sameIdForSameWorldName() {
+        final int id = WorldIds.getId("worldids_world");
+        final int netherId = WorldIds.getId("worldids_world_nether");
+
+        assertNotEquals(id, netherId);
+        assertEquals(id, WorldIds.getId(new String("worldids_world")));
+        assertEquals("worldids_world", WorldIds.getWorldName(id));
+        assertEquals("worldids_world_nether", WorldIds.getWorldName(netherId));
+        assertTrue(WorldIds.size() > Math.max(id, netherId));
+    }
+
+    @Test
+    public void denseIds() {
+        final int firstId = WorldIds.getId("worldids_dense_0");
+        for (int i = 1; i < 10; i++) {
+            assertEquals(firstId + i, WorldIds.getId("worldids_dense_" + i));
+        }
+    }
+
+    @Test
+    public void sameIdForWorldAndWorldName() {
+        final World world = newWorld("worldids_bukkit_world");
+        final int id = WorldIds.getId(world);
+
+        assertEquals(id, WorldIds.getId(world));
+        assertEquals(id, WorldIds.getId("worldids_bukkit_world"));
+
+        // A reloaded world is a new instance with the same name
+        assertEquals(id, WorldIds.getId(newWorld("worldids_bukkit_world")));
+        assertEquals(id, WorldIds.getId(world));
+    }
+
+    private static World newWorld(final String worldName) {
+        final World world = mock(World.class);
+        when(world.getName()).thenReturn(worldName);
+        return world;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.listeners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.bukkit.FakeServer;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+
+/**
+ * PvpFireTrackerTest
+ */
+public final class PvpFireTrackerTest {
+
+    private static final double DISTANCE_SQUARED = 5;
+
+    private World world;
+    private World otherWorld;
+    private PlayerContainerPlayer owner;
+    private PvpFireTracker pvpFireTracker;
+
+    @Before
+    public void init() {
+        FakeServer.init();
+        final BukkitScheduler scheduler = mock(BukkitScheduler.class);
+        when(Bukkit.getServer().getScheduler()).thenReturn(scheduler);
+        when(scheduler.runTaskTimer(any(Secuboid.class), any(Runnable.class), anyLong(), anyLong()))
+                .thenReturn(mock(BukkitTask.class));
+
+        world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+        otherWorld = mock(World.class);
+        when(otherWorld.getName()).thenReturn("world_nether");
+        owner = mock(PlayerContainerPlayer.class);
+        pvpFireTracker = new PvpFireTracker(mock(Secuboid.class), 600L);
+    }
+
+    @Test
+    public void getFireBlock() {
+        pvpFireTracker.put(new Location(world, -10, 64, 20), owner);
+        assertEquals(owner, pvpFireTracker.getNullable(new Location(world, -10, 64, 20)));
+        assertNull(pvpFireTracker.getNullable(new Location(world, -10, 65, 20)));
+        assertNull(pvpFireTracker.getNullable(new Location(otherWorld, -10, 64, 20)));
+    }
+
+    @Test
+    public void fireNearSameAsDistance() {
+        final Location fireLoc = new Location(world, 100, 70, -100);
+        pvpFireTracker.put(fireLoc, owner);
+
+        for (double x = 96.5; x <= 104; x += 0.25) {
+            for (double y = 66.5; y <= 74; y += 0.25) {
+                final Location loc = new Location(world, x, y, -99.3);
+                assertEquals(loc.toString(), loc.distanceSquared(fireLoc) < DISTANCE_SQUARED,
+                        pvpFireTracker.isFireNear(loc, DISTANCE_SQUARED));
+            }
+        }
+    }
+
+    @Test
+    public void fireNearOtherWorld() {
+        pvpFireTracker.put(new Location(world, 0, 64, 0), owner);
+        assertTrue(pvpFireTracker.isFireNear(new Location(world, 0.5, 64, 0.5), DISTANCE_SQUARED));
+        assertFalse(pvpFireTracker.isFireNear(new Location(otherWorld, 0.5, 64, 0.5), DISTANCE_SQUARED));
+    }
+
+    @Test
+    public void blockKeysDistinct() {
+        assertNotEquals(PvpFireTracker.toBlockKey(-1, 64, 0), PvpFireTracker.toBlockKey(0, 64, -1));
+        assertNotEquals(PvpFireTracker.toBlockKey(0, 1, 0), PvpFireTracker.toBlockKey(0, 0, 1));
+        assertNotEquals(PvpFireTracker.toBlockKey(30000000, 255, -30000000),
+                PvpFireTracker.toBlockKey(-30000000, 255, 30000000));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.config.Config;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.permissionsflags.Flag;
+import me.tabinol.secuboid.storage.StorageThread.SaveActionEnum;
+import me.tabinol.secuboid.storage.StorageThread.SaveOn;
+import me.tabinol.secuboid.storage.flat.StorageFlat;
+import me.tabinol.secuboid.storage.mysql.StorageMySql;
+
+/**
+ * Tests for the merge of the land saves in the storage thread.
+ */
+public final class StorageThreadTest {
+
+    private Secuboid secuboid;
+    private Config config;
+    private Land land;
+    private Flag flag;
+
+    @Before
+    public void initStorageThread() {
+        secuboid = mock(Secuboid.class);
+        config = mock(Config.class);
+        when(config.getWriteBehindDelay()).thenReturn(60_000L);
+        when(config.getWriteBehindMaxMerged()).thenReturn(1_000);
+        when(secuboid.getConf()).thenReturn(config);
+        when(secuboid.getLogger()).thenReturn(Logger.getLogger("Secuboid"));
+        land = mock(Land.class);
+        flag = mock(Flag.class);
+    }
+
+    @Test
+    public void flatLandSavesMerged() {
+        final StorageFlat storage = mock(StorageFlat.class);
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+
+        for (int i = 0; i < 30; i++) {
+            storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        }
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.BOTH, land);
+        assertEquals(1, storageThread.getQueueDepth());
+        assertEquals(31, storageThread.getSaveRequests());
+        assertEquals(30, storageThread.getMergedSaveRequests());
+
+        storageThread.start();
+        storageThread.stopNextRun();
+        verify(storage, times(1)).saveLand(land);
+        verify(storage, never()).saveLandFlag(land, flag);
+        assertEquals(0, storageThread.getQueueDepth());
+    }
+
+    @Test
+    public void flatLandSavedAfterMaxMerged() {
+        when(config.getWriteBehindMaxMerged()).thenReturn(5);
+        final StorageFlat storage = mock(StorageFlat.class);
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+        storageThread.start();
+
+        for (int i = 0; i < 5; i++) {
+            storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        }
+        verify(storage, timeout(5_000L).times(1)).saveLand(land);
+        storageThread.stopNextRun();
+        verify(storage, times(1)).saveLand(land);
+    }
+
+    @Test
+    public void flatLandSavedAfterDelay() {
+        when(config.getWriteBehindDelay()).thenReturn(10L);
+        final StorageFlat storage = mock(StorageFlat.class);
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+        storageThread.start();
+
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        verify(storage, timeout(5_000L).times(1)).saveLand(land);
+        storageThread.stopNextRun();
+    }
+
+    @Test
+    public void flatLandRemovedWithoutSave() {
+        final StorageFlat storage = mock(StorageFlat.class);
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        storageThread.addSaveAction(SaveActionEnum.LAND_REMOVE, SaveOn.BOTH, land);
+
+        storageThread.start();
+        storageThread.stopNextRun();
+        verify(storage, never()).saveLand(land);
+        verify(storage, times(1)).removeLand(land);
+    }
+
+    @Test
+    public void mySqlSavesNotMerged() {
+        final StorageMySql storage = newStorageMySql();
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.BOTH, land);
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        assertEquals(3, storageThread.getQueueDepth());
+        assertEquals(0, storageThread.getMergedSaveRequests());
+
+        storageThread.start();
+        storageThread.stopNextRun();
+        final InOrder inOrder = inOrder(storage);
+        inOrder.verify(storage).saveLand(land);
+        inOrder.verify(storage, times(2)).saveLandFlag(land, flag);
+    }
+
+    @Test
+    public void mySqlSameLandInOneTransaction() {
+        final StorageMySql storage = newStorageMySql();
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+        final Land otherLand = mock(Land.class);
+
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.BOTH, land);
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.BOTH, otherLand);
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.BOTH, land);
+
+        storageThread.start();
+        storageThread.stopNextRun();
+        final InOrder inOrder = inOrder(storage);
+        inOrder.verify(storage).doLandTransaction(eq(land), any(Runnable.class));
+        inOrder.verify(storage).saveLand(land);
+        inOrder.verify(storage, times(2)).saveLandFlag(land, flag);
+        inOrder.verify(storage).saveLand(otherLand);
+        inOrder.verify(storage).saveLand(land);
+        verify(storage, times(1)).doLandTransaction(any(Land.class), any(Runnable.class));
+        assertEquals(1, storageThread.getLandTransactions());
+        assertEquals(3, storageThread.getLandTransactionSaveRequests());
+    }
+
+    @Test
+    public void mySqlOtherActionNotInTransaction() {
+        final StorageMySql storage = newStorageMySql();
+        final StorageThread storageThread = new StorageThread(secuboid, storage);
+
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+        storageThread.addSaveAction(SaveActionEnum.LAND_SAVE, SaveOn.FLAT, land);
+        storageThread.addSaveAction(SaveActionEnum.LAND_FLAG_SAVE, SaveOn.BOTH, land, flag);
+
+        storageThread.start();
+        storageThread.stopNextRun();
+        verify(storage, never()).doLandTransaction(any(Land.class), any(Runnable.class));
+        verify(storage, never()).saveLand(land);
+        verify(storage, times(2)).saveLandFlag(land, flag);
+    }
+
+    private StorageMySql newStorageMySql() {
+        final StorageMySql storage = mock(StorageMySql.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(storage).doLandTransaction(any(Land.class), any(Runnable.class));
+        return storage;
+    }
+}
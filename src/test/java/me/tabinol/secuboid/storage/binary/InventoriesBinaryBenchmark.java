@@ -0,0 +1,134 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.bukkit.FakeServer;
+import me.tabinol.secuboid.inventories.InventorySpec;
+import me.tabinol.secuboid.inventories.PlayerInvEntry;
+import me.tabinol.secuboid.inventories.PlayerInventoryCache;
+import me.tabinol.secuboid.storage.flat.InventoriesFlat;
+
+/**
+ * Benchmark of the inventory files: N player inventories saved then loaded with
+ * the YAML files and with the binary files.
+ * <p>
+ * Usage: InventoriesBinaryBenchmark [number of inventories]
+ */
+public final class InventoriesBinaryBenchmark {
+
+    private static final int DEFAULT_NB_INVENTORIES = 5_000;
+    private static final Material[] MATERIALS = { Material.STONE, Material.DIRT, Material.OAK_LOG, Material.TORCH,
+            Material.IRON_INGOT, Material.DIAMOND_PICKAXE, Material.BREAD, Material.COBBLESTONE };
+
+    private InventoriesBinaryBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final int nbInventories = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NB_INVENTORIES;
+        FakeServer.init();
+        final InventorySpec inventorySpec = new InventorySpec("Default", true, true, true, null);
+        final List<PlayerInventoryCache> playerInventoryCaches = new ArrayList<>();
+        for (int i = 0; i < nbInventories; i++) {
+            playerInventoryCaches.add(new PlayerInventoryCache(UUID.randomUUID(), "player" + i));
+        }
+
+        for (int run = 0; run < 2; run++) {
+            benchmark("YAML", InventoriesFlat::new, playerInventoryCaches, inventorySpec);
+            benchmark("binary", InventoriesBinary::new, playerInventoryCaches, inventorySpec);
+        }
+    }
+
+    private interface InventoriesFactory {
+        InventoriesFlat create(Secuboid secuboid);
+    }
+
+    private static void benchmark(final String name, final InventoriesFactory inventoriesFactory,
+            final List<PlayerInventoryCache> playerInventoryCaches, final InventorySpec inventorySpec)
+            throws IOException {
+        final File dataFolder = Files.createTempDirectory("secuboid-bench").toFile();
+        try {
+            final Secuboid secuboid = mock(Secuboid.class);
+            when(secuboid.getDataFolder()).thenReturn(dataFolder);
+            when(secuboid.getLogger()).thenReturn(Logger.getLogger("Secuboid"));
+            final InventoriesFlat inventories = inventoriesFactory.create(secuboid);
+
+            long time = System.currentTimeMillis();
+            for (int i = 0; i < playerInventoryCaches.size(); i++) {
+                inventories.saveInventoryPlayer(newPlayerInvEntry(playerInventoryCaches.get(i), inventorySpec, i));
+            }
+            final long saveMillis = System.currentTimeMillis() - time;
+
+            time = System.currentTimeMillis();
+            for (final PlayerInventoryCache playerInventoryCache : playerInventoryCaches) {
+                inventories.loadInventoriesPlayer(playerInventoryCache, inventorySpec);
+            }
+            final long loadMillis = System.currentTimeMillis() - time;
+
+            final long size;
+            try (Stream<Path> paths = Files.walk(dataFolder.toPath())) {
+                size = paths.map(Path::toFile).filter(File::isFile).mapToLong(File::length).sum();
+            }
+            System.out.printf("%s: %d inventories saved in %d ms, loaded in %d ms, %d KiB%n", name,
+                    playerInventoryCaches.size(), saveMillis, loadMillis, size / 1024);
+        } finally {
+            try (Stream<File> files = Files.walk(dataFolder.toPath()).sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)) {
+                files.forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Creates an inventory with 30 item stacks, 5 ender chest item stacks and a
+     * potion effect.
+     */
+    private static PlayerInvEntry newPlayerInvEntry(final PlayerInventoryCache playerInventoryCache,
+            final InventorySpec inventorySpec, final int seed) {
+        final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCache, inventorySpec, false);
+        playerInvEntry.setLevel(seed % 30).setExp(0.25f).setHealth(18d).setFoodLevel(17);
+        for (int i = 0; i < 30; i++) {
+            playerInvEntry.getSlotItems()[i] = new ItemStack(MATERIALS[(seed + i) % MATERIALS.length],
+                    1 + (seed + i) % 64);
+        }
+        for (int i = 0; i < 5; i++) {
+            playerInvEntry.getEnderChestItems()[i] = new ItemStack(MATERIALS[i], 64);
+        }
+        playerInvEntry.addPotionEffect(new PotionEffect(PotionEffectType.getById(1), 600, 1, false));
+        return playerInvEntry;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.bukkit.FakeServer;
+import me.tabinol.secuboid.inventories.InventorySpec;
+import me.tabinol.secuboid.inventories.PlayerInvEntry;
+import me.tabinol.secuboid.inventories.PlayerInventoryCache;
+import me.tabinol.secuboid.storage.flat.InventoriesFlat;
+
+/**
+ * Tests for the inventories binary files.
+ */
+public final class InventoriesBinaryTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Secuboid secuboid;
+    private InventorySpec inventorySpec;
+    private PlayerInventoryCache playerInventoryCache;
+
+    @BeforeClass
+    public static void initServer() {
+        FakeServer.init();
+    }
+
+    @Before
+    public void initInventories() {
+        secuboid = mock(Secuboid.class);
+        when(secuboid.getDataFolder()).thenReturn(temporaryFolder.getRoot());
+        when(secuboid.getLogger()).thenReturn(Logger.getLogger("Secuboid"));
+        inventorySpec = new InventorySpec("Default", true, true, true, null);
+        playerInventoryCache = mock(PlayerInventoryCache.class);
+        when(playerInventoryCache.getUUID()).thenReturn(UUID.randomUUID());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final PlayerInvEntry playerInvEntry = newPlayerInvEntry();
+
+        final PlayerInvEntry decoded = PlayerInvEntryCodec.decode(PlayerInvEntryCodec.encode(playerInvEntry, false),
+                playerInventoryCache, inventorySpec, false);
+
+        assertEquals(playerInvEntry.getLevel(), decoded.getLevel());
+        assertEquals(playerInvEntry.getExp(), decoded.getExp(), 0f);
+        assertEquals(playerInvEntry.getHealth(), decoded.getHealth(), 0d);
+        assertEquals(playerInvEntry.getFoodLevel(), decoded.getFoodLevel());
+        assertArrayEquals(playerInvEntry.getSlotItems(), decoded.getSlotItems());
+        assertArrayEquals(playerInvEntry.getEnderChestItems(), decoded.getEnderChestItems());
+        assertEquals(playerInvEntry.getPotionEffects(), decoded.getPotionEffects());
+    }
+
+    @Test
+    public void enderChestOnly() throws IOException {
+        final PlayerInvEntry playerInvEntry = newPlayerInvEntry();
+
+        final PlayerInvEntry decoded = PlayerInvEntryCodec.decode(PlayerInvEntryCodec.encode(playerInvEntry, true),
+                playerInventoryCache, inventorySpec, false);
+
+        assertEquals(0, decoded.getLevel());
+        assertEquals(PlayerInvEntry.MAX_HEALTH, decoded.getHealth(), 0d);
+        assertArrayEquals(new ItemStack[PlayerInvEntry.INVENTORY_LIST_SIZE], decoded.getSlotItems());
+        assertArrayEquals(playerInvEntry.getEnderChestItems(), decoded.getEnderChestItems());
+        assertTrue(decoded.getPotionEffects().isEmpty());
+    }
+
+    @Test
+    public void stringsWrittenOnce() throws IOException {
+        final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCache, inventorySpec, false);
+        final int emptySize = PlayerInvEntryCodec.encode(playerInvEntry, false).length;
+        playerInvEntry.getSlotItems()[0] = new ItemStack(Material.STONE, 64);
+        final int oneItemSize = PlayerInvEntryCodec.encode(playerInvEntry, false).length;
+        for (int i = 1; i < 36; i++) {
+            playerInvEntry.getSlotItems()[i] = new ItemStack(Material.STONE, 64);
+        }
+        final int fullSize = PlayerInvEntryCodec.encode(playerInvEntry, false).length;
+
+        // The next items only have references to the first strings
+        assertTrue((fullSize - oneItemSize) / 35 < (oneItemSize - emptySize) / 2);
+    }
+
+    @Test
+    public void longStringsRoundTrip() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() <= 70000) {
+            sb.append("A very long book page \u00e9\u20ac\u4e16 ");
+        }
+        final String longStr = sb.toString();
+        final List<String> values = Arrays.asList(longStr, "short", longStr);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new PlayerInvEntryCodec.Encoder(new DataOutputStream(baos)).writeValue(values);
+        final Object decoded = new PlayerInvEntryCodec.Decoder(
+                new DataInputStream(new ByteArrayInputStream(baos.toByteArray()))).readValue();
+
+        assertEquals(values, decoded);
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongFileRejected() throws IOException {
+        PlayerInvEntryCodec.decode(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, playerInventoryCache, inventorySpec, false);
+    }
+
+    @Test
+    public void yamlFileReadThenReplaced() {
+        final PlayerInvEntry playerInvEntry = newPlayerInvEntry();
+        new InventoriesFlat(secuboid).saveInventoryPlayer(playerInvEntry);
+        final File invDir = new File(temporaryFolder.getRoot(), "inventories/Default");
+        final String fileName = playerInventoryCache.getUUID() + ".SURVIVAL";
+        assertTrue(new File(invDir, fileName + ".yml").isFile());
+
+        // Read from YAML
+        final InventoriesBinary inventoriesBinary = new InventoriesBinary(secuboid);
+        assertEquals(playerInvEntry.getLevel(), loadSurvival(inventoriesBinary, 1).getLevel());
+
+        // Saved in binary
+        playerInvEntry.setLevel(12);
+        inventoriesBinary.saveInventoryPlayer(playerInvEntry);
+        assertFalse(new File(invDir, fileName + ".yml").exists());
+        assertTrue(new File(invDir, fileName + InventoriesBinary.BIN_EXT).isFile());
+        assertFalse(new File(invDir, fileName + InventoriesBinary.BIN_EXT + ".tmp").exists());
+        final PlayerInvEntry loaded = loadSurvival(inventoriesBinary, 2);
+        assertEquals(12, loaded.getLevel());
+        assertArrayEquals(playerInvEntry.getSlotItems(), loaded.getSlotItems());
+    }
+
+    @Test
+    public void deathHistoryRenamed() {
+        final InventoriesBinary inventoriesBinary = new InventoriesBinary(secuboid);
+        for (int i = 1; i <= PlayerInventoryCache.DEATH_SAVE_MAX_NBR + 2; i++) {
+            // The death history is read from the creative files
+            final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCache, inventorySpec, true)
+                    .setLevel(i);
+            inventoriesBinary.saveInventoryPlayerDeathHistory(playerInvEntry);
+        }
+
+        inventoriesBinary.loadInventoriesPlayer(playerInventoryCache, inventorySpec);
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<PlayerInvEntry>> deathCaptor = ArgumentCaptor.forClass(List.class);
+        verify(playerInventoryCache).setInventoriesLoaded(eq(inventorySpec), any(), any(), deathCaptor.capture());
+        final List<PlayerInvEntry> deathInvEntries = deathCaptor.getValue();
+        assertEquals(PlayerInventoryCache.DEATH_SAVE_MAX_NBR, deathInvEntries.size());
+        assertEquals(PlayerInventoryCache.DEATH_SAVE_MAX_NBR + 2, deathInvEntries.get(0).getLevel());
+        assertEquals(3, deathInvEntries.get(PlayerInventoryCache.DEATH_SAVE_MAX_NBR - 1).getLevel());
+    }
+
+    @Test
+    public void binaryFilesReadFromBackup() {
+        final File inventoriesDir = new File(temporaryFolder.getRoot(), "inventories");
+        final PlayerInvEntry playerInvEntry = newPlayerInvEntry();
+        new InventoriesFlat(secuboid).saveInventoryPlayer(playerInvEntry);
+        assertFalse(InventoriesBinary.isBinaryFileExists(inventoriesDir));
+        new InventoriesBinary(secuboid).saveInventoryPlayer(playerInvEntry);
+        assertTrue(InventoriesBinary.isBinaryFileExists(inventoriesDir));
+
+        // Moved like the conversion to an other storage
+        final File backupDir = new File(temporaryFolder.getRoot(), "backupbinary");
+        assertTrue(backupDir.mkdir());
+        final File backupInventoriesDir = new File(backupDir, "inventories");
+        assertTrue(inventoriesDir.renameTo(backupInventoriesDir));
+        assertFalse(InventoriesBinary.isBinaryFileExists(inventoriesDir));
+        final PlayerInvEntry loaded = loadSurvival(new InventoriesBinary(secuboid, backupInventoriesDir), 1);
+        assertEquals(playerInvEntry.getLevel(), loaded.getLevel());
+        assertArrayEquals(playerInvEntry.getSlotItems(), loaded.getSlotItems());
+    }
+
+    private PlayerInvEntry loadSurvival(final InventoriesBinary inventoriesBinary, final int nbLoads) {
+        inventoriesBinary.loadInventoriesPlayer(playerInventoryCache, inventorySpec);
+        final ArgumentCaptor<PlayerInvEntry> survivalCaptor = ArgumentCaptor.forClass(PlayerInvEntry.class);
+        verify(playerInventoryCache, times(nbLoads)).setInventoriesLoaded(eq(inventorySpec),
+                survivalCaptor.capture(), any(), eq(Collections.emptyList()));
+        return survivalCaptor.getValue();
+    }
+
+    private PlayerInvEntry newPlayerInvEntry() {
+        final PlayerInvEntry playerInvEntry = new PlayerInvEntry(playerInventoryCache, inventorySpec, false);
+        playerInvEntry.setLevel(7).setExp(0.5f).setHealth(15.5d).setFoodLevel(18);
+        playerInvEntry.getSlotItems()[0] = new ItemStack(Material.DIAMOND_SWORD);
+        playerInvEntry.getSlotItems()[5] = new ItemStack(Material.STONE, 64);
+        playerInvEntry.getSlotItems()[PlayerInvEntry.INVENTORY_LIST_SIZE - 1] = new ItemStack(Material.SHIELD);
+        playerInvEntry.getEnderChestItems()[3] = new ItemStack(Material.APPLE, 12);
+        playerInvEntry.addPotionEffect(new PotionEffect(PotionEffectType.getById(1), 600, 1, false));
+        return playerInvEntry;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.binary;
+
+import static me.tabinol.secuboid.lands.InitLands.WORLD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.InitLands;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.lands.Lands;
+import me.tabinol.secuboid.lands.areas.Area;
+import me.tabinol.secuboid.lands.areas.CuboidArea;
+import me.tabinol.secuboid.lands.areas.CylinderArea;
+import me.tabinol.secuboid.lands.areas.RoadArea;
+import me.tabinol.secuboid.permissionsflags.FlagList;
+import me.tabinol.secuboid.permissionsflags.PermissionList;
+import me.tabinol.secuboid.permissionsflags.PermissionsFlags;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+
+/**
+ * Tests for the lands binary snapshot and journal.
+ */
+public final class LandsBinaryTest {
+
+    private static final int NB_LANDS = 50;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File dataFolder;
+    private InitLands initLands;
+    private List<Land> savedLands;
+
+    @Before
+    public void createLands() throws SecuboidLandException {
+        dataFolder = temporaryFolder.getRoot();
+        initLands = newInitLands();
+        final PermissionsFlags permissionsFlags = initLands.getSecuboid().getPermissionsFlags();
+        savedLands = new ArrayList<>();
+        Land parent = null;
+
+        for (int i = 0; i < NB_LANDS; i++) {
+            final PlayerContainerPlayer owner = initLands.getPlayerContainers()
+                    .getOrAddPlayerContainerPlayer(UUID.randomUUID());
+            final Land land;
+            if (i % 5 == 1) {
+                land = initLands.getLands().createLand("land" + i, owner,
+                        new CylinderArea(true, WORLD, i * 100 + 10, 0, 10, i * 100 + 40, 255, 40), parent);
+            } else {
+                land = initLands.getLands().createLand("land" + i, owner,
+                        new CuboidArea(true, WORLD, i * 100, 0, 0, i * 100 + 49, 255, 49));
+                final RoadArea roadArea = new RoadArea(false, WORLD, 60, 70, null);
+                for (int x = 0; x < 40; x++) {
+                    roadArea.add(i * 100 + x, 60 + (x % 3));
+                }
+                land.addArea(roadArea);
+                parent = land;
+            }
+            land.addResident(initLands.getPlayerContainers().getOrAddPlayerContainerPlayer(UUID.randomUUID()));
+            land.getPermissionsFlags().addPermission(owner,
+                    permissionsFlags.newPermission(PermissionList.BUILD.getPermissionType(), false, true));
+            land.getPermissionsFlags()
+                    .addFlag(permissionsFlags.newFlag(FlagList.FIRESPREAD.getFlagType(), false, true));
+            land.getPermissionsFlags()
+                    .addFlag(permissionsFlags.newFlag(FlagList.MESSAGE_ENTER.getFlagType(), "Hello " + i, false));
+            land.setPriority((short) (i % 10));
+            savedLands.add(land);
+        }
+    }
+
+    @Test
+    public void saveAndReload() {
+        final LandsBinary landsBinary = new LandsBinary(initLands.getSecuboid());
+        savedLands.forEach(landsBinary::saveLand);
+        landsBinary.removeLand(savedLands.get(2));
+        landsBinary.close();
+
+        final Lands lands = loadLands();
+        assertEquals(NB_LANDS - 1, lands.getLands().size());
+        assertNull(lands.getLand(savedLands.get(2).getUUID()));
+        for (final Land savedLand : savedLands) {
+            if (savedLand != savedLands.get(2)) {
+                assertSameLand(savedLand, lands.getLand(savedLand.getUUID()));
+            }
+        }
+    }
+
+    @Test
+    public void compaction() {
+        final LandsBinary landsBinary = new LandsBinary(initLands.getSecuboid(), 1L);
+        savedLands.forEach(landsBinary::saveLand);
+        savedLands.forEach(landsBinary::saveLand);
+        landsBinary.close();
+
+        final File binaryDir = new File(dataFolder, LandsBinary.DIR_NAME);
+        assertTrue(new File(binaryDir, LandsBinary.SNAPSHOT_NAME).isFile());
+        assertFalse(new File(binaryDir, LandsBinary.OLD_JOURNAL_NAME).exists());
+        final Lands lands = loadLands();
+        assertEquals(NB_LANDS, lands.getLands().size());
+        for (final Land savedLand : savedLands) {
+            assertSameLand(savedLand, lands.getLand(savedLand.getUUID()));
+        }
+    }
+
+    @Test
+    public void truncatedJournalEndIgnored() throws IOException {
+        final LandsBinary landsBinary = new LandsBinary(initLands.getSecuboid());
+        savedLands.subList(0, 10).forEach(landsBinary::saveLand);
+        landsBinary.close();
+        try (FileOutputStream out = new FileOutputStream(
+                new File(new File(dataFolder, LandsBinary.DIR_NAME), LandsBinary.JOURNAL_NAME), true)) {
+            out.write(new byte[] { 0, 0, 1, 0, 42 });
+        }
+
+        // The next save is after the last valid entry
+        final InitLands otherInitLands = newInitLands();
+        final LandsBinary otherLandsBinary = new LandsBinary(otherInitLands.getSecuboid());
+        otherLandsBinary.loadLands();
+        assertEquals(10, otherInitLands.getLands().getLands().size());
+        otherLandsBinary.saveLand(savedLands.get(10));
+        otherLandsBinary.close();
+
+        assertEquals(11, loadLands().getLands().size());
+    }
+
+    private InitLands newInitLands() {
+        final InitLands newInitLands = new InitLands();
+        when(newInitLands.getSecuboid().getDataFolder()).thenReturn(dataFolder);
+        return newInitLands;
+    }
+
+    private Lands loadLands() {
+        final InitLands loadInitLands = newInitLands();
+        new LandsBinary(loadInitLands.getSecuboid()).loadLands();
+        return loadInitLands.getLands();
+    }
+
+    private static void assertSameLand(final Land expected, final Land actual) {
+        assertNotNull(expected.getName(), actual);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getOwner(), actual.getOwner());
+        assertEquals(expected.getResidents(), actual.getResidents());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(expected.getParent() != null ? expected.getParent().getUUID() : null,
+                actual.getParent() != null ? actual.getParent().getUUID() : null);
+        assertEquals(expected.getAreasKey(), actual.getAreasKey());
+        for (final int key : expected.getAreasKey()) {
+            final Area expectedArea = expected.getArea(key);
+            assertEquals(expectedArea.toFileFormat(), actual.getArea(key).toFileFormat());
+        }
+        assertEquals(new HashSet<>(expected.getPermissionsFlags().getFlags()),
+                new HashSet<>(actual.getPermissionsFlags().getFlags()));
+        assertEquals(expected.getPermissionsFlags().getSetPCHavePermission(),
+                actual.getPermissionsFlags().getSetPCHavePermission());
+    }
+}
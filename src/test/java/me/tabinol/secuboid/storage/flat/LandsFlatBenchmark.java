@@ -0,0 +1,131 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.flat;
+
+import static me.tabinol.secuboid.lands.InitLands.WORLD;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.InitLands;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.lands.areas.CuboidArea;
+import me.tabinol.secuboid.lands.areas.CylinderArea;
+import me.tabinol.secuboid.permissionsflags.FlagList;
+import me.tabinol.secuboid.permissionsflags.PermissionList;
+import me.tabinol.secuboid.playercontainer.PlayerContainerPlayer;
+
+/**
+ * Benchmark of the land files loading. Generates N synthetic land files, then
+ * loads them with one thread and with the number of processors.
+ * <p>
+ * Usage: LandsFlatBenchmark [number of lands]
+ */
+public final class LandsFlatBenchmark {
+
+    private static final int DEFAULT_NB_LANDS = 40_000;
+
+    private LandsFlatBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException, SecuboidLandException {
+        final int nbLands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NB_LANDS;
+        final File dataFolder = Files.createTempDirectory("secuboid-bench").toFile();
+        try {
+            long time = System.currentTimeMillis();
+            generateLandFiles(dataFolder, nbLands);
+            System.out.printf("%d land files generated in %d ms%n", nbLands, System.currentTimeMillis() - time);
+
+            final int nbProcessors = Runtime.getRuntime().availableProcessors();
+            for (final int nbThreads : new int[] { 1, nbProcessors, 1, nbProcessors }) {
+                final InitLands initLands = newInitLands(dataFolder, nbThreads);
+                time = System.currentTimeMillis();
+                new LandsFlat(initLands.getSecuboid()).loadLands();
+                System.out.printf("%d lands loaded with %d thread(s) in %d ms%n",
+                        initLands.getLands().getLands().size(), nbThreads, System.currentTimeMillis() - time);
+            }
+        } finally {
+            try (Stream<File> files = Files.walk(dataFolder.toPath()).sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)) {
+                files.forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Creates lands test instance reading the files from a data folder.
+     *
+     * @param dataFolder the data folder
+     * @param nbThreads  the number of threads for the parse
+     * @return the lands test instance
+     */
+    static InitLands newInitLands(final File dataFolder, final int nbThreads) {
+        final InitLands initLands = new InitLands();
+        final Secuboid secuboid = initLands.getSecuboid();
+        when(secuboid.getDataFolder()).thenReturn(dataFolder);
+        when(secuboid.getConf().getFlatLoadThreads()).thenReturn(nbThreads);
+        return initLands;
+    }
+
+    /**
+     * Generates synthetic land files: one land with a child every 10 lands, with
+     * residents, a permission, a flag and cuboid or cylinder areas.
+     *
+     * @param dataFolder the data folder
+     * @param nbLands    the number of lands
+     * @throws SecuboidLandException the secuboid land exception
+     */
+    static void generateLandFiles(final File dataFolder, final int nbLands) throws SecuboidLandException {
+        final InitLands initLands = newInitLands(dataFolder, 1);
+        final Secuboid secuboid = initLands.getSecuboid();
+        final LandsFlat landsFlat = new LandsFlat(secuboid);
+        Land parent = null;
+
+        for (int i = 0; i < nbLands; i++) {
+            final int x = (i % 200) * 100;
+            final int z = (i / 200) * 100;
+            final PlayerContainerPlayer owner = initLands.getPlayerContainers()
+                    .getOrAddPlayerContainerPlayer(UUID.randomUUID());
+            final Land land;
+            if (i % 10 == 1 && parent != null) {
+                land = initLands.getLands().createLand("land" + i, owner,
+                        new CylinderArea(true, WORLD, x + 10, 0, z + 10, x + 40, 255, z + 40), parent);
+            } else {
+                land = initLands.getLands().createLand("land" + i, owner,
+                        new CuboidArea(true, WORLD, x, 0, z, x + 49, 255, z + 49));
+                land.addArea(new CuboidArea(true, WORLD, x + 50, 0, z, x + 99, 255, z + 49));
+                parent = land;
+            }
+            land.addResident(initLands.getPlayerContainers().getOrAddPlayerContainerPlayer(UUID.randomUUID()));
+            land.getPermissionsFlags().addPermission(owner, secuboid.getPermissionsFlags()
+                    .newPermission(PermissionList.BUILD.getPermissionType(), false, true));
+            land.getPermissionsFlags()
+                    .addFlag(secuboid.getPermissionsFlags().newFlag(FlagList.FIRESPREAD.getFlagType(), false, true));
+            land.setPriority((short) (i % 100));
+            landsFlat.saveLand(land);
+        }
+    }
+}
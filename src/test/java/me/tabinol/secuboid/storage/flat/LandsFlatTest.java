@@ -0,0 +1,92 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.flat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import me.tabinol.secuboid.exceptions.SecuboidLandException;
+import me.tabinol.secuboid.lands.InitLands;
+import me.tabinol.secuboid.lands.Land;
+import me.tabinol.secuboid.lands.Lands;
+
+/**
+ * Tests for the land files loading.
+ */
+public final class LandsFlatTest {
+
+    private static final int NB_LANDS = 200;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File dataFolder;
+
+    @Before
+    public void generateLandFiles() throws SecuboidLandException {
+        dataFolder = temporaryFolder.getRoot();
+        LandsFlatBenchmark.generateLandFiles(dataFolder, NB_LANDS);
+    }
+
+    @Test
+    public void parallelLoadSameAsSingleThread() {
+        final Lands singleLands = loadLands(1);
+        final Lands parallelLands = loadLands(4);
+
+        assertEquals(NB_LANDS, singleLands.getLands().size());
+        assertEquals(NB_LANDS, parallelLands.getLands().size());
+        for (final Land singleLand : singleLands.getLands()) {
+            final Land parallelLand = parallelLands.getLand(singleLand.getUUID());
+            assertNotNull(singleLand.getName(), parallelLand);
+            assertEquals(singleLand.getName(), parallelLand.getName());
+            assertEquals(singleLand.getOwner(), parallelLand.getOwner());
+            assertEquals(singleLand.getResidents(), parallelLand.getResidents());
+            assertEquals(singleLand.getPriority(), parallelLand.getPriority());
+            assertEquals(singleLand.getAreas().size(), parallelLand.getAreas().size());
+            assertEquals(singleLand.getParent() != null ? singleLand.getParent().getUUID() : null,
+                    parallelLand.getParent() != null ? parallelLand.getParent().getUUID() : null);
+            assertEquals(singleLand.getPermissionsFlags().getFlags().size(),
+                    parallelLand.getPermissionsFlags().getFlags().size());
+        }
+    }
+
+    @Test
+    public void badFileSkipped() throws IOException {
+        try (PrintWriter writer = new PrintWriter(new File(dataFolder, "lands/" + UUID.randomUUID() + ".conf"))) {
+            writer.println("Version:not a number");
+        }
+
+        assertEquals(NB_LANDS, loadLands(4).getLands().size());
+    }
+
+    private Lands loadLands(final int nbThreads) {
+        final InitLands initLands = LandsFlatBenchmark.newInitLands(dataFolder, nbThreads);
+        new LandsFlat(initLands.getSecuboid()).loadLands();
+        return initLands.getLands();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.storage.mysql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the connection pool, with mocked physical connections.
+ */
+public final class ConnectionPoolTest {
+
+    private static final String SQL = "SELECT `id` FROM `secuboid_lands` WHERE `uuid`=?";
+
+    private List<Connection> physicalConnections;
+
+    @Before
+    public void initConnections() {
+        physicalConnections = new ArrayList<>();
+    }
+
+    private Connection newPhysicalConnection() throws SQLException {
+        final Connection physical = mock(Connection.class);
+        when(physical.getAutoCommit()).thenReturn(true);
+        when(physical.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        physicalConnections.add(physical);
+        return physical;
+    }
+
+    private ConnectionPool newPool(final int maxSize, final long idleTimeoutMillis, final int statementCacheSize) {
+        return new ConnectionPool(this::newPhysicalConnection, maxSize, idleTimeoutMillis, 50L, statementCacheSize);
+    }
+
+    @Test
+    public void connectionReused() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        try (final Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        try (final Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+
+        assertEquals(1, pool.getCreatedConnections());
+        assertEquals(1, pool.getIdleConnections());
+        verify(physicalConnections.get(0), times(0)).close();
+    }
+
+    @Test
+    public void closedConnectionUnusable() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        final Connection conn = pool.getConnection();
+        conn.close();
+        assertTrue(conn.isClosed());
+        try {
+            conn.createStatement();
+            fail("A closed connection should not be usable");
+        } catch (final SQLException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void poolSizeBounded() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        final Connection conn1 = pool.getConnection();
+        final Connection conn2 = pool.getConnection();
+        try {
+            pool.getConnection();
+            fail("The pool should be full");
+        } catch (final SQLException e) {
+            // Expected
+        }
+        assertEquals(2, pool.getOpenConnections());
+
+        conn1.close();
+        try (final Connection conn3 = pool.getConnection()) {
+            assertNotSame(conn1, conn3);
+        }
+        conn2.close();
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void idleConnectionEvicted() throws SQLException {
+        final ConnectionPool pool = newPool(2, -1L, 8);
+
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        assertEquals(2, pool.getCreatedConnections());
+        verify(physicalConnections.get(0)).close();
+    }
+
+    @Test
+    public void brokenConnectionDiscarded() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        final Connection conn = pool.getConnection();
+        when(physicalConnections.get(0).isClosed()).thenReturn(true);
+        conn.close();
+
+        assertEquals(0, pool.getOpenConnections());
+        pool.getConnection().close();
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void unfinishedTransactionRolledBack() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        final Connection conn = pool.getConnection();
+        when(physicalConnections.get(0).getAutoCommit()).thenReturn(false);
+        conn.close();
+
+        verify(physicalConnections.get(0)).rollback();
+        verify(physicalConnections.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    public void statementCached() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        for (int i = 0; i < 3; i++) {
+            try (final Connection conn = pool.getConnection();
+                    final PreparedStatement stmt = pool.prepareStatement(conn, SQL, Statement.NO_GENERATED_KEYS)) {
+                stmt.setLong(1, i);
+                stmt.executeQuery();
+            }
+        }
+
+        verify(physicalConnections.get(0), times(1)).prepareStatement(SQL);
+        assertEquals(2, pool.getStatementHits());
+        assertEquals(1, pool.getStatementMisses());
+    }
+
+    @Test
+    public void sameStatementTwiceNotShared() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        try (final Connection conn = pool.getConnection();
+                final PreparedStatement stmt1 = pool.prepareStatement(conn, SQL, Statement.NO_GENERATED_KEYS);
+                final PreparedStatement stmt2 = pool.prepareStatement(conn, SQL, Statement.NO_GENERATED_KEYS)) {
+            assertNotSame(stmt1, stmt2);
+        }
+        verify(physicalConnections.get(0), times(2)).prepareStatement(SQL);
+    }
+
+    @Test
+    public void statementCacheDisabled() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 0);
+
+        for (int i = 0; i < 3; i++) {
+            try (final Connection conn = pool.getConnection();
+                    final PreparedStatement stmt = pool.prepareStatement(conn, SQL, Statement.NO_GENERATED_KEYS)) {
+                stmt.executeQuery();
+            }
+        }
+        verify(physicalConnections.get(0), times(3)).prepareStatement(SQL);
+    }
+
+    @Test
+    public void closeIdle() throws SQLException {
+        final ConnectionPool pool = newPool(2, 60_000L, 8);
+
+        pool.getConnection().close();
+        pool.closeIdle();
+        assertEquals(0, pool.getOpenConnections());
+        verify(physicalConnections.get(0)).close();
+
+        // Still usable
+        pool.getConnection().close();
+        assertEquals(2, pool.getCreatedConnections());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import me.tabinol.secuboid.Secuboid;
+import me.tabinol.secuboid.bukkit.FakeServer;
+
+/**
+ * ExpirableHashMapTest
+ */
+public final class ExpirableHashMapTest {
+
+    private static final long DELAY = 3L;
+
+    private BukkitScheduler scheduler;
+    private BukkitTask task;
+    private ExpirableHashMap<String, Integer> map;
+
+    @Before
+    public void init() {
+        FakeServer.init();
+        scheduler = mock(BukkitScheduler.class);
+        task = mock(BukkitTask.class);
+        when(Bukkit.getServer().getScheduler()).thenReturn(scheduler);
+        when(scheduler.runTaskTimer(any(Secuboid.class), any(Runnable.class), anyLong(), anyLong())).thenReturn(task);
+        map = new ExpirableHashMap<>(mock(Secuboid.class), DELAY);
+    }
+
+    @Test
+    public void expireAfterDelay() {
+        map.put("a", 1);
+        map.tick();
+        map.put("b", 2);
+        map.tick();
+        map.tick();
+        assertNull(map.get("a"));
+        assertEquals(Integer.valueOf(2), map.get("b"));
+        map.tick();
+        assertFalse(map.containsKey("b"));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putAgainRestartsDelay() {
+        map.put("a", 1);
+        map.tick();
+        map.tick();
+        assertEquals(Integer.valueOf(1), map.put("a", 2));
+        map.tick();
+        assertEquals(Integer.valueOf(2), map.get("a"));
+        map.tick();
+        map.tick();
+        assertNull(map.get("a"));
+    }
+
+    @Test
+    public void oneTaskForEveryEntry() {
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, i);
+        }
+        verify(scheduler, times(1)).runTaskTimer(any(Secuboid.class), any(Runnable.class), eq(1L), eq(1L));
+
+        // The task stops when the map is empty and starts again on the next put
+        for (int i = 0; i < DELAY; i++) {
+            map.tick();
+        }
+        assertEquals(0, map.size());
+        verify(task).cancel();
+        reset(scheduler);
+        when(scheduler.runTaskTimer(any(Secuboid.class), any(Runnable.class), anyLong(), anyLong())).thenReturn(task);
+        map.put("a", 1);
+        verify(scheduler, times(1)).runTaskTimer(any(Secuboid.class), any(Runnable.class), eq(1L), eq(1L));
+    }
+
+    @Test
+    public void removeAndEntries() {
+        map.put("a", 1);
+        map.put("b", 2);
+        assertEquals(Integer.valueOf(1), map.remove("a"));
+        final Map<String, Integer> entries = new HashMap<>();
+        for (final Map.Entry<String, Integer> entry : map.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(1, entries.size());
+        assertEquals(Integer.valueOf(2), entries.get("b"));
+    }
+}
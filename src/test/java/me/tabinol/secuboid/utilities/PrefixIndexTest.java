@@ -0,0 +1,84 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * PrefixIndexTest
+ */
+public final class PrefixIndexTest {
+
+    private PrefixIndex prefixIndex;
+
+    @Before
+    public void init() {
+        prefixIndex = new PrefixIndex();
+        for (final String name : Arrays.asList("PLACE_STONE", "PLACE_SAND", "DESTROY_STONE", "BUILD", "Place")) {
+            prefixIndex.add(name);
+        }
+    }
+
+    @Test
+    public void startingWithIgnoreCase() {
+        assertEquals(Arrays.asList("Place", "PLACE_SAND", "PLACE_STONE"), prefixIndex.getStartingWith("pla", 10));
+        assertEquals(Arrays.asList("PLACE_SAND", "PLACE_STONE"), prefixIndex.getStartingWith("PLACE_", 10));
+        assertEquals(5, prefixIndex.getStartingWith("", 10).size());
+        assertEquals(Collections.emptyList(), prefixIndex.getStartingWith("z", 10));
+    }
+
+    @Test
+    public void maxResults() {
+        assertEquals(Arrays.asList("Place", "PLACE_SAND"), prefixIndex.getStartingWith("place", 2));
+        assertEquals(Collections.emptyList(), prefixIndex.getStartingWith("place", 0));
+    }
+
+    @Test
+    public void removeAndRename() {
+        prefixIndex.remove("place_sand");
+        prefixIndex.add("PLACE_GRAVEL");
+        assertEquals(Arrays.asList("Place", "PLACE_GRAVEL", "PLACE_STONE"), prefixIndex.getStartingWith("place", 10));
+        assertEquals(5, prefixIndex.size());
+    }
+
+    @Test
+    public void keysStartingWith() {
+        final SortedMap<String, Integer> lowerKeyMap = new TreeMap<>();
+        lowerKeyMap.put("castle", 1);
+        lowerKeyMap.put("cave", 2);
+        lowerKeyMap.put("farm", 3);
+        assertEquals(Arrays.asList("castle", "cave"), PrefixIndex.getKeysStartingWith(lowerKeyMap, "CA", 10));
+        assertEquals(Collections.singletonList("castle"), PrefixIndex.getKeysStartingWith(lowerKeyMap, "ca", 1));
+    }
+
+    @Test
+    public void startsWithIgnoreCase() {
+        assertTrue(PrefixIndex.startsWithIgnoreCase("P:Steve", "p:st"));
+        assertFalse(PrefixIndex.startsWithIgnoreCase("P", "p:"));
+    }
+}
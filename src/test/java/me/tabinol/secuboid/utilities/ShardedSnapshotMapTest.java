@@ -0,0 +1,104 @@
+/*
+ Secuboid: Lands and Protection plugin for Minecraft server
+ Copyright (C) 2014 Tabinol
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.tabinol.secuboid.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the sharded snapshot map.
+ */
+public final class ShardedSnapshotMapTest {
+
+    private static final int NB_ENTRIES = 10_000;
+
+    @Test
+    public void putGetRemove() {
+        final ShardedSnapshotMap.Editor<Integer, String> editor = ShardedSnapshotMap.<Integer, String>empty().edit();
+        for (int i = 0; i < NB_ENTRIES; i++) {
+            assertNull(editor.put(i, "v" + i));
+        }
+        assertEquals("v5", editor.put(5, "new5"));
+        assertEquals("v6", editor.remove(6));
+        assertNull(editor.remove(-1));
+        assertFalse(editor.remove(7, "other"));
+        assertTrue(editor.remove(8, "v8"));
+        final ShardedSnapshotMap<Integer, String> map = editor.build();
+
+        assertEquals(NB_ENTRIES - 2, map.size());
+        assertEquals("new5", map.get(5));
+        assertEquals("v7", map.get(7));
+        assertFalse(map.containsKey(6));
+        assertFalse(map.containsKey(8));
+        assertTrue(map.containsKey(NB_ENTRIES - 1));
+    }
+
+    @Test
+    public void previousVersionUnchanged() {
+        final ShardedSnapshotMap.Editor<Integer, String> editor = ShardedSnapshotMap.<Integer, String>empty().edit();
+        for (int i = 0; i < NB_ENTRIES; i++) {
+            editor.put(i, "v" + i);
+        }
+        final ShardedSnapshotMap<Integer, String> map1 = editor.build();
+
+        final ShardedSnapshotMap.Editor<Integer, String> editor2 = map1.edit();
+        editor2.put(1, "new1");
+        editor2.remove(2);
+        editor2.put(NB_ENTRIES, "added");
+        final ShardedSnapshotMap<Integer, String> map2 = editor2.build();
+
+        assertEquals(NB_ENTRIES, map1.size());
+        assertEquals("v1", map1.get(1));
+        assertEquals("v2", map1.get(2));
+        assertNull(map1.get(NB_ENTRIES));
+        assertEquals(NB_ENTRIES, map2.size());
+        assertEquals("new1", map2.get(1));
+        assertNull(map2.get(2));
+        assertEquals("added", map2.get(NB_ENTRIES));
+        assertTrue(ShardedSnapshotMap.empty().values().isEmpty());
+    }
+
+    @Test
+    public void valuesOfAllShards() {
+        final ShardedSnapshotMap.Editor<Integer, Integer> editor = ShardedSnapshotMap.<Integer, Integer>empty().edit();
+        for (int i = 0; i < NB_ENTRIES; i++) {
+            editor.put(i, i);
+        }
+        final ShardedSnapshotMap<Integer, Integer> map = editor.build();
+
+        final Set<Integer> values = new HashSet<>(map.values());
+        assertEquals(NB_ENTRIES, map.values().size());
+        assertEquals(NB_ENTRIES, values.size());
+        assertTrue(values.contains(0));
+        assertTrue(values.contains(NB_ENTRIES - 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void valuesUnmodifiable() {
+        final ShardedSnapshotMap.Editor<Integer, Integer> editor = ShardedSnapshotMap.<Integer, Integer>empty().edit();
+        editor.put(1, 1);
+        editor.build().values().clear();
+    }
+}